@@ -31,12 +31,16 @@ import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.operation.ExecuteScriptOperation;
 import com.hazelcast.simulator.protocol.operation.InitSessionOperation;
 import com.hazelcast.simulator.protocol.operation.OperationTypeCounter;
+import com.hazelcast.simulator.protocol.operation.RcTestRateOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestRunOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestStatusOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestStopOperation;
+import com.hazelcast.simulator.protocol.operation.RcTestThreadCountOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerKillOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerScriptOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerStartOperation;
+import com.hazelcast.simulator.protocol.operation.SetIntervalOperation;
+import com.hazelcast.simulator.protocol.operation.SetThreadCountOperation;
 import com.hazelcast.simulator.protocol.processors.CoordinatorOperationProcessor;
 import com.hazelcast.simulator.protocol.registry.AgentData;
 import com.hazelcast.simulator.protocol.registry.ComponentRegistry;
@@ -364,6 +368,36 @@ public class Coordinator implements Closeable {
                 + " seconds, current status: " + test.getStatusString());
     }
 
+    public void testThreadCount(RcTestThreadCountOperation op) throws Exception {
+        awaitInitialized();
+
+        TestData test = componentRegistry.getTestByAddress(SimulatorAddress.fromString(op.getTestId()));
+        if (test == null) {
+            throw new IllegalStateException(format("no test with id [%s] found", op.getTestId()));
+        }
+
+        LOGGER.info(format("Test [%s] changing thread count of execution group [%s] to %d...",
+                op.getTestId(), op.getExecutionGroup(), op.getThreadCount()));
+
+        client.invokeOnTestOnAllWorkers(test.getAddress(),
+                new SetThreadCountOperation(op.getExecutionGroup(), op.getThreadCount()));
+    }
+
+    public void testRate(RcTestRateOperation op) throws Exception {
+        awaitInitialized();
+
+        TestData test = componentRegistry.getTestByAddress(SimulatorAddress.fromString(op.getTestId()));
+        if (test == null) {
+            throw new IllegalStateException(format("no test with id [%s] found", op.getTestId()));
+        }
+
+        LOGGER.info(format("Test [%s] changing interval of execution group [%s] to %d ns...",
+                op.getTestId(), op.getExecutionGroup(), op.getIntervalNanos()));
+
+        client.invokeOnTestOnAllWorkers(test.getAddress(),
+                new SetIntervalOperation(op.getExecutionGroup(), op.getIntervalNanos()));
+    }
+
     public String testStatus(RcTestStatusOperation op) throws Exception {
         awaitInitialized();
 
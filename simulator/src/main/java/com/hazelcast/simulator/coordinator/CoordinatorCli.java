@@ -370,10 +370,11 @@ final class CoordinatorCli {
                 .setParallel(options.has(parallelSpec))
                 .setWorkerQuery(workerQuery);
 
-        // if the coordinator is not monitoring performance, we don't care for measuring latencies
+        // if the coordinator is not monitoring performance, we don't care for measuring latencies or counting operations
         if (coordinatorParameters.getPerformanceMonitorIntervalSeconds() == 0) {
             for (TestCase testCase : testSuite.getTestCaseList()) {
                 testCase.setProperty("measureLatency", "false");
+                testCase.setProperty("countOperations", "false");
             }
         }
 
@@ -24,9 +24,11 @@ import com.hazelcast.simulator.protocol.operation.RcDownloadOperation;
 import com.hazelcast.simulator.protocol.operation.RcInstallOperation;
 import com.hazelcast.simulator.protocol.operation.RcPrintLayoutOperation;
 import com.hazelcast.simulator.protocol.operation.RcStopCoordinatorOperation;
+import com.hazelcast.simulator.protocol.operation.RcTestRateOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestRunOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestStatusOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestStopOperation;
+import com.hazelcast.simulator.protocol.operation.RcTestThreadCountOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerKillOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerScriptOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerStartOperation;
@@ -36,6 +38,7 @@ import com.hazelcast.simulator.protocol.registry.WorkerQuery;
 import com.hazelcast.simulator.utils.CommandLineExitException;
 import com.hazelcast.simulator.utils.FileUtils;
 import com.hazelcast.simulator.utils.TagUtils;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
 import joptsimple.ArgumentAcceptingOptionSpec;
 import joptsimple.NonOptionArgumentSpec;
 import joptsimple.OptionParser;
@@ -55,8 +58,11 @@ import static com.hazelcast.simulator.utils.CliUtils.initOptionsWithHelp;
 import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.CommonUtils.exitWithError;
 import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.parseDuration;
+import static java.lang.Math.round;
 import static java.lang.String.format;
 import static java.lang.System.arraycopy;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * CLI to access Simulator Coordinator remotely.
@@ -103,6 +109,8 @@ public final class CoordinatorRemoteCli implements Closeable {
             new PrintClusterLayoutCli().run(subArgs);
         } else if ("stop".equals(cmd)) {
             new ExitCli().run(subArgs);
+        } else if ("test-rate".equals(cmd)) {
+            new TestRateCli().run(subArgs);
         } else if ("test-run".equals(cmd)) {
             new TestRunCli().run(subArgs);
         } else if ("test-start".equals(cmd)) {
@@ -111,6 +119,8 @@ public final class CoordinatorRemoteCli implements Closeable {
             new TestStatusCli().run(subArgs);
         } else if ("test-stop".equals(cmd)) {
             new TestStopCli().run(subArgs);
+        } else if ("test-threads".equals(cmd)) {
+            new TestThreadsCli().run(subArgs);
         } else if ("worker-kill".equals(cmd)) {
             new WorkerKill().run(subArgs);
         } else if ("worker-script".equals(cmd)) {
@@ -129,10 +139,12 @@ public final class CoordinatorRemoteCli implements Closeable {
                         + "download        Downloads all artifacts from the workers                                    \n"
                         + "install         Installs vendor software on the remote machines                             \n"
                         + "print-layout    Prints the cluster-layout                                                   \n"
+                        + "test-rate       Changes the rate of a running test                                          \n"
                         + "test-run        Runs a test and wait for completion                                         \n"
                         + "test-start      Starts a test asynchronously                                                \n"
                         + "test-stop       Stops a test                                                                \n"
                         + "test-status     Checks the status of a test                                                 \n"
+                        + "test-threads    Changes the thread count of a running test                                  \n"
                         + "stop            Stops the Coordinator remote session                                        \n"
                         + "worker-kill     Kills one or more workers                                                   \n"
                         + "worker-script   Executes a script on workers                                                \n"
@@ -314,6 +326,119 @@ public final class CoordinatorRemoteCli implements Closeable {
         }
     }
 
+    private class TestThreadsCli extends AbstractCli {
+
+        private final String help =
+                "Changes the number of active timestep threads of an execution group while the test is running. The\n"
+                        + "execution group needs a threadCountSchedule or a maxThreadCount property, since all threads up\n"
+                        + "to the maximum are started with the run and are parked while they are not active.\n"
+                        + "\n"
+                        + "Examples\n"
+                        + "# Runs the default execution group of a test with 16 threads.\n"
+                        + "coordinator-remote test-threads C_A*_W*_T1 16\n"
+                        + "\n"
+                        + "# Runs the execution group 'reader' of a test with 4 threads.\n"
+                        + "coordinator-remote test-threads --group reader C_A*_W*_T1 4\n";
+
+        private final OptionSpec<String> groupSpec = parser.accepts("group",
+                "The execution group of which the thread count is changed.")
+                .withRequiredArg().ofType(String.class).defaultsTo("");
+
+        private final NonOptionArgumentSpec<String> argumentSpec = parser
+                .nonOptions("test address and thread count").ofType(String.class);
+
+        @Override
+        protected OptionSet newOptions(String[] args) {
+            return initOptionsWithHelp(parser, help, args);
+        }
+
+        @Override
+        protected SimulatorOperation newOperation() {
+            List<String> nonOptionArguments = options.valuesOf(argumentSpec);
+            if (nonOptionArguments.size() != 2) {
+                throw new CommandLineExitException("Expected a test address and a thread count");
+            }
+
+            String testId = nonOptionArguments.get(0);
+            int threadCount;
+            try {
+                threadCount = Integer.parseInt(nonOptionArguments.get(1));
+            } catch (NumberFormatException e) {
+                throw new CommandLineExitException("Thread count [" + nonOptionArguments.get(1) + "] is not a number");
+            }
+            return new RcTestThreadCountOperation(testId, options.valueOf(groupSpec), threadCount);
+        }
+    }
+
+    private class TestRateCli extends AbstractCli {
+
+        private final String help =
+                "Changes the rate of an execution group while the test is running. The execution group needs an interval\n"
+                        + "or ratePerSecond property, since without it the test runs without a metronome. Just like the\n"
+                        + "ratePerSecond property, the rate is per worker and is divided over the threads of the execution\n"
+                        + "group. The change is marked with a comment in the .hdr files of the test.\n"
+                        + "\n"
+                        + "Examples\n"
+                        + "# Runs the default execution group of a test with 1000 operations/second.\n"
+                        + "coordinator-remote test-rate C_A*_W*_T1 1000\n"
+                        + "\n"
+                        + "# Runs the execution group 'reader' of a test with an interval of 500us.\n"
+                        + "coordinator-remote test-rate --group reader --interval 500us C_A*_W*_T1\n";
+
+        private final OptionSpec<String> groupSpec = parser.accepts("group",
+                "The execution group of which the rate is changed.")
+                .withRequiredArg().ofType(String.class).defaultsTo("");
+
+        private final OptionSpec<String> intervalSpec = parser.accepts("interval",
+                "The interval between the requests instead of a rate, e.g. 10ms or 500us.")
+                .withRequiredArg().ofType(String.class);
+
+        private final NonOptionArgumentSpec<String> argumentSpec = parser
+                .nonOptions("test address and operations/second").ofType(String.class);
+
+        @Override
+        protected OptionSet newOptions(String[] args) {
+            return initOptionsWithHelp(parser, help, args);
+        }
+
+        @Override
+        protected SimulatorOperation newOperation() {
+            List<String> nonOptionArguments = options.valuesOf(argumentSpec);
+            int expectedArgumentCount = options.has(intervalSpec) ? 1 : 2;
+            if (nonOptionArguments.size() != expectedArgumentCount) {
+                throw new CommandLineExitException(options.has(intervalSpec)
+                        ? "Expected a test address" : "Expected a test address and a rate");
+            }
+
+            String testId = nonOptionArguments.get(0);
+            long intervalNanos = options.has(intervalSpec)
+                    ? loadIntervalNanos(options.valueOf(intervalSpec))
+                    : loadIntervalNanosFromRate(nonOptionArguments.get(1));
+            return new RcTestRateOperation(testId, options.valueOf(groupSpec), intervalNanos);
+        }
+
+        private long loadIntervalNanos(String interval) {
+            try {
+                return parseDuration("interval", interval);
+            } catch (IllegalTestException e) {
+                throw new CommandLineExitException(e.getMessage());
+            }
+        }
+
+        private long loadIntervalNanosFromRate(String rate) {
+            double ratePerSecond;
+            try {
+                ratePerSecond = Double.parseDouble(rate);
+            } catch (NumberFormatException e) {
+                throw new CommandLineExitException("Rate [" + rate + "] is not a number");
+            }
+            if (ratePerSecond <= 0) {
+                throw new CommandLineExitException("Rate must be positive, but was " + rate);
+            }
+            return round(SECONDS.toNanos(1) / ratePerSecond);
+        }
+    }
+
     private class DownloadCli extends AbstractCli {
 
         private final String help = ""
@@ -63,7 +63,8 @@ public class FailureCollector {
     public void notify(FailureOperation failure) {
         failure = enrich(failure);
 
-        if (failure.getType() != FailureType.WORKER_CREATE_ERROR) {
+        // these failures are raised by the coordinator and are not related to a specific worker
+        if (failure.getType() != FailureType.WORKER_CREATE_ERROR && failure.getType() != FailureType.SLA_VIOLATION) {
             WorkerData worker = componentRegistry.findWorker(failure.getWorkerAddress());
             if (worker == null) {
                 // we are not interested in failures of workers that aren't registered any longer.
@@ -47,8 +47,11 @@ public class PerformanceStatsCollector {
     public static final int OPERATION_COUNT_FORMAT_LENGTH = 14;
     public static final int THROUGHPUT_FORMAT_LENGTH = 12;
     public static final int LATENCY_FORMAT_LENGTH = 10;
+    public static final int ERROR_RATE_FORMAT_LENGTH = 6;
+    public static final int CPU_TIME_FORMAT_LENGTH = 8;
 
     private static final long DISPLAY_LATENCY_AS_MICROS_MAX_VALUE = SECONDS.toMicros(1);
+    private static final int ONE_HUNDRED_PERCENT = 100;
 
     // holds a map per Worker SimulatorAddress which contains the lastDelta PerformanceStats per testCaseId
     private final ConcurrentMap<SimulatorAddress, WorkerPerformance> workerPerformanceInfoMap
@@ -83,7 +86,7 @@ public class PerformanceStatsCollector {
             latencyMax = MICROSECONDS.toMillis(latencyMax);
         }
 
-        return format("%s ops %s ops/s %s %s (avg) %s %s (%sth) %s %s (max)",
+        String performanceNumbers = format("%s ops %s ops/s %s %s (avg) %s %s (%sth) %s %s (max)",
                 formatLong(latest.getOperationCount(), OPERATION_COUNT_FORMAT_LENGTH),
                 formatDouble(latest.getIntervalThroughput(), THROUGHPUT_FORMAT_LENGTH),
                 formatLong(latencyAvg, LATENCY_FORMAT_LENGTH),
@@ -93,6 +96,55 @@ public class PerformanceStatsCollector {
                 INTERVAL_LATENCY_PERCENTILE,
                 formatLong(latencyMax, LATENCY_FORMAT_LENGTH),
                 latencyUnit);
+
+        if (latest.hasServiceTime()) {
+            // the latencies above are the response times, so the service time shows the effect of coordinated omission
+            performanceNumbers = format("%s %s %s (%sth service time)",
+                    performanceNumbers,
+                    formatLong(toLatencyUnit(latest.getIntervalServiceTime999PercentileNanos(), latencyUnit),
+                            LATENCY_FORMAT_LENGTH),
+                    latencyUnit,
+                    INTERVAL_LATENCY_PERCENTILE);
+        }
+
+        if (latest.hasCorrectedLatency()) {
+            // the latencies above are the raw latencies of a closed-loop test, which hide the requests omitted during a stall
+            performanceNumbers = format("%s %s %s (%sth corrected)",
+                    performanceNumbers,
+                    formatLong(toLatencyUnit(latest.getIntervalCorrectedLatency999PercentileNanos(), latencyUnit),
+                            LATENCY_FORMAT_LENGTH),
+                    latencyUnit,
+                    INTERVAL_LATENCY_PERCENTILE);
+        }
+
+        if (latest.hasHiccup()) {
+            // the hiccups of the JVM and OS are the noise floor for the latencies above
+            performanceNumbers = format("%s %s %s (%sth hiccup)",
+                    performanceNumbers,
+                    formatLong(toLatencyUnit(latest.getIntervalHiccup999PercentileNanos(), latencyUnit), LATENCY_FORMAT_LENGTH),
+                    latencyUnit,
+                    INTERVAL_LATENCY_PERCENTILE);
+        }
+
+        if (latest.hasCpuTime()) {
+            // the CPU time makes an efficiency regression visible, even when there are enough idle cores to hide it
+            performanceNumbers = format("%s %s µs CPU/op",
+                    performanceNumbers,
+                    formatDouble(latest.getIntervalCpuMicrosPerOperation(), CPU_TIME_FORMAT_LENGTH));
+        }
+
+        if (latest.getFailureCount() > 0) {
+            performanceNumbers = format("%s %s failures %s%% errors",
+                    performanceNumbers,
+                    formatLong(latest.getFailureCount(), OPERATION_COUNT_FORMAT_LENGTH),
+                    formatDouble(latest.getIntervalErrorRate() * ONE_HUNDRED_PERCENT, ERROR_RATE_FORMAT_LENGTH));
+        }
+        return performanceNumbers;
+    }
+
+    private static long toLatencyUnit(long latencyNanos, String latencyUnit) {
+        long latencyMicros = NANOSECONDS.toMicros(latencyNanos);
+        return "ms".equals(latencyUnit) ? MICROSECONDS.toMillis(latencyMicros) : latencyMicros;
     }
 
     PerformanceStats get(String testCaseId, boolean aggregated) {
@@ -107,6 +159,22 @@ public class PerformanceStatsCollector {
         return result;
     }
 
+    /**
+     * Returns the number of intervals received for a test from all workers.
+     *
+     * The number only changes when a new interval is received, so it shows if the last interval has been seen before.
+     *
+     * @param testCaseId the id of the test
+     * @return the number of received intervals
+     */
+    long getIntervalCount(String testCaseId) {
+        long intervalCount = 0;
+        for (WorkerPerformance workerPerformance : workerPerformanceInfoMap.values()) {
+            intervalCount += workerPerformance.getIntervalCount(testCaseId);
+        }
+        return intervalCount;
+    }
+
     public String detailedPerformanceInfo(String testId, long runningTimeMs) {
         PerformanceStats totalPerformanceStats = new PerformanceStats();
         Map<SimulatorAddress, PerformanceStats> agentPerformanceStatsMap = new HashMap<SimulatorAddress, PerformanceStats>();
@@ -195,7 +263,7 @@ public class PerformanceStatsCollector {
             for (; ; ) {
                 TestPerformance current = testPerformanceMap.get(testId);
                 if (current == null) {
-                    if (testPerformanceMap.putIfAbsent(testId, new TestPerformance(delta, delta)) == null) {
+                    if (testPerformanceMap.putIfAbsent(testId, new TestPerformance(delta, delta, 1)) == null) {
                         return;
                     }
                 } else {
@@ -214,6 +282,11 @@ public class PerformanceStatsCollector {
             }
             return aggregated ? testPerformance.aggregated : testPerformance.lastDelta;
         }
+
+        private long getIntervalCount(String testId) {
+            TestPerformance testPerformance = testPerformanceMap.get(testId);
+            return testPerformance == null ? 0 : testPerformance.intervalCount;
+        }
     }
 
     /**
@@ -222,16 +295,18 @@ public class PerformanceStatsCollector {
     private final class TestPerformance {
         private final PerformanceStats aggregated;
         private final PerformanceStats lastDelta;
+        private final long intervalCount;
 
-        private TestPerformance(PerformanceStats aggregated, PerformanceStats lastDelta) {
+        private TestPerformance(PerformanceStats aggregated, PerformanceStats lastDelta, long intervalCount) {
             this.aggregated = aggregated;
             this.lastDelta = lastDelta;
+            this.intervalCount = intervalCount;
         }
 
         private TestPerformance update(PerformanceStats delta) {
             PerformanceStats newAggregated = new PerformanceStats(aggregated);
             newAggregated.add(delta, false);
-            return new TestPerformance(newAggregated, delta);
+            return new TestPerformance(newAggregated, delta, intervalCount + 1);
         }
     }
 }
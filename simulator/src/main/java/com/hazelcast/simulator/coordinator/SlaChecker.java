@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+
+import java.util.Map;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.SLA_PROPERTY_PREFIX;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.parseDuration;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Evaluates the service level agreements (SLAs) of a {@link TestCase} against the interval performance numbers.
+ *
+ * The SLAs are configured with the test properties:
+ * <ol>
+ * <li>{@code sla.p999}: the maximum 99.9th percentile latency, e.g. 5ms</li>
+ * <li>{@code sla.maxLatency}: the maximum latency, e.g. 1s</li>
+ * <li>{@code sla.minThroughput}: the minimum throughput in operations/second</li>
+ * <li>{@code sla.maxErrorRate}: the maximum fraction of failed operations, e.g. 0.01</li>
+ * <li>{@code sla.violationIntervals}: the number of consecutive intervals a violation needs to persist</li>
+ * </ol>
+ * A single bad interval, e.g. caused by a GC pause, is not reported. Only when a violation persists for
+ * {@code sla.violationIntervals} intervals, it's reported as a failure. An interval is only counted once, even if it is
+ * checked again because no new interval has been received in the meantime.
+ *
+ * The SLA properties are validated when the test is added to the {@link TestSuite}, so a malformed SLA fails the test suite
+ * before any test is started.
+ *
+ * This class is not thread-safe; it's only used by the thread of the {@link TestCaseRunner}.
+ */
+final class SlaChecker {
+
+    static final int DEFAULT_VIOLATION_INTERVALS = 3;
+
+    private static final String P999 = SLA_PROPERTY_PREFIX + "p999";
+    private static final String MAX_LATENCY = SLA_PROPERTY_PREFIX + "maxLatency";
+    private static final String MIN_THROUGHPUT = SLA_PROPERTY_PREFIX + "minThroughput";
+    private static final String MAX_ERROR_RATE = SLA_PROPERTY_PREFIX + "maxErrorRate";
+    private static final String VIOLATION_INTERVALS = SLA_PROPERTY_PREFIX + "violationIntervals";
+
+    private static final long NOT_SET = -1;
+
+    private long p999Nanos = NOT_SET;
+    private long maxLatencyNanos = NOT_SET;
+    private double minThroughput = NOT_SET;
+    private double maxErrorRate = NOT_SET;
+    private int violationIntervals = DEFAULT_VIOLATION_INTERVALS;
+
+    private int consecutiveViolations;
+    private long lastIntervalCount;
+
+    SlaChecker(TestCase testCase) {
+        for (Map.Entry<String, String> entry : testCase.getProperties().entrySet()) {
+            String property = entry.getKey();
+            if (property.startsWith(SLA_PROPERTY_PREFIX)) {
+                load(testCase.getId(), property, entry.getValue().trim());
+            }
+        }
+    }
+
+    private void load(String testId, String property, String value) {
+        try {
+            if (P999.equals(property)) {
+                p999Nanos = parseDuration(property, value);
+            } else if (MAX_LATENCY.equals(property)) {
+                maxLatencyNanos = parseDuration(property, value);
+            } else if (MIN_THROUGHPUT.equals(property)) {
+                minThroughput = Double.parseDouble(value);
+            } else if (MAX_ERROR_RATE.equals(property)) {
+                maxErrorRate = Double.parseDouble(value);
+            } else if (VIOLATION_INTERVALS.equals(property)) {
+                violationIntervals = Integer.parseInt(value);
+                if (violationIntervals < 1) {
+                    throw new IllegalArgumentException(format("Property [%s] in testId [%s] has to be at least 1, but was %s",
+                            property, testId, value));
+                }
+            } else {
+                throw new IllegalArgumentException(format("Unknown SLA property [%s] in testId [%s]", property, testId));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    format("Property [%s] in testId [%s] has an invalid value [%s]", property, testId, value), e);
+        } catch (IllegalTestException e) {
+            throw new IllegalArgumentException(
+                    format("Property [%s] in testId [%s] has an invalid value [%s]", property, testId, value), e);
+        }
+    }
+
+    /**
+     * Validates the SLA properties of a {@link TestCase}.
+     *
+     * @param testCase the test case to validate
+     * @throws IllegalArgumentException if an SLA property is unknown or has an invalid value
+     */
+    static void validate(TestCase testCase) {
+        new SlaChecker(testCase);
+    }
+
+    /**
+     * Checks if any SLAs are configured.
+     *
+     * @return {@code true} if at least one SLA is configured
+     */
+    boolean hasSla() {
+        return p999Nanos != NOT_SET || maxLatencyNanos != NOT_SET || minThroughput != NOT_SET || maxErrorRate != NOT_SET;
+    }
+
+    /**
+     * Checks the performance numbers of an interval against the SLAs.
+     *
+     * @param intervalStats the {@link PerformanceStats} of the last interval of all workers
+     * @param intervalCount the number of intervals received from all workers, which identifies the checked interval
+     * @return the description of the violation if it has persisted for the configured number of intervals,
+     * otherwise {@code null}; a persisting violation is reported only once
+     */
+    String check(PerformanceStats intervalStats, long intervalCount) {
+        if (intervalStats.isEmpty() || intervalCount == lastIntervalCount) {
+            // no new performance numbers have been received since the last check
+            return null;
+        }
+        lastIntervalCount = intervalCount;
+
+        String violation = findViolation(intervalStats);
+        if (violation == null) {
+            consecutiveViolations = 0;
+            return null;
+        }
+
+        consecutiveViolations++;
+        if (consecutiveViolations != violationIntervals) {
+            return null;
+        }
+        return format("%s for %d consecutive intervals", violation, consecutiveViolations);
+    }
+
+    private String findViolation(PerformanceStats stats) {
+        if (p999Nanos != NOT_SET && stats.getIntervalLatency999PercentileNanos() > p999Nanos) {
+            return format("99.9th percentile latency %d µs exceeds SLA of %d µs",
+                    NANOSECONDS.toMicros(stats.getIntervalLatency999PercentileNanos()), NANOSECONDS.toMicros(p999Nanos));
+        }
+        if (maxLatencyNanos != NOT_SET && stats.getIntervalLatencyMaxNanos() > maxLatencyNanos) {
+            return format("Max latency %d µs exceeds SLA of %d µs",
+                    NANOSECONDS.toMicros(stats.getIntervalLatencyMaxNanos()), NANOSECONDS.toMicros(maxLatencyNanos));
+        }
+        if (minThroughput != NOT_SET && stats.getIntervalThroughput() < minThroughput) {
+            return format("Throughput %.2f ops/s is below SLA of %.2f ops/s", stats.getIntervalThroughput(), minThroughput);
+        }
+        if (maxErrorRate != NOT_SET && stats.getIntervalErrorRate() > maxErrorRate) {
+            return format("Error rate %.4f exceeds SLA of %.4f", stats.getIntervalErrorRate(), maxErrorRate);
+        }
+        return null;
+    }
+}
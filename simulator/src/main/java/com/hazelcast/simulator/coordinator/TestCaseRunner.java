@@ -15,10 +15,12 @@
  */
 package com.hazelcast.simulator.coordinator;
 
+import com.hazelcast.simulator.common.FailureType;
 import com.hazelcast.simulator.common.TestCase;
 import com.hazelcast.simulator.common.TestPhase;
 import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.operation.CreateTestOperation;
+import com.hazelcast.simulator.protocol.operation.FailureOperation;
 import com.hazelcast.simulator.protocol.operation.StartTestOperation;
 import com.hazelcast.simulator.protocol.operation.StartTestPhaseOperation;
 import com.hazelcast.simulator.protocol.operation.StopTestOperation;
@@ -26,6 +28,7 @@ import com.hazelcast.simulator.protocol.registry.ComponentRegistry;
 import com.hazelcast.simulator.protocol.registry.TargetType;
 import com.hazelcast.simulator.protocol.registry.TestData;
 import com.hazelcast.simulator.protocol.registry.WorkerData;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
@@ -96,6 +99,7 @@ public final class TestCaseRunner implements TestPhaseListener {
     private final int performanceMonitorIntervalSeconds;
     private final int logRunPhaseIntervalSeconds;
     private final List<WorkerData> targets;
+    private final SlaChecker slaChecker;
 
     @SuppressWarnings("checkstyle:parameternumber")
     public TestCaseRunner(TestData test,
@@ -133,6 +137,8 @@ public final class TestCaseRunner implements TestPhaseListener {
             this.logRunPhaseIntervalSeconds = RUN_PHASE_LOG_INTERVAL_SECONDS;
         }
 
+        this.slaChecker = new SlaChecker(testCase);
+
         for (TestPhase testPhase : TestPhase.values()) {
             phaseCompletedMap.put(testPhase, synchronizedList(new ArrayList<SimulatorAddress>()));
         }
@@ -271,6 +277,9 @@ public final class TestCaseRunner implements TestPhaseListener {
             if (iteration % logRunPhaseIntervalSeconds == 0) {
                 logProgress(nowMs - startMs, durationMs);
             }
+            if (performanceMonitorIntervalSeconds > 0 && iteration % performanceMonitorIntervalSeconds == 0) {
+                checkSla(nowMs - startMs);
+            }
         }
 
         stop(RUN);
@@ -342,6 +351,28 @@ public final class TestCaseRunner implements TestPhaseListener {
         LOGGER.info(prefix + msg);
     }
 
+    private void checkSla(long elapsedMs) {
+        // the warmup is expected to violate the SLAs
+        if (!slaChecker.hasSla() || elapsedMs < testCase.getWarmupMillis()) {
+            return;
+        }
+
+        // the stats are read again if an interval was received in the meantime, so they match the interval count
+        long intervalCount;
+        PerformanceStats intervalStats;
+        do {
+            intervalCount = performanceStatsCollector.getIntervalCount(testCase.getId());
+            intervalStats = performanceStatsCollector.get(testCase.getId(), false);
+        } while (intervalCount != performanceStatsCollector.getIntervalCount(testCase.getId()));
+
+        String violation = slaChecker.check(intervalStats, intervalCount);
+        if (violation != null) {
+            // the failure aborts this test and with failFast all other tests
+            failureCollector.notify(new FailureOperation(violation, FailureType.SLA_VIOLATION, null, null,
+                    null, null, testCase.getId(), null));
+        }
+    }
+
     private void waitForPhaseCompletion(TestPhase testPhase) {
         int completedWorkers = phaseCompletedMap.get(testPhase).size();
         int expectedWorkers = getExpectedWorkerCount(testPhase);
@@ -171,6 +171,8 @@ public class TestSuite {
     }
 
     public TestSuite addTest(TestCase testCase) {
+        // a malformed SLA would otherwise only fail when the test is started
+        SlaChecker.validate(testCase);
         testCaseList.add(testCase);
         return this;
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes;
+
+/**
+ * Corrects the latencies of a closed-loop (unthrottled) timestep thread for coordinated omission.
+ *
+ * A closed-loop thread only issues the next request when the previous one has completed. So a stall of 2 seconds shows
+ * up as a single bad sample, although all the requests which would have been issued during the stall have been delayed as
+ * well. Just like {@link org.HdrHistogram.Histogram#recordValueWithExpectedInterval(long, long)}, this corrector records
+ * the missing samples with linearly decreasing latencies, based on the interval in which the requests are expected.
+ *
+ * The expected interval is either configured, or derived from a moving average of the latencies observed by the thread.
+ * The corrected latencies are recorded in a separate {@link Probe}, so the raw and corrected latencies can be compared.
+ *
+ * This class is not thread-safe; every timestep thread needs its own instance.
+ */
+public final class CoordinatedOmissionCorrector {
+
+    // a new latency has a weight of 1/16 in the moving average, so a single stall doesn't inflate the expected interval
+    private static final int MOVING_AVERAGE_SHIFT = 4;
+
+    private final Probe correctedProbe;
+    private final long configuredExpectedIntervalNanos;
+    private long movingAverageNanos;
+
+    /**
+     * Creates a corrector.
+     *
+     * @param correctedProbe        the probe to record the corrected latencies in
+     * @param expectedIntervalNanos the expected interval between two requests or 0 if it should be derived from the
+     *                              moving average of the observed latencies
+     */
+    public CoordinatedOmissionCorrector(Probe correctedProbe, long expectedIntervalNanos) {
+        if (expectedIntervalNanos < 0) {
+            throw new IllegalArgumentException("expectedIntervalNanos can't be negative, but was " + expectedIntervalNanos);
+        }
+        this.correctedProbe = correctedProbe;
+        this.configuredExpectedIntervalNanos = expectedIntervalNanos;
+    }
+
+    /**
+     * Returns the interval in which the requests are expected.
+     *
+     * @return the expected interval in nanoseconds or 0 if no latencies have been observed yet
+     */
+    public long getExpectedIntervalNanos() {
+        return configuredExpectedIntervalNanos > 0 ? configuredExpectedIntervalNanos : movingAverageNanos;
+    }
+
+    /**
+     * Records an observed latency and the latencies of the requests which have been omitted while waiting for it.
+     *
+     * @param latencyNanos the observed latency
+     */
+    public void recordValue(long latencyNanos) {
+        // the interval is taken before the latency is added to the moving average, so the stall itself is corrected
+        long expectedIntervalNanos = getExpectedIntervalNanos();
+
+        correctedProbe.recordValue(latencyNanos);
+        if (expectedIntervalNanos > 0) {
+            for (long missingNanos = latencyNanos - expectedIntervalNanos; missingNanos >= expectedIntervalNanos;
+                 missingNanos -= expectedIntervalNanos) {
+                correctedProbe.recordValue(missingNanos);
+            }
+        }
+
+        if (configuredExpectedIntervalNanos == 0) {
+            movingAverageNanos = movingAverageNanos == 0
+                    ? latencyNanos
+                    : movingAverageNanos + ((latencyNanos - movingAverageNanos) >> MOVING_AVERAGE_SHIFT);
+        }
+    }
+}
@@ -31,6 +31,18 @@ public interface Probe {
      */
     void done(long startNanos);
 
+    /**
+     * Records the response time calculated from the intended start time and, if the probe tracks the service time, the
+     * service time calculated from the actual start time.
+     *
+     * The intended start time is the time the call was supposed to start according to the schedule of the metronome.
+     * The difference between both times is the time the call was waiting in the load generator.
+     *
+     * @param intendedStartNanos the intended start time from {@link System#nanoTime()}.
+     * @param actualStartNanos   the actual start time from {@link System#nanoTime()}.
+     */
+    void done(long intendedStartNanos, long actualStartNanos);
+
     /**
      * Adds a latency value in nanoseconds to the probe result.
      *
@@ -38,5 +50,32 @@ public interface Probe {
      */
     void recordValue(long latencyNanos);
 
+    /**
+     * Adds a latency value in nanoseconds to the probe result as if it was recorded {@code count} times.
+     *
+     * This is used when only one out of every {@code count} calls is timed, so the probe still counts every call.
+     *
+     * @param latencyNanos latency value in nanoseconds
+     * @param count        the number of calls the latency value represents
+     */
+    void recordValueWithCount(long latencyNanos, long count);
+
+    /**
+     * Calculates the latency of a failed call from an external start time and records it as a failure.
+     *
+     * Failures are kept apart from the latency of the successful calls, so fast failing calls don't make the latency
+     * look better than it is.
+     *
+     * @param startNanos external start time from {@link System#nanoTime()}.
+     */
+    void failed(long startNanos);
+
+    /**
+     * Adds the latency value in nanoseconds of a failed call to the probe result.
+     *
+     * @param latencyNanos latency value in nanoseconds
+     */
+    void recordFailedValue(long latencyNanos);
+
     void reset();
 }
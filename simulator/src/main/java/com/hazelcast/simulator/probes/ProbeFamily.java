@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A family of {@link Probe} instances which breaks down the latency of an operation by a tag value, e.g. by member,
+ * partition owner or key locality.
+ *
+ * Every tag value gets its own child probe, so it is written to its own histogram file. The number of tag values is
+ * bounded; once all slots are taken, the remaining tag values share a single 'other' probe.
+ *
+ * Resolving a tag value is not meant for the hot path. Resolve the {@link Probe} (using {@link #withTag(String)}) or its
+ * index (using {@link #register(String)}) up front, e.g. in the thread state or when setting up the test, and record
+ * into the child probe directly or look it up by index using {@link #get(int)}.
+ */
+public final class ProbeFamily {
+
+    /**
+     * Creates the child probes of a {@link ProbeFamily}.
+     */
+    public interface ProbeFactory {
+
+        /**
+         * Creates the probe for a tag value.
+         *
+         * @param probeName the name of the child probe
+         * @return the created probe
+         */
+        Probe newProbe(String probeName);
+    }
+
+    static final String OTHER_TAG_VALUE = "other";
+
+    private final String name;
+    private final ProbeFactory probeFactory;
+    private final String[] tagValues;
+    private final AtomicReferenceArray<Probe> probes;
+    private int size;
+
+    /**
+     * Creates a probe family.
+     *
+     * @param name         the name of the family; the child probes are named {@code <name>-<tagValue>}
+     * @param maxTagValues the maximum number of tag values that get their own probe
+     * @param probeFactory the factory for the child probes
+     */
+    public ProbeFamily(String name, int maxTagValues, ProbeFactory probeFactory) {
+        if (maxTagValues < 1) {
+            throw new IllegalArgumentException("maxTagValues has to be at least 1, but was " + maxTagValues);
+        }
+
+        this.name = name;
+        this.probeFactory = probeFactory;
+        this.tagValues = new String[maxTagValues];
+        // the last slot is used for the tag values which didn't fit
+        this.probes = new AtomicReferenceArray<Probe>(maxTagValues + 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxTagValues() {
+        return tagValues.length;
+    }
+
+    /**
+     * Returns the number of registered tag values (not counting the 'other' probe).
+     *
+     * @return the number of tag values
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Registers a tag value and returns its index.
+     *
+     * If the maximum number of tag values is reached, the index of the 'other' probe is returned.
+     *
+     * @param tagValue the tag value
+     * @return the index of the tag value, which can be used with {@link #get(int)}
+     */
+    public synchronized int register(String tagValue) {
+        for (int index = 0; index < size; index++) {
+            if (tagValues[index].equals(tagValue)) {
+                return index;
+            }
+        }
+
+        if (size == tagValues.length) {
+            int otherIndex = tagValues.length;
+            if (probes.get(otherIndex) == null) {
+                probes.set(otherIndex, probeFactory.newProbe(name + '-' + OTHER_TAG_VALUE));
+            }
+            return otherIndex;
+        }
+
+        int index = size;
+        tagValues[index] = tagValue;
+        probes.set(index, probeFactory.newProbe(name + '-' + toProbeNameSuffix(tagValue)));
+        size++;
+        return index;
+    }
+
+    /**
+     * Returns the probe of a tag value and registers the tag value if needed.
+     *
+     * @param tagValue the tag value
+     * @return the probe of the tag value
+     */
+    public Probe withTag(String tagValue) {
+        return probes.get(register(tagValue));
+    }
+
+    /**
+     * Returns the probe of a registered tag value.
+     *
+     * This method doesn't do any lookups, so it can be used on the hot path.
+     *
+     * @param index the index returned by {@link #register(String)}
+     * @return the probe of the tag value
+     */
+    public Probe get(int index) {
+        return probes.get(index);
+    }
+
+    /**
+     * Makes sure the tag value can be used in the name of the histogram file.
+     */
+    static String toProbeNameSuffix(String tagValue) {
+        StringBuilder sb = new StringBuilder(tagValue.length());
+        for (int i = 0; i < tagValue.length(); i++) {
+            char c = tagValue.charAt(i);
+            sb.append(Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_' ? c : '_');
+        }
+        return sb.toString();
+    }
+}
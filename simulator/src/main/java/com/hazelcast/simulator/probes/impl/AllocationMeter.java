@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Measures the number of bytes which are allocated per call of a timestep method.
+ *
+ * Reading the allocated bytes of a thread is too expensive to do around every call, so the generated timestep runner only
+ * measures one out of every {@code allocationSampleInterval} calls of a thread. Every call has the same chance to be
+ * sampled, so the average of the samples is the number of bytes allocated per operation. Every thread records into its own
+ * {@link Sampler}, so there is no contention between the threads.
+ *
+ * The runner reads the allocated bytes before the start time of the call is taken and completes the sample after the latency
+ * has been recorded, so the measurement isn't part of the latency of the sampled call.
+ *
+ * The bytes are read using {@link ThreadMXBean#getThreadAllocatedBytes(long)}, which includes the used part of the TLAB, so
+ * even a single small allocation is visible. The bytes allocated by the measurement itself are subtracted.
+ */
+public final class AllocationMeter {
+
+    private static final int CALIBRATION_ROUNDS = 16;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = loadThreadMXBean();
+    private static final long MEASUREMENT_OVERHEAD_BYTES = calibrate();
+
+    private final List<Sampler> samplers = new CopyOnWriteArrayList<Sampler>();
+    private final ThreadLocal<Sampler> threadSampler = new ThreadLocal<Sampler>() {
+        @Override
+        protected Sampler initialValue() {
+            Sampler sampler = new Sampler();
+            samplers.add(sampler);
+            return sampler;
+        }
+    };
+
+    /**
+     * Checks if the JVM can measure the allocated bytes per thread.
+     *
+     * @return {@code true} if allocations can be measured, {@code false} otherwise
+     */
+    public static boolean isSupported() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    /**
+     * Returns the {@link Sampler} of the calling thread.
+     *
+     * The returned sampler should only be used by the calling thread.
+     *
+     * @return the sampler of the calling thread
+     */
+    public Sampler threadSampler() {
+        return threadSampler.get();
+    }
+
+    /**
+     * Returns the total number of bytes allocated by the sampled calls.
+     *
+     * @return the allocated bytes
+     */
+    public long getAllocatedBytes() {
+        long sum = 0;
+        for (Sampler sampler : samplers) {
+            sum += sampler.allocatedBytes;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the total number of sampled calls.
+     *
+     * @return the number of samples
+     */
+    public long getSampleCount() {
+        long sum = 0;
+        for (Sampler sampler : samplers) {
+            sum += sampler.sampleCount;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the bytes allocated by the calling thread so far.
+     *
+     * This can be passed to {@link Sampler#stop(long)} when the timestep method of the sample isn't known yet.
+     *
+     * @return the allocated bytes of the calling thread
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static ThreadMXBean loadThreadMXBean() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof ThreadMXBean)) {
+            return null;
+        }
+
+        ThreadMXBean sunThreadMXBean = (ThreadMXBean) threadMXBean;
+        try {
+            if (!sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return sunThreadMXBean;
+        } catch (UnsupportedOperationException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Determines the bytes which are allocated by reading the allocated bytes, e.g. the arrays created by the JDK 8
+     * implementation. The minimum of a few rounds is taken, so a TLAB refill doesn't disturb the calibration.
+     */
+    private static long calibrate() {
+        if (THREAD_MX_BEAN == null) {
+            return 0;
+        }
+
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = currentThreadAllocatedBytes();
+            overhead = min(overhead, currentThreadAllocatedBytes() - start);
+        }
+        return max(0, overhead);
+    }
+
+    /**
+     * A single writer sampler of the allocations of a timestep method by a single thread.
+     */
+    public static final class Sampler {
+
+        private static final AtomicLongFieldUpdater<Sampler> ALLOCATED_BYTES
+                = AtomicLongFieldUpdater.newUpdater(Sampler.class, "allocatedBytes");
+        private static final AtomicLongFieldUpdater<Sampler> SAMPLE_COUNT
+                = AtomicLongFieldUpdater.newUpdater(Sampler.class, "sampleCount");
+
+        private volatile long allocatedBytes;
+        private volatile long sampleCount;
+
+        /**
+         * Starts a sample.
+         *
+         * @return the bytes allocated by the calling thread so far, which needs to be passed to {@link #stop(long)}
+         */
+        public long start() {
+            return currentThreadAllocatedBytes();
+        }
+
+        /**
+         * Completes a sample.
+         *
+         * @param startAllocatedBytes the value returned by {@link #start()} or {@link AllocationMeter#currentThreadAllocatedBytes()}
+         */
+        public void stop(long startAllocatedBytes) {
+            long bytes = currentThreadAllocatedBytes() - startAllocatedBytes - MEASUREMENT_OVERHEAD_BYTES;
+            ALLOCATED_BYTES.lazySet(this, allocatedBytes + max(0, bytes));
+            SAMPLE_COUNT.lazySet(this, sampleCount + 1);
+        }
+    }
+}
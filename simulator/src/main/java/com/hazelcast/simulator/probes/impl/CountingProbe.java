@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import com.hazelcast.simulator.probes.Probe;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A {@link Probe} that only counts the number of operations and doesn't track latency.
+ *
+ * This probe is used when latency is not being measured, so we still get the throughput per timestep method. Every thread
+ * increments its own padded {@link Counter}, so there is no contention and no false sharing between the threads. The
+ * generated timestep runner looks up the counter of its thread once using {@link #threadCounter()}, so the cost in the
+ * timestep loop is a single ordered write.
+ */
+public class CountingProbe implements Probe {
+
+    private final List<Counter> counters = new CopyOnWriteArrayList<Counter>();
+    private final ThreadLocal<Counter> threadCounter = new ThreadLocal<Counter>() {
+        @Override
+        protected Counter initialValue() {
+            Counter counter = new Counter();
+            counters.add(counter);
+            return counter;
+        }
+    };
+
+    private final List<Counter> failureCounters = new CopyOnWriteArrayList<Counter>();
+    private final ThreadLocal<Counter> threadFailureCounter = new ThreadLocal<Counter>() {
+        @Override
+        protected Counter initialValue() {
+            Counter counter = new Counter();
+            failureCounters.add(counter);
+            return counter;
+        }
+    };
+
+    private final boolean partOfTotalThroughput;
+    private volatile long resetCount;
+    private volatile long resetFailureCount;
+
+    public CountingProbe(boolean partOfTotalThroughput) {
+        this.partOfTotalThroughput = partOfTotalThroughput;
+    }
+
+    @Override
+    public boolean isPartOfTotalThroughput() {
+        return partOfTotalThroughput;
+    }
+
+    @Override
+    public void done(long startNanos) {
+        threadCounter.get().inc();
+    }
+
+    @Override
+    public void done(long intendedStartNanos, long actualStartNanos) {
+        threadCounter.get().inc();
+    }
+
+    @Override
+    public void recordValue(long latencyNanos) {
+        threadCounter.get().inc();
+    }
+
+    @Override
+    public void recordValueWithCount(long latencyNanos, long count) {
+        threadCounter.get().add(count);
+    }
+
+    @Override
+    public void failed(long startNanos) {
+        threadFailureCounter.get().inc();
+    }
+
+    @Override
+    public void recordFailedValue(long latencyNanos) {
+        threadFailureCounter.get().inc();
+    }
+
+    /**
+     * Returns the {@link Counter} of the calling thread.
+     *
+     * The returned counter should only be incremented by the calling thread.
+     *
+     * @return the counter of the calling thread
+     */
+    public Counter threadCounter() {
+        return threadCounter.get();
+    }
+
+    /**
+     * Returns the number of operations since the last {@link #reset()}.
+     *
+     * @return the number of operations
+     */
+    public long getCount() {
+        return sum(counters) - resetCount;
+    }
+
+    /**
+     * Returns the number of failed operations since the last {@link #reset()}.
+     *
+     * @return the number of failures
+     */
+    public long getFailureCount() {
+        return sum(failureCounters) - resetFailureCount;
+    }
+
+    /**
+     * Resets the count.
+     *
+     * The counters are owned by the recording threads, so instead of writing to them the current count is remembered.
+     */
+    @Override
+    public void reset() {
+        resetCount = sum(counters);
+        resetFailureCount = sum(failureCounters);
+    }
+
+    private static long sum(List<Counter> counters) {
+        long sum = 0;
+        for (Counter counter : counters) {
+            sum += counter.value;
+        }
+        return sum;
+    }
+
+    /**
+     * A single writer counter which is padded to prevent false sharing with the counters of other threads.
+     */
+    @SuppressWarnings("unused")
+    public static final class Counter {
+
+        private static final AtomicLongFieldUpdater<Counter> VALUE = AtomicLongFieldUpdater.newUpdater(Counter.class, "value");
+
+        private long p01;
+        private long p02;
+        private long p03;
+        private long p04;
+        private long p05;
+        private long p06;
+        private long p07;
+        private volatile long value;
+        private long p11;
+        private long p12;
+        private long p13;
+        private long p14;
+        private long p15;
+        private long p16;
+        private long p17;
+
+        public void inc() {
+            VALUE.lazySet(this, value + 1);
+        }
+
+        public void add(long delta) {
+            VALUE.lazySet(this, value + delta);
+        }
+
+        public long get() {
+            return value;
+        }
+    }
+}
@@ -37,10 +37,26 @@ public class EmptyProbe implements Probe {
     public void done(long startNanos) {
     }
 
+    @Override
+    public void done(long intendedStartNanos, long actualStartNanos) {
+    }
+
     @Override
     public void recordValue(long latencyNanos) {
     }
 
+    @Override
+    public void recordValueWithCount(long latencyNanos, long count) {
+    }
+
+    @Override
+    public void failed(long startNanos) {
+    }
+
+    @Override
+    public void recordFailedValue(long latencyNanos) {
+    }
+
     @Override
     public void reset() {
     }
@@ -16,6 +16,7 @@
 package com.hazelcast.simulator.probes.impl;
 
 import com.hazelcast.simulator.probes.Probe;
+import org.HdrHistogram.Histogram;
 import org.HdrHistogram.Recorder;
 
 import static java.util.concurrent.TimeUnit.HOURS;
@@ -37,15 +38,46 @@ public class HdrProbe implements Probe {
 
     // these settings come the website; just above the following link
     //https://github.com/HdrHistogram/HdrHistogram#histogram-variants-and-internal-representation
-    private final Recorder recorder = new Recorder(
-            LOWEST_DISCERNIBLE_VALUE,
-            HIGHEST_TRACKABLE_VALUE,
-            NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+    private final Recorder recorder;
+    // failures are rare, so the failure histogram only grows when needed
+    private final Recorder failureRecorder;
+    private final HistogramConfig histogramConfig;
 
     private final boolean partOfTotalThroughput;
+    private final Probe serviceTimeProbe;
+
+    // set before the probe is used; the threshold is only reached if an outlier recorder is set
+    private String probeName;
+    private OutlierRecorder outlierRecorder;
+    private long outlierThresholdNanos = Long.MAX_VALUE;
 
     public HdrProbe(boolean partOfTotalThroughput) {
+        this(partOfTotalThroughput, null);
+    }
+
+    /**
+     * Creates a probe which also tracks the service time.
+     *
+     * @param partOfTotalThroughput {@code true} if the probe is relevant for the throughput
+     * @param serviceTimeProbe      the probe to record the service time in or {@code null} if not tracked
+     */
+    public HdrProbe(boolean partOfTotalThroughput, Probe serviceTimeProbe) {
+        this(partOfTotalThroughput, serviceTimeProbe, HistogramConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a probe with a custom histogram range and precision.
+     *
+     * @param partOfTotalThroughput {@code true} if the probe is relevant for the throughput
+     * @param serviceTimeProbe      the probe to record the service time in or {@code null} if not tracked
+     * @param histogramConfig       the range and precision of the histogram
+     */
+    public HdrProbe(boolean partOfTotalThroughput, Probe serviceTimeProbe, HistogramConfig histogramConfig) {
         this.partOfTotalThroughput = partOfTotalThroughput;
+        this.serviceTimeProbe = serviceTimeProbe;
+        this.histogramConfig = histogramConfig;
+        this.recorder = histogramConfig.newRecorder();
+        this.failureRecorder = histogramConfig.withAutoResize().newRecorder();
     }
 
     @Override
@@ -63,20 +95,110 @@ public class HdrProbe implements Probe {
         recordValue(nowNanos - startNanos);
     }
 
+    @Override
+    public void done(long intendedStartNanos, long actualStartNanos) {
+        if (intendedStartNanos <= 0 || actualStartNanos <= 0) {
+            throw new IllegalArgumentException("intendedStartNanos and actualStartNanos have to be positive numbers");
+        }
+
+        long nowNanos = System.nanoTime();
+        recordValue(nowNanos - intendedStartNanos);
+        if (serviceTimeProbe != null) {
+            serviceTimeProbe.recordValue(nowNanos - actualStartNanos);
+        }
+    }
+
+    /**
+     * Returns the probe the service time is recorded in.
+     *
+     * @return the service time probe or {@code null} if the service time isn't tracked
+     */
+    public Probe getServiceTimeProbe() {
+        return serviceTimeProbe;
+    }
+
     @Override
     public void recordValue(long latencyNanos) {
-        if (latencyNanos > HIGHEST_TRACKABLE_VALUE) {
-            latencyNanos = HIGHEST_TRACKABLE_VALUE;
+        recorder.recordValue(histogramConfig.clamp(latencyNanos));
+        if (latencyNanos >= outlierThresholdNanos) {
+            outlierRecorder.record(probeName, latencyNanos);
+        }
+    }
+
+    @Override
+    public void recordValueWithCount(long latencyNanos, long count) {
+        recorder.recordValueWithCount(histogramConfig.clamp(latencyNanos), count);
+        if (latencyNanos >= outlierThresholdNanos) {
+            outlierRecorder.record(probeName, latencyNanos);
         }
-        recorder.recordValue(latencyNanos);
+    }
+
+    @Override
+    public void failed(long startNanos) {
+        if (startNanos <= 0) {
+            throw new IllegalArgumentException("startedNanos has to be a positive number");
+        }
+
+        long nowNanos = System.nanoTime();
+        recordFailedValue(nowNanos - startNanos);
+    }
+
+    @Override
+    public void recordFailedValue(long latencyNanos) {
+        failureRecorder.recordValue(histogramConfig.clamp(latencyNanos));
     }
 
     public Recorder getRecorder() {
         return recorder;
     }
 
+    /**
+     * Captures the recorded latencies which exceed the threshold of the given {@link OutlierRecorder}.
+     *
+     * Has to be called before the probe is used.
+     *
+     * @param probeName       the name of the probe, which is recorded with every outlier
+     * @param outlierRecorder the outlier recorder
+     */
+    public void setOutlierRecorder(String probeName, OutlierRecorder outlierRecorder) {
+        this.probeName = probeName;
+        this.outlierRecorder = outlierRecorder;
+        this.outlierThresholdNanos = outlierRecorder.getThresholdNanos();
+    }
+
+    public HistogramConfig getHistogramConfig() {
+        return histogramConfig;
+    }
+
+    /**
+     * Gets the interval histogram, recycling a histogram returned by a previous call.
+     *
+     * @param histogramToRecycle the histogram returned by the previous call or {@code null} on the first call
+     * @return the interval histogram
+     */
+    public Histogram getIntervalHistogram(Histogram histogramToRecycle) {
+        if (histogramToRecycle == null) {
+            return recorder.getIntervalHistogram();
+        }
+        return recorder.getIntervalHistogram(histogramToRecycle);
+    }
+
+    /**
+     * Gets the interval histogram of the failed calls, recycling a histogram returned by a previous call.
+     *
+     * @param histogramToRecycle the histogram returned by the previous call or {@code null} on the first call
+     * @return the failure interval histogram
+     */
+    public Histogram getFailureIntervalHistogram(Histogram histogramToRecycle) {
+        if (histogramToRecycle == null) {
+            return failureRecorder.getIntervalHistogram();
+        }
+        return failureRecorder.getIntervalHistogram(histogramToRecycle);
+    }
+
     @Override
     public void reset() {
         recorder.reset();
+        failureRecorder.reset();
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import static com.hazelcast.simulator.probes.impl.HdrProbe.HIGHEST_TRACKABLE_VALUE;
+import static com.hazelcast.simulator.probes.impl.HdrProbe.LOWEST_DISCERNIBLE_VALUE;
+import static com.hazelcast.simulator.probes.impl.HdrProbe.NUMBER_OF_SIGNIFICANT_VALUE_DIGITS;
+import static java.lang.String.format;
+
+/**
+ * The range and precision of the histograms of a latency probe.
+ *
+ * With {@link #isAutoResize()} the histograms start small and only grow to the highest value which has actually been
+ * recorded, so a test with many probes doesn't allocate a full size histogram (and its recycled copies) per probe. An
+ * auto-resizing histogram always has a lowest discernible value of 1 nanosecond, so any other value is rejected. The
+ * histograms are regular
+ * {@link Histogram} instances either way, so the written .hdr files stay the same.
+ */
+public final class HistogramConfig {
+
+    /**
+     * Microsecond resolution up to an hour with 3 significant digits.
+     */
+    public static final HistogramConfig DEFAULT = new HistogramConfig(
+            LOWEST_DISCERNIBLE_VALUE, HIGHEST_TRACKABLE_VALUE, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS, false);
+
+    private static final int MAX_SIGNIFICANT_VALUE_DIGITS = 5;
+
+    private final long lowestDiscernibleValue;
+    private final long highestTrackableValue;
+    private final int numberOfSignificantValueDigits;
+    private final boolean autoResize;
+
+    public HistogramConfig(long lowestDiscernibleValue, long highestTrackableValue, int numberOfSignificantValueDigits,
+                           boolean autoResize) {
+        if (lowestDiscernibleValue < 1) {
+            throw new IllegalArgumentException(
+                    format("lowestDiscernibleValue has to be at least 1, but was %d", lowestDiscernibleValue));
+        }
+        if (autoResize && lowestDiscernibleValue != 1) {
+            throw new IllegalArgumentException(format("lowestDiscernibleValue can't be combined with autoResize, since an "
+                    + "auto-resizing histogram always has a lowestDiscernibleValue of 1, but was %d", lowestDiscernibleValue));
+        }
+        if (highestTrackableValue < 2 * lowestDiscernibleValue) {
+            throw new IllegalArgumentException(format("highestTrackableValue has to be at least twice the "
+                    + "lowestDiscernibleValue, but was %d", highestTrackableValue));
+        }
+        if (numberOfSignificantValueDigits < 0 || numberOfSignificantValueDigits > MAX_SIGNIFICANT_VALUE_DIGITS) {
+            throw new IllegalArgumentException(format("numberOfSignificantValueDigits has to be between 0 and %d, but was %d",
+                    MAX_SIGNIFICANT_VALUE_DIGITS, numberOfSignificantValueDigits));
+        }
+
+        this.lowestDiscernibleValue = lowestDiscernibleValue;
+        this.highestTrackableValue = highestTrackableValue;
+        this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+        this.autoResize = autoResize;
+    }
+
+    public long getLowestDiscernibleValue() {
+        return lowestDiscernibleValue;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    public int getNumberOfSignificantValueDigits() {
+        return numberOfSignificantValueDigits;
+    }
+
+    public boolean isAutoResize() {
+        return autoResize;
+    }
+
+    /**
+     * Returns this configuration with auto-resizing enabled.
+     *
+     * This is used for histograms which are expected to stay empty most of the time, like the failure histograms. The
+     * lowest discernible value of the returned configuration is 1.
+     *
+     * @return the auto-resizing configuration
+     */
+    public HistogramConfig withAutoResize() {
+        if (autoResize) {
+            return this;
+        }
+        return new HistogramConfig(1, highestTrackableValue, numberOfSignificantValueDigits, true);
+    }
+
+    /**
+     * Limits a value to the highest trackable value, so recording it never fails.
+     *
+     * @param value the value to record
+     * @return the value which can be recorded
+     */
+    public long clamp(long value) {
+        return value > highestTrackableValue ? highestTrackableValue : value;
+    }
+
+    public Recorder newRecorder() {
+        if (autoResize) {
+            return new Recorder(numberOfSignificantValueDigits);
+        }
+        return new Recorder(lowestDiscernibleValue, highestTrackableValue, numberOfSignificantValueDigits);
+    }
+
+    public SingleWriterRecorder newSingleWriterRecorder() {
+        if (autoResize) {
+            return new SingleWriterRecorder(numberOfSignificantValueDigits);
+        }
+        return new SingleWriterRecorder(lowestDiscernibleValue, highestTrackableValue, numberOfSignificantValueDigits);
+    }
+
+    public Histogram newHistogram() {
+        if (autoResize) {
+            return new Histogram(numberOfSignificantValueDigits);
+        }
+        return new Histogram(lowestDiscernibleValue, highestTrackableValue, numberOfSignificantValueDigits);
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramConfig{"
+                + "lowestDiscernibleValue=" + lowestDiscernibleValue
+                + ", highestTrackableValue=" + highestTrackableValue
+                + ", numberOfSignificantValueDigits=" + numberOfSignificantValueDigits
+                + ", autoResize=" + autoResize
+                + '}';
+    }
+}
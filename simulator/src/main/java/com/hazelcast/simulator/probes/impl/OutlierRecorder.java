@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Captures the operations of a test which exceed a latency threshold, so the tail latency can be tied to concrete
+ * operations instead of only showing up in the histograms.
+ *
+ * Every recording thread gets its own preallocated ring buffer, so recording an outlier doesn't allocate, lock or contend
+ * with other threads. The buffers are drained periodically by a single reader thread using {@link #drain(Handler)}. If a
+ * thread records more outliers than its buffer can hold between two drains, the oldest outliers are dropped.
+ *
+ * The probes only call {@link #record(String, long)} when the latency reaches {@link #getThresholdNanos()}, so the cost for
+ * a regular operation is a single comparison.
+ */
+public final class OutlierRecorder {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /**
+     * Receives the drained outliers.
+     */
+    public interface Handler {
+
+        /**
+         * Is called for every drained outlier.
+         *
+         * @param timestampMillis the time the operation completed
+         * @param threadName      the name of the thread which recorded the outlier
+         * @param probeName       the name of the probe, e.g. the timestep method or the probe of a tag value
+         * @param latencyNanos    the latency of the operation
+         */
+        void onOutlier(long timestampMillis, String threadName, String probeName, long latencyNanos);
+    }
+
+    private final List<Buffer> buffers = new CopyOnWriteArrayList<Buffer>();
+    private final ThreadLocal<Buffer> threadBuffer = new ThreadLocal<Buffer>() {
+        @Override
+        protected Buffer initialValue() {
+            Buffer buffer = new Buffer(Thread.currentThread().getName(), bufferSize);
+            buffers.add(buffer);
+            return buffer;
+        }
+    };
+
+    private final long thresholdNanos;
+    private final int bufferSize;
+
+    /**
+     * Creates an outlier recorder.
+     *
+     * @param thresholdNanos the latency from which on an operation is an outlier
+     * @param bufferSize     the number of outliers every thread can hold between two drains
+     */
+    public OutlierRecorder(long thresholdNanos, int bufferSize) {
+        if (thresholdNanos < 1) {
+            throw new IllegalArgumentException("thresholdNanos has to be at least 1, but was " + thresholdNanos);
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize has to be at least 1, but was " + bufferSize);
+        }
+        this.thresholdNanos = thresholdNanos;
+        this.bufferSize = bufferSize;
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    /**
+     * Records an outlier in the buffer of the calling thread.
+     *
+     * @param probeName    the name of the probe which recorded the latency
+     * @param latencyNanos the latency of the operation
+     */
+    public void record(String probeName, long latencyNanos) {
+        threadBuffer.get().record(System.currentTimeMillis(), probeName, latencyNanos);
+    }
+
+    /**
+     * Drains the outliers of all threads which have been recorded since the last call.
+     *
+     * Can only be called by a single thread at a time.
+     *
+     * @param handler the handler for the drained outliers or {@code null} if the outliers should be discarded
+     * @return the number of outliers which were dropped, since they were overwritten before they were drained
+     */
+    public long drain(Handler handler) {
+        long dropped = 0;
+        for (Buffer buffer : buffers) {
+            dropped += buffer.drain(handler);
+        }
+        return dropped;
+    }
+
+    private static final class Buffer {
+
+        private static final AtomicLongFieldUpdater<Buffer> SEQUENCE
+                = AtomicLongFieldUpdater.newUpdater(Buffer.class, "sequence");
+
+        private final String threadName;
+        private final int capacity;
+        private final long[] timestamps;
+        private final String[] probeNames;
+        private final long[] latencies;
+
+        // the number of recorded outliers; only written by the owning thread
+        private volatile long sequence;
+        // only accessed by the draining thread
+        private long readSequence;
+
+        private Buffer(String threadName, int size) {
+            this.threadName = threadName;
+            this.capacity = size;
+            // one spare slot, so the oldest outlier can still be read while the owning thread writes the next one
+            this.timestamps = new long[size + 1];
+            this.probeNames = new String[size + 1];
+            this.latencies = new long[size + 1];
+        }
+
+        private void record(long timestampMillis, String probeName, long latencyNanos) {
+            long currentSequence = sequence;
+            int index = (int) (currentSequence % latencies.length);
+            timestamps[index] = timestampMillis;
+            probeNames[index] = probeName;
+            latencies[index] = latencyNanos;
+            SEQUENCE.lazySet(this, currentSequence + 1);
+        }
+
+        private long drain(Handler handler) {
+            long writeSequence = sequence;
+            long fromSequence = readSequence;
+            readSequence = writeSequence;
+
+            long dropped = 0;
+            if (writeSequence - fromSequence > capacity) {
+                dropped = writeSequence - fromSequence - capacity;
+                fromSequence = writeSequence - capacity;
+            }
+            if (handler == null) {
+                return dropped;
+            }
+
+            for (long s = fromSequence; s < writeSequence; s++) {
+                int index = (int) (s % latencies.length);
+                long timestampMillis = timestamps[index];
+                String probeName = probeNames[index];
+                long latencyNanos = latencies[index];
+
+                // the owning thread could have overwritten the slot while we were reading it
+                if (sequence - s >= latencies.length) {
+                    dropped++;
+                    continue;
+                }
+                handler.onOutlier(timestampMillis, threadName, probeName, latencyNanos);
+            }
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.probes.impl;
+
+import com.hazelcast.simulator.probes.Probe;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measures the latency distribution of a test without sharing a {@link org.HdrHistogram.Recorder} between threads.
+ *
+ * Every thread that records a value gets its own {@link SingleWriterRecorder}, so the timestep threads and the threads
+ * completing async calls don't contend on a shared writer critical section. The stripes are merged into a single
+ * {@link Histogram} when the interval histogram is taken.
+ *
+ * The stripe of a thread which has ended is merged one last time and then dropped, so threads which come and go, e.g. by
+ * an elastic thread count or a restarted runner, don't leave histograms behind which are merged on every interval.
+ */
+public class StripedHdrProbe implements Probe {
+
+    private final List<Stripe> stripes = new CopyOnWriteArrayList<Stripe>();
+    private final ThreadLocal<Stripe> threadStripe = new ThreadLocal<Stripe>() {
+        @Override
+        protected Stripe initialValue() {
+            Stripe stripe = new Stripe(histogramConfig);
+            stripes.add(stripe);
+            return stripe;
+        }
+    };
+
+    private final boolean partOfTotalThroughput;
+    private final Probe serviceTimeProbe;
+
+    // set before the probe is used; the threshold is only reached if an outlier recorder is set
+    private String probeName;
+    private OutlierRecorder outlierRecorder;
+    private long outlierThresholdNanos = Long.MAX_VALUE;
+    private final HistogramConfig histogramConfig;
+
+    public StripedHdrProbe(boolean partOfTotalThroughput) {
+        this(partOfTotalThroughput, null);
+    }
+
+    /**
+     * Creates a probe which also tracks the service time.
+     *
+     * @param partOfTotalThroughput {@code true} if the probe is relevant for the throughput
+     * @param serviceTimeProbe      the probe to record the service time in or {@code null} if not tracked
+     */
+    public StripedHdrProbe(boolean partOfTotalThroughput, Probe serviceTimeProbe) {
+        this(partOfTotalThroughput, serviceTimeProbe, HistogramConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a probe with a custom histogram range and precision.
+     *
+     * @param partOfTotalThroughput {@code true} if the probe is relevant for the throughput
+     * @param serviceTimeProbe      the probe to record the service time in or {@code null} if not tracked
+     * @param histogramConfig       the range and precision of the histograms of all stripes
+     */
+    public StripedHdrProbe(boolean partOfTotalThroughput, Probe serviceTimeProbe, HistogramConfig histogramConfig) {
+        this.partOfTotalThroughput = partOfTotalThroughput;
+        this.serviceTimeProbe = serviceTimeProbe;
+        this.histogramConfig = histogramConfig;
+    }
+
+    @Override
+    public boolean isPartOfTotalThroughput() {
+        return partOfTotalThroughput;
+    }
+
+    @Override
+    public void done(long startNanos) {
+        if (startNanos <= 0) {
+            throw new IllegalArgumentException("startedNanos has to be a positive number");
+        }
+
+        long nowNanos = System.nanoTime();
+        recordValue(nowNanos - startNanos);
+    }
+
+    @Override
+    public void done(long intendedStartNanos, long actualStartNanos) {
+        if (intendedStartNanos <= 0 || actualStartNanos <= 0) {
+            throw new IllegalArgumentException("intendedStartNanos and actualStartNanos have to be positive numbers");
+        }
+
+        long nowNanos = System.nanoTime();
+        recordValue(nowNanos - intendedStartNanos);
+        if (serviceTimeProbe != null) {
+            serviceTimeProbe.recordValue(nowNanos - actualStartNanos);
+        }
+    }
+
+    /**
+     * Returns the probe the service time is recorded in.
+     *
+     * @return the service time probe or {@code null} if the service time isn't tracked
+     */
+    public Probe getServiceTimeProbe() {
+        return serviceTimeProbe;
+    }
+
+    @Override
+    public void recordValue(long latencyNanos) {
+        threadStripe.get().recorder.recordValue(histogramConfig.clamp(latencyNanos));
+        if (latencyNanos >= outlierThresholdNanos) {
+            outlierRecorder.record(probeName, latencyNanos);
+        }
+    }
+
+    @Override
+    public void recordValueWithCount(long latencyNanos, long count) {
+        threadStripe.get().recorder.recordValueWithCount(histogramConfig.clamp(latencyNanos), count);
+        if (latencyNanos >= outlierThresholdNanos) {
+            outlierRecorder.record(probeName, latencyNanos);
+        }
+    }
+
+    @Override
+    public void failed(long startNanos) {
+        if (startNanos <= 0) {
+            throw new IllegalArgumentException("startedNanos has to be a positive number");
+        }
+
+        long nowNanos = System.nanoTime();
+        recordFailedValue(nowNanos - startNanos);
+    }
+
+    @Override
+    public void recordFailedValue(long latencyNanos) {
+        threadStripe.get().failureRecorder.recordValue(histogramConfig.clamp(latencyNanos));
+    }
+
+    /**
+     * Captures the recorded latencies which exceed the threshold of the given {@link OutlierRecorder}.
+     *
+     * Has to be called before the probe is used.
+     *
+     * @param probeName       the name of the probe, which is recorded with every outlier
+     * @param outlierRecorder the outlier recorder
+     */
+    public void setOutlierRecorder(String probeName, OutlierRecorder outlierRecorder) {
+        this.probeName = probeName;
+        this.outlierRecorder = outlierRecorder;
+        this.outlierThresholdNanos = outlierRecorder.getThresholdNanos();
+    }
+
+    public HistogramConfig getHistogramConfig() {
+        return histogramConfig;
+    }
+
+    /**
+     * Returns the number of threads that have recorded into this probe and whose stripe hasn't been dropped yet.
+     *
+     * @return the number of stripes
+     */
+    public int stripeCount() {
+        return stripes.size();
+    }
+
+    /**
+     * Gets the merged interval histogram of all stripes.
+     *
+     * Just like {@link org.HdrHistogram.Recorder#getIntervalHistogram()} the stripes are reset, so the next call only
+     * contains the values recorded after this call.
+     *
+     * @return the merged interval histogram
+     */
+    public Histogram getIntervalHistogram() {
+        return getIntervalHistogram(null);
+    }
+
+    /**
+     * Gets the merged interval histogram of all stripes into the given histogram.
+     *
+     * Every stripe recycles its own interval histogram, so when the histogram of the previous call is passed in,
+     * no histograms are allocated in steady state.
+     *
+     * @param histogramToRecycle the histogram returned by the previous call or {@code null} on the first call
+     * @return the merged interval histogram
+     */
+    public Histogram getIntervalHistogram(Histogram histogramToRecycle) {
+        Histogram intervalHistogram = histogramToRecycle;
+        if (intervalHistogram == null) {
+            intervalHistogram = histogramConfig.newHistogram();
+        } else {
+            intervalHistogram.reset();
+        }
+
+        for (Stripe stripe : stripes) {
+            // checked before the histogram is taken, so it contains every value recorded by an ended thread
+            boolean ownerEnded = !stripe.owner.isAlive();
+            intervalHistogram.add(stripe.getIntervalHistogram());
+            if (ownerEnded) {
+                stripe.valuesDrained = true;
+                removeIfDrained(stripe);
+            }
+        }
+        return intervalHistogram;
+    }
+
+    /**
+     * Gets the merged interval histogram of the failed calls of all stripes into the given histogram.
+     *
+     * @param histogramToRecycle the histogram returned by the previous call or {@code null} on the first call
+     * @return the merged failure interval histogram
+     */
+    public Histogram getFailureIntervalHistogram(Histogram histogramToRecycle) {
+        Histogram intervalHistogram = histogramToRecycle;
+        if (intervalHistogram == null) {
+            intervalHistogram = histogramConfig.withAutoResize().newHistogram();
+        } else {
+            intervalHistogram.reset();
+        }
+
+        for (Stripe stripe : stripes) {
+            boolean ownerEnded = !stripe.owner.isAlive();
+            intervalHistogram.add(stripe.getFailureIntervalHistogram());
+            if (ownerEnded) {
+                stripe.failuresDrained = true;
+                removeIfDrained(stripe);
+            }
+        }
+        return intervalHistogram;
+    }
+
+    private void removeIfDrained(Stripe stripe) {
+        if (stripe.valuesDrained && stripe.failuresDrained) {
+            stripes.remove(stripe);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (Stripe stripe : stripes) {
+            stripe.recorder.reset();
+            stripe.failureRecorder.reset();
+        }
+    }
+
+    private static final class Stripe {
+
+        // the stripe is created by the thread recording into it
+        private final Thread owner = Thread.currentThread();
+        private final SingleWriterRecorder recorder;
+        // failures are rare, so the failure histogram only grows when needed
+        private final SingleWriterRecorder failureRecorder;
+
+        // only accessed by the thread taking the interval histograms
+        private Histogram intervalHistogram;
+        private Histogram failureIntervalHistogram;
+        // set once the histograms have been taken after the owner has ended
+        private boolean valuesDrained;
+        private boolean failuresDrained;
+
+        private Stripe(HistogramConfig histogramConfig) {
+            this.recorder = histogramConfig.newSingleWriterRecorder();
+            this.failureRecorder = histogramConfig.withAutoResize().newSingleWriterRecorder();
+        }
+
+        private Histogram getIntervalHistogram() {
+            intervalHistogram = intervalHistogram == null
+                    ? recorder.getIntervalHistogram()
+                    : recorder.getIntervalHistogram(intervalHistogram);
+            return intervalHistogram;
+        }
+
+        private Histogram getFailureIntervalHistogram() {
+            failureIntervalHistogram = failureIntervalHistogram == null
+                    ? failureRecorder.getIntervalHistogram()
+                    : failureRecorder.getIntervalHistogram(failureIntervalHistogram);
+            return failureIntervalHistogram;
+        }
+    }
+}
@@ -46,6 +46,8 @@ public enum OperationType {
     RC_WORKER_START(RcWorkerStartOperation.class, 2007),
     RC_PRINT_LAYOUT(RcPrintLayoutOperation.class, 2008),
     RC_DOWNLOAD(RcDownloadOperation.class, 2009),
+    RC_TEST_THREAD_COUNT(RcTestThreadCountOperation.class, 2010),
+    RC_TEST_RATE(RcTestRateOperation.class, 2011),
 
     // AgentOperationProcessor
     INIT_SESSION(InitSessionOperation.class, 3000),
@@ -62,7 +64,9 @@ public enum OperationType {
     // TestOperationProcessor
     START_TEST_PHASE(StartTestPhaseOperation.class, 5000),
     START_TEST(StartTestOperation.class, 5001),
-    STOP_TEST(StopTestOperation.class, 5002);
+    STOP_TEST(StopTestOperation.class, 5002),
+    SET_THREAD_COUNT(SetThreadCountOperation.class, 5003),
+    SET_INTERVAL(SetIntervalOperation.class, 5004);
 
     private final Class<? extends SimulatorOperation> classType;
     private final int classId;
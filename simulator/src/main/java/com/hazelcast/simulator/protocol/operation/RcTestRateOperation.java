@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol.operation;
+
+/**
+ * Changes the interval of the metronomes of an execution group of a running test.
+ */
+public class RcTestRateOperation implements SimulatorOperation {
+
+    private final String testId;
+    private final String executionGroup;
+    private final long intervalNanos;
+
+    public RcTestRateOperation(String testId, String executionGroup, long intervalNanos) {
+        this.testId = testId;
+        this.executionGroup = executionGroup;
+        this.intervalNanos = intervalNanos;
+    }
+
+    public String getTestId() {
+        return testId;
+    }
+
+    public String getExecutionGroup() {
+        return executionGroup;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.protocol.operation;
+
+import com.hazelcast.simulator.common.TestPhase;
+
+/**
+ * Changes the number of active timestep threads of an execution group during the {@link TestPhase#RUN} phase of a
+ * Simulator Test.
+ */
+public class SetThreadCountOperation implements SimulatorOperation {
+
+    private final String executionGroup;
+    private final int threadCount;
+
+    public SetThreadCountOperation(String executionGroup, int threadCount) {
+        this.executionGroup = executionGroup;
+        this.threadCount = threadCount;
+    }
+
+    public String getExecutionGroup() {
+        return executionGroup;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+}
@@ -27,9 +27,11 @@ import com.hazelcast.simulator.protocol.operation.OperationType;
 import com.hazelcast.simulator.protocol.operation.PerformanceStatsOperation;
 import com.hazelcast.simulator.protocol.operation.PhaseCompletedOperation;
 import com.hazelcast.simulator.protocol.operation.RcInstallOperation;
+import com.hazelcast.simulator.protocol.operation.RcTestRateOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestRunOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestStatusOperation;
 import com.hazelcast.simulator.protocol.operation.RcTestStopOperation;
+import com.hazelcast.simulator.protocol.operation.RcTestThreadCountOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerKillOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerScriptOperation;
 import com.hazelcast.simulator.protocol.operation.RcWorkerStartOperation;
@@ -97,6 +99,12 @@ public class CoordinatorOperationProcessor extends AbstractOperationProcessor {
             case RC_TEST_STOP:
                 promise.answer(SUCCESS, receiver.testStop((RcTestStopOperation) op));
                 return;
+            case RC_TEST_THREAD_COUNT:
+                receiver.testThreadCount((RcTestThreadCountOperation) op);
+                break;
+            case RC_TEST_RATE:
+                receiver.testRate((RcTestRateOperation) op);
+                break;
             case RC_EXIT:
                 receiver.exit();
                 break;
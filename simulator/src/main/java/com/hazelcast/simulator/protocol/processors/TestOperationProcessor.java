@@ -26,6 +26,8 @@ import com.hazelcast.simulator.protocol.operation.IntegrationTestOperation;
 import com.hazelcast.simulator.protocol.operation.LogOperation;
 import com.hazelcast.simulator.protocol.operation.OperationType;
 import com.hazelcast.simulator.protocol.operation.PhaseCompletedOperation;
+import com.hazelcast.simulator.protocol.operation.SetIntervalOperation;
+import com.hazelcast.simulator.protocol.operation.SetThreadCountOperation;
 import com.hazelcast.simulator.protocol.operation.SimulatorOperation;
 import com.hazelcast.simulator.protocol.operation.StartTestOperation;
 import com.hazelcast.simulator.protocol.operation.StartTestPhaseOperation;
@@ -109,6 +111,14 @@ public class TestOperationProcessor extends AbstractOperationProcessor {
                 processStopTest();
                 promise.answer(SUCCESS);
                 break;
+            case SET_THREAD_COUNT:
+                processSetThreadCount((SetThreadCountOperation) op);
+                promise.answer(SUCCESS);
+                break;
+            case SET_INTERVAL:
+                processSetInterval((SetIntervalOperation) op);
+                promise.answer(SUCCESS);
+                break;
             default:
                 throw new ProcessException(UNSUPPORTED_OPERATION_ON_THIS_PROCESSOR);
         }
@@ -186,6 +196,16 @@ public class TestOperationProcessor extends AbstractOperationProcessor {
         testContainer.getTestContext().stop();
     }
 
+    private void processSetThreadCount(SetThreadCountOperation operation) {
+        LOGGER.info(format("%s Changing thread count of %s to %d %s", DASHES, testId, operation.getThreadCount(), DASHES));
+        testContainer.setThreadCount(operation.getExecutionGroup(), operation.getThreadCount());
+    }
+
+    private void processSetInterval(SetIntervalOperation operation) {
+        LOGGER.info(format("%s Changing interval of %s to %d ns %s", DASHES, testId, operation.getIntervalNanos(), DASHES));
+        testContainer.setIntervalNanos(operation.getExecutionGroup(), operation.getIntervalNanos());
+    }
+
     private boolean skipRunPhase(StartTestOperation operation) {
         if (!operation.matchesTargetType(type)) {
             TargetType targetType = operation.getTargetType();
@@ -179,7 +179,7 @@ public class WorkerOperationProcessor extends AbstractOperationProcessor {
         LOGGER.info(format("%s Initializing test %s %s%n%s", DASHES, testId, DASHES, testCase));
 
         TestContextImpl testContext = new TestContextImpl(
-                hazelcastInstance, testId, worker.getPublicIpAddress(), workerConnector);
+                hazelcastInstance, testId, worker.getPublicIpAddress(), workerConnector, workerAddress);
 
         TestContainer testContainer = new TestContainer(testContext, testCase);
         SimulatorAddress testAddress = workerAddress.getChild(testIndex);
@@ -15,6 +15,8 @@
  */
 package com.hazelcast.simulator.test;
 
+import com.hazelcast.simulator.utils.SplitMixRandom;
+
 import java.io.Serializable;
 import java.util.Random;
 
@@ -23,12 +25,84 @@ import java.util.Random;
  * <p>
  * This class is called BaseThreadState instead of ThreadState, since in most cases a test needs to subclass BaseThreadState.
  * In this case the prettier and shorter name ThreadState can be used.
+ * <p>
+ * The {@link #random} is a {@link SplitMixRandom}, which is fast but not thread-safe. So it should only be used by the thread
+ * which owns this thread state. The timestep runner seeds the random with a seed derived from the 'seed' property of the test,
+ * the execution group and the index of the thread, so a run with the same seed generates the same values.
+ * <p>
+ * A timestep method should select its key using {@link #randomKeyIndex(int)}. The key index is then written to the operation
+ * trace if the test records one, and a replayed trace uses the recorded key index instead of a random one. A trace holds a
+ * single key index per call, so while a trace is recorded or replayed a timestep call can select only one key this way; a
+ * call which needs more keys, e.g. a transfer between two accounts, fails instead of being recorded with one of them.
  */
 @SuppressWarnings("unused")
 public class BaseThreadState implements Serializable {
 
     @SuppressWarnings("checkstyle:visibilitymodifier")
-    public final Random random = new Random();
+    public final Random random = new SplitMixRandom();
+
+    private int keyIndex = -1;
+    private int replayedKeyIndex = -1;
+    private boolean traced;
+
+    /**
+     * Seeds the {@link #random}, so it generates the same values on every run.
+     *
+     * This method is called by the timestep runner; it only needs to be called by a test which creates its own thread states.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Returns the index of the key for the current timestep call.
+     *
+     * If an operation trace is replayed and the call has a recorded key index, the recorded key index is returned. Otherwise
+     * the key index is random.
+     *
+     * @param keyCount the number of keys. Must be positive.
+     * @return the key index, from 0 (inclusive) to keyCount (exclusive).
+     * @throws IllegalArgumentException if keyCount smaller or equal than 0.
+     * @throws IllegalStateException    if the replayed key index doesn't fit the key count, or if an operation trace is
+     *                                  recorded or replayed and the current call already selected a key index.
+     */
+    public int randomKeyIndex(int keyCount) {
+        if (traced && keyIndex != -1) {
+            throw new IllegalStateException("An operation trace holds a single key index per call, but the call selected a"
+                    + " second key index");
+        }
+        if (replayedKeyIndex == -1) {
+            keyIndex = random.nextInt(keyCount);
+        } else if (replayedKeyIndex < keyCount) {
+            keyIndex = replayedKeyIndex;
+        } else {
+            throw new IllegalStateException("The replayed key index " + replayedKeyIndex + " doesn't fit the key count "
+                    + keyCount);
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Is called by the timestep runner before every call when an operation trace is recorded or replayed.
+     *
+     * @param replayedKeyIndex the recorded key index of a replayed call or -1 if the key index should be random
+     */
+    public final void initKeyIndex(int replayedKeyIndex) {
+        this.traced = true;
+        this.keyIndex = -1;
+        this.replayedKeyIndex = replayedKeyIndex;
+    }
+
+    /**
+     * Returns the key index selected by the last {@link #randomKeyIndex(int)} call since {@link #initKeyIndex(int)}.
+     *
+     * @return the key index or -1 if no key index was selected
+     */
+    public final int getKeyIndex() {
+        return keyIndex;
+    }
 
     /**
      * @return random generated double
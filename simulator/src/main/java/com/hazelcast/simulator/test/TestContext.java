@@ -35,6 +35,18 @@ public interface TestContext {
      */
     String getPublicIpAddress();
 
+    /**
+     * Returns the seed for the random generators of the test on this worker.
+     *
+     * The seed is derived from the 'seed' property of the test and the address of the worker, so a run with the same seed
+     * generates the same values, while the workers don't generate the same values. If no seed is configured, a random seed is
+     * used, which is logged so the run can be repeated. The thread states of the timestep threads are seeded automatically;
+     * this seed can be used for the other generators of a test, e.g. for the keys.
+     *
+     * @return the seed.
+     */
+    long getSeed();
+
     /**
      * Checks if the run phase or warmup phase has stopped. In most cases this method doesn't need to be called since the
      * {@link com.hazelcast.simulator.test.annotations.TimeStep} approach will take care of stopping. But in certain cases
@@ -139,6 +139,35 @@ import java.lang.annotation.Target;
  * }
  * </pre>
  *
+ * On Linux the timestep threads of an execution group can be pinned to a set of CPUs, so they don't compete with e.g. the
+ * partition and IO threads of Hazelcast:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     producerCpus=4-7
+ *     consumerCpus=8,10,12-15
+ * }
+ * </pre>
+ * Every thread is pinned to the whole set, not to a single CPU. The pinned threads are written to the worker log.
+ *
+ * To find the thread count at which the throughput stops growing and the latency starts to climb, the thread count can be
+ * changed while the test is running:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     threadCountSchedule=4..64 step 4 every 60s
+ * }
+ * </pre>
+ * The run starts with 4 threads and every 60 seconds 4 threads are added until there are 64 threads. A threadCountSchedule
+ * replaces the threadCount property. Alternatively maxThreadCount can be configured next to threadCount; then the thread
+ * count is only changed using 'coordinator-remote test-threads'. All threads up to the maximum are started with the run and
+ * the inactive threads are parked, so the thread state of a thread is kept while it is parked. The active thread count of
+ * every execution group is written to the performance log, so a single run shows the throughput and latency per thread
+ * count. If an interval or ratePerSecond is configured, it is divided over the active threads and divided again whenever the
+ * thread count changes, so the rate of the execution group stays the same during the whole schedule. This requires a
+ * metronome which implements {@link com.hazelcast.simulator.worker.metronome.AdjustableMetronome}, like all built-in
+ * metronomes.
+ *
  * <h1>Iterations</h1>
  * TimeStep based tests have out of the box support for running a given number of iterations. This can be configured using
  * <pre>
@@ -244,6 +273,83 @@ import java.lang.annotation.Target;
  * }
  * </pre>
  *
+ * <h1>Batching and latency sampling</h1>
+ * For very cheap operations the overhead of the timestep loop itself can dominate the measurement. The stop signal, the
+ * iteration cap and the iteration counter can be checked once per batch of calls instead of once per call:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     batchSize=100
+ * }
+ * </pre>
+ * The batch size can be configured per execution group, e.g. 'producerBatchSize=100'. The iteration cap is still exact; only
+ * stopping the test can take up to a batch of calls longer.
+ *
+ * The latency of the calls can be sampled using {@link #latencySampleInterval()}.
+ *
+ * <h1>Async timestep methods</h1>
+ * A timestep method can return a {@link com.hazelcast.core.ICompletableFuture}, e.g. the future returned by
+ * {@code IMap.getAsync}. The call is then completed when the future completes:
+ * <pre>
+ * {@literal @}TimeStep
+ * public ICompletableFuture get(BaseThreadState state) {
+ *     return map.getAsync(state.randomInt(keyCount));
+ * }
+ * </pre>
+ * The latency is recorded from the (intended) start of the call till the completion of the future and only completed calls
+ * are counted as iterations. Each timestep thread has at most 'maxInFlight' uncompleted calls; if the window is full, the
+ * thread waits till a call completes. The window can be configured per execution group, e.g. 'producerMaxInFlight=64':
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     maxInFlight=64
+ * }
+ * </pre>
+ * A failed future is handled like an exception thrown by a timestep method. Before the {@link AfterRun} methods are called,
+ * the thread waits till all its calls have completed. With 'iterations' a thread starts that many calls; since it waits for
+ * them, the number of completed iterations reaches the configured iterations when the thread is done.
+ *
+ * <h1>Timestep chains</h1>
+ * A client operation often is a sequence of calls, e.g. lock, get, put and unlock. Such a sequence can be declared as a
+ * chain of steps using {@link #steps()}:
+ * <pre>
+ * {@literal @}TimeStep(prob = 0.2, steps = {"lock", "get", "put", "unlock"})
+ * public void lockedUpdate(ThreadState state) {
+ * }
+ *
+ * public void lock(ThreadState state) {
+ *     map.lock(state.key);
+ * }
+ * </pre>
+ * The steps are public methods of the test with the thread state as the only optional parameter; they are called in the
+ * given order by the generated runner and the body of the annotated method isn't called. The latency of the whole chain is
+ * recorded in the probe of the annotated method, so the chain is rated, sampled and corrected like any other timestep
+ * method. The latency of every step is recorded in its own probe, e.g. 'lockedUpdate-get', which uses the histogram
+ * configuration of the chain. The step latencies don't include the time the call waited for the metronome, so they show
+ * which step dominates the service time. If a step throws an exception, the remaining steps aren't called and the chain
+ * has failed.
+ *
+ * <h1>Deterministic workloads</h1>
+ * Every timestep thread gets its own random for selecting the timestep method. This random is seeded from the 'seed'
+ * property of the test, mixed with the address of the worker and the name of the thread, so a run with the same seed and
+ * cluster layout makes the same choices. If no seed is configured, a random seed is used and logged, so a run can be
+ * repeated. A thread state which extends {@link com.hazelcast.simulator.test.BaseThreadState} is seeded the same way, and
+ * the seed is available to the test through {@link com.hazelcast.simulator.test.TestContext#getSeed()}, e.g. to generate
+ * the keys with {@code KeyUtils}.
+ *
+ * <h1>Recording and replaying operations</h1>
+ * With the property 'recordTrace' set to true, every timestep thread writes the operations it executes into a binary trace
+ * file named {@code <testId>[-<group>]-<thread>.trace} in the worker directory. For every operation the intended start
+ * time, the timestep method and the key index are stored. The key index is the value returned by
+ * {@link com.hazelcast.simulator.test.BaseThreadState#randomKeyIndex(int)} in that call, or -1 if it wasn't called. A trace
+ * holds a single key index per call, so a call which selects a second key index this way fails.
+ *
+ * With the property 'replayTrace' set to the path prefix of the recorded files, e.g. {@code /tmp/run1/maptest}, the threads
+ * replay the recorded operations instead of selecting them: the same methods are called in the same order, at the recorded
+ * timing and {@link com.hazelcast.simulator.test.BaseThreadState#randomKeyIndex(int)} returns the recorded key index. The
+ * timing can be scaled with 'replaySpeed', e.g. 2 replays twice as fast. A replay ends when the trace is exhausted and
+ * can't be combined with 'interval', 'ratePerSecond' or a 'batchSize' larger than 1.
+ *
  * <h1>Latency testing</h1>
  * For Latency testing you normally want to rate the number of requests per second. This can be done by setting the interval
  * property. This property configures the interval between requests and is independent of thread count. So if interval is set
@@ -283,6 +389,11 @@ import java.lang.annotation.Target;
  * }
  * </pre>
  *
+ * If an interval or ratePerSecond is configured, the rate can be changed while the test is running using
+ * 'coordinator-remote test-rate'. The interval of all metronomes of the execution group is changed at once and every
+ * thread continues at a random moment within the new interval, so the threads don't all fire at the same moment. The change
+ * is marked with a comment in the .hdr files of the test.
+ *
  * <h2>Coordinated omission</h2>
  * A lot of testing frameworks are suffering from a problem called coordinated omission:
  * https://www.infoq.com/presentations/latency-pitfalls
@@ -299,7 +410,7 @@ import java.lang.annotation.Target;
  *
  * <h2>Different flavors of metronomes</h2>
  * Internally a {@link com.hazelcast.simulator.worker.metronome.Metronome} is used to control the rate of requests. There are
- * currently 3 out of the box implementations:
+ * currently 4 out of the box implementations:
  * <ol>
  * <li>{@link com.hazelcast.simulator.worker.metronome.SleepingMetronome}: which used LockSupport.park for waiting.
  * This metronome is the default and useful if you don't want to consume a lot of CPU cycles.</li>
@@ -314,6 +425,11 @@ import java.lang.annotation.Target;
  * both can influence the benchmark. With the ConstantCombinedRateMetronome as long as their is a thread available, a
  * requests will be made. THis prevents building up the bubble and will give a more stable request rate.
  * </li>
+ * <li>{@link com.hazelcast.simulator.worker.metronome.OpenModelMetronome} generates the requests with a scheduler
+ * thread, independent of the timestep threads. If the timestep threads can't keep up, the requests are queued and the
+ * latency includes the time they were queued. This metronome is best used with async timestep methods; see its javadoc for
+ * the arrival distribution, the maximum backlog and the probes it creates.
+ * </li>
  * </ol>
  *
  * The metronome type can be configured using:
@@ -363,4 +479,28 @@ public @interface TimeStep {
      * @return the executionGroup.
      */
     String executionGroup() default "";
+
+    /**
+     * Only one out of every latencySampleInterval calls of this method is timed. The latency of the timed call is recorded
+     * for all the calls of the interval, so the probe still counts every call.
+     *
+     * Timing a call costs two {@link System#nanoTime()} calls and a histogram update, which dominates the costs of an
+     * operation which only takes tens of nanoseconds. So for such operations the latency can be sampled. Latency sampling
+     * is only applied if there is no metronome and the latency is recorded by the timestep runner.
+     *
+     * The sample interval of the method 'get' can be overridden using 'getLatencySampleInterval=100'.
+     *
+     * @return the latency sample interval.
+     */
+    int latencySampleInterval() default 1;
+
+    /**
+     * The names of the methods which are called, in the given order, instead of this method. See 'Timestep chains' above.
+     *
+     * A chain can't be asynchronous, can't have a {@link com.hazelcast.simulator.probes.Probe} parameter and a step can't
+     * occur twice in the same chain.
+     *
+     * @return the names of the steps or an empty array if this method isn't a chain.
+     */
+    String[] steps() default {};
 }
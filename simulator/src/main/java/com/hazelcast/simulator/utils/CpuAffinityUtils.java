@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+
+/**
+ * Pins threads to a set of CPUs.
+ *
+ * Java has no API for the CPU affinity of a thread, so on Linux the affinity of the native thread is set with
+ * {@code taskset}, which calls {@code sched_setaffinity} for the native thread id. On other operating systems the
+ * affinity isn't set.
+ */
+public final class CpuAffinityUtils {
+
+    private static final Logger LOGGER = Logger.getLogger(CpuAffinityUtils.class);
+
+    private static final File THREAD_SELF = new File("/proc/thread-self");
+
+    private CpuAffinityUtils() {
+    }
+
+    /**
+     * Parses a CPU set in the list format used by taskset and cpusets, e.g. "4-7" or "0,2,4-6".
+     *
+     * @param cpuSet the CPU set
+     * @return the sorted CPU ids
+     * @throws IllegalArgumentException if the CPU set can't be parsed
+     */
+    public static SortedSet<Integer> parseCpuSet(String cpuSet) {
+        SortedSet<Integer> cpus = new TreeSet<Integer>();
+        for (String item : cpuSet.split(",")) {
+            String range = item.trim();
+            try {
+                int separator = range.indexOf('-');
+                int first = Integer.parseInt(separator == -1 ? range : range.substring(0, separator).trim());
+                int last = separator == -1 ? first : Integer.parseInt(range.substring(separator + 1).trim());
+                if (first < 0 || last < first) {
+                    throw new IllegalArgumentException(format("Invalid range '%s' in CPU set '%s'", range, cpuSet));
+                }
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(format("Invalid range '%s' in CPU set '%s'", range, cpuSet), e);
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * Formats the CPU ids as a comma separated list, which can be parsed by {@link #parseCpuSet(String)} and taskset.
+     *
+     * @param cpus the CPU ids
+     * @return the formatted CPU set
+     */
+    public static String formatCpuSet(Set<Integer> cpus) {
+        StringBuilder sb = new StringBuilder();
+        for (Integer cpu : cpus) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(cpu);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the native id of the calling thread.
+     *
+     * @return the native thread id or -1 if not available
+     */
+    public static int currentThreadNativeId() {
+        if (!THREAD_SELF.exists()) {
+            return -1;
+        }
+        try {
+            // /proc/thread-self is a link to /proc/<pid>/task/<tid>
+            return Integer.parseInt(THREAD_SELF.getCanonicalFile().getName());
+        } catch (IOException e) {
+            return -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Pins the calling thread to the given CPUs.
+     *
+     * @param cpus the CPU ids
+     * @return the native thread id of the pinned thread or -1 if the affinity couldn't be set
+     */
+    public static int setCurrentThreadAffinity(Set<Integer> cpus) {
+        int nativeThreadId = currentThreadNativeId();
+        if (nativeThreadId == -1) {
+            LOGGER.warn(format("Can't pin thread %s to CPUs %s, since its native thread id isn't available",
+                    Thread.currentThread().getName(), formatCpuSet(cpus)));
+            return -1;
+        }
+
+        try {
+            new BashCommand(format("taskset -p -c %s %d", formatCpuSet(cpus), nativeThreadId))
+                    .setThrowsException(true)
+                    .execute();
+            return nativeThreadId;
+        } catch (ScriptException e) {
+            LOGGER.warn(format("Failed to pin thread %s to CPUs %s: %s",
+                    Thread.currentThread().getName(), formatCpuSet(cpus), e.getMessage()));
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the CPU time consumed by threads and by the JVM process.
+ *
+ * All methods return -1 if the CPU time isn't available on this JVM, so callers can skip the efficiency numbers instead of
+ * reporting garbage.
+ */
+public final class CpuTimeUtils {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = loadThreadMXBean();
+    private static final com.sun.management.OperatingSystemMXBean OS_MX_BEAN = loadOperatingSystemMXBean();
+
+    private CpuTimeUtils() {
+    }
+
+    /**
+     * Returns the CPU time consumed by the calling thread.
+     *
+     * @return the CPU time in nanoseconds or -1 if not available
+     */
+    public static long currentThreadCpuTimeNanos() {
+        return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Returns the CPU time consumed by the thread with the given id.
+     *
+     * @param threadId the id of the thread
+     * @return the CPU time in nanoseconds or -1 if not available or if the thread isn't alive
+     */
+    public static long threadCpuTimeNanos(long threadId) {
+        return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getThreadCpuTime(threadId);
+    }
+
+    /**
+     * Returns the CPU time consumed by all threads of the JVM, including the GC and JIT threads.
+     *
+     * @return the CPU time in nanoseconds or -1 if not available
+     */
+    public static long processCpuTimeNanos() {
+        return OS_MX_BEAN == null ? -1 : OS_MX_BEAN.getProcessCpuTime();
+    }
+
+    private static ThreadMXBean loadThreadMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try {
+            if (!threadMXBean.isThreadCpuTimeSupported()) {
+                return null;
+            }
+            if (!threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+            return threadMXBean;
+        } catch (UnsupportedOperationException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    private static com.sun.management.OperatingSystemMXBean loadOperatingSystemMXBean() {
+        OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystemMXBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return (com.sun.management.OperatingSystemMXBean) operatingSystemMXBean;
+        }
+        return null;
+    }
+}
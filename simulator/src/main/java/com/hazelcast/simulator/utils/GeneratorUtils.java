@@ -50,9 +50,20 @@ public final class GeneratorUtils {
     }
 
     public static String generateString(int length) {
+        return generateString(RANDOM, length);
+    }
+
+    /**
+     * Generates a string using the given random, so a seeded random generates the same string on every run.
+     *
+     * @param random the random to select the characters
+     * @param length the length of the string
+     * @return the created string
+     */
+    public static String generateString(Random random, int length) {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < length; i++) {
-            char c = ALPHABET.charAt(RANDOM.nextInt(ALPHABET.length()));
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
             sb.append(c);
         }
 
@@ -68,6 +68,8 @@ public final class HistogramLogMerger {
                             histogram.getLowestDiscernibleValue(),
                             histogram.getHighestTrackableValue(),
                             histogram.getNumberOfSignificantValueDigits());
+                    // the workers can use auto resizing histograms, so the ranges of the histograms can differ
+                    merged.setAutoResize(true);
                 }
                 merged.add(histogram);
             }
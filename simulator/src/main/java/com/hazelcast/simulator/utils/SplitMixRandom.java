@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.utils;
+
+import java.util.Random;
+
+/**
+ * A fast non thread-safe {@link Random} based on the SplitMix64 generator.
+ *
+ * {@link Random} updates its seed with a compare-and-swap on every call, which is a noticeable part of the costs of a
+ * timestep in nanosecond-scale benchmarks. This generator has a plain {@code long} state, so it should only be used by a
+ * single thread, e.g. by a timestep runner or a thread state. The generator passes BigCrush, but it is not suited for
+ * cryptographic purposes.
+ */
+public final class SplitMixRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_MULTIPLIER_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_MULTIPLIER_2 = 0x94D049BB133111EBL;
+    private static final int MIX_SHIFT_1 = 30;
+    private static final int MIX_SHIFT_2 = 27;
+    private static final int MIX_SHIFT_3 = 31;
+    private static final int INT_SHIFT = 32;
+    private static final int DOUBLE_SHIFT = 11;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // no field initializer, since the constructor of Random calls setSeed() before the fields are initialized
+    private long state;
+
+    public SplitMixRandom() {
+        super();
+    }
+
+    public SplitMixRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        state = seed;
+        // clears the cached nextGaussian()
+        super.setSeed(seed);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (Long.SIZE - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> INT_SHIFT);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> DOUBLE_SHIFT) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Derives a seed from another seed and a name, e.g. the seed of a timestep thread from the seed of the test.
+     *
+     * The derived seed only depends on its arguments, so a seeded run can be repeated. Different names give unrelated seeds,
+     * so the generators seeded with them don't produce shifted copies of the same sequence.
+     *
+     * @param seed the seed to derive from
+     * @param name the name which identifies the derived seed
+     * @return the derived seed
+     */
+    public static long deriveSeed(long seed, String name) {
+        return mix(seed ^ mix(name.hashCode() * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Returns a uniformly distributed value between 0 (inclusive) and 2^53 (exclusive).
+     *
+     * This is the value the generated timestep runners compare against the thresholds of
+     * {@link com.hazelcast.simulator.worker.testcontainer.Probability#ratiosToThresholds(int...)}.
+     *
+     * @return the random value
+     */
+    public long nextLong53() {
+        return nextLong() >>> DOUBLE_SHIFT;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> MIX_SHIFT_1)) * MIX_MULTIPLIER_1;
+        z = (z ^ (z >>> MIX_SHIFT_2)) * MIX_MULTIPLIER_2;
+        return z ^ (z >>> MIX_SHIFT_3);
+    }
+}
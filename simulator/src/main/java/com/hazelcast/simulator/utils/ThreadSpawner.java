@@ -15,16 +15,22 @@
  */
 package com.hazelcast.simulator.utils;
 
+import org.apache.log4j.Logger;
+
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.formatCpuSet;
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.setCurrentThreadAffinity;
 import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+import static java.lang.String.format;
 
 /**
  * Responsible for spawning and waiting for threads.
@@ -38,6 +44,8 @@ import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
  */
 public class ThreadSpawner {
 
+    private static final Logger LOGGER = Logger.getLogger(ThreadSpawner.class);
+
     private final List<Thread> threads = Collections.synchronizedList(new LinkedList<Thread>());
     private final ConcurrentMap<String, AtomicInteger> idMap = new ConcurrentHashMap<String, AtomicInteger>();
 
@@ -102,16 +110,32 @@ public class ThreadSpawner {
      * @return the created thread
      */
     public Thread spawn(String namePrefix, Runnable runnable) {
+        return spawn(namePrefix, runnable, null);
+    }
+
+    /**
+     * Spawns a new thread for the given {@link Runnable} which is pinned to the given CPUs.
+     *
+     * The thread pins itself before the {@link Runnable} is executed. If the CPU affinity can't be set, e.g. because the
+     * operating system isn't Linux, the thread runs unpinned.
+     *
+     * @param namePrefix the name prefix for the thread
+     * @param runnable   the {@link Runnable} to execute
+     * @param cpus       the CPU ids to pin the thread to or <code>null</code> if the thread shouldn't be pinned
+     * @return the created thread
+     */
+    public Thread spawn(String namePrefix, Runnable runnable, Set<Integer> cpus) {
         checkNotNull(namePrefix, "namePrefix can't be null");
         checkNotNull(runnable, "runnable can't be null");
 
+        Runnable task = cpus == null ? runnable : new PinningRunnable(runnable, cpus);
         String name = newName(namePrefix);
         Thread thread;
         if (throwException) {
-            thread = new ThrowExceptionThread(name, runnable);
+            thread = new ThrowExceptionThread(name, task);
             thread.setUncaughtExceptionHandler(exceptionHandler);
         } else {
-            thread = new ReportExceptionThread(testId, name, runnable);
+            thread = new ReportExceptionThread(testId, name, task);
         }
         threads.add(thread);
         thread.start();
@@ -156,6 +180,28 @@ public class ThreadSpawner {
         return prefix + '-' + idGenerator.incrementAndGet();
     }
 
+    private static final class PinningRunnable implements Runnable {
+
+        private final Runnable runnable;
+        private final Set<Integer> cpus;
+
+        private PinningRunnable(Runnable runnable, Set<Integer> cpus) {
+            this.runnable = runnable;
+            this.cpus = cpus;
+        }
+
+        @Override
+        public void run() {
+            int nativeThreadId = setCurrentThreadAffinity(cpus);
+            if (nativeThreadId != -1) {
+                // the layout is logged, so the placement of the threads can be correlated with the results
+                LOGGER.info(format("Thread %s (tid %d) is pinned to CPUs %s",
+                        Thread.currentThread().getName(), nativeThreadId, formatCpuSet(cpus)));
+            }
+            runnable.run();
+        }
+    }
+
     private static class ThrowExceptionThread extends Thread {
 
         ThrowExceptionThread(String name, Runnable task) {
@@ -23,6 +23,7 @@ import com.hazelcast.simulator.protocol.operation.OperationTypeCounter;
 import com.hazelcast.simulator.protocol.processors.WorkerOperationProcessor;
 import com.hazelcast.simulator.utils.ExceptionReporter;
 import com.hazelcast.simulator.utils.NativeUtils;
+import com.hazelcast.simulator.worker.performance.HiccupMeter;
 import com.hazelcast.simulator.worker.performance.PerformanceMonitor;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -66,6 +67,8 @@ public final class MemberWorker implements Worker {
     private final HazelcastInstance hazelcastInstance;
     private final WorkerConnector workerConnector;
 
+    // the hiccups are only read by the performance monitor, so the meter only exists if the performance monitor is enabled
+    private final HiccupMeter hiccupMeter;
     private final PerformanceMonitor performanceMonitor;
 
     private ShutdownThread shutdownThread;
@@ -87,6 +90,7 @@ public final class MemberWorker implements Worker {
         this.hazelcastInstance = getHazelcastInstance();
         this.workerConnector = new WorkerConnector(agentIndex, workerIndex, workerPort, type, hazelcastInstance, this);
 
+        this.hiccupMeter = workerPerformanceMonitorIntervalSeconds < 1 ? null : new HiccupMeter(getUserDir());
         this.performanceMonitor = initWorkerPerformanceMonitor(workerPerformanceMonitorIntervalSeconds);
 
         Runtime.getRuntime().addShutdownHook(new WorkerShutdownThread(true));
@@ -98,6 +102,7 @@ public final class MemberWorker implements Worker {
         workerConnector.start();
 
         if (performanceMonitor != null) {
+            hiccupMeter.start();
             performanceMonitor.start();
         }
     }
@@ -146,7 +151,7 @@ public final class MemberWorker implements Worker {
             return null;
         }
         WorkerOperationProcessor processor = (WorkerOperationProcessor) workerConnector.getProcessor();
-        return new PerformanceMonitor(workerConnector, processor.getTests(), intervalSeconds);
+        return new PerformanceMonitor(workerConnector, processor.getTests(), intervalSeconds, hiccupMeter);
     }
 
     private void signalStartToAgent() {
@@ -266,6 +271,9 @@ public final class MemberWorker implements Worker {
             if (performanceMonitor != null) {
                 echo("Shutting down WorkerPerformanceMonitor");
                 performanceMonitor.shutdown();
+
+                echo("Shutting down HiccupMeter");
+                hiccupMeter.shutdown();
             }
 
             if (workerConnector != null) {
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static org.apache.commons.lang3.RandomUtils.nextLong;
+
+/**
+ * Base class of the {@link AdjustableMetronome} implementations which schedule every thread separately on a fixed interval.
+ *
+ * The interval of the execution group is divided over its threads. The subclasses only differ in the way they wait for the
+ * next execution.
+ */
+abstract class AbstractIntervalMetronome implements AdjustableMetronome {
+
+    // the interval of the execution group and the number of threads it is divided over; only changed on the master
+    private long groupIntervalNanos;
+    private int threadCount;
+    // the interval of a single thread; shared by all metronomes created from the same master
+    private final AtomicLong sharedIntervalNanos;
+    private final boolean accountForCoordinatedOmission;
+    private long intervalNanos;
+    private long nextNanos;
+    private long intendedStartNanos;
+
+    AbstractIntervalMetronome(long intervalNanos, int threadCount, boolean accountForCoordinatedOmission) {
+        this.groupIntervalNanos = intervalNanos;
+        this.threadCount = threadCount;
+        this.sharedIntervalNanos = new AtomicLong(intervalNanos * threadCount);
+        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+    }
+
+    AbstractIntervalMetronome(AbstractIntervalMetronome master) {
+        this.groupIntervalNanos = master.groupIntervalNanos;
+        this.threadCount = master.threadCount;
+        this.sharedIntervalNanos = master.sharedIntervalNanos;
+        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+    }
+
+    /**
+     * Waits a while before the current time is checked again.
+     *
+     * @param remainingNanos the time until the next execution
+     */
+    abstract void idle(long remainingNanos);
+
+    @Override
+    public final long waitForNext() {
+        // set random interval on the first run
+        if (nextNanos == 0) {
+            intervalNanos = sharedIntervalNanos.get();
+            nextNanos = nanoTime() + nextLong(0, intervalNanos);
+        }
+
+        long now;
+        while ((now = nanoTime()) < nextNanos) {
+            idle(nextNanos - now);
+            checkInterval();
+        }
+        checkInterval();
+
+        long expectedStartNanos = nextNanos;
+        intendedStartNanos = expectedStartNanos;
+        nextNanos = expectedStartNanos + intervalNanos;
+        return accountForCoordinatedOmission ? expectedStartNanos : nanoTime();
+    }
+
+    private void checkInterval() {
+        long newIntervalNanos = sharedIntervalNanos.get();
+        if (newIntervalNanos != intervalNanos) {
+            nextNanos = min(nextNanos, nanoTime() + nextLong(0, newIntervalNanos));
+            intervalNanos = newIntervalNanos;
+        }
+    }
+
+    @Override
+    public final long intendedStartNanos() {
+        return intendedStartNanos;
+    }
+
+    @Override
+    public final synchronized void setIntervalNanos(long intervalNanos) {
+        groupIntervalNanos = intervalNanos;
+        sharedIntervalNanos.set(intervalNanos * threadCount);
+    }
+
+    @Override
+    public final synchronized void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+        sharedIntervalNanos.set(groupIntervalNanos * threadCount);
+    }
+
+    @Override
+    public final void restart() {
+        // the next waitForNext() starts with a random delay, just like the first one
+        nextNanos = 0;
+    }
+
+    public final long getIntervalNanos() {
+        return sharedIntervalNanos.get();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A {@link Metronome} of which the interval can be changed while the test is running.
+ *
+ * The metronomes of an execution group are created from a single master metronome and share its interval, so changing the
+ * interval of the master changes the interval of all metronomes of the execution group at once. A metronome picks up the new
+ * interval on its next {@link #waitForNext()} call, or while it is waiting for the next execution.
+ *
+ * A metronome which schedules every thread separately moves the next execution to a random moment within the new interval
+ * when the interval changes, but never later than it was already scheduled. So the threads of the execution group spread
+ * over the new interval instead of all continuing at the same moment, and a lower interval takes effect immediately instead
+ * of after the old interval has passed.
+ */
+public interface AdjustableMetronome extends Metronome {
+
+    /**
+     * The maximum time a metronome parks while waiting for the next execution, so a changed interval is picked up within
+     * this time even if the next execution was scheduled far ahead.
+     */
+    long MAX_PARK_NANOS = MILLISECONDS.toNanos(10);
+
+    /**
+     * Changes the interval of this metronome and of all metronomes created from it.
+     *
+     * This method is thread-safe.
+     *
+     * @param intervalNanos the interval of the execution group in nanoseconds; just like the interval property it is
+     *                      independent of the number of threads
+     */
+    void setIntervalNanos(long intervalNanos);
+
+    /**
+     * Changes the number of active threads of the execution group. A metronome which divides the interval of the execution
+     * group over its threads changes the interval of every thread, so the rate of the execution group stays the same when
+     * threads are added or parked. A metronome which schedules the execution group as a whole can ignore this.
+     *
+     * This method is thread-safe.
+     *
+     * @param threadCount the number of active threads of the execution group, at least 1
+     */
+    void setThreadCount(int threadCount);
+
+    /**
+     * Restarts this metronome after its thread didn't call {@link #waitForNext()} for a while, e.g. because it was parked by
+     * a lower thread count. A metronome which schedules every thread separately moves the next execution to a random moment
+     * within one interval from now, so the executions missed while the thread was parked are neither executed as a burst
+     * nor recorded as latency.
+     *
+     * This method is not thread-safe; it should only be called by the thread using this metronome.
+     */
+    void restart();
+}
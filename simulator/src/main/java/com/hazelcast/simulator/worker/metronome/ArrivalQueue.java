@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free queue of arrival times with a single producer and multiple consumers.
+ *
+ * The arrival times are stored in a ring, so offering and polling an arrival doesn't create any garbage. If the queue is
+ * full, the arrival is rejected instead of blocking the producer.
+ */
+final class ArrivalQueue {
+
+    static final long EMPTY = Long.MIN_VALUE;
+
+    private final AtomicLongArray ring;
+    private final int capacity;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    ArrivalQueue(int capacity) {
+        this.capacity = capacity;
+        this.ring = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Offers an arrival. Is only called by the producer.
+     *
+     * @param arrivalNanos the time of the arrival
+     * @return {@code true} if the arrival was added, {@code false} if the queue is full
+     */
+    boolean offer(long arrivalNanos) {
+        long tail = this.tail.get();
+        if (tail - head.get() >= capacity) {
+            return false;
+        }
+        ring.set((int) (tail % capacity), arrivalNanos);
+        this.tail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Polls an arrival.
+     *
+     * @return the time of the arrival or {@link #EMPTY} if the queue is empty
+     */
+    long poll() {
+        for (; ; ) {
+            long head = this.head.get();
+            if (head >= tail.get()) {
+                return EMPTY;
+            }
+            // the slot can't be overwritten before the head has moved past it, so a successful cas proves the read
+            long arrivalNanos = ring.get((int) (head % capacity));
+            if (this.head.compareAndSet(head, head + 1)) {
+                return arrivalNanos;
+            }
+        }
+    }
+
+    int size() {
+        // the head can move past the tail that was read, so the size is clamped
+        long tail = this.tail.get();
+        return (int) Math.max(0, tail - head.get());
+    }
+}
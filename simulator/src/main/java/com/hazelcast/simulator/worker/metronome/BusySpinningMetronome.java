@@ -18,8 +18,6 @@ package com.hazelcast.simulator.worker.metronome;
 import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
 
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
-import static java.lang.System.nanoTime;
-import static org.apache.commons.lang3.RandomUtils.nextLong;
 
 /**
  * Simple {@link Metronome} implementation which busy loops on a fixed interval.
@@ -33,45 +31,22 @@ import static org.apache.commons.lang3.RandomUtils.nextLong;
  *
  * The wait interval on the first {@link #waitForNext()} call is randomized.
  */
-public final class BusySpinningMetronome implements Metronome {
-
-    private final long intervalNanos;
-    private final boolean accountForCoordinatedOmission;
-    private long nextNanos;
+public final class BusySpinningMetronome extends AbstractIntervalMetronome {
 
     BusySpinningMetronome(long intervalNanos, boolean accountForCoordinatedOmission) {
-        this.intervalNanos = intervalNanos;
-        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+        super(intervalNanos, 1, accountForCoordinatedOmission);
     }
 
     public BusySpinningMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
-        this(intervalNanos * threadCount, binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
+        super(intervalNanos, threadCount, binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
     }
 
     public BusySpinningMetronome(Metronome m) {
-        BusySpinningMetronome master = (BusySpinningMetronome) m;
-        this.intervalNanos = master.intervalNanos;
-        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+        super((BusySpinningMetronome) m);
     }
 
     @Override
-    public long waitForNext() {
-        // set random interval on the first run
-        if (nextNanos == 0) {
-            nextNanos = nanoTime() + nextLong(0, intervalNanos);
-        }
-
-        long now;
-        do {
-            now = nanoTime();
-        } while (now < nextNanos);
-
-        long expectedStartNanos = nextNanos;
-        nextNanos = expectedStartNanos + intervalNanos;
-        return accountForCoordinatedOmission ? expectedStartNanos : nanoTime();
-    }
-
-    public long getIntervalNanos() {
-        return intervalNanos;
+    void idle(long remainingNanos) {
+        // busy spin
     }
 }
@@ -20,6 +20,7 @@ import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.min;
 import static java.lang.System.nanoTime;
 import static java.util.concurrent.locks.LockSupport.parkNanos;
 
@@ -34,14 +35,16 @@ import static java.util.concurrent.locks.LockSupport.parkNanos;
  * With the ConstantCombinedRateMetronome this bubble is less likely to happen because as long as there is a thread available,
  * it will take over the work of the blocked threads. This way you get less bubbles and a more stable rate of requests.
  */
-public class ConstantCombinedRateMetronome implements Metronome {
+public class ConstantCombinedRateMetronome implements AdjustableMetronome {
 
-    private final long intervalNanos;
+    // the interval is shared by all metronomes created from the same master
+    private final AtomicLong intervalNanos;
     private final boolean accountForCoordinatedOmission;
     private final AtomicLong nextExpectedStartNanos;
+    private long intendedStartNanos;
 
     ConstantCombinedRateMetronome(long intervalNanos, boolean accountForCoordinatedOmission) {
-        this.intervalNanos = intervalNanos;
+        this.intervalNanos = new AtomicLong(intervalNanos);
         this.accountForCoordinatedOmission = accountForCoordinatedOmission;
         this.nextExpectedStartNanos = new AtomicLong(nanoTime());
     }
@@ -65,19 +68,55 @@ public class ConstantCombinedRateMetronome implements Metronome {
             long now;
             while ((now = nanoTime()) < expectedStartNanos) {
                 // we can't pick up the request yet since it is too early.
-                parkNanos(expectedStartNanos - now);
+                parkNanos(min(expectedStartNanos - now, MAX_PARK_NANOS));
+                if (nextExpectedStartNanos.get() != expectedStartNanos) {
+                    // the request was moved by an interval change or picked up by another thread
+                    break;
+                }
             }
 
             // if we manage to cas the item, we can execute the request, otherwise continue waiting.
-            if (nextExpectedStartNanos.compareAndSet(expectedStartNanos, expectedStartNanos + intervalNanos)) {
+            if (now >= expectedStartNanos
+                    && nextExpectedStartNanos.compareAndSet(expectedStartNanos, expectedStartNanos + intervalNanos.get())) {
                 break;
             }
         }
 
+        intendedStartNanos = expectedStartNanos;
         return accountForCoordinatedOmission ? expectedStartNanos : nanoTime();
     }
 
+    @Override
+    public long intendedStartNanos() {
+        return intendedStartNanos;
+    }
+
+    @Override
+    public void setIntervalNanos(long intervalNanos) {
+        this.intervalNanos.set(intervalNanos);
+        // the next request is never later than one new interval from now; there is a single next request for all threads,
+        // so the threads don't continue all at the same moment
+        for (; ; ) {
+            long expectedStartNanos = nextExpectedStartNanos.get();
+            long newExpectedStartNanos = nanoTime() + intervalNanos;
+            if (expectedStartNanos <= newExpectedStartNanos
+                    || nextExpectedStartNanos.compareAndSet(expectedStartNanos, newExpectedStartNanos)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void setThreadCount(int threadCount) {
+        // the next request is shared by all threads, so the rate doesn't depend on the number of threads
+    }
+
+    @Override
+    public void restart() {
+        // the next request is shared by all threads, so a thread which was parked continues with the schedule of the group
+    }
+
     public long getIntervalNanos() {
-        return intervalNanos;
+        return intervalNanos.get();
     }
 }
@@ -26,4 +26,10 @@ public final class EmptyMetronome implements Metronome {
     public long waitForNext() {
         return System.nanoTime();
     }
+
+    @Override
+    public long intendedStartNanos() {
+        // there is no schedule, so every call is supposed to execute immediately
+        return System.nanoTime();
+    }
 }
@@ -31,5 +31,16 @@ public interface Metronome {
      * @return the time the call was supposed to execute.
      */
     long waitForNext();
+
+    /**
+     * Returns the time the last {@link #waitForNext()} call was supposed to execute.
+     *
+     * In contrast to {@link #waitForNext()}, this is always the intended start time, even if the metronome is not
+     * configured to account for coordinated omission. This makes it possible to measure the response time and the
+     * service time of the same call.
+     *
+     * @return the time the last call was supposed to execute.
+     */
+    long intendedStartNanos();
 }
 
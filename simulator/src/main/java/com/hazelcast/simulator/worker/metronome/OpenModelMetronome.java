@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.utils.SplitMixRandom;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
+import org.apache.log4j.Logger;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * A {@link Metronome} for an open model: the arrivals are generated independently of the threads executing them.
+ * <p>
+ * With the other metronomes the rate is divided over the timestep threads. If the threads block, e.g. because the cluster
+ * stalls, they don't pick up new requests and the offered load drops; this is a closed model, even if the latency is
+ * determined based on the expected start time. With the OpenModelMetronome a single scheduler thread generates the
+ * arrivals at the configured rate and puts them in a bounded lock-free queue. The timestep threads take the arrivals from
+ * this queue and the latency is determined from the arrival, so it includes the time the arrival was queued. Combined with
+ * async timestep methods a small number of threads can keep up the offered load.
+ * <p>
+ * The arrivals can be generated with a constant interval or as a Poisson process with the configured rate as mean:
+ * <pre>
+ * {@code
+ *     class=yourtest
+ *     ratePerSecond=10000
+ *     metronomeClass=com.hazelcast.simulator.worker.metronome.OpenModelMetronome
+ *     arrivalDistribution=poisson
+ *     maxBacklog=10000
+ * }
+ * </pre>
+ * If the backlog is full, new arrivals are dropped. The time between an arrival and its pickup by a timestep thread is
+ * recorded in the arrivalQueueingDelay probe, prefixed with the execution group. The backlog and the number of dropped
+ * arrivals are counts and not latencies, so they are not recorded in a probe; the scheduler thread logs the maximum
+ * backlog and the dropped arrivals every 10 seconds.
+ */
+public final class OpenModelMetronome implements AdjustableMetronome {
+
+    static final int DEFAULT_MAX_BACKLOG = 10000;
+
+    private static final long REPORT_INTERVAL_NANOS = SECONDS.toNanos(10);
+    private static final long MAX_IDLE_PARK_NANOS = MICROSECONDS.toNanos(100);
+
+    private static final Logger LOGGER = Logger.getLogger(OpenModelMetronome.class);
+
+    private final ArrivalScheduler scheduler;
+    private long intendedStartNanos;
+
+    OpenModelMetronome(ArrivalScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public OpenModelMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
+        this(new ArrivalScheduler(
+                intervalNanos,
+                binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true),
+                isPoisson(binding.load(toPropertyName(prefix, "arrivalDistribution"))),
+                loadMaxBacklog(binding, prefix),
+                binding.getTestContext(),
+                binding.getOrCreateProbe(toPropertyName(prefix, "arrivalQueueingDelay"), false)));
+    }
+
+    public OpenModelMetronome(Metronome m) {
+        this(((OpenModelMetronome) m).scheduler);
+    }
+
+    private static boolean isPoisson(String arrivalDistribution) {
+        if (arrivalDistribution == null || "constant".equals(arrivalDistribution)) {
+            return false;
+        } else if ("poisson".equals(arrivalDistribution)) {
+            return true;
+        }
+        throw new IllegalTestException("Unknown arrivalDistribution [" + arrivalDistribution
+                + "], supported are: constant, poisson");
+    }
+
+    private static int loadMaxBacklog(PropertyBinding binding, String prefix) {
+        int maxBacklog = binding.loadAsInt(toPropertyName(prefix, "maxBacklog"), DEFAULT_MAX_BACKLOG);
+        if (maxBacklog < 1) {
+            throw new IllegalTestException("maxBacklog must be at least 1, but was " + maxBacklog);
+        }
+        return maxBacklog;
+    }
+
+    @Override
+    public long waitForNext() {
+        ArrivalScheduler scheduler = this.scheduler;
+        scheduler.ensureStarted();
+
+        long arrivalNanos;
+        while ((arrivalNanos = scheduler.queue.poll()) == ArrivalQueue.EMPTY) {
+            if (scheduler.isStopped()) {
+                throw new StopException();
+            }
+            parkNanos(scheduler.idleParkNanos);
+        }
+
+        long now = nanoTime();
+        scheduler.queueingDelayProbe.recordValue(now - arrivalNanos);
+        intendedStartNanos = arrivalNanos;
+        return scheduler.accountForCoordinatedOmission ? arrivalNanos : now;
+    }
+
+    @Override
+    public long intendedStartNanos() {
+        return intendedStartNanos;
+    }
+
+    @Override
+    public void setIntervalNanos(long intervalNanos) {
+        scheduler.setIntervalNanos(intervalNanos);
+    }
+
+    @Override
+    public void setThreadCount(int threadCount) {
+        // the arrivals are generated by the scheduler thread, so the rate doesn't depend on the number of threads
+    }
+
+    @Override
+    public void restart() {
+        // the arrivals are generated by the scheduler thread, so a thread which was parked has no schedule of its own
+    }
+
+    public long getIntervalNanos() {
+        return scheduler.intervalNanos;
+    }
+
+    int backlog() {
+        return scheduler.queue.size();
+    }
+
+    long droppedCount() {
+        return scheduler.droppedCount.get();
+    }
+
+    /**
+     * Generates the arrivals; is shared by all metronomes of an execution group.
+     */
+    static final class ArrivalScheduler implements Runnable {
+
+        private volatile long intervalNanos;
+        private volatile long idleParkNanos;
+        private final boolean accountForCoordinatedOmission;
+        private final boolean poisson;
+        private final ArrivalQueue queue;
+        private final TestContext testContext;
+        private final Probe queueingDelayProbe;
+        private final AtomicLong droppedCount = new AtomicLong();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Random random = new SplitMixRandom();
+
+        ArrivalScheduler(long intervalNanos, boolean accountForCoordinatedOmission, boolean poisson, int maxBacklog,
+                         TestContext testContext, Probe queueingDelayProbe) {
+            this.intervalNanos = intervalNanos;
+            this.idleParkNanos = min(intervalNanos, MAX_IDLE_PARK_NANOS);
+            this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+            this.poisson = poisson;
+            this.queue = new ArrivalQueue(maxBacklog);
+            this.testContext = testContext;
+            this.queueingDelayProbe = queueingDelayProbe;
+        }
+
+        void ensureStarted() {
+            if (!started.get() && started.compareAndSet(false, true)) {
+                String testId = testContext == null ? "" : testContext.getTestId() + "-";
+                Thread thread = new Thread(this, testId + "ArrivalSchedulerThread");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        void setIntervalNanos(long intervalNanos) {
+            this.idleParkNanos = min(intervalNanos, MAX_IDLE_PARK_NANOS);
+            this.intervalNanos = intervalNanos;
+        }
+
+        boolean isStopped() {
+            return testContext != null && testContext.isStopped();
+        }
+
+        @Override
+        public void run() {
+            long appliedIntervalNanos = intervalNanos;
+            long nextArrivalNanos = nanoTime();
+            long nextReportNanos = nextArrivalNanos + REPORT_INTERVAL_NANOS;
+            long lastDroppedCount = 0;
+            int maxBacklog = 0;
+            while (!isStopped()) {
+                long now = nanoTime();
+                if (now >= nextReportNanos) {
+                    long totalDroppedCount = droppedCount.get();
+                    report(maxBacklog, totalDroppedCount - lastDroppedCount, totalDroppedCount);
+                    nextReportNanos += REPORT_INTERVAL_NANOS;
+                    lastDroppedCount = totalDroppedCount;
+                    maxBacklog = 0;
+                }
+                if (appliedIntervalNanos != intervalNanos) {
+                    // the arrivals are generated by a single thread, so an interval change can't cause a burst of arrivals
+                    appliedIntervalNanos = intervalNanos;
+                    nextArrivalNanos = min(nextArrivalNanos, now + nextIntervalNanos());
+                }
+                if (now < nextArrivalNanos) {
+                    parkNanos(min(nextArrivalNanos - now, MAX_PARK_NANOS));
+                    continue;
+                }
+
+                // if the scheduler is late, all due arrivals are generated at once, so the offered load doesn't drop
+                if (queue.offer(nextArrivalNanos)) {
+                    maxBacklog = max(maxBacklog, queue.size());
+                } else {
+                    droppedCount.lazySet(droppedCount.get() + 1);
+                }
+                nextArrivalNanos += nextIntervalNanos();
+            }
+        }
+
+        private void report(int maxBacklog, long intervalDroppedCount, long totalDroppedCount) {
+            String testId = testContext == null ? "" : testContext.getTestId() + " ";
+            LOGGER.info(format("%sarrivals: max backlog %d, dropped %d (total %d)",
+                    testId, maxBacklog, intervalDroppedCount, totalDroppedCount));
+        }
+
+        private long nextIntervalNanos() {
+            long intervalNanos = this.intervalNanos;
+            if (!poisson) {
+                return intervalNanos;
+            }
+            // the intervals between the arrivals of a Poisson process are exponentially distributed
+            return round(-log(1 - random.nextDouble()) * intervalNanos);
+        }
+    }
+}
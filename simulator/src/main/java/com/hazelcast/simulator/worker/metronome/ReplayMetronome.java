@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+import com.hazelcast.simulator.worker.trace.OperationTraceReader;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * {@link Metronome} which replays an operation trace recorded by a timestep thread.
+ *
+ * Next to the moment of the call, it provides the timestep method and the key index of the recorded call. The moments are
+ * relative to the start of the run and can be scaled with a speed, e.g. 2 replays the trace twice as fast. Just like the
+ * other metronomes the intended start time is returned, so a replay which falls behind doesn't hide the delay.
+ *
+ * The ReplayMetronome isn't created by the {@link com.hazelcast.simulator.worker.testcontainer.MetronomeConstructor},
+ * since every timestep thread replays its own trace.
+ */
+public final class ReplayMetronome implements Metronome {
+
+    // the stop signal is checked at least this often while waiting for a call
+    private static final long MAX_PARK_NANOS = MILLISECONDS.toNanos(10);
+
+    private final OperationTraceReader reader;
+    private final int[] methodIndices;
+    private final TestContext testContext;
+    private final long originNanos;
+    private final double speed;
+    private long intendedStartNanos;
+
+    /**
+     * Creates a ReplayMetronome.
+     *
+     * @param reader      the reader of the trace
+     * @param methodNames the names of the active timestep methods of the execution group in the order of the runner
+     * @param testContext the context of the test which is checked for the stop signal while waiting
+     * @param originNanos the start of the replayed run
+     * @param speed       the speed of the replay
+     * @throws IllegalTestException if the trace contains a timestep method which isn't active
+     */
+    public ReplayMetronome(OperationTraceReader reader, List<String> methodNames, TestContext testContext,
+                           long originNanos, double speed) {
+        this.reader = reader;
+        this.testContext = testContext;
+        this.originNanos = originNanos;
+        this.speed = speed;
+
+        List<String> recordedMethodNames = reader.getMethodNames();
+        this.methodIndices = new int[recordedMethodNames.size()];
+        for (int i = 0; i < methodIndices.length; i++) {
+            methodIndices[i] = methodNames.indexOf(recordedMethodNames.get(i));
+            if (methodIndices[i] == -1) {
+                throw new IllegalTestException(format("The operation trace contains timestep method [%s], which isn't an"
+                        + " active timestep method. Active timestep methods: %s", recordedMethodNames.get(i), methodNames));
+            }
+        }
+    }
+
+    /**
+     * Moves to the next recorded call.
+     *
+     * @return {@code true} if there is a next call, {@code false} if the trace has been replayed completely
+     */
+    public boolean next() {
+        if (!reader.next()) {
+            return false;
+        }
+        intendedStartNanos = originNanos + (long) (reader.offsetNanos() / speed);
+        return true;
+    }
+
+    @Override
+    public long waitForNext() {
+        long now;
+        while ((now = System.nanoTime()) < intendedStartNanos && !testContext.isStopped()) {
+            LockSupport.parkNanos(min(intendedStartNanos - now, MAX_PARK_NANOS));
+        }
+        return intendedStartNanos;
+    }
+
+    @Override
+    public long intendedStartNanos() {
+        return intendedStartNanos;
+    }
+
+    /**
+     * Returns the index of the timestep method of the current call in the active timestep methods of the runner.
+     *
+     * @return the method index
+     */
+    public int methodIndex() {
+        return methodIndices[reader.methodIndex()];
+    }
+
+    /**
+     * Returns the recorded key index of the current call.
+     *
+     * @return the key index or -1 if the recorded call didn't select a key index
+     */
+    public int keyIndex() {
+        return reader.keyIndex();
+    }
+}
@@ -17,11 +17,9 @@ package com.hazelcast.simulator.worker.metronome;
 
 import com.hazelcast.simulator.worker.testcontainer.PropertyBinding;
 
-import java.util.concurrent.locks.LockSupport;
-
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
-import static java.lang.System.nanoTime;
-import static org.apache.commons.lang3.RandomUtils.nextLong;
+import static java.lang.Math.min;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
 
 /**
  * Simple {@link Metronome} implementation which sleeps on a fixed interval. The SleepingMetronome is best when there
@@ -29,45 +27,22 @@ import static org.apache.commons.lang3.RandomUtils.nextLong;
  * <p>
  * The wait interval on the first {@link #waitForNext()} call is randomized.
  */
-public final class SleepingMetronome implements Metronome {
-
-    private final long intervalNanos;
-    private final boolean accountForCoordinatedOmission;
-    private long nextNanos;
+public final class SleepingMetronome extends AbstractIntervalMetronome {
 
     SleepingMetronome(long intervalNanos, boolean accountForCoordinatedOmission) {
-        this.intervalNanos = intervalNanos;
-        this.accountForCoordinatedOmission = accountForCoordinatedOmission;
+        super(intervalNanos, 1, accountForCoordinatedOmission);
     }
 
     public SleepingMetronome(long intervalNanos, int threadCount, PropertyBinding binding, String prefix) {
-        this(intervalNanos * threadCount, binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
+        super(intervalNanos, threadCount, binding.loadAsBoolean(toPropertyName(prefix, "accountForCoordinatedOmission"), true));
     }
 
     public SleepingMetronome(Metronome m) {
-        SleepingMetronome master = (SleepingMetronome) m;
-        this.intervalNanos = master.intervalNanos;
-        this.accountForCoordinatedOmission = master.accountForCoordinatedOmission;
+        super((SleepingMetronome) m);
     }
 
     @Override
-    public long waitForNext() {
-        // set random interval on the first run
-        if (nextNanos == 0) {
-            nextNanos = nanoTime() + nextLong(0, intervalNanos);
-        }
-
-        long now;
-        while ((now = System.nanoTime()) < nextNanos) {
-            LockSupport.parkNanos(nextNanos - now);
-        }
-
-        long expectedStartNanos = nextNanos;
-        nextNanos += intervalNanos;
-        return accountForCoordinatedOmission ? expectedStartNanos : nanoTime();
-    }
-
-    public long getIntervalNanos() {
-        return intervalNanos;
+    void idle(long remainingNanos) {
+        parkNanos(min(remainingNanos, MAX_PARK_NANOS));
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import org.apache.log4j.Logger;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Keeps track of the most recent garbage collections of the JVM, so it can be determined if an operation overlapped with
+ * a garbage collection.
+ *
+ * The garbage collections are reported by the JVM using notifications of the {@link GarbageCollectorMXBean} instances.
+ * If the JVM doesn't support these notifications, no overlaps are found. Safepoints which are not caused by a garbage
+ * collection are not reported by the JVM, so they are not tracked.
+ */
+final class GcPauseTracker implements NotificationListener {
+
+    // the notification type of com.sun.management.GarbageCollectionNotificationInfo
+    private static final String GC_NOTIFICATION_TYPE = "com.sun.management.gc.notification";
+    private static final int HISTORY_SIZE = 256;
+
+    private static final Logger LOGGER = Logger.getLogger(GcPauseTracker.class);
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final long[] startMillis = new long[HISTORY_SIZE];
+    private final long[] endMillis = new long[HISTORY_SIZE];
+    private int count;
+
+    void start() {
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                ((NotificationEmitter) gcBean).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    void stop() {
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcBean instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) gcBean).removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    LOGGER.debug("GC listener was not registered on " + gcBean.getName());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GC_NOTIFICATION_TYPE.equals(notification.getType())) {
+            return;
+        }
+
+        CompositeData gcInfo = (CompositeData) ((CompositeData) notification.getUserData()).get("gcInfo");
+        // the times of the gcInfo are relative to the start of the JVM
+        add(jvmStartMillis + (Long) gcInfo.get("startTime"), jvmStartMillis + (Long) gcInfo.get("endTime"));
+    }
+
+    synchronized void add(long gcStartMillis, long gcEndMillis) {
+        int index = count % HISTORY_SIZE;
+        startMillis[index] = gcStartMillis;
+        endMillis[index] = gcEndMillis;
+        count++;
+    }
+
+    /**
+     * Checks if a garbage collection overlapped with the given time window.
+     *
+     * @param fromMillis the start of the time window
+     * @param toMillis   the end of the time window
+     * @return {@code true} if a tracked garbage collection overlapped, {@code false} otherwise
+     */
+    synchronized boolean overlaps(long fromMillis, long toMillis) {
+        int size = count < HISTORY_SIZE ? count : HISTORY_SIZE;
+        for (int i = 0; i < size; i++) {
+            if (startMillis[i] <= toMillis && endMillis[i] >= fromMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
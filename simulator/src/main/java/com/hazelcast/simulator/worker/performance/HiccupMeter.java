@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.probes.CoordinatedOmissionCorrector;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.test.TestException;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepNanos;
+import static com.hazelcast.simulator.worker.performance.PerformanceStats.INTERVAL_LATENCY_PERCENTILE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the hiccups of the JVM and the OS, like jHiccup does.
+ *
+ * A thread which does nothing else than sleeping in short intervals should wake up in time. Every time it wakes up too
+ * late, the overshoot is recorded as a hiccup: a GC pause, a safepoint, a stall of the OS or a noisy neighbor. The shortest
+ * observed sleep is used as baseline, so the normal timer slack of the OS isn't reported. Just like an operation of a
+ * closed-loop test, the thread can't notice the wake ups it missed during a long hiccup, so these are corrected for
+ * coordinated omission.
+ *
+ * The hiccups are not caused by a Simulator Test, so they give the noise floor of the platform to compare the latencies of
+ * the tests against. The hiccups are written to {@code hiccup.hdr}.
+ */
+public final class HiccupMeter {
+
+    public static final long DEFAULT_RESOLUTION_NANOS = MILLISECONDS.toNanos(1);
+
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final Logger LOGGER = Logger.getLogger(HiccupMeter.class);
+
+    private final HdrProbe probe = new HdrProbe(false);
+    private final HiccupMeterThread thread;
+    private final File file;
+
+    private volatile boolean shutdown;
+    private Histogram intervalHistogram;
+    private HistogramLogWriter histogramLogWriter;
+    private long intervalHiccup999PercentileNanos = -1;
+    private long intervalHiccupMaxNanos = -1;
+
+    public HiccupMeter(File directory) {
+        this(directory, DEFAULT_RESOLUTION_NANOS);
+    }
+
+    HiccupMeter(File directory, long resolutionNanos) {
+        this.file = new File(directory, "hiccup.hdr");
+        this.thread = new HiccupMeterThread(resolutionNanos);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        joinThread(thread, SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * Discards the hiccups which have been recorded so far, e.g. while no test is running.
+     */
+    void reset() {
+        probe.reset();
+    }
+
+    /**
+     * Takes the interval snapshot of the hiccups and writes it to {@code hiccup.hdr}.
+     *
+     * @param startTimeMillis the start of the interval
+     * @param endTimeMillis   the end of the interval
+     */
+    void update(long startTimeMillis, long endTimeMillis) {
+        intervalHistogram = probe.getIntervalHistogram(intervalHistogram);
+        intervalHistogram.setStartTimeStamp(startTimeMillis);
+        intervalHistogram.setEndTimeStamp(endTimeMillis);
+
+        if (intervalHistogram.getTotalCount() == 0) {
+            intervalHiccup999PercentileNanos = -1;
+            intervalHiccupMaxNanos = -1;
+        } else {
+            intervalHiccup999PercentileNanos = intervalHistogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE);
+            intervalHiccupMaxNanos = intervalHistogram.getMaxValue();
+        }
+
+        if (histogramLogWriter == null) {
+            histogramLogWriter = createHistogramLogWriter(startTimeMillis);
+        }
+        histogramLogWriter.outputIntervalHistogram(intervalHistogram);
+    }
+
+    long intervalHiccup999PercentileNanos() {
+        return intervalHiccup999PercentileNanos;
+    }
+
+    long intervalHiccupMaxNanos() {
+        return intervalHiccupMaxNanos;
+    }
+
+    private HistogramLogWriter createHistogramLogWriter(long startTimeMillis) {
+        try {
+            HistogramLogWriter histogramLogWriter = new HistogramLogWriter(file);
+            histogramLogWriter.setBaseTime(startTimeMillis);
+            histogramLogWriter.outputStartTime(startTimeMillis);
+            histogramLogWriter.outputComment("[Hiccup histograms]");
+            histogramLogWriter.outputLogFormatVersion();
+            histogramLogWriter.outputLegend();
+            return histogramLogWriter;
+        } catch (IOException e) {
+            throw new TestException("Could not initialize HistogramLogWriter for " + file, e);
+        }
+    }
+
+    /**
+     * Thread which sleeps in short intervals and records how much later than requested it wakes up.
+     */
+    private final class HiccupMeterThread extends Thread {
+
+        private final long resolutionNanos;
+        private final CoordinatedOmissionCorrector corrector;
+
+        private HiccupMeterThread(long resolutionNanos) {
+            super("HiccupMeter");
+            setDaemon(true);
+            this.resolutionNanos = resolutionNanos;
+            this.corrector = new CoordinatedOmissionCorrector(probe, resolutionNanos);
+        }
+
+        @Override
+        public void run() {
+            LOGGER.info("HiccupMeter started with a resolution of " + resolutionNanos + " ns");
+
+            long shortestSleepNanos = Long.MAX_VALUE;
+            while (!shutdown) {
+                long startNanos = System.nanoTime();
+                sleepNanos(resolutionNanos);
+                long sleepNanos = System.nanoTime() - startNanos;
+
+                shortestSleepNanos = min(shortestSleepNanos, sleepNanos);
+                corrector.recordValue(max(0, sleepNanos - shortestSleepNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.performance;
+
+import com.hazelcast.simulator.probes.impl.OutlierRecorder;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.utils.FileUtils.appendText;
+import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Responsible for writing the outliers of a test to disk in csv format.
+ */
+final class OutlierLogWriter implements OutlierRecorder.Handler {
+
+    private static final Logger LOGGER = Logger.getLogger(OutlierLogWriter.class);
+
+    private final StringBuilder sb = new StringBuilder();
+    private final File file;
+    private final GcPauseTracker gcPauseTracker;
+    private boolean headerWritten;
+    private long droppedCount;
+
+    OutlierLogWriter(File file, GcPauseTracker gcPauseTracker) {
+        this.file = checkNotNull(file, "file can't be null");
+        this.gcPauseTracker = gcPauseTracker;
+    }
+
+    /**
+     * Drains the outliers of the given recorder and appends them to the file.
+     *
+     * @param outlierRecorder the recorder to drain
+     */
+    void write(OutlierRecorder outlierRecorder) {
+        sb.setLength(0);
+        long dropped = outlierRecorder.drain(this);
+        if (dropped > 0) {
+            droppedCount += dropped;
+            LOGGER.warn("Dropped " + dropped + " outliers for " + file.getName() + " (total " + droppedCount
+                    + "), increase the outlierBufferSize or the outlierThreshold");
+        }
+        if (sb.length() == 0) {
+            return;
+        }
+
+        if (!headerWritten) {
+            appendText("epoch-millis,thread,probe,latency-nanos,gc\n", file);
+            headerWritten = true;
+        }
+        appendText(sb.toString(), file);
+    }
+
+    @Override
+    public void onOutlier(long timestampMillis, String threadName, String probeName, long latencyNanos) {
+        long startMillis = timestampMillis - NANOSECONDS.toMillis(latencyNanos);
+        boolean gc = gcPauseTracker != null && gcPauseTracker.overlaps(startMillis, timestampMillis);
+
+        sb.append(timestampMillis)
+                .append(',').append(threadName)
+                .append(',').append(probeName)
+                .append(',').append(latencyNanos)
+                .append(',').append(gc)
+                .append('\n');
+    }
+}
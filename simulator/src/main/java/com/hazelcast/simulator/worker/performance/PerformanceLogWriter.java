@@ -31,14 +31,54 @@ final class PerformanceLogWriter {
     private final DecimalFormat format = new DecimalFormat("#.###");
     private final File file;
     private boolean headerWritten;
+    private String[] extraColumns = new String[0];
+    private double[] extraValues = new double[0];
 
     PerformanceLogWriter(File file) {
         this.file = checkNotNull(file, "file can't be null");
     }
 
     private void writeHeader() {
-        String columns = "epoch,timestamp,operations,operations-delta,operations/second,number-of-tests,total-tests\n";
-        appendText(columns, file);
+        StringBuilder columns = new StringBuilder(
+                "epoch,timestamp,operations,operations-delta,operations/second,number-of-tests,total-tests");
+        for (String extraColumn : extraColumns) {
+            columns.append(',').append(extraColumn);
+        }
+        columns.append('\n');
+        appendText(columns.toString(), file);
+    }
+
+    /**
+     * Sets the additional columns which are written after the standard columns.
+     *
+     * The columns can only be set before the first line is written, since they are part of the header.
+     *
+     * @param columns the names of the additional columns
+     */
+    void setExtraColumns(String... columns) {
+        if (headerWritten) {
+            throw new IllegalStateException("Can't set extra columns after the header has been written");
+        }
+        this.extraColumns = columns;
+        this.extraValues = new double[columns.length];
+    }
+
+    int getExtraColumnCount() {
+        return extraColumns.length;
+    }
+
+    boolean isHeaderWritten() {
+        return headerWritten;
+    }
+
+    /**
+     * Sets the value of an additional column for the next line which is written.
+     *
+     * @param index the index of the additional column
+     * @param value the value
+     */
+    void setExtraValue(int index, double value) {
+        extraValues[index] = value;
     }
 
     void write(long timeMillis,
@@ -63,6 +103,9 @@ final class PerformanceLogWriter {
         sb.append(',').append(format.format(operationsPerSecond));
         sb.append(',').append(numberOfTests);
         sb.append(',').append(totalTests);
+        for (double extraValue : extraValues) {
+            sb.append(',').append(format.format(extraValue));
+        }
         sb.append('\n');
         appendText(sb.toString(), file);
     }
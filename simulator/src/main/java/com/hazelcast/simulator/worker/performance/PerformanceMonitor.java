@@ -26,7 +26,10 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
@@ -54,7 +57,22 @@ public class PerformanceMonitor {
     public PerformanceMonitor(ServerConnector serverConnector,
                               Collection<TestContainer> testContainers,
                               int updateIntervalSeconds) {
-        this.thread = new PerformanceMonitorThread(serverConnector, testContainers, updateIntervalSeconds);
+        this(serverConnector, testContainers, updateIntervalSeconds, null);
+    }
+
+    /**
+     * Creates a performance monitor which also reports the hiccups of the JVM and OS.
+     *
+     * @param serverConnector       the connector to send the performance stats to the coordinator
+     * @param testContainers        the test containers to monitor
+     * @param updateIntervalSeconds the update interval in seconds
+     * @param hiccupMeter           the hiccup meter to report or {@code null} if hiccups are not reported
+     */
+    public PerformanceMonitor(ServerConnector serverConnector,
+                              Collection<TestContainer> testContainers,
+                              int updateIntervalSeconds,
+                              HiccupMeter hiccupMeter) {
+        this.thread = new PerformanceMonitorThread(serverConnector, testContainers, updateIntervalSeconds, hiccupMeter);
         thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
             @Override
             public void uncaughtException(Thread t, Throwable e) {
@@ -64,6 +82,7 @@ public class PerformanceMonitor {
     }
 
     public void start() {
+        thread.gcPauseTracker.start();
         thread.start();
     }
 
@@ -73,6 +92,7 @@ public class PerformanceMonitor {
         }
 
         joinThread(thread, MINUTES.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        thread.gcPauseTracker.stop();
     }
 
     /**
@@ -83,19 +103,28 @@ public class PerformanceMonitor {
         private final long scanIntervalNanos = SECONDS.toNanos(1);
         private final PerformanceLogWriter globalPerformanceLogWriter;
         private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+        private final Date date = new Date();
         private final ServerConnector serverConnector;
         private final Collection<TestContainer> testContainers;
         private final long updateIntervalMillis;
         private final List<TestContainer> dirtyContainers = new ArrayList<TestContainer>();
+        // the containers of which the outliers are written; a container is kept till its last outliers have been written,
+        // even if it has been removed from the test containers in the meantime
+        private final Set<TestContainer> outlierContainers = new HashSet<TestContainer>();
+        private final GcPauseTracker gcPauseTracker = new GcPauseTracker();
+        private final HiccupMeter hiccupMeter;
+        private long lastHiccupUpdateMillis;
 
         private PerformanceMonitorThread(ServerConnector serverConnector,
                                          Collection<TestContainer> testContainers,
-                                         long updateIntervalSeconds) {
+                                         long updateIntervalSeconds,
+                                         HiccupMeter hiccupMeter) {
             super("WorkerPerformanceMonitor");
             setDaemon(true);
             this.updateIntervalMillis = SECONDS.toMillis(updateIntervalSeconds);
             this.serverConnector = serverConnector;
             this.testContainers = testContainers;
+            this.hiccupMeter = hiccupMeter;
             this.globalPerformanceLogWriter = new PerformanceLogWriter(new File(getUserDir(), "performance.csv"));
         }
 
@@ -106,11 +135,13 @@ public class PerformanceMonitor {
                 long currentTimeMillis = currentTimeMillis();
 
                 updateTrackers(currentTimeMillis);
+                updateHiccups(currentTimeMillis);
 
                 if (!dirtyContainers.isEmpty()) {
                     coordinatorUpdate();
                     persist(currentTimeMillis);
                 }
+                flushCompletedOutliers();
 
                 long elapsedNanos = nanoTime() - startNanos;
 
@@ -124,6 +155,11 @@ public class PerformanceMonitor {
                     LOGGER.warn(getName() + ".run() took " + NANOSECONDS.toMillis(elapsedNanos) + " ms");
                 }
             }
+
+            // the outliers since the last update of the tests which are still running
+            for (TestContainer container : outlierContainers) {
+                container.getTestPerformanceTracker().persistOutliers(gcPauseTracker);
+            }
         }
 
         private void updateTrackers(long currentTimeMillis) {
@@ -134,15 +170,69 @@ public class PerformanceMonitor {
                 if (tracker.update(updateIntervalMillis, currentTimeMillis)) {
                     dirtyContainers.add(container);
                 }
+                if (container.isRunning() && tracker.isWarmupCompleted()) {
+                    outlierContainers.add(container);
+                }
+            }
+        }
+
+        /**
+         * The hiccups are only reported while tests are running; the hiccups in between are discarded.
+         */
+        private void updateHiccups(long currentTimeMillis) {
+            if (hiccupMeter == null) {
+                return;
+            }
+
+            if (dirtyContainers.isEmpty()) {
+                if (!isAnyTestRunning()) {
+                    hiccupMeter.reset();
+                    lastHiccupUpdateMillis = 0;
+                }
+                return;
+            }
+
+            long startMillis = lastHiccupUpdateMillis == 0 ? currentTimeMillis - updateIntervalMillis : lastHiccupUpdateMillis;
+            hiccupMeter.update(startMillis, currentTimeMillis);
+            lastHiccupUpdateMillis = currentTimeMillis;
+        }
+
+        /**
+         * The outliers are written with the performance stats of an interval, so the outliers recorded after the last
+         * interval of a test are written once the test has stopped running.
+         */
+        private void flushCompletedOutliers() {
+            Iterator<TestContainer> iterator = outlierContainers.iterator();
+            while (iterator.hasNext()) {
+                TestContainer container = iterator.next();
+                if (!container.isRunning()) {
+                    container.getTestPerformanceTracker().persistOutliers(gcPauseTracker);
+                    iterator.remove();
+                }
             }
         }
 
+        private boolean isAnyTestRunning() {
+            for (TestContainer container : testContainers) {
+                if (container.isRunning()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private void coordinatorUpdate() {
             PerformanceStatsOperation operation = new PerformanceStatsOperation();
 
             for (TestContainer container : dirtyContainers) {
                 TestPerformanceTracker tracker = container.getTestPerformanceTracker();
-                operation.addPerformanceStats(container.getTestCase().getId(), tracker.createPerformanceStats());
+                PerformanceStats performanceStats = tracker.createPerformanceStats();
+                if (hiccupMeter != null) {
+                    performanceStats.setIntervalHiccup(
+                            hiccupMeter.intervalHiccup999PercentileNanos(),
+                            hiccupMeter.intervalHiccupMaxNanos());
+                }
+                operation.addPerformanceStats(container.getTestCase().getId(), performanceStats);
             }
 
             if (operation.getPerformanceStats().size() > 0) {
@@ -151,7 +241,8 @@ public class PerformanceMonitor {
         }
 
         private void persist(long currentTimestamp) {
-            String dateString = simpleDateFormat.format(new Date(currentTimestamp));
+            date.setTime(currentTimestamp);
+            String dateString = simpleDateFormat.format(date);
             long globalIntervalOperationCount = 0;
             long globalOperationsCount = 0;
             double globalIntervalThroughput = 0;
@@ -159,6 +250,7 @@ public class PerformanceMonitor {
             for (TestContainer container : dirtyContainers) {
                 TestPerformanceTracker tracker = container.getTestPerformanceTracker();
                 tracker.persist(currentTimestamp, dateString);
+                tracker.persistOutliers(gcPauseTracker);
 
                 globalIntervalOperationCount += tracker.intervalOperationCount();
                 globalOperationsCount += tracker.totalOperationCount();
@@ -30,6 +30,11 @@ public class PerformanceStats {
 
     private static final long EMPTY_OPERATION_COUNT = -1;
     private static final double EMPTY_THROUGHPUT = -1;
+    private static final long EMPTY_SERVICE_TIME = -1;
+    private static final long EMPTY_CORRECTED_LATENCY = -1;
+    private static final double EMPTY_CPU_TIME = -1;
+    private static final long EMPTY_HICCUP = -1;
+    private static final double MICROS_PER_SECOND = 1000000;
 
     private long operationCount;
     private double intervalThroughput;
@@ -37,6 +42,18 @@ public class PerformanceStats {
     private double intervalLatencyAvgNanos;
     private long intervalLatencyMaxNanos;
     private long intervalLatency999PercentileNanos;
+    private double intervalServiceTimeAvgNanos = EMPTY_SERVICE_TIME;
+    private long intervalServiceTime999PercentileNanos = EMPTY_SERVICE_TIME;
+    private long intervalServiceTimeMaxNanos = EMPTY_SERVICE_TIME;
+    private long intervalCorrectedLatency999PercentileNanos = EMPTY_CORRECTED_LATENCY;
+    private long intervalCorrectedLatencyMaxNanos = EMPTY_CORRECTED_LATENCY;
+    private long failureCount;
+    private double intervalErrorRate;
+    private long intervalFailureLatency999PercentileNanos;
+    private double intervalCpuMicrosPerOperation = EMPTY_CPU_TIME;
+    private double intervalProcessCpuMicrosPerOperation = EMPTY_CPU_TIME;
+    private long intervalHiccup999PercentileNanos = EMPTY_HICCUP;
+    private long intervalHiccupMaxNanos = EMPTY_HICCUP;
 
     /**
      * Creates an empty {@link PerformanceStats} instance.
@@ -79,6 +96,84 @@ public class PerformanceStats {
         this.intervalLatencyAvgNanos = original.intervalLatencyAvgNanos;
         this.intervalLatency999PercentileNanos = original.intervalLatency999PercentileNanos;
         this.intervalLatencyMaxNanos = original.intervalLatencyMaxNanos;
+        this.intervalServiceTimeAvgNanos = original.intervalServiceTimeAvgNanos;
+        this.intervalServiceTime999PercentileNanos = original.intervalServiceTime999PercentileNanos;
+        this.intervalServiceTimeMaxNanos = original.intervalServiceTimeMaxNanos;
+        this.intervalCorrectedLatency999PercentileNanos = original.intervalCorrectedLatency999PercentileNanos;
+        this.intervalCorrectedLatencyMaxNanos = original.intervalCorrectedLatencyMaxNanos;
+        this.failureCount = original.failureCount;
+        this.intervalErrorRate = original.intervalErrorRate;
+        this.intervalFailureLatency999PercentileNanos = original.intervalFailureLatency999PercentileNanos;
+        this.intervalCpuMicrosPerOperation = original.intervalCpuMicrosPerOperation;
+        this.intervalProcessCpuMicrosPerOperation = original.intervalProcessCpuMicrosPerOperation;
+        this.intervalHiccup999PercentileNanos = original.intervalHiccup999PercentileNanos;
+        this.intervalHiccupMaxNanos = original.intervalHiccupMaxNanos;
+    }
+
+    /**
+     * Sets the service time values, which are only available if the service time is measured next to the response time.
+     *
+     * @param intervalServiceTimeAvgNanos           Average service time for an interval.
+     * @param intervalServiceTime999PercentileNanos 99.9 Percentile service time for an interval
+     *                                              ({@link PerformanceStats#INTERVAL_LATENCY_PERCENTILE}).
+     * @param intervalServiceTimeMaxNanos           Maximum service time for an interval.
+     */
+    public void setIntervalServiceTime(double intervalServiceTimeAvgNanos,
+                                       long intervalServiceTime999PercentileNanos,
+                                       long intervalServiceTimeMaxNanos) {
+        this.intervalServiceTimeAvgNanos = intervalServiceTimeAvgNanos;
+        this.intervalServiceTime999PercentileNanos = intervalServiceTime999PercentileNanos;
+        this.intervalServiceTimeMaxNanos = intervalServiceTimeMaxNanos;
+    }
+
+    /**
+     * Sets the latency values which are corrected for coordinated omission, which are only available if the latencies of a
+     * closed-loop test are corrected.
+     *
+     * @param intervalCorrectedLatency999PercentileNanos 99.9 Percentile corrected latency for an interval
+     *                                                   ({@link PerformanceStats#INTERVAL_LATENCY_PERCENTILE}).
+     * @param intervalCorrectedLatencyMaxNanos           Maximum corrected latency for an interval.
+     */
+    public void setIntervalCorrectedLatency(long intervalCorrectedLatency999PercentileNanos,
+                                            long intervalCorrectedLatencyMaxNanos) {
+        this.intervalCorrectedLatency999PercentileNanos = intervalCorrectedLatency999PercentileNanos;
+        this.intervalCorrectedLatencyMaxNanos = intervalCorrectedLatencyMaxNanos;
+    }
+
+    /**
+     * Sets the failure values.
+     *
+     * @param failureCount                             Failure count value.
+     * @param intervalErrorRate                        Fraction of the operations which failed in an interval.
+     * @param intervalFailureLatency999PercentileNanos 99.9 Percentile latency of the failed operations for an interval.
+     */
+    public void setFailures(long failureCount, double intervalErrorRate, long intervalFailureLatency999PercentileNanos) {
+        this.failureCount = failureCount;
+        this.intervalErrorRate = intervalErrorRate;
+        this.intervalFailureLatency999PercentileNanos = intervalFailureLatency999PercentileNanos;
+    }
+
+    /**
+     * Sets the CPU time per operation, which is only available if the JVM can measure the CPU time of the test threads.
+     *
+     * @param intervalCpuMicrosPerOperation        CPU time of the test threads per operation for an interval.
+     * @param intervalProcessCpuMicrosPerOperation CPU time of the whole JVM per operation for an interval.
+     */
+    public void setCpuTime(double intervalCpuMicrosPerOperation, double intervalProcessCpuMicrosPerOperation) {
+        this.intervalCpuMicrosPerOperation = intervalCpuMicrosPerOperation;
+        this.intervalProcessCpuMicrosPerOperation = intervalProcessCpuMicrosPerOperation;
+    }
+
+    /**
+     * Sets the hiccups of the JVM and OS the test was running on, which are only available if the hiccups are measured.
+     *
+     * @param intervalHiccup999PercentileNanos 99.9 Percentile hiccup for an interval
+     *                                         ({@link PerformanceStats#INTERVAL_LATENCY_PERCENTILE}).
+     * @param intervalHiccupMaxNanos           Maximum hiccup for an interval.
+     */
+    public void setIntervalHiccup(long intervalHiccup999PercentileNanos, long intervalHiccupMaxNanos) {
+        this.intervalHiccup999PercentileNanos = intervalHiccup999PercentileNanos;
+        this.intervalHiccupMaxNanos = intervalHiccupMaxNanos;
     }
 
     /**
@@ -100,7 +195,7 @@ public class PerformanceStats {
      * For the total performance number and the performance per Simulator Agent, the added values should be set, so we get the
      * summed up operation count and throughput values.
      * <p>
-     * The method always sets the maximum values for latency.
+     * The method always sets the maximum values for latency, error rate, CPU time per operation and hiccups.
      *
      * @param other                          {@link PerformanceStats} which should be added to this instance
      * @param addOperationCountAndThroughput {@code true} if operation count and throughput should be added,
@@ -119,13 +214,32 @@ public class PerformanceStats {
             intervalLatencyAvgNanos = other.intervalLatencyAvgNanos;
             intervalLatency999PercentileNanos = other.intervalLatency999PercentileNanos;
             intervalLatencyMaxNanos = other.intervalLatencyMaxNanos;
+
+            intervalServiceTimeAvgNanos = other.intervalServiceTimeAvgNanos;
+            intervalServiceTime999PercentileNanos = other.intervalServiceTime999PercentileNanos;
+            intervalServiceTimeMaxNanos = other.intervalServiceTimeMaxNanos;
+
+            intervalCorrectedLatency999PercentileNanos = other.intervalCorrectedLatency999PercentileNanos;
+            intervalCorrectedLatencyMaxNanos = other.intervalCorrectedLatencyMaxNanos;
+
+            failureCount = other.failureCount;
+            intervalErrorRate = other.intervalErrorRate;
+            intervalFailureLatency999PercentileNanos = other.intervalFailureLatency999PercentileNanos;
+
+            intervalCpuMicrosPerOperation = other.intervalCpuMicrosPerOperation;
+            intervalProcessCpuMicrosPerOperation = other.intervalProcessCpuMicrosPerOperation;
+
+            intervalHiccup999PercentileNanos = other.intervalHiccup999PercentileNanos;
+            intervalHiccupMaxNanos = other.intervalHiccupMaxNanos;
         } else {
             if (addOperationCountAndThroughput) {
                 operationCount += other.operationCount;
+                failureCount += other.failureCount;
                 intervalThroughput += other.intervalThroughput;
                 totalThroughput += other.totalThroughput;
             } else {
                 operationCount = max(operationCount, other.operationCount);
+                failureCount = max(failureCount, other.failureCount);
                 intervalThroughput = max(intervalThroughput, other.intervalThroughput);
                 totalThroughput = max(totalThroughput, other.totalThroughput);
             }
@@ -133,6 +247,28 @@ public class PerformanceStats {
             intervalLatencyAvgNanos = max(intervalLatencyAvgNanos, other.intervalLatencyAvgNanos);
             intervalLatency999PercentileNanos = max(intervalLatency999PercentileNanos, other.intervalLatency999PercentileNanos);
             intervalLatencyMaxNanos = max(intervalLatencyMaxNanos, other.intervalLatencyMaxNanos);
+
+            intervalServiceTimeAvgNanos = max(intervalServiceTimeAvgNanos, other.intervalServiceTimeAvgNanos);
+            intervalServiceTime999PercentileNanos = max(intervalServiceTime999PercentileNanos,
+                    other.intervalServiceTime999PercentileNanos);
+            intervalServiceTimeMaxNanos = max(intervalServiceTimeMaxNanos, other.intervalServiceTimeMaxNanos);
+
+            intervalCorrectedLatency999PercentileNanos = max(intervalCorrectedLatency999PercentileNanos,
+                    other.intervalCorrectedLatency999PercentileNanos);
+            intervalCorrectedLatencyMaxNanos = max(intervalCorrectedLatencyMaxNanos, other.intervalCorrectedLatencyMaxNanos);
+
+            // the error rate isn't weighted by the operation count, so we show the worst one
+            intervalErrorRate = max(intervalErrorRate, other.intervalErrorRate);
+            intervalFailureLatency999PercentileNanos = max(intervalFailureLatency999PercentileNanos,
+                    other.intervalFailureLatency999PercentileNanos);
+
+            // the least efficient worker is shown, just like the worst latency
+            intervalCpuMicrosPerOperation = max(intervalCpuMicrosPerOperation, other.intervalCpuMicrosPerOperation);
+            intervalProcessCpuMicrosPerOperation = max(intervalProcessCpuMicrosPerOperation,
+                    other.intervalProcessCpuMicrosPerOperation);
+
+            intervalHiccup999PercentileNanos = max(intervalHiccup999PercentileNanos, other.intervalHiccup999PercentileNanos);
+            intervalHiccupMaxNanos = max(intervalHiccupMaxNanos, other.intervalHiccupMaxNanos);
         }
     }
 
@@ -169,6 +305,112 @@ public class PerformanceStats {
         return intervalLatencyMaxNanos;
     }
 
+    public double getIntervalServiceTimeAvgNanos() {
+        return intervalServiceTimeAvgNanos;
+    }
+
+    public long getIntervalServiceTime999PercentileNanos() {
+        return intervalServiceTime999PercentileNanos;
+    }
+
+    public long getIntervalServiceTimeMaxNanos() {
+        return intervalServiceTimeMaxNanos;
+    }
+
+    public long getIntervalCorrectedLatency999PercentileNanos() {
+        return intervalCorrectedLatency999PercentileNanos;
+    }
+
+    public long getIntervalCorrectedLatencyMaxNanos() {
+        return intervalCorrectedLatencyMaxNanos;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public double getIntervalErrorRate() {
+        return intervalErrorRate;
+    }
+
+    public long getIntervalFailureLatency999PercentileNanos() {
+        return intervalFailureLatency999PercentileNanos;
+    }
+
+    public double getIntervalCpuMicrosPerOperation() {
+        return intervalCpuMicrosPerOperation;
+    }
+
+    public double getIntervalProcessCpuMicrosPerOperation() {
+        return intervalProcessCpuMicrosPerOperation;
+    }
+
+    public long getIntervalHiccup999PercentileNanos() {
+        return intervalHiccup999PercentileNanos;
+    }
+
+    public long getIntervalHiccupMaxNanos() {
+        return intervalHiccupMaxNanos;
+    }
+
+    /**
+     * Returns the number of operations per second of CPU time of the test threads.
+     *
+     * @return the operations per CPU second or -1 if the CPU time isn't available
+     */
+    public double getIntervalOperationsPerCpuSecond() {
+        return toOperationsPerCpuSecond(intervalCpuMicrosPerOperation);
+    }
+
+    /**
+     * Returns the number of operations per second of CPU time of the whole JVM.
+     *
+     * @return the operations per CPU second or -1 if the CPU time isn't available
+     */
+    public double getIntervalOperationsPerProcessCpuSecond() {
+        return toOperationsPerCpuSecond(intervalProcessCpuMicrosPerOperation);
+    }
+
+    private static double toOperationsPerCpuSecond(double cpuMicrosPerOperation) {
+        return cpuMicrosPerOperation <= 0 ? EMPTY_CPU_TIME : MICROS_PER_SECOND / cpuMicrosPerOperation;
+    }
+
+    /**
+     * Returns if the service time has been measured separately from the response time.
+     *
+     * @return {@code true} if service time values are available, {@code false} otherwise
+     */
+    public boolean hasServiceTime() {
+        return intervalServiceTimeMaxNanos != EMPTY_SERVICE_TIME;
+    }
+
+    /**
+     * Returns if the latencies have been corrected for coordinated omission next to the raw latencies.
+     *
+     * @return {@code true} if corrected latency values are available, {@code false} otherwise
+     */
+    public boolean hasCorrectedLatency() {
+        return intervalCorrectedLatencyMaxNanos != EMPTY_CORRECTED_LATENCY;
+    }
+
+    /**
+     * Returns if the CPU time per operation has been measured.
+     *
+     * @return {@code true} if CPU time values are available, {@code false} otherwise
+     */
+    public boolean hasCpuTime() {
+        return intervalCpuMicrosPerOperation != EMPTY_CPU_TIME;
+    }
+
+    /**
+     * Returns if the hiccups of the JVM and OS have been measured.
+     *
+     * @return {@code true} if hiccup values are available, {@code false} otherwise
+     */
+    public boolean hasHiccup() {
+        return intervalHiccupMaxNanos != EMPTY_HICCUP;
+    }
+
     @Override
     public String toString() {
         return "PerformanceStats{"
@@ -178,6 +420,18 @@ public class PerformanceStats {
                 + ", intervalAvgLatencyNanos=" + intervalLatencyAvgNanos
                 + ", intervalLatency999PercentileNanos=" + intervalLatency999PercentileNanos
                 + ", intervalMaxLatencyNanos=" + intervalLatencyMaxNanos
+                + ", intervalAvgServiceTimeNanos=" + intervalServiceTimeAvgNanos
+                + ", intervalServiceTime999PercentileNanos=" + intervalServiceTime999PercentileNanos
+                + ", intervalMaxServiceTimeNanos=" + intervalServiceTimeMaxNanos
+                + ", intervalCorrectedLatency999PercentileNanos=" + intervalCorrectedLatency999PercentileNanos
+                + ", intervalMaxCorrectedLatencyNanos=" + intervalCorrectedLatencyMaxNanos
+                + ", failureCount=" + failureCount
+                + ", intervalErrorRate=" + intervalErrorRate
+                + ", intervalFailureLatency999PercentileNanos=" + intervalFailureLatency999PercentileNanos
+                + ", intervalCpuMicrosPerOperation=" + intervalCpuMicrosPerOperation
+                + ", intervalProcessCpuMicrosPerOperation=" + intervalProcessCpuMicrosPerOperation
+                + ", intervalHiccup999PercentileNanos=" + intervalHiccup999PercentileNanos
+                + ", intervalHiccupMaxNanos=" + intervalHiccupMaxNanos
                 + '}';
     }
 
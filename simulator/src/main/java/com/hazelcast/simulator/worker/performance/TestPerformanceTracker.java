@@ -16,7 +16,11 @@
 package com.hazelcast.simulator.worker.performance;
 
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.AllocationMeter;
+import com.hazelcast.simulator.probes.impl.CountingProbe;
 import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.probes.impl.OutlierRecorder;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
 import com.hazelcast.simulator.test.TestException;
 import com.hazelcast.simulator.worker.testcontainer.TestContainer;
 import org.HdrHistogram.Histogram;
@@ -24,12 +28,22 @@ import org.HdrHistogram.HistogramLogWriter;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import static com.hazelcast.simulator.utils.CpuTimeUtils.processCpuTimeNanos;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.worker.performance.PerformanceStats.INTERVAL_LATENCY_PERCENTILE;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.CORRECTED_PROBE_SUFFIX;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.SERVICE_TIME_PROBE_SUFFIX;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Arrays.copyOf;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -37,7 +51,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * <p>
  * Has methods to update the performance values and write them to files.
  * <p>
- * Holds a map of {@link Histogram} for each {@link com.hazelcast.simulator.probes.Probe} of a Simulator Test.
+ * Holds a recycled {@link Histogram} for each {@link com.hazelcast.simulator.probes.Probe} of a Simulator Test, so the
+ * monitor thread doesn't create garbage in the JVM we are measuring.
  *
  * This class has a shitty design due to conflated concerns due to file writing and remoting sending the histograms.
  * This is caused by the Recorder that gets reset when getIntervalHistogram is called. Meaning that writing to file
@@ -46,24 +61,75 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 public final class TestPerformanceTracker {
 
     private static final long ONE_SECOND_IN_MILLIS = SECONDS.toMillis(1);
+    private static final int FAILURE_COLUMN_COUNT = 3;
+    private static final int PROBE_COLUMN_COUNT = 5;
+    private static final int ALLOCATION_COLUMN_COUNT = 2;
+    private static final int CPU_COLUMN_COUNT = 3;
+    private static final int EXECUTION_GROUP_CPU_COLUMN_COUNT = 2;
+    private static final double NANOS_PER_MICRO = 1000;
+    private static final double MICROS_PER_SECOND = 1000000;
+    private static final String FAILURES_SUFFIX = "-failures";
+    private static final String[] NO_COMMENTS = new String[0];
 
     private final TestContainer testContainer;
-    private final Map<String, HistogramLogWriter> histogramLogWriterMap = new HashMap<String, HistogramLogWriter>();
     private final PerformanceLogWriter performanceLogWriter;
+    private OutlierLogWriter outlierLogWriter;
     private final long warmupMillis;
     private long lastUpdateMillis;
-    private Map<String, Histogram> intervalHistogramMap;
+
+    // the per probe state; the same index refers to the same probe and the interval histograms are recycled
+    private int probeMapSize;
+    private String[] probeNames = new String[0];
+    private Probe[] probes = new Probe[0];
+    private Histogram[] intervalHistograms = new Histogram[0];
+    private HistogramLogWriter[] histogramLogWriters = new HistogramLogWriter[0];
+    private long[] lastProbeCounts = new long[0];
+    private long[] intervalProbeOperationCounts = new long[0];
+    private long[] totalProbeOperationCounts = new long[0];
+    private IntervalLatency[] probeIntervalLatencies = new IntervalLatency[0];
+    private Histogram[] failureHistograms = new Histogram[0];
+    private HistogramLogWriter[] failureHistogramLogWriters = new HistogramLogWriter[0];
+    private long[] lastProbeFailureCounts = new long[0];
+    private long[] intervalProbeFailureCounts = new long[0];
+    private long[] totalProbeFailureCounts = new long[0];
+    // the comments are added by other threads and are written by the monitor thread before the next interval histograms
+    private final Queue<String> pendingHistogramLogComments = new ConcurrentLinkedQueue<String>();
+
+    // the per timestep method allocation state
+    private String[] allocationMeterNames = new String[0];
+    private AllocationMeter[] allocationMeters = new AllocationMeter[0];
+    private long[] lastAllocatedBytes = new long[0];
+    private long[] lastAllocationSampleCounts = new long[0];
+    private double[] intervalMethodBytesPerOperation = new double[0];
+    private double intervalTestBytesPerOperation;
+    private int loggedProbeCount;
+    private int loggedAllocationMeterCount;
+
+    // the per execution group CPU state; the CPU time is only tracked if the test has timestep threads
+    private String[] executionGroups;
+    private long[] lastExecutionGroupIterations;
+    private long[] lastExecutionGroupCpuTimeNanos;
+    private double[] intervalExecutionGroupCpuMicrosPerOperation;
+    private double intervalCpuMicrosPerOperation = -1;
+    private long lastProcessCpuTimeNanos = -1;
+    private double intervalProcessCpuMicrosPerOperation = -1;
+    private boolean logCpuTime;
+
+    private final IntervalLatency intervalLatency = new IntervalLatency();
+    private final IntervalLatency intervalServiceTime = new IntervalLatency();
+    private final IntervalLatency intervalCorrectedLatency = new IntervalLatency();
+    private final IntervalLatency intervalFailureLatency = new IntervalLatency();
 
     private long iterationsDuringWarmup;
     private long lastIterations;
-    private double intervalLatencyAvgNanos;
-    private long intervalLatency999PercentileNanos;
-    private long intervalLatencyMaxNanos;
     private long intervalOperationCount;
     private long totalOperationCount;
     private double intervalThroughput;
     private double totalThroughput;
     private long nextUpdateMillis;
+    private long intervalTimeDeltaMillis;
+    private long intervalFailureCount;
+    private long totalFailureCount;
 
     public TestPerformanceTracker(TestContainer container) {
         this.testContainer = container;
@@ -105,10 +171,7 @@ public final class TestPerformanceTracker {
 
         if (lastUpdateMillis == 0) {
             // first time
-            iterationsDuringWarmup = testContainer.iteration();
-            for (Probe probe : testContainer.getProbeMap().values()) {
-                probe.reset();
-            }
+            completeWarmup();
             lastUpdateMillis = currentTimeMillis;
             nextUpdateMillis = lastUpdateMillis + updateIntervalMillis;
             return true;
@@ -117,71 +180,316 @@ public final class TestPerformanceTracker {
         return nextUpdateMillis > currentTimeMillis;
     }
 
+    /**
+     * Discards the measurements of the warmup.
+     *
+     * The test threads keep running, so the thread states, caches and JIT state of the warmup are preserved. Instead of
+     * restarting the threads, the probes are reset and the iterations are read right after, so hardly any operation is
+     * counted by one and not by the other.
+     */
+    private void completeWarmup() {
+        for (Probe probe : testContainer.getProbeMap().values()) {
+            probe.reset();
+        }
+        iterationsDuringWarmup = testContainer.iteration();
+
+        OutlierRecorder outlierRecorder = testContainer.getPropertyBinding().getOutlierRecorder();
+        if (outlierRecorder != null) {
+            // the outliers of the warmup are discarded
+            outlierRecorder.drain(null);
+        }
+        // the allocations and CPU time of the warmup are discarded
+        updateAllocations();
+        updateCpuTime(0);
+    }
+
     private void makeUpdate(long updateIntervalMillis, long currentTimeMillis) {
-        Map<String, Probe> probeMap = testContainer.getProbeMap();
-        Map<String, Histogram> intervalHistograms = new HashMap<String, Histogram>(probeMap.size());
+        ensureProbes();
 
-        long intervalPercentileLatency = -1;
-        double intervalMean = -1;
-        long intervalMaxLatency = -1;
+        intervalLatency.reset();
+        intervalServiceTime.reset();
+        intervalCorrectedLatency.reset();
+        intervalFailureLatency.reset();
 
         long iterations = testContainer.iteration() - iterationsDuringWarmup;
         long intervalOperationCount = iterations - lastIterations;
+        long intervalFailureCount = 0;
 
-        for (Map.Entry<String, Probe> entry : probeMap.entrySet()) {
-            String probeName = entry.getKey();
-            Probe probe = entry.getValue();
-            if (!(probe instanceof HdrProbe)) {
-                continue;
-            }
-
-            HdrProbe hdrProbe = (HdrProbe) probe;
-            Histogram intervalHistogram = hdrProbe.getRecorder().getIntervalHistogram();
-            System.out.println(new Date(lastUpdateMillis) + "-" + new Date(currentTimeMillis));
-            intervalHistogram.setStartTimeStamp(lastUpdateMillis);
-            intervalHistogram.setEndTimeStamp(currentTimeMillis);
-            intervalHistograms.put(probeName, intervalHistogram);
-
-            long percentileValue = intervalHistogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE);
-            if (percentileValue > intervalPercentileLatency) {
-                intervalPercentileLatency = percentileValue;
-            }
-
-            double meanLatency = intervalHistogram.getMean();
-            if (meanLatency > intervalMean) {
-                intervalMean = meanLatency;
-            }
+        for (int i = 0; i < probes.length; i++) {
+            long intervalProbeOperationCount = updateProbe(i, currentTimeMillis);
+            intervalProbeOperationCounts[i] = intervalProbeOperationCount;
+            totalProbeOperationCounts[i] += intervalProbeOperationCount;
 
-            long maxValue = intervalHistogram.getMaxValue();
-            if (maxValue > intervalMaxLatency) {
-                intervalMaxLatency = maxValue;
+            if (probes[i].isPartOfTotalThroughput()) {
+                intervalOperationCount += intervalProbeOperationCount;
             }
 
-            if (probe.isPartOfTotalThroughput()) {
-                intervalOperationCount += intervalHistogram.getTotalCount();
-            }
+            long intervalProbeFailureCount = updateFailures(i, currentTimeMillis);
+            intervalProbeFailureCounts[i] = intervalProbeFailureCount;
+            totalProbeFailureCounts[i] += intervalProbeFailureCount;
+            intervalFailureCount += intervalProbeFailureCount;
         }
 
-        this.intervalHistogramMap = intervalHistograms;
-
-        this.intervalLatency999PercentileNanos = intervalPercentileLatency;
-        this.intervalLatencyAvgNanos = intervalMean;
-        this.intervalLatencyMaxNanos = intervalMaxLatency;
-
         this.intervalOperationCount = intervalOperationCount;
         this.totalOperationCount += intervalOperationCount;
+        this.intervalFailureCount = intervalFailureCount;
+        this.totalFailureCount += intervalFailureCount;
 
         long intervalTimeDelta = currentTimeMillis - lastUpdateMillis;
         long totalTimeDelta = currentTimeMillis - startMeasuringTime();
 
+        this.intervalTimeDeltaMillis = intervalTimeDelta;
         this.intervalThroughput = (intervalOperationCount * ONE_SECOND_IN_MILLIS) / (double) intervalTimeDelta;
         this.totalThroughput = (totalOperationCount * ONE_SECOND_IN_MILLIS / (double) totalTimeDelta);
 
+        updateAllocations();
+        updateCpuTime(intervalOperationCount);
+
         this.lastIterations = iterations;
         this.nextUpdateMillis += updateIntervalMillis;
         this.lastUpdateMillis = currentTimeMillis;
     }
 
+    /**
+     * Takes the interval snapshot of a single probe.
+     *
+     * @return the number of operations of the probe in this interval
+     */
+    private long updateProbe(int probeIndex, long currentTimeMillis) {
+        Probe probe = probes[probeIndex];
+        if (probe instanceof CountingProbe) {
+            long count = ((CountingProbe) probe).getCount();
+            long intervalCount = count - lastProbeCounts[probeIndex];
+            lastProbeCounts[probeIndex] = count;
+            return intervalCount;
+        }
+
+        Histogram intervalHistogram = getIntervalHistogram(probe, intervalHistograms[probeIndex]);
+        intervalHistograms[probeIndex] = intervalHistogram;
+        intervalHistogram.setStartTimeStamp(lastUpdateMillis);
+        intervalHistogram.setEndTimeStamp(currentTimeMillis);
+
+        probeIntervalLatencies[probeIndex].add(intervalHistogram);
+        return intervalHistogram.getTotalCount();
+    }
+
+    /**
+     * Takes the interval snapshot of the failures of a single probe.
+     *
+     * @return the number of failures of the probe in this interval
+     */
+    private long updateFailures(int probeIndex, long currentTimeMillis) {
+        Probe probe = probes[probeIndex];
+        if (probe instanceof CountingProbe) {
+            long failureCount = ((CountingProbe) probe).getFailureCount();
+            long intervalFailureCount = failureCount - lastProbeFailureCounts[probeIndex];
+            lastProbeFailureCounts[probeIndex] = failureCount;
+            return intervalFailureCount;
+        }
+
+        Histogram failureHistogram = getFailureIntervalHistogram(probe, failureHistograms[probeIndex]);
+        failureHistograms[probeIndex] = failureHistogram;
+        failureHistogram.setStartTimeStamp(lastUpdateMillis);
+        failureHistogram.setEndTimeStamp(currentTimeMillis);
+
+        long failureCount = failureHistogram.getTotalCount();
+        if (failureCount > 0) {
+            intervalFailureLatency.add(failureHistogram);
+        }
+        return failureCount;
+    }
+
+    /**
+     * Takes the interval snapshot of the allocation meters.
+     *
+     * The bytes per operation of the test are the sampled bytes of all timestep methods divided by all samples. All timestep
+     * methods use the same sample interval, so every method is weighted by its number of calls.
+     */
+    private void updateAllocations() {
+        ensureAllocationMeters();
+
+        long intervalTestAllocatedBytes = 0;
+        long intervalTestSampleCount = 0;
+        for (int i = 0; i < allocationMeters.length; i++) {
+            long allocatedBytes = allocationMeters[i].getAllocatedBytes();
+            long sampleCount = allocationMeters[i].getSampleCount();
+            long intervalAllocatedBytes = allocatedBytes - lastAllocatedBytes[i];
+            long intervalSampleCount = sampleCount - lastAllocationSampleCounts[i];
+            lastAllocatedBytes[i] = allocatedBytes;
+            lastAllocationSampleCounts[i] = sampleCount;
+
+            intervalMethodBytesPerOperation[i] = bytesPerOperation(intervalAllocatedBytes, intervalSampleCount);
+            intervalTestAllocatedBytes += intervalAllocatedBytes;
+            intervalTestSampleCount += intervalSampleCount;
+        }
+        this.intervalTestBytesPerOperation = bytesPerOperation(intervalTestAllocatedBytes, intervalTestSampleCount);
+    }
+
+    /**
+     * Takes the interval snapshot of the CPU time of the timestep threads per execution group and of the whole JVM.
+     *
+     * The CPU time of an execution group is unknown until all its timestep threads have started; the first interval after
+     * that counts the CPU time since the threads started. The process CPU time includes all other tests running in the same
+     * worker.
+     *
+     * @param intervalOperationCount the number of operations of the test in this interval
+     */
+    private void updateCpuTime(long intervalOperationCount) {
+        if (executionGroups == null) {
+            int executionGroupCount = testContainer.executionGroups().size();
+            executionGroups = testContainer.executionGroups().toArray(new String[executionGroupCount]);
+            lastExecutionGroupIterations = new long[executionGroupCount];
+            lastExecutionGroupCpuTimeNanos = new long[executionGroupCount];
+            intervalExecutionGroupCpuMicrosPerOperation = new double[executionGroupCount];
+        }
+
+        long intervalIterations = 0;
+        long intervalCpuTimeNanos = 0;
+        for (int i = 0; i < executionGroups.length; i++) {
+            long iterations = testContainer.iteration(executionGroups[i]);
+            long cpuTimeNanos = testContainer.cpuTimeNanos(executionGroups[i]);
+            long intervalGroupIterations = iterations - lastExecutionGroupIterations[i];
+            long intervalGroupCpuTimeNanos = cpuTimeNanos == -1
+                    ? -1 : cpuTimeNanos - max(lastExecutionGroupCpuTimeNanos[i], 0);
+            lastExecutionGroupIterations[i] = iterations;
+            lastExecutionGroupCpuTimeNanos[i] = cpuTimeNanos;
+
+            intervalExecutionGroupCpuMicrosPerOperation[i] = cpuMicrosPerOperation(intervalGroupCpuTimeNanos,
+                    intervalGroupIterations);
+            if (intervalGroupCpuTimeNanos == -1 || intervalCpuTimeNanos == -1) {
+                intervalCpuTimeNanos = -1;
+            } else {
+                intervalCpuTimeNanos += intervalGroupCpuTimeNanos;
+            }
+            intervalIterations += intervalGroupIterations;
+        }
+        this.intervalCpuMicrosPerOperation = executionGroups.length == 0
+                ? -1 : cpuMicrosPerOperation(intervalCpuTimeNanos, intervalIterations);
+
+        long processCpuTimeNanos = processCpuTimeNanos();
+        long intervalProcessCpuTimeNanos = lastProcessCpuTimeNanos == -1 || processCpuTimeNanos == -1
+                ? -1 : processCpuTimeNanos - lastProcessCpuTimeNanos;
+        this.lastProcessCpuTimeNanos = processCpuTimeNanos;
+        this.intervalProcessCpuMicrosPerOperation = cpuMicrosPerOperation(intervalProcessCpuTimeNanos, intervalOperationCount);
+    }
+
+    private static double cpuMicrosPerOperation(long cpuTimeNanos, long operationCount) {
+        if (cpuTimeNanos == -1 || operationCount <= 0) {
+            return -1;
+        }
+        return cpuTimeNanos / NANOS_PER_MICRO / operationCount;
+    }
+
+    private static double operationsPerCpuSecond(double cpuMicrosPerOperation) {
+        return cpuMicrosPerOperation <= 0 ? -1 : MICROS_PER_SECOND / cpuMicrosPerOperation;
+    }
+
+    private static double bytesPerOperation(long allocatedBytes, long sampleCount) {
+        return sampleCount == 0 ? 0 : allocatedBytes / (double) sampleCount;
+    }
+
+    /**
+     * Makes sure the arrays with the allocation state contain all allocation meters of the test.
+     *
+     * Just like the probes, the allocation meters are created by the timestep runners and never removed.
+     */
+    private void ensureAllocationMeters() {
+        Map<String, AllocationMeter> allocationMeterMap = testContainer.getPropertyBinding().getAllocationMeterMap();
+        if (allocationMeterMap.size() == allocationMeters.length) {
+            return;
+        }
+
+        List<String> newNames = new ArrayList<String>(asList(allocationMeterNames));
+        List<AllocationMeter> newAllocationMeters = new ArrayList<AllocationMeter>(asList(allocationMeters));
+        for (Map.Entry<String, AllocationMeter> entry : allocationMeterMap.entrySet()) {
+            if (!newAllocationMeters.contains(entry.getValue())) {
+                newNames.add(entry.getKey());
+                newAllocationMeters.add(entry.getValue());
+            }
+        }
+
+        int count = newAllocationMeters.size();
+        this.allocationMeterNames = newNames.toArray(new String[count]);
+        this.allocationMeters = newAllocationMeters.toArray(new AllocationMeter[count]);
+        this.lastAllocatedBytes = copyOf(lastAllocatedBytes, count);
+        this.lastAllocationSampleCounts = copyOf(lastAllocationSampleCounts, count);
+        this.intervalMethodBytesPerOperation = copyOf(intervalMethodBytesPerOperation, count);
+    }
+
+    /**
+     * Makes sure the arrays with the per probe state contain all probes of the test which are tracked.
+     *
+     * Probes are created lazily (e.g. when the timestep runners are created), but they are never removed. So the arrays
+     * only need to be rebuilt when the number of probes has changed; in steady state nothing gets allocated. Existing
+     * probes keep their index, new probes are appended.
+     */
+    private void ensureProbes() {
+        Map<String, Probe> probeMap = testContainer.getProbeMap();
+        if (probeMap.size() == probeMapSize) {
+            return;
+        }
+
+        List<String> newProbeNames = new ArrayList<String>(asList(probeNames));
+        List<Probe> newProbes = new ArrayList<Probe>(asList(probes));
+        for (Map.Entry<String, Probe> entry : probeMap.entrySet()) {
+            Probe probe = entry.getValue();
+            if (!newProbes.contains(probe) && isTracked(probe)) {
+                newProbeNames.add(entry.getKey());
+                newProbes.add(probe);
+            }
+        }
+
+        int probeCount = newProbes.size();
+        this.probeNames = newProbeNames.toArray(new String[probeCount]);
+        this.probes = newProbes.toArray(new Probe[probeCount]);
+        this.intervalHistograms = copyOf(intervalHistograms, probeCount);
+        this.histogramLogWriters = copyOf(histogramLogWriters, probeCount);
+        this.lastProbeCounts = copyOf(lastProbeCounts, probeCount);
+        this.intervalProbeOperationCounts = copyOf(intervalProbeOperationCounts, probeCount);
+        this.totalProbeOperationCounts = copyOf(totalProbeOperationCounts, probeCount);
+        this.failureHistograms = copyOf(failureHistograms, probeCount);
+        this.failureHistogramLogWriters = copyOf(failureHistogramLogWriters, probeCount);
+        this.lastProbeFailureCounts = copyOf(lastProbeFailureCounts, probeCount);
+        this.intervalProbeFailureCounts = copyOf(intervalProbeFailureCounts, probeCount);
+        this.totalProbeFailureCounts = copyOf(totalProbeFailureCounts, probeCount);
+        this.probeIntervalLatencies = new IntervalLatency[probeCount];
+        for (int i = 0; i < probeCount; i++) {
+            probeIntervalLatencies[i] = getIntervalLatency(probeNames[i]);
+        }
+        this.probeMapSize = probeMap.size();
+    }
+
+    /**
+     * The service time and corrected latencies are reported separately, so they don't end up in the response time.
+     */
+    private IntervalLatency getIntervalLatency(String probeName) {
+        if (probeName.endsWith(SERVICE_TIME_PROBE_SUFFIX)) {
+            return intervalServiceTime;
+        }
+        if (probeName.endsWith(CORRECTED_PROBE_SUFFIX)) {
+            return intervalCorrectedLatency;
+        }
+        return intervalLatency;
+    }
+
+    private static boolean isTracked(Probe probe) {
+        return probe instanceof HdrProbe || probe instanceof StripedHdrProbe || probe instanceof CountingProbe;
+    }
+
+    private static Histogram getIntervalHistogram(Probe probe, Histogram histogramToRecycle) {
+        if (probe instanceof StripedHdrProbe) {
+            // merges the per thread histograms
+            return ((StripedHdrProbe) probe).getIntervalHistogram(histogramToRecycle);
+        }
+        return ((HdrProbe) probe).getIntervalHistogram(histogramToRecycle);
+    }
+
+    private static Histogram getFailureIntervalHistogram(Probe probe, Histogram histogramToRecycle) {
+        if (probe instanceof StripedHdrProbe) {
+            return ((StripedHdrProbe) probe).getFailureIntervalHistogram(histogramToRecycle);
+        }
+        return ((HdrProbe) probe).getFailureIntervalHistogram(histogramToRecycle);
+    }
 
     long intervalOperationCount() {
         return intervalOperationCount;
@@ -195,7 +503,63 @@ public final class TestPerformanceTracker {
         return intervalThroughput;
     }
 
+    /**
+     * Returns the average number of bytes allocated per operation in the last interval.
+     *
+     * @return the bytes per operation or 0 if allocations are not measured
+     */
+    double intervalBytesPerOperation() {
+        return intervalTestBytesPerOperation;
+    }
+
+    /**
+     * Returns the number of bytes allocated per second by the timestep methods in the last interval.
+     *
+     * @return the allocation rate in bytes per second or 0 if allocations are not measured
+     */
+    double intervalAllocationRate() {
+        return intervalTestBytesPerOperation * intervalThroughput;
+    }
+
+    /**
+     * Returns the CPU time of the timestep threads per operation in the last interval.
+     *
+     * @return the CPU time in microseconds per operation or -1 if not available
+     */
+    double intervalCpuMicrosPerOperation() {
+        return intervalCpuMicrosPerOperation;
+    }
+
+    /**
+     * Returns the CPU time of the whole JVM per operation in the last interval.
+     *
+     * @return the CPU time in microseconds per operation or -1 if not available
+     */
+    double intervalProcessCpuMicrosPerOperation() {
+        return intervalProcessCpuMicrosPerOperation;
+    }
+
+    long totalFailureCount() {
+        return totalFailureCount;
+    }
+
+    /**
+     * Returns the fraction of the operations of the last interval which failed.
+     *
+     * The iterations of the timestep methods include the failed calls, so the operation count is used as is.
+     *
+     * @return the error rate between 0 and 1
+     */
+    double intervalErrorRate() {
+        if (intervalOperationCount <= 0) {
+            return intervalFailureCount == 0 ? 0 : 1;
+        }
+        return min(1, intervalFailureCount / (double) intervalOperationCount);
+    }
+
     void persist(long currentTimeMillis, String currentTimeString) {
+        writeProbeColumns();
+
         performanceLogWriter.write(
                 currentTimeMillis,
                 currentTimeString,
@@ -205,27 +569,223 @@ public final class TestPerformanceTracker {
                 0,
                 0);
 
+        String[] comments = drainHistogramLogComments();
+
         // dumps all the Histograms that have been collected to file.
-        for (Map.Entry<String, Histogram> histogramEntry : intervalHistogramMap.entrySet()) {
-            String probeName = histogramEntry.getKey();
-            HistogramLogWriter histogramLogWriter = histogramLogWriterMap.get(probeName);
+        for (int i = 0; i < probes.length; i++) {
+            Histogram intervalHistogram = intervalHistograms[i];
+            if (intervalHistogram == null) {
+                continue;
+            }
+
+            HistogramLogWriter histogramLogWriter = histogramLogWriters[i];
             if (histogramLogWriter == null) {
-                histogramLogWriter = createHistogramLogWriter(probeName);
-                histogramLogWriterMap.put(probeName, histogramLogWriter);
+                histogramLogWriter = createHistogramLogWriter(probeNames[i]);
+                histogramLogWriters[i] = histogramLogWriter;
             }
-            Histogram intervalHistogram = histogramEntry.getValue();
+            outputComments(histogramLogWriter, comments);
             histogramLogWriter.outputIntervalHistogram(intervalHistogram);
+
+            // the failure histograms are only written for probes which had failures, to prevent a lot of empty files
+            if (totalProbeFailureCounts[i] == 0) {
+                continue;
+            }
+
+            HistogramLogWriter failureHistogramLogWriter = failureHistogramLogWriters[i];
+            if (failureHistogramLogWriter == null) {
+                failureHistogramLogWriter = createHistogramLogWriter(probeNames[i] + FAILURES_SUFFIX);
+                failureHistogramLogWriters[i] = failureHistogramLogWriter;
+            }
+            outputComments(failureHistogramLogWriter, comments);
+            failureHistogramLogWriter.outputIntervalHistogram(failureHistograms[i]);
         }
     }
 
+    /**
+     * Adds a comment to the histogram logs of the test, e.g. to mark a change of the load. The comment is written in front
+     * of the next interval histograms, together with the time in seconds since the start of the measurement, so it can be
+     * matched with the interval timestamps of the log.
+     *
+     * This method is thread-safe.
+     *
+     * @param comment the comment
+     */
+    public void addHistogramLogComment(String comment) {
+        double seconds = (System.currentTimeMillis() - startMeasuringTime()) / (double) ONE_SECOND_IN_MILLIS;
+        pendingHistogramLogComments.add(format("%s at %.3f", comment, seconds));
+    }
+
+    private String[] drainHistogramLogComments() {
+        if (pendingHistogramLogComments.isEmpty()) {
+            return NO_COMMENTS;
+        }
+
+        List<String> comments = new ArrayList<String>();
+        String comment;
+        while ((comment = pendingHistogramLogComments.poll()) != null) {
+            comments.add(comment);
+        }
+        return comments.toArray(new String[comments.size()]);
+    }
+
+    private static void outputComments(HistogramLogWriter histogramLogWriter, String[] comments) {
+        for (String comment : comments) {
+            histogramLogWriter.outputComment(comment);
+        }
+    }
+
+    /**
+     * Returns whether the warmup of the test has completed, so the outliers of the test are written.
+     *
+     * @return {@code true} if the warmup has completed
+     */
+    boolean isWarmupCompleted() {
+        return lastUpdateMillis != 0;
+    }
+
+    /**
+     * Writes the outliers which have been captured since the last call to the outliers file of the test.
+     *
+     * @param gcPauseTracker the tracker to check if an outlier overlapped with a garbage collection
+     */
+    void persistOutliers(GcPauseTracker gcPauseTracker) {
+        OutlierRecorder outlierRecorder = testContainer.getPropertyBinding().getOutlierRecorder();
+        if (outlierRecorder == null) {
+            return;
+        }
+
+        if (outlierLogWriter == null) {
+            outlierLogWriter = new OutlierLogWriter(
+                    new File(getUserDir(), "outliers-" + testContainer.getTestCase().getId() + ".csv"), gcPauseTracker);
+        }
+        outlierLogWriter.write(outlierRecorder);
+    }
+
+    /**
+     * Writes the failure count, delta and error rate of the test and the operation count, delta, throughput and failures
+     * per probe as additional columns of the performance log. If allocations are measured, the bytes per operation and the
+     * allocation rate of the test and the bytes per operation of every timestep method are written as well. For timestep
+     * tests the CPU time per operation and the operations per CPU second are written for the test and per execution group,
+     * followed by the active thread count per execution group.
+     *
+     * The columns are part of the header, so probes which are created after the first line has been written are only
+     * tracked in their histogram files.
+     */
+    private void writeProbeColumns() {
+        if (!performanceLogWriter.isHeaderWritten()) {
+            writeHeaderColumns();
+        }
+
+        performanceLogWriter.setExtraValue(0, totalFailureCount);
+        performanceLogWriter.setExtraValue(1, intervalFailureCount);
+        performanceLogWriter.setExtraValue(2, intervalErrorRate());
+
+        for (int i = 0; i < loggedProbeCount; i++) {
+            int column = FAILURE_COLUMN_COUNT + i * PROBE_COLUMN_COUNT;
+            double probeThroughput = (intervalProbeOperationCounts[i] * ONE_SECOND_IN_MILLIS) / (double) intervalTimeDeltaMillis;
+            performanceLogWriter.setExtraValue(column, totalProbeOperationCounts[i]);
+            performanceLogWriter.setExtraValue(column + 1, intervalProbeOperationCounts[i]);
+            performanceLogWriter.setExtraValue(column + 2, probeThroughput);
+            performanceLogWriter.setExtraValue(column + 3, totalProbeFailureCounts[i]);
+            performanceLogWriter.setExtraValue(column + 4, intervalProbeFailureCounts[i]);
+        }
+
+        if (loggedAllocationMeterCount > 0) {
+            int column = FAILURE_COLUMN_COUNT + loggedProbeCount * PROBE_COLUMN_COUNT;
+            performanceLogWriter.setExtraValue(column, intervalBytesPerOperation());
+            performanceLogWriter.setExtraValue(column + 1, intervalAllocationRate());
+            for (int i = 0; i < loggedAllocationMeterCount; i++) {
+                performanceLogWriter.setExtraValue(column + ALLOCATION_COLUMN_COUNT + i, intervalMethodBytesPerOperation[i]);
+            }
+        }
+
+        if (logCpuTime) {
+            int column = FAILURE_COLUMN_COUNT + loggedProbeCount * PROBE_COLUMN_COUNT + allocationColumnCount();
+            performanceLogWriter.setExtraValue(column, intervalCpuMicrosPerOperation);
+            performanceLogWriter.setExtraValue(column + 1, operationsPerCpuSecond(intervalCpuMicrosPerOperation));
+            performanceLogWriter.setExtraValue(column + 2, intervalProcessCpuMicrosPerOperation);
+            column += CPU_COLUMN_COUNT;
+            for (int i = 0; i < executionGroups.length; i++) {
+                if (!executionGroups[i].isEmpty()) {
+                    double cpuMicrosPerOperation = intervalExecutionGroupCpuMicrosPerOperation[i];
+                    performanceLogWriter.setExtraValue(column, cpuMicrosPerOperation);
+                    performanceLogWriter.setExtraValue(column + 1, operationsPerCpuSecond(cpuMicrosPerOperation));
+                    column += EXECUTION_GROUP_CPU_COLUMN_COUNT;
+                }
+            }
+            // the thread count of an execution group can change during the run, so every line records the current one
+            for (String executionGroup : executionGroups) {
+                performanceLogWriter.setExtraValue(column, testContainer.threadCount(executionGroup));
+                column++;
+            }
+        }
+    }
+
+    private int allocationColumnCount() {
+        return loggedAllocationMeterCount == 0 ? 0 : ALLOCATION_COLUMN_COUNT + loggedAllocationMeterCount;
+    }
+
+    private void writeHeaderColumns() {
+        List<String> columns = new ArrayList<String>(asList("failures", "failures-delta", "error-rate"));
+        for (String probeName : probeNames) {
+            columns.add(probeName + "-operations");
+            columns.add(probeName + "-operations-delta");
+            columns.add(probeName + "-operations/second");
+            columns.add(probeName + FAILURES_SUFFIX);
+            columns.add(probeName + "-failures-delta");
+        }
+        if (allocationMeters.length > 0) {
+            columns.add("bytes/op");
+            columns.add("allocated-bytes/second");
+            for (String allocationMeterName : allocationMeterNames) {
+                columns.add(allocationMeterName + "-bytes/op");
+            }
+        }
+        if (executionGroups != null && executionGroups.length > 0) {
+            columns.add("cpu-us/op");
+            columns.add("operations/cpu-second");
+            columns.add("process-cpu-us/op");
+            // the default execution group is covered by the columns of the test
+            for (String executionGroup : executionGroups) {
+                if (!executionGroup.isEmpty()) {
+                    columns.add(executionGroup + "-cpu-us/op");
+                    columns.add(executionGroup + "-operations/cpu-second");
+                }
+            }
+            for (String executionGroup : executionGroups) {
+                columns.add(executionGroup.isEmpty() ? "threads" : executionGroup + "-threads");
+            }
+            this.logCpuTime = true;
+        }
+        performanceLogWriter.setExtraColumns(columns.toArray(new String[columns.size()]));
+
+        this.loggedProbeCount = probes.length;
+        this.loggedAllocationMeterCount = allocationMeters.length;
+    }
+
     PerformanceStats createPerformanceStats() {
-        return new PerformanceStats(
+        PerformanceStats performanceStats = new PerformanceStats(
                 totalOperationCount,
                 intervalThroughput,
                 totalThroughput,
-                intervalLatencyAvgNanos,
-                intervalLatency999PercentileNanos,
-                intervalLatencyMaxNanos);
+                intervalLatency.avgNanos,
+                intervalLatency.percentileNanos,
+                intervalLatency.maxNanos);
+        performanceStats.setIntervalServiceTime(
+                intervalServiceTime.avgNanos,
+                intervalServiceTime.percentileNanos,
+                intervalServiceTime.maxNanos);
+        performanceStats.setIntervalCorrectedLatency(
+                intervalCorrectedLatency.percentileNanos,
+                intervalCorrectedLatency.maxNanos);
+        performanceStats.setFailures(
+                totalFailureCount,
+                intervalErrorRate(),
+                intervalFailureLatency.percentileNanos);
+        performanceStats.setCpuTime(
+                intervalCpuMicrosPerOperation,
+                intervalProcessCpuMicrosPerOperation);
+        return performanceStats;
     }
 
     HistogramLogWriter createHistogramLogWriter(String probeName) {
@@ -247,4 +807,26 @@ public final class TestPerformanceTracker {
     private static File getLatencyFile(String testId, String probeName) {
         return new File(getUserDir(), testId + '-' + probeName + ".hdr");
     }
+
+    /**
+     * The maximum latency values of all histograms of an interval.
+     */
+    private static final class IntervalLatency {
+
+        private double avgNanos;
+        private long percentileNanos;
+        private long maxNanos;
+
+        private void reset() {
+            avgNanos = -1;
+            percentileNanos = -1;
+            maxNanos = -1;
+        }
+
+        private void add(Histogram intervalHistogram) {
+            avgNanos = max(avgNanos, intervalHistogram.getMean());
+            percentileNanos = max(percentileNanos, intervalHistogram.getValueAtPercentile(INTERVAL_LATENCY_PERCENTILE));
+            maxNanos = max(maxNanos, intervalHistogram.getMaxValue());
+        }
+    }
 }
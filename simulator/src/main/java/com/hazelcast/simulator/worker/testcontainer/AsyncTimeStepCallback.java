@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.simulator.probes.Probe;
+
+import static com.hazelcast.simulator.utils.ExceptionReporter.report;
+
+/**
+ * The callback which completes an asynchronous {@link com.hazelcast.simulator.test.annotations.TimeStep} call.
+ *
+ * The latency is recorded from the (intended) start of the call till the completion of the future. If the service time is
+ * measured, it is recorded from the moment the call got its permit, so the time spent waiting for a permit is only part of
+ * the response time. A failed call is recorded in the probe if failures are recorded, otherwise it is reported like any
+ * other test failure.
+ *
+ * The callbacks are reused; see {@link AsyncTimeStepWindow}.
+ */
+public final class AsyncTimeStepCallback implements ExecutionCallback<Object> {
+
+    volatile boolean busy;
+
+    private final AsyncTimeStepWindow window;
+    private final String testId;
+    private final boolean recordFailures;
+    private final boolean measureServiceTime;
+    private Probe probe;
+    private long startNanos;
+    private long actualStartNanos;
+
+    AsyncTimeStepCallback(AsyncTimeStepWindow window, String testId, boolean recordFailures, boolean measureServiceTime) {
+        this.window = window;
+        this.testId = testId;
+        this.recordFailures = recordFailures;
+        this.measureServiceTime = measureServiceTime;
+    }
+
+    void init(Probe probe, long startNanos) {
+        this.probe = probe;
+        this.startNanos = startNanos;
+        if (measureServiceTime) {
+            this.actualStartNanos = System.nanoTime();
+        }
+        // the volatile write publishes the fields to the thread completing the future
+        this.busy = true;
+    }
+
+    /**
+     * Registers this callback on the future returned by the asynchronous call. If the call didn't return a future, e.g.
+     * because it threw an exception, the permit is returned immediately.
+     *
+     * @param future the future returned by the call or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public void register(ICompletableFuture future) {
+        if (future == null) {
+            window.release(this);
+        } else {
+            future.andThen(this);
+        }
+    }
+
+    @Override
+    public void onResponse(Object response) {
+        Probe probe = this.probe;
+        if (probe != null) {
+            if (measureServiceTime) {
+                probe.done(startNanos, actualStartNanos);
+            } else {
+                probe.recordValue(System.nanoTime() - startNanos);
+            }
+        }
+        window.release(this);
+    }
+
+    @Override
+    public void onFailure(Throwable t) {
+        if (recordFailures) {
+            Probe probe = this.probe;
+            if (probe != null) {
+                probe.recordFailedValue(System.nanoTime() - startNanos);
+            }
+        } else {
+            report(testId, t);
+        }
+        window.release(this);
+    }
+}
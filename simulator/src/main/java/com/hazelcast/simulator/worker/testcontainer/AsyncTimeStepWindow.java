@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.test.TestContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Bounds the number of asynchronous {@link com.hazelcast.simulator.test.annotations.TimeStep} calls of a single
+ * {@link TimeStepRunner} which haven't completed yet.
+ *
+ * The window is owned by the runner thread; only the completions happen on other threads. The permits are counted with a
+ * single {@link AtomicInteger}, so a call acquires its permit without any locking. If all permits are taken, the runner
+ * thread is parked until a completion returns a permit.
+ *
+ * The callbacks are preallocated, so an asynchronous call doesn't create any garbage in the runner.
+ */
+public final class AsyncTimeStepWindow {
+
+    private static final long PARK_NANOS = MILLISECONDS.toNanos(1);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AsyncTimeStepCallback[] callbacks;
+    private final TestContext testContext;
+    private volatile Thread owner;
+    private int nextIndex;
+
+    public AsyncTimeStepWindow(TestContext testContext, int maxInFlight, boolean recordFailures, boolean measureServiceTime) {
+        this.testContext = testContext;
+        this.callbacks = new AsyncTimeStepCallback[maxInFlight];
+        for (int i = 0; i < maxInFlight; i++) {
+            callbacks[i] = new AsyncTimeStepCallback(this, testContext.getTestId(), recordFailures, measureServiceTime);
+        }
+    }
+
+    /**
+     * Acquires a permit for an asynchronous call. Is only called by the runner thread.
+     *
+     * @param probe      the probe to record the latency in or {@code null} if the latency should not be recorded
+     * @param startNanos the (intended) start time of the call
+     * @return the callback to complete the call with
+     * @throws StopException if the test is stopped while waiting for a permit
+     */
+    public AsyncTimeStepCallback acquire(Probe probe, long startNanos) {
+        if (owner == null) {
+            owner = Thread.currentThread();
+        }
+
+        int maxInFlight = callbacks.length;
+        while (inFlight.get() >= maxInFlight) {
+            if (testContext.isStopped()) {
+                throw new StopException();
+            }
+            // the timeout protects against a missed wakeup
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        inFlight.incrementAndGet();
+
+        // a permit was acquired, so there is at least one free callback
+        for (; ; ) {
+            AsyncTimeStepCallback callback = callbacks[nextIndex];
+            nextIndex = nextIndex + 1 == maxInFlight ? 0 : nextIndex + 1;
+            if (!callback.busy) {
+                callback.init(probe, startNanos);
+                return callback;
+            }
+        }
+    }
+
+    void release(AsyncTimeStepCallback callback) {
+        callback.busy = false;
+        completed.incrementAndGet();
+        if (inFlight.decrementAndGet() == callbacks.length - 1) {
+            Thread thread = owner;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of asynchronous calls which haven't completed yet.
+     *
+     * @return the number of calls in flight
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of asynchronous calls which have completed, including the failed ones.
+     *
+     * This method is thread-safe; the number is counted by the completions, so it never decreases.
+     *
+     * @return the number of completed calls
+     */
+    public long completed() {
+        return completed.get();
+    }
+
+    /**
+     * Waits till all asynchronous calls have completed.
+     *
+     * @param timeoutNanos the maximum time to wait
+     * @return {@code true} if all calls have completed, {@code false} if the timeout expired
+     */
+    boolean awaitEmpty(long timeoutNanos) {
+        long deadlineNanos = System.nanoTime() + timeoutNanos;
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() >= deadlineNanos) {
+                return false;
+            }
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.test.TestContext;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The number of active {@link TimeStepRunner} threads of an execution group which can be changed while the test is running.
+ *
+ * All runners up to the maximum thread count are started when the run starts. A runner with an index equal to or larger
+ * than the active thread count parks itself until the thread count is raised again, so changing the thread count doesn't
+ * create or destroy any threads and the thread state of a runner is kept while it is parked.
+ */
+public final class ElasticThreadCount {
+
+    // the timeout is only needed to notice that the test has been stopped
+    private static final long PARK_NANOS = MILLISECONDS.toNanos(100);
+
+    private final TestContext testContext;
+    private final String executionGroup;
+    private final AtomicReferenceArray<Thread> parkedThreads;
+    private volatile int activeThreadCount;
+
+    ElasticThreadCount(TestContext testContext, String executionGroup, int activeThreadCount, int maxThreadCount) {
+        this.testContext = testContext;
+        this.executionGroup = executionGroup;
+        this.parkedThreads = new AtomicReferenceArray<Thread>(maxThreadCount);
+        this.activeThreadCount = activeThreadCount;
+    }
+
+    /**
+     * Returns the number of active threads.
+     *
+     * This method is thread-safe.
+     *
+     * @return the active thread count.
+     */
+    public int get() {
+        return activeThreadCount;
+    }
+
+    int getMaxThreadCount() {
+        return parkedThreads.length();
+    }
+
+    /**
+     * Sets the number of active threads. Runners which become active are unparked, runners which become inactive park
+     * themselves once their current iteration has completed.
+     *
+     * This method is thread-safe.
+     *
+     * @param threadCount the new active thread count
+     * @return the previous active thread count
+     * @throws IllegalArgumentException if the thread count is negative or larger than the maximum thread count
+     */
+    synchronized int set(int threadCount) {
+        if (threadCount < 0 || threadCount > parkedThreads.length()) {
+            throw new IllegalArgumentException(format("executionGroup [%s] threadCount must be between 0 and %d, but was %d",
+                    executionGroup, parkedThreads.length(), threadCount));
+        }
+
+        int oldThreadCount = activeThreadCount;
+        activeThreadCount = threadCount;
+        for (int runnerIndex = oldThreadCount; runnerIndex < threadCount; runnerIndex++) {
+            Thread thread = parkedThreads.get(runnerIndex);
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return oldThreadCount;
+    }
+
+    /**
+     * Parks the calling runner until it becomes active again or the test is stopped. The runner restarts its metronome
+     * afterwards, so the executions it missed while it was parked aren't caught up.
+     *
+     * @param runnerIndex the index of the runner within its execution group
+     */
+    public void awaitActive(int runnerIndex) {
+        // the thread is registered before the active thread count is read, so a concurrent set() can't miss it
+        parkedThreads.set(runnerIndex, Thread.currentThread());
+        try {
+            while (runnerIndex >= activeThreadCount && !testContext.isStopped()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        } finally {
+            parkedThreads.set(runnerIndex, null);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+import java.io.IOException;
+
+/**
+ * Compiles the {@link TimeStepRunner#timeStepLoop()} of a generated runner to bytecode with javassist.
+ *
+ * In contrast to javac this doesn't need a JDK and it takes milliseconds instead of hundreds of milliseconds. The source
+ * of the timestep loop is generated by the same template as for javac, so the runner gets the same specializations; the
+ * template just doesn't generate the class around the method.
+ */
+final class JavassistRunnerCompiler {
+
+    private static final String[] IMPORTED_PACKAGES = {
+            "com.hazelcast.simulator.test",
+            "com.hazelcast.simulator.test.annotations",
+            "com.hazelcast.simulator.worker.testcontainer",
+            "com.hazelcast.simulator.worker",
+            "com.hazelcast.simulator.worker.metronome",
+            "com.hazelcast.simulator.worker.trace",
+            "com.hazelcast.simulator.probes",
+            "com.hazelcast.simulator.probes.impl",
+            "com.hazelcast.simulator.utils",
+            "java.util",
+            "java.util.logging",
+            "java.util.concurrent.atomic",
+    };
+
+    /**
+     * Compiles a runner class.
+     *
+     * @param className        the name of the runner class
+     * @param testClass        the class of the test instance which is passed to the constructor of the runner
+     * @param timeStepLoopCode the source code of the {@code timeStepLoop()} method
+     * @return the bytecode of the runner class
+     */
+    byte[] compile(String className, Class testClass, String timeStepLoopCode) {
+        ClassPool classPool = new ClassPool(true);
+        classPool.appendClassPath(new LoaderClassPath(testClass.getClassLoader()));
+        classPool.appendClassPath(new LoaderClassPath(TimeStepRunner.class.getClassLoader()));
+        for (String importedPackage : IMPORTED_PACKAGES) {
+            classPool.importPackage(importedPackage);
+        }
+
+        try {
+            CtClass runnerClass = classPool.makeClass(className, classPool.get(TimeStepRunner.class.getName()));
+
+            CtClass[] parameterTypes = new CtClass[]{
+                    classPool.get(testClass.getName()),
+                    classPool.get(TimeStepModel.class.getName()),
+                    classPool.get(String.class.getName()),
+            };
+            runnerClass.addConstructor(CtNewConstructor.make(parameterTypes, new CtClass[0], "super($1, $2, $3);", runnerClass));
+            runnerClass.addMethod(CtNewMethod.make(timeStepLoopCode, runnerClass));
+
+            byte[] bytes = runnerClass.toBytecode();
+            runnerClass.detach();
+            return bytes;
+        } catch (NotFoundException e) {
+            throw new IllegalTestException(className + " ran into a code generation problem: " + e.getMessage(), e);
+        } catch (CannotCompileException e) {
+            throw new IllegalTestException(className + " ran into a code generation problem: " + e.getMessage()
+                    + "\n" + timeStepLoopCode, e);
+        } catch (IOException e) {
+            throw new IllegalTestException(className + " ran into a code generation problem: " + e.getMessage(), e);
+        }
+    }
+}
@@ -15,35 +15,30 @@
  */
 package com.hazelcast.simulator.worker.testcontainer;
 
+import com.hazelcast.simulator.worker.metronome.AdjustableMetronome;
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
 import com.hazelcast.simulator.worker.metronome.SleepingMetronome;
 
 import java.lang.reflect.Constructor;
-import java.util.concurrent.TimeUnit;
 
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.parseDuration;
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.max;
 import static java.lang.Math.round;
-import static java.lang.String.format;
-import static java.util.concurrent.TimeUnit.DAYS;
-import static java.util.concurrent.TimeUnit.HOURS;
-import static java.util.concurrent.TimeUnit.MICROSECONDS;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static java.util.concurrent.TimeUnit.MINUTES;
-import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class MetronomeConstructor {
 
     private final Class<? extends Metronome> metronomeClass;
     private final Metronome masterMetronome;
-    private final long intervalNanos;
+    private volatile long intervalNanos;
 
     public MetronomeConstructor(String executionGroup, PropertyBinding binding, int threadCount) {
         String property = toPropertyName(executionGroup, "interval");
         String intervalString = binding.load(property);
 
-        long intervalNanos = intervalString == null ? 0 : parseInterval(property, intervalString);
+        long intervalNanos = intervalString == null ? 0 : parseDuration(property, intervalString);
 
         double ratePerSecond = binding.loadAsDouble(
                 toPropertyName(executionGroup, "ratePerSecond"), 0);
@@ -83,41 +78,44 @@ public class MetronomeConstructor {
         return intervalNanos;
     }
 
-    private static long parseInterval(String property, String value) {
-        long duration;
-        try {
-            if (value.endsWith("ns")) {
-                duration = parse(NANOSECONDS, 2, value);
-            } else if (value.endsWith("us")) {
-                duration = parse(MICROSECONDS, 2, value);
-            } else if (value.endsWith("ms")) {
-                duration = parse(MILLISECONDS, 2, value);
-            } else if (value.endsWith("s")) {
-                duration = parse(SECONDS, 1, value);
-            } else if (value.endsWith("m")) {
-                duration = parse(MINUTES, 1, value);
-            } else if (value.endsWith("h")) {
-                duration = parse(HOURS, 1, value);
-            } else if (value.endsWith("d")) {
-                duration = parse(DAYS, 1, value);
-            } else {
-                throw new IllegalTestException(format("%s is missing a timeunit in [%s]. For example 10us", property, value));
-            }
-        } catch (NumberFormatException e) {
-            throw new IllegalTestException(format("%s has an invalid property value [%s]", property, value), e);
+    /**
+     * Changes the interval of all metronomes created by this MetronomeConstructor, including the ones which are running.
+     *
+     * @param intervalNanos the new interval of the execution group in nanoseconds
+     * @return the previous interval in nanoseconds
+     * @throws IllegalArgumentException if the interval isn't positive, if no interval was configured or if the metronome
+     *                                  doesn't support changing its interval
+     */
+    synchronized long setIntervalNanos(long intervalNanos) {
+        if (intervalNanos <= 0) {
+            throw new IllegalArgumentException("interval must be positive, but was " + intervalNanos + " ns");
         }
-
-        if (duration < 0) {
-            throw new IllegalTestException(format("%s has with value [%s] must not be positive", property, value));
+        // without a configured interval the runner is generated without a metronome, so there is nothing to change
+        if (metronomeClass == EmptyMetronome.class) {
+            throw new IllegalArgumentException("The interval can only be changed if an interval or ratePerSecond is configured");
+        }
+        if (!(masterMetronome instanceof AdjustableMetronome)) {
+            throw new IllegalArgumentException(
+                    "Metronome [" + metronomeClass.getName() + "] doesn't support changing the interval");
         }
 
-        return duration;
+        long oldIntervalNanos = this.intervalNanos;
+        ((AdjustableMetronome) masterMetronome).setIntervalNanos(intervalNanos);
+        this.intervalNanos = intervalNanos;
+        return oldIntervalNanos;
     }
 
-    private static long parse(TimeUnit unit, int skip, String value) {
-        value = value.substring(0, value.length() - skip);
-        long interval = Long.parseLong(value);
-        return unit.toNanos(interval);
+    /**
+     * Changes the number of active threads the interval of the execution group is divided over, so the rate of the execution
+     * group doesn't change when its thread count changes.
+     *
+     * @param threadCount the new number of active threads
+     */
+    synchronized void setThreadCount(int threadCount) {
+        if (masterMetronome instanceof AdjustableMetronome) {
+            // without active threads the interval doesn't matter; it is set again when threads become active
+            ((AdjustableMetronome) masterMetronome).setThreadCount(max(threadCount, 1));
+        }
     }
 
     Class<? extends Metronome> getMetronomeClass() {
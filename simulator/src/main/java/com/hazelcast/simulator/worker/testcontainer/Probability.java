@@ -24,6 +24,10 @@ import static java.lang.Math.round;
 public class Probability {
     public static final int PROBABILITY_LENGTH = 1000 * 1000;
     public static final int TEN = 10;
+    /**
+     * The number of distinct random values the thresholds are scaled to; see {@link #ratiosToThresholds(int...)}.
+     */
+    public static final long THRESHOLD_RANGE = 1L << 53;
 
     private final double value;
 
@@ -72,7 +76,7 @@ public class Probability {
         return Double.toString(value);
     }
 
-    public static byte[] loadTimeStepProbabilityArray(Map<Method, Probability> methods, List<Method> activeMethods) {
+    public static int[] loadTimeStepRatios(Map<Method, Probability> methods, List<Method> activeMethods) {
         if (activeMethods.size() < 2) {
             return null;
         }
@@ -84,8 +88,7 @@ public class Probability {
             methodProbabilities[methodIndex] = probability.getValue();
         }
 
-        int[] methodRatios = methodProbabilitiesToMethodRatios(methodProbabilities);
-        return ratiosToMethodProbabilityArray(methodRatios);
+        return methodProbabilitiesToMethodRatios(methodProbabilities);
     }
 
     public static int[] methodProbabilitiesToMethodRatios(double... methodProbabilities) {
@@ -117,21 +120,28 @@ public class Probability {
         return roundedMethodProbabilities;
     }
 
-    public static byte[] ratiosToMethodProbabilityArray(int... methodRatios) {
-        int length = 0;
-        for (int methodIndex = 0; methodIndex < methodRatios.length; methodIndex++) {
-            length += methodRatios[methodIndex];
+    /**
+     * Converts the method ratios to cumulative thresholds.
+     *
+     * A uniformly distributed random value between 0 (inclusive) and {@link #THRESHOLD_RANGE} (exclusive) selects the first
+     * method whose threshold is larger than the value; if there is no such threshold, the last method is selected. So only
+     * the thresholds of all methods but the last one are returned.
+     *
+     * @param methodRatios the ratios of the methods
+     * @return the cumulative thresholds
+     */
+    public static long[] ratiosToThresholds(int... methodRatios) {
+        long total = 0;
+        for (int methodRatio : methodRatios) {
+            total += methodRatio;
         }
 
-        byte[] bytes = new byte[length];
-        int index = 0;
-        for (int methodIndex = 0; methodIndex < methodRatios.length; methodIndex++) {
-            for (int x = 0; x < methodRatios[methodIndex]; x++) {
-                bytes[index] = (byte) methodIndex;
-                index++;
-            }
+        long[] thresholds = new long[methodRatios.length - 1];
+        long cumulative = 0;
+        for (int methodIndex = 0; methodIndex < thresholds.length; methodIndex++) {
+            cumulative += methodRatios[methodIndex];
+            thresholds[methodIndex] = round((double) cumulative / total * THRESHOLD_RANGE);
         }
-
-        return bytes;
+        return thresholds;
     }
 }
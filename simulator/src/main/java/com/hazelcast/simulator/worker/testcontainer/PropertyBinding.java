@@ -18,8 +18,14 @@ package com.hazelcast.simulator.worker.testcontainer;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.simulator.common.TestCase;
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.ProbeFamily;
+import com.hazelcast.simulator.probes.impl.AllocationMeter;
+import com.hazelcast.simulator.probes.impl.CountingProbe;
 import com.hazelcast.simulator.probes.impl.EmptyProbe;
 import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.probes.impl.HistogramConfig;
+import com.hazelcast.simulator.probes.impl.OutlierRecorder;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
 import com.hazelcast.simulator.test.TestContext;
 import com.hazelcast.simulator.test.annotations.InjectHazelcastInstance;
 import com.hazelcast.simulator.test.annotations.InjectProbe;
@@ -31,8 +37,10 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.hazelcast.simulator.utils.AnnotationReflectionUtils.getProbeName;
 import static com.hazelcast.simulator.utils.AnnotationReflectionUtils.isPartOfTotalThroughput;
@@ -40,6 +48,13 @@ import static com.hazelcast.simulator.utils.Preconditions.checkNotNull;
 import static com.hazelcast.simulator.utils.PropertyBindingSupport.bindAll;
 import static com.hazelcast.simulator.utils.ReflectionUtils.setFieldValue;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Responsible for injecting:
@@ -47,27 +62,94 @@ import static java.lang.String.format;
  * <li>values in public fields</li>
  * <li>TestContext in fields annotated with {@link InjectTestContext}</li>
  * <li>HazelcastInstance in fields annotated with @{@link InjectHazelcastInstance}</li>
- * <li>Probe instance in fields annotated with {@link InjectProbe}</li>
+ * <li>Probe or ProbeFamily instance in fields annotated with {@link InjectProbe}</li>
  * </ol>
  * <p>
+ * The range and precision of the latency histograms can be configured for the whole test using the properties
+ * {@code latencyLowestDiscernibleValue} (e.g. 1ns), {@code latencyHighestTrackableValue} (e.g. 10s),
+ * {@code latencySignificantDigits} and {@code latencyAutoResize}. Every property can be overridden per probe by prefixing
+ * it with the probe name, e.g. {@code getLatencyLowestDiscernibleValue} for the probe of the timestep method 'get'. An
+ * auto-resizing histogram always has a lowest discernible value of 1ns, so {@code latencyAutoResize} can't be combined with
+ * any other {@code latencyLowestDiscernibleValue} for the same probe.
+ * <p>
+ * Every thread records into its own stripe of a latency probe, see {@link StripedHdrProbe}. With {@code stripedProbes=false}
+ * all threads share the {@link org.HdrHistogram.Recorder} of a {@link HdrProbe} instead, which uses less memory when there
+ * are many probes and few threads.
+ * <p>
+ * The properties starting with {@code sla.} are evaluated by the coordinator, so they are never reported as unused.
+ * <p>
  * The {@link PropertyBinding} also keeps track of all used properties. This makes it possible to detect if there are any unused
  * properties (so properties which are not bound). See {@link #ensureNoUnusedProperties()}.
  */
 @SuppressWarnings("checkstyle:visibilitymodifier")
 public class PropertyBinding {
 
+    public static final String SERVICE_TIME_PROBE_SUFFIX = "-serviceTime";
+    public static final String CORRECTED_PROBE_SUFFIX = "-corrected";
+    public static final String SLA_PROPERTY_PREFIX = "sla.";
+
     static final int DEFAULT_THREAD_COUNT = 10;
+    static final int DEFAULT_MAX_TAG_VALUES = 64;
+    static final int DEFAULT_ALLOCATION_SAMPLE_INTERVAL = 100;
 
     // if we want to measure latency. Normally this is always true; but in its current setting, hdr can cause contention
     // and I want a switch that turns of hdr recording. Perhaps that with some tuning this isn't needed.
     public boolean measureLatency = true;
 
+    // if every recording thread should get its own histogram. This removes the contention on the shared Recorder when many
+    // timestep threads (or async response threads) record into the same probe; the stripes are merged on every interval.
+    public boolean stripedProbes = true;
+
+    // if the operations per timestep method should be counted when latency is not measured. The counting probes are
+    // very cheap, so we still get the throughput per timestep method in a maximum throughput run.
+    public boolean countOperations = true;
+
+    // if the timestep methods of a rate limited test should record the service time (from the actual start) next to the
+    // response time (from the intended start). The service time is recorded in a '<method>-serviceTime' probe.
+    public boolean measureServiceTime;
+
+    // if an exception thrown by a timestep method should be recorded as a failure in its probe instead of failing the test.
+    // The failures are recorded in a separate histogram, so the latency of the successful calls isn't affected.
+    public boolean recordFailures;
+
+    // if the latencies of a closed-loop test (so without interval or ratePerSecond) should be corrected for coordinated
+    // omission. The corrected latencies are recorded in a '<method>-corrected' probe next to the raw latencies. The expected
+    // interval can be configured with 'coordinatedOmissionExpectedInterval', otherwise it's derived per thread.
+    public boolean correctCoordinatedOmission;
+
+    // if the bytes allocated per call of a timestep method should be measured. Only one out of every
+    // 'allocationSampleInterval' calls is measured, since reading the allocated bytes of a thread isn't free.
+    public boolean measureAllocations;
+
+    // if the timestep runner should be compiled to bytecode with javassist instead of javac. This is much faster and
+    // doesn't need a JDK; without a JDK javassist is always used.
+    public boolean useJavassist;
+
+    // if every timestep thread should record its calls (start time, timestep method and key index) into an operation trace in
+    // the worker directory, so the calls can be replayed by another run using 'replayTrace'.
+    public boolean recordTrace;
+
+    // the path prefix of the operation traces to replay, e.g. '/traces/mapTest'. The timestep threads then call the recorded
+    // timestep methods with the recorded key indices at the recorded moments, instead of selecting them randomly.
+    public String replayTrace;
+
+    // the speed of the replay; 2 replays the operation traces twice as fast and 0.5 at half the speed.
+    public double replaySpeed = 1;
+
     // this can be removed as soon as the @InjectMetronome/worker functionality is dropped
     private MetronomeConstructor workerMetronomeConstructor;
     private final Class<? extends Probe> probeClass;
     private TestContextImpl testContext;
     private final Map<String, Probe> probeMap = new ConcurrentHashMap<String, Probe>();
+    private final Map<String, ProbeFamily> probeFamilyMap = new ConcurrentHashMap<String, ProbeFamily>();
+    private final Map<String, HistogramConfig> histogramConfigMap = new ConcurrentHashMap<String, HistogramConfig>();
+    private final Map<String, AllocationMeter> allocationMeterMap = new ConcurrentHashMap<String, AllocationMeter>();
+    private final HistogramConfig defaultHistogramConfig;
+    private final long coordinatedOmissionExpectedIntervalNanos;
+    private final OutlierRecorder outlierRecorder;
+    private final int allocationSampleInterval;
     private final TestCase testCase;
+    private final long seed;
     private final Set<String> unusedProperties = new HashSet<String>();
 
     public PropertyBinding(TestCase testCase) {
@@ -75,12 +157,33 @@ public class PropertyBinding {
         this.unusedProperties.addAll(testCase.getProperties().keySet());
         unusedProperties.remove("class");
         unusedProperties.remove("warmupMillis");
+        // the SLA properties are evaluated by the coordinator
+        for (String property : testCase.getProperties().keySet()) {
+            if (property.startsWith(SLA_PROPERTY_PREFIX)) {
+                unusedProperties.remove(property);
+            }
+        }
 
         bind(this);
 
         this.workerMetronomeConstructor = new MetronomeConstructor(
                 "", this, loadAsInt("threadCount", DEFAULT_THREAD_COUNT));
         this.probeClass = loadProbeClass();
+        this.defaultHistogramConfig = loadHistogramConfig("", HistogramConfig.DEFAULT);
+        this.coordinatedOmissionExpectedIntervalNanos = loadAsNanos("coordinatedOmissionExpectedInterval", 0);
+        this.outlierRecorder = loadOutlierRecorder();
+        this.allocationSampleInterval = loadAsInt("allocationSampleInterval", DEFAULT_ALLOCATION_SAMPLE_INTERVAL);
+        if (allocationSampleInterval < 1) {
+            throw new IllegalTestException("allocationSampleInterval must be at least 1, but was " + allocationSampleInterval);
+        }
+        // without a configured seed a random seed is used, which is logged so the run can be repeated
+        this.seed = loadAsLong("seed", new Random().nextLong());
+        if (recordTrace && replayTrace != null) {
+            throw new IllegalTestException("recordTrace and replayTrace can't be used at the same time");
+        }
+        if (replaySpeed <= 0) {
+            throw new IllegalTestException("replaySpeed must be larger than 0, but was " + replaySpeed);
+        }
     }
 
     public PropertyBinding setTestContext(TestContextImpl testContext) {
@@ -95,6 +198,15 @@ public class PropertyBinding {
         }
     }
 
+    /**
+     * Returns the seed of the test, which is configured using the 'seed' property.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
     public Map<String, Probe> getProbeMap() {
         return probeMap;
     }
@@ -161,6 +273,21 @@ public class PropertyBinding {
         }
     }
 
+    /**
+     * Loads a duration like 10us or 5s and converts it to nanoseconds.
+     *
+     * @param property     the name of the property
+     * @param defaultValue the value in nanoseconds if the property isn't set
+     * @return the duration in nanoseconds
+     */
+    public long loadAsNanos(String property, long defaultValue) {
+        String value = load(property);
+        if (value == null) {
+            return defaultValue;
+        }
+        return parseDuration(property, value);
+    }
+
     public <E> Class<E> loadAsClass(String property, Class<E> defaultValue) {
         String value = load(property);
         if (value == null) {
@@ -175,6 +302,43 @@ public class PropertyBinding {
         }
     }
 
+    public static long parseDuration(String property, String value) {
+        long duration;
+        try {
+            if (value.endsWith("ns")) {
+                duration = parse(NANOSECONDS, 2, value);
+            } else if (value.endsWith("us")) {
+                duration = parse(MICROSECONDS, 2, value);
+            } else if (value.endsWith("ms")) {
+                duration = parse(MILLISECONDS, 2, value);
+            } else if (value.endsWith("s")) {
+                duration = parse(SECONDS, 1, value);
+            } else if (value.endsWith("m")) {
+                duration = parse(MINUTES, 1, value);
+            } else if (value.endsWith("h")) {
+                duration = parse(HOURS, 1, value);
+            } else if (value.endsWith("d")) {
+                duration = parse(DAYS, 1, value);
+            } else {
+                throw new IllegalTestException(format("%s is missing a timeunit in [%s]. For example 10us", property, value));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalTestException(format("%s has an invalid property value [%s]", property, value), e);
+        }
+
+        if (duration < 0) {
+            throw new IllegalTestException(format("%s has with value [%s] must not be positive", property, value));
+        }
+
+        return duration;
+    }
+
+    private static long parse(TimeUnit unit, int skip, String value) {
+        value = value.substring(0, value.length() - skip);
+        long interval = Long.parseLong(value);
+        return unit.toNanos(interval);
+    }
+
     public static String toPropertyName(String prefix, String name) {
         if (prefix.equals("")) {
             return name;
@@ -215,9 +379,14 @@ public class PropertyBinding {
             assertFieldType(fieldType, HazelcastInstance.class, InjectHazelcastInstance.class);
             setFieldValue(object, field, testContext.getTargetInstance());
         } else if (field.isAnnotationPresent(InjectProbe.class)) {
-            assertFieldType(fieldType, Probe.class, InjectProbe.class);
-            Probe probe = getOrCreateProbe(getProbeName(field), isPartOfTotalThroughput(field));
-            setFieldValue(object, field, probe);
+            if (ProbeFamily.class.equals(fieldType)) {
+                ProbeFamily probeFamily = getOrCreateProbeFamily(getProbeName(field), isPartOfTotalThroughput(field));
+                setFieldValue(object, field, probeFamily);
+            } else {
+                assertFieldType(fieldType, Probe.class, InjectProbe.class);
+                Probe probe = getOrCreateProbe(getProbeName(field), isPartOfTotalThroughput(field));
+                setFieldValue(object, field, probe);
+            }
         }
     }
 
@@ -233,22 +402,254 @@ public class PropertyBinding {
     }
 
     private Class<? extends Probe> loadProbeClass() {
-        return measureLatency ? HdrProbe.class : null;
+        if (!measureLatency) {
+            return countOperations ? CountingProbe.class : null;
+        }
+        return stripedProbes ? StripedHdrProbe.class : HdrProbe.class;
+    }
+
+    private OutlierRecorder loadOutlierRecorder() {
+        long outlierThresholdNanos = loadAsNanos("outlierThreshold", 0);
+        int outlierBufferSize = loadAsInt("outlierBufferSize", OutlierRecorder.DEFAULT_BUFFER_SIZE);
+        if (outlierThresholdNanos == 0) {
+            return null;
+        }
+
+        try {
+            return new OutlierRecorder(outlierThresholdNanos, outlierBufferSize);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException("Invalid outlier configuration: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the recorder for the operations which exceed the {@code outlierThreshold} property (e.g. 10ms).
+     *
+     * @return the outlier recorder or {@code null} if outliers are not captured
+     */
+    public OutlierRecorder getOutlierRecorder() {
+        return outlierRecorder;
+    }
+
+    public boolean isMeasureServiceTime() {
+        return measureServiceTime && probeClass != null && probeClass != CountingProbe.class;
+    }
+
+    public boolean isCorrectCoordinatedOmission() {
+        return correctCoordinatedOmission && probeClass != null && probeClass != CountingProbe.class;
+    }
+
+    /**
+     * Returns the configured interval in which a closed-loop thread is expected to issue requests.
+     *
+     * @return the expected interval in nanoseconds or 0 if it should be derived from the observed latencies
+     */
+    public long getCoordinatedOmissionExpectedIntervalNanos() {
+        return coordinatedOmissionExpectedIntervalNanos;
+    }
+
+    /**
+     * Checks if the allocations of the timestep methods should be measured.
+     *
+     * This is only done if the JVM supports measuring the allocated bytes per thread.
+     *
+     * @return {@code true} if the allocations should be measured
+     */
+    public boolean isMeasureAllocations() {
+        return measureAllocations && AllocationMeter.isSupported();
+    }
+
+    /**
+     * Returns the number of calls of a timestep method per measured call.
+     *
+     * @return the allocation sample interval
+     */
+    public int getAllocationSampleInterval() {
+        return allocationSampleInterval;
+    }
+
+    public Map<String, AllocationMeter> getAllocationMeterMap() {
+        return allocationMeterMap;
+    }
+
+    /**
+     * Gets or creates the allocation meter of the given timestep method.
+     *
+     * @param methodName the name of the timestep method
+     * @return the allocation meter
+     */
+    public AllocationMeter getOrCreateAllocationMeter(String methodName) {
+        AllocationMeter allocationMeter = allocationMeterMap.get(methodName);
+        if (allocationMeter == null) {
+            allocationMeter = new AllocationMeter();
+            allocationMeterMap.put(methodName, allocationMeter);
+        }
+        return allocationMeter;
     }
 
     public Probe getOrCreateProbe(String probeName, boolean partOfTotalThroughput) {
+        return getOrCreateProbe(probeName, partOfTotalThroughput, false);
+    }
+
+    /**
+     * Gets or creates the probe for the latencies of the given probe which are corrected for coordinated omission.
+     *
+     * The corrected probe is named {@code <probeName>-corrected} and uses the histogram configuration of the given probe.
+     *
+     * @param probeName the name of the probe with the raw latencies
+     * @return the corrected probe
+     */
+    public Probe getOrCreateCorrectedProbe(String probeName) {
+        return getOrCreateProbe(probeName + CORRECTED_PROBE_SUFFIX, false, getHistogramConfig(probeName));
+    }
+
+    /**
+     * Gets or creates the probe for the latencies of a step of a timestep chain.
+     *
+     * The step probe is named {@code <chainName>-<stepName>} and uses the histogram configuration of the chain. The latencies
+     * of the steps are only recorded if the latency of the chain is recorded, so with a counting probe there are no step
+     * probes.
+     *
+     * @param chainName the name of the probe of the chain
+     * @param stepName  the name of the step
+     * @return the step probe or {@code null} if the latencies of the steps are not recorded
+     */
+    public Probe getOrCreateStepProbe(String chainName, String stepName) {
+        if (probeClass == null || probeClass == CountingProbe.class) {
+            return null;
+        }
+        return getOrCreateProbe(chainName + "-" + stepName, false, getHistogramConfig(chainName));
+    }
+
+    /**
+     * Gets or creates the probe with the given name.
+     *
+     * @param probeName             the name of the probe
+     * @param partOfTotalThroughput {@code true} if the probe is relevant for the throughput
+     * @param trackServiceTime      {@code true} if the probe should also track the service time; this is only done if
+     *                              {@link #isMeasureServiceTime()} is enabled
+     * @return the probe
+     */
+    public Probe getOrCreateProbe(String probeName, boolean partOfTotalThroughput, boolean trackServiceTime) {
+        if (probeClass == null) {
+            return EmptyProbe.INSTANCE;
+        }
+
+        Probe probe = probeMap.get(probeName);
+        if (probe == null) {
+            Probe serviceTimeProbe = null;
+            if (trackServiceTime && isMeasureServiceTime()) {
+                serviceTimeProbe = newProbe(false, null, getHistogramConfig(probeName));
+                probeMap.put(probeName + SERVICE_TIME_PROBE_SUFFIX, serviceTimeProbe);
+            }
+            probe = newProbe(partOfTotalThroughput, serviceTimeProbe, getHistogramConfig(probeName));
+            captureOutliers(probeName, probe);
+            probeMap.put(probeName, probe);
+        }
+        return probe;
+    }
+
+    /**
+     * Gets or creates the probe family with the given name.
+     *
+     * The child probes are registered in the probe map like any other probe, so every tag value gets its own histogram
+     * file. The maximum number of tag values can be configured using the {@code <familyName>MaxTagValues} property. All
+     * child probes use the histogram configuration of the family.
+     *
+     * @param familyName            the name of the probe family
+     * @param partOfTotalThroughput {@code true} if the child probes are relevant for the throughput
+     * @return the probe family
+     */
+    public ProbeFamily getOrCreateProbeFamily(final String familyName, final boolean partOfTotalThroughput) {
+        ProbeFamily probeFamily = probeFamilyMap.get(familyName);
+        if (probeFamily == null) {
+            int maxTagValues = loadAsInt(toPropertyName(familyName, "maxTagValues"), DEFAULT_MAX_TAG_VALUES);
+            final HistogramConfig histogramConfig = getHistogramConfig(familyName);
+            probeFamily = new ProbeFamily(familyName, maxTagValues, new ProbeFamily.ProbeFactory() {
+                @Override
+                public Probe newProbe(String probeName) {
+                    return captureOutliers(probeName, getOrCreateProbe(probeName, partOfTotalThroughput, histogramConfig));
+                }
+            });
+            probeFamilyMap.put(familyName, probeFamily);
+        }
+        return probeFamily;
+    }
+
+    private Probe getOrCreateProbe(String probeName, boolean partOfTotalThroughput, HistogramConfig histogramConfig) {
         if (probeClass == null) {
             return EmptyProbe.INSTANCE;
         }
 
         Probe probe = probeMap.get(probeName);
         if (probe == null) {
-            probe = new HdrProbe(partOfTotalThroughput);
+            probe = newProbe(partOfTotalThroughput, null, histogramConfig);
             probeMap.put(probeName, probe);
         }
         return probe;
     }
 
+    /**
+     * Only the probes with the real latencies capture outliers; not the service time or corrected probes.
+     */
+    private Probe captureOutliers(String probeName, Probe probe) {
+        if (outlierRecorder == null) {
+            return probe;
+        }
+        if (probe instanceof StripedHdrProbe) {
+            ((StripedHdrProbe) probe).setOutlierRecorder(probeName, outlierRecorder);
+        } else if (probe instanceof HdrProbe) {
+            ((HdrProbe) probe).setOutlierRecorder(probeName, outlierRecorder);
+        }
+        return probe;
+    }
+
+    private Probe newProbe(boolean partOfTotalThroughput, Probe serviceTimeProbe, HistogramConfig histogramConfig) {
+        if (probeClass == CountingProbe.class) {
+            return new CountingProbe(partOfTotalThroughput);
+        } else if (probeClass == StripedHdrProbe.class) {
+            return new StripedHdrProbe(partOfTotalThroughput, serviceTimeProbe, histogramConfig);
+        } else {
+            return new HdrProbe(partOfTotalThroughput, serviceTimeProbe, histogramConfig);
+        }
+    }
+
+    /**
+     * Gets the histogram range and precision of a probe.
+     *
+     * The probe specific properties are loaded on the first call. Probes which are created after the unused properties
+     * have been checked should have their configuration resolved up front, see {@link TimeStepRunStrategy}.
+     *
+     * @param probeName the name of the probe
+     * @return the histogram configuration of the probe
+     */
+    public HistogramConfig getHistogramConfig(String probeName) {
+        HistogramConfig histogramConfig = histogramConfigMap.get(probeName);
+        if (histogramConfig == null) {
+            histogramConfig = loadHistogramConfig(probeName, defaultHistogramConfig);
+            histogramConfigMap.put(probeName, histogramConfig);
+        }
+        return histogramConfig;
+    }
+
+    private HistogramConfig loadHistogramConfig(String prefix, HistogramConfig defaults) {
+        boolean autoResize = loadAsBoolean(toPropertyName(prefix, "latencyAutoResize"), defaults.isAutoResize());
+        // an inherited lowest discernible value doesn't apply to an auto-resizing histogram, an explicit one is rejected
+        long lowestDiscernibleValue = loadAsNanos(
+                toPropertyName(prefix, "latencyLowestDiscernibleValue"), autoResize ? 1 : defaults.getLowestDiscernibleValue());
+        long highestTrackableValue = loadAsNanos(
+                toPropertyName(prefix, "latencyHighestTrackableValue"), defaults.getHighestTrackableValue());
+        int significantDigits = loadAsInt(
+                toPropertyName(prefix, "latencySignificantDigits"), defaults.getNumberOfSignificantValueDigits());
+
+        try {
+            return new HistogramConfig(lowestDiscernibleValue, highestTrackableValue, significantDigits, autoResize);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException(format("Invalid latency histogram settings for [%s]: %s",
+                    prefix.isEmpty() ? testCase.getId() : prefix, e.getMessage()));
+        }
+    }
+
     public TestContextImpl getTestContext() {
         return testContext;
     }
@@ -15,6 +15,8 @@
  */
 package com.hazelcast.simulator.worker.testcontainer;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 /**
@@ -30,17 +32,17 @@ abstract class RunStrategy {
     private volatile boolean running;
     private volatile long startedMillis;
 
+    /**
+     * Returns the callable which runs the test.
+     *
+     * The warmup is the first part of the run, so the same threads and thread states are used for the warmup and the
+     * measurement. The switch to the measurement is done by the
+     * {@link com.hazelcast.simulator.worker.performance.TestPerformanceTracker} without disturbing the running threads.
+     *
+     * @return the run callable.
+     */
     public abstract Callable getRunCallable();
 
-    public Callable getWarmupCallable() {
-        return new Callable() {
-            @Override
-            public Object call() throws Exception {
-                return null;
-            }
-        };
-    }
-
     /**
      * Returns the number of iterations of all the executions. Value is 0 if it isn't tracked, or the information is only
      * available through Probes.
@@ -51,6 +53,74 @@ abstract class RunStrategy {
         return 0;
     }
 
+    /**
+     * Returns the execution groups of which the threads are tracked. Empty if the threads running the test aren't tracked.
+     *
+     * @return the execution groups.
+     */
+    public Set<String> executionGroups() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns the number of iterations of the threads of an execution group.
+     *
+     * @param executionGroup the execution group
+     * @return the number of operations.
+     */
+    public long iterations(String executionGroup) {
+        return 0;
+    }
+
+    /**
+     * Returns the CPU time consumed by the threads of an execution group.
+     *
+     * @param executionGroup the execution group
+     * @return the CPU time in nanoseconds or -1 if not available.
+     */
+    public long cpuTimeNanos(String executionGroup) {
+        return -1;
+    }
+
+    /**
+     * Returns the number of active threads of an execution group.
+     *
+     * This method is thread-safe.
+     *
+     * @param executionGroup the execution group
+     * @return the thread count or -1 if the threads aren't tracked.
+     */
+    public int threadCount(String executionGroup) {
+        return -1;
+    }
+
+    /**
+     * Changes the number of active threads of an execution group while the test is running.
+     *
+     * This method is thread-safe.
+     *
+     * @param executionGroup the execution group
+     * @param threadCount    the new thread count
+     * @throws IllegalArgumentException if the thread count of the execution group can't be changed
+     */
+    public void setThreadCount(String executionGroup, int threadCount) {
+        throw new IllegalArgumentException("The thread count of this test can't be changed");
+    }
+
+    /**
+     * Changes the interval of the metronomes of an execution group while the test is running.
+     *
+     * This method is thread-safe.
+     *
+     * @param executionGroup the execution group
+     * @param intervalNanos  the new interval in nanoseconds
+     * @return the previous interval in nanoseconds
+     * @throws IllegalArgumentException if the interval of the execution group can't be changed
+     */
+    public long setIntervalNanos(String executionGroup, long intervalNanos) {
+        throw new IllegalArgumentException("The interval of this test can't be changed");
+    }
+
     /**
      * Checks if the run strategy is running. This is true in case of warmup and actual running.
      *
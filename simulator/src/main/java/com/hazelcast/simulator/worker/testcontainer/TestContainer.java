@@ -36,10 +36,12 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import static com.hazelcast.simulator.common.TestPhase.GLOBAL_PREPARE;
@@ -87,6 +89,7 @@ public class TestContainer {
         this.testCase = checkNotNull(testCase, "testCase can't be null!");
         this.propertyBinding = new PropertyBinding(testCase)
                 .setTestContext(testContext);
+        testContext.setTestSeed(propertyBinding.getSeed());
 
         propertyBinding.bind(this);
 
@@ -155,6 +158,38 @@ public class TestContainer {
         return runStrategy == null ? 0 : runStrategy.iterations();
     }
 
+    public Set<String> executionGroups() {
+        return runStrategy == null ? Collections.<String>emptySet() : runStrategy.executionGroups();
+    }
+
+    public long iteration(String executionGroup) {
+        return runStrategy == null ? 0 : runStrategy.iterations(executionGroup);
+    }
+
+    public long cpuTimeNanos(String executionGroup) {
+        return runStrategy == null ? -1 : runStrategy.cpuTimeNanos(executionGroup);
+    }
+
+    public int threadCount(String executionGroup) {
+        return runStrategy == null ? -1 : runStrategy.threadCount(executionGroup);
+    }
+
+    public void setThreadCount(String executionGroup, int threadCount) {
+        if (runStrategy == null) {
+            throw new IllegalArgumentException("The thread count of this test can't be changed");
+        }
+        runStrategy.setThreadCount(executionGroup, threadCount);
+    }
+
+    public void setIntervalNanos(String executionGroup, long intervalNanos) {
+        if (runStrategy == null) {
+            throw new IllegalArgumentException("The interval of this test can't be changed");
+        }
+        long oldIntervalNanos = runStrategy.setIntervalNanos(executionGroup, intervalNanos);
+        testPerformanceTracker.addHistogramLogComment(format("[Interval of executionGroup [%s] changed from %d ns to %d ns]",
+                executionGroup, oldIntervalNanos, intervalNanos));
+    }
+
     public Map<String, Probe> getProbeMap() {
         return propertyBinding.getProbeMap();
     }
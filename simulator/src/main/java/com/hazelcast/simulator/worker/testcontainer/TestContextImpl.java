@@ -17,10 +17,12 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.simulator.protocol.connector.Connector;
+import com.hazelcast.simulator.protocol.core.SimulatorAddress;
 import com.hazelcast.simulator.protocol.operation.LogOperation;
 import com.hazelcast.simulator.test.TestContext;
 
 import static com.hazelcast.simulator.protocol.core.SimulatorAddress.COORDINATOR;
+import static com.hazelcast.simulator.utils.SplitMixRandom.deriveSeed;
 import static java.lang.String.format;
 
 public class TestContextImpl implements TestContext {
@@ -29,16 +31,27 @@ public class TestContextImpl implements TestContext {
     private final String testId;
     private final String publicIpAddress;
     private final Connector connector;
+    private final SimulatorAddress workerAddress;
+    private volatile long seed;
     private volatile boolean stopped;
 
     public TestContextImpl(HazelcastInstance hazelcastInstance,
                            String testId,
                            String publicIpAddress,
                            Connector connector) {
+        this(hazelcastInstance, testId, publicIpAddress, connector, null);
+    }
+
+    public TestContextImpl(HazelcastInstance hazelcastInstance,
+                           String testId,
+                           String publicIpAddress,
+                           Connector connector,
+                           SimulatorAddress workerAddress) {
         this.hazelcastInstance = hazelcastInstance;
         this.testId = testId;
         this.publicIpAddress = publicIpAddress;
         this.connector = connector;
+        this.workerAddress = workerAddress;
     }
 
     public HazelcastInstance getTargetInstance() {
@@ -55,6 +68,20 @@ public class TestContextImpl implements TestContext {
         return publicIpAddress;
     }
 
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the test; the seed of this worker is derived from it.
+     *
+     * @param testSeed the seed configured for the test
+     */
+    void setTestSeed(long testSeed) {
+        this.seed = workerAddress == null ? testSeed : deriveSeed(testSeed, workerAddress.toString());
+    }
+
     @Override
     public boolean isStopped() {
         return stopped;
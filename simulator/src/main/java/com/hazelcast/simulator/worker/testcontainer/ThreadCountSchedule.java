@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.parseDuration;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+/**
+ * The schedule of the thread count of an execution group during the run, e.g. {@code 4..64 step 4 every 60s}.
+ *
+ * The schedule starts with the first thread count and changes it by the step size every period, until the last thread count
+ * is reached. If the last thread count is smaller than the first one, the thread count is decreased.
+ */
+final class ThreadCountSchedule {
+
+    private static final Pattern PATTERN = Pattern.compile("(\\d+)\\s*\\.\\.\\s*(\\d+)\\s+step\\s+(\\d+)\\s+every\\s+(\\S+)");
+
+    private final int from;
+    private final int to;
+    private final int step;
+    private final long periodNanos;
+
+    ThreadCountSchedule(int from, int to, int step, long periodNanos) {
+        this.from = from;
+        this.to = to;
+        this.step = step;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Parses a thread count schedule.
+     *
+     * @param property the name of the property
+     * @param value    the value of the property
+     * @return the parsed schedule
+     * @throws IllegalTestException if the value isn't a valid schedule
+     */
+    static ThreadCountSchedule parse(String property, String value) {
+        Matcher matcher = PATTERN.matcher(value.trim());
+        if (!matcher.matches()) {
+            throw new IllegalTestException(format(
+                    "Property [%s] with value [%s] is not a thread count schedule. For example 4..64 step 4 every 60s",
+                    property, value));
+        }
+
+        int from;
+        int to;
+        int step;
+        try {
+            from = Integer.parseInt(matcher.group(1));
+            to = Integer.parseInt(matcher.group(2));
+            step = Integer.parseInt(matcher.group(3));
+        } catch (NumberFormatException e) {
+            throw new IllegalTestException(format("Property [%s] with value [%s] contains a too large number", property, value));
+        }
+        long periodNanos = parseDuration(property, matcher.group(4));
+
+        if (from < 1 || to < 1) {
+            throw new IllegalTestException(format("Property [%s] with value [%s] needs thread counts of at least 1",
+                    property, value));
+        }
+        if (step < 1) {
+            throw new IllegalTestException(format("Property [%s] with value [%s] needs a step of at least 1", property, value));
+        }
+        if (periodNanos <= 0) {
+            throw new IllegalTestException(format("Property [%s] with value [%s] needs a positive period", property, value));
+        }
+        return new ThreadCountSchedule(from, to, step, periodNanos);
+    }
+
+    int getInitialThreadCount() {
+        return from;
+    }
+
+    int getMaxThreadCount() {
+        return max(from, to);
+    }
+
+    long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Returns the scheduled thread count.
+     *
+     * @param elapsedNanos the time since the start of the run
+     * @return the thread count
+     */
+    int threadCountAt(long elapsedNanos) {
+        long steps = max(0, elapsedNanos) / periodNanos;
+        if (to >= from) {
+            return (int) min(to, from + steps * step);
+        }
+        return (int) max(to, from - steps * step);
+    }
+
+    @Override
+    public String toString() {
+        return format("%d..%d step %d every %dns", from, to, step, periodNanos);
+    }
+}
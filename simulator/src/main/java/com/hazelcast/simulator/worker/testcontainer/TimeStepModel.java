@@ -15,18 +15,20 @@
  */
 package com.hazelcast.simulator.worker.testcontainer;
 
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.ProbeFamily;
 import com.hazelcast.simulator.test.annotations.AfterRun;
 import com.hazelcast.simulator.test.annotations.BeforeRun;
 import com.hazelcast.simulator.test.annotations.StartNanos;
 import com.hazelcast.simulator.test.annotations.TimeStep;
 import com.hazelcast.simulator.utils.AnnotatedMethodRetriever;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -35,7 +37,8 @@ import java.util.Map;
 import java.util.Set;
 
 import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
-import static com.hazelcast.simulator.worker.testcontainer.Probability.loadTimeStepProbabilityArray;
+import static com.hazelcast.simulator.worker.testcontainer.Probability.loadTimeStepRatios;
+import static com.hazelcast.simulator.worker.testcontainer.Probability.ratiosToThresholds;
 import static java.lang.String.format;
 import static java.lang.reflect.Modifier.isAbstract;
 import static java.lang.reflect.Modifier.isPublic;
@@ -46,6 +49,7 @@ public class TimeStepModel {
     private final Class testClass;
 
     private final Map<String, ExecutionGroup> executionGroups = new HashMap<String, ExecutionGroup>();
+    private final Map<Method, List<Method>> steps = new HashMap<Method, List<Method>>();
     private final PropertyBinding propertyBinding;
 
     public TimeStepModel(Class testClass, PropertyBinding propertyBinding) {
@@ -96,10 +100,59 @@ public class TimeStepModel {
         return result;
     }
 
+    /**
+     * Returns the steps of a {@link TimeStep} method which is a chain, see {@link TimeStep#steps()}.
+     *
+     * @param method the {@link TimeStep} method
+     * @return the step methods in the order they are called or an empty list if the method isn't a chain
+     */
+    public final List<Method> getSteps(Method method) {
+        List<Method> result = steps.get(method);
+        return result == null ? Collections.<Method>emptyList() : result;
+    }
+
     public final Constructor getThreadStateConstructor(String executionGroup) {
         return executionGroups.get(executionGroup).threadStateConstructor;
     }
 
+    /**
+     * Returns the number of calls of a {@link TimeStep} method per timed call.
+     *
+     * @param group  the name of the execution group
+     * @param method the active {@link TimeStep} method
+     * @return the latency sample interval
+     */
+    public int getLatencySampleInterval(String group, Method method) {
+        return executionGroups.get(group).latencySampleIntervals.get(method);
+    }
+
+    /**
+     * Checks if any active {@link TimeStep} method of the execution group is asynchronous.
+     *
+     * @param group the name of the execution group
+     * @return {@code true} if at least one active method returns an {@link ICompletableFuture}
+     * @see #isAsync(Method)
+     */
+    public boolean hasAsyncTimeStepMethods(String group) {
+        for (Method method : getActiveTimeStepMethods(group)) {
+            if (isAsync(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a {@link TimeStep} method is asynchronous. An asynchronous method returns an {@link ICompletableFuture} and
+     * the call is completed when the future completes.
+     *
+     * @param method the {@link TimeStep} method
+     * @return {@code true} if the method is asynchronous
+     */
+    public static boolean isAsync(Method method) {
+        return ICompletableFuture.class.isAssignableFrom(method.getReturnType());
+    }
+
     // just for testing
     Probability getProbability(String group, String methodName) {
         ExecutionGroup executionGroup = executionGroups.get(group);
@@ -177,6 +230,7 @@ public class TimeStepModel {
         validateUniqueMethodNames(methods);
         validateModifiers(methods);
         validateTimeStepParameters(methods);
+        loadSteps(methods);
 
         for (Method method : methods) {
             TimeStep timeStep = method.getAnnotation(TimeStep.class);
@@ -192,6 +246,72 @@ public class TimeStepModel {
         }
     }
 
+    private void loadSteps(List<Method> methods) {
+        for (Method method : methods) {
+            String[] stepNames = method.getAnnotation(TimeStep.class).steps();
+            if (stepNames.length == 0) {
+                continue;
+            }
+
+            if (isAsync(method)) {
+                throw new IllegalTestException("TimeStep method '" + method + "' is a chain of steps and can't be asynchronous");
+            }
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (Probe.class.isAssignableFrom(parameterType) || ProbeFamily.class.isAssignableFrom(parameterType)) {
+                    throw new IllegalTestException("TimeStep method '" + method + "' is a chain of steps"
+                            + " and can't have a Probe argument");
+                }
+            }
+
+            Set<String> names = new HashSet<String>();
+            List<Method> stepMethods = new ArrayList<Method>(stepNames.length);
+            for (String stepName : stepNames) {
+                if (!names.add(stepName)) {
+                    throw new IllegalTestException("TimeStep method '" + method + "' has step '" + stepName + "' more than once");
+                }
+                stepMethods.add(loadStep(method, stepName));
+            }
+            steps.put(method, stepMethods);
+        }
+    }
+
+    private Method loadStep(Method chain, String stepName) {
+        Method step = null;
+        for (Method method : testClass.getMethods()) {
+            if (!method.getName().equals(stepName)) {
+                continue;
+            }
+            if (step != null) {
+                throw new IllegalTestException("Step '" + stepName + "' of TimeStep method '" + chain + "' is overloaded");
+            }
+            step = method;
+        }
+
+        if (step == null) {
+            throw new IllegalTestException("Step '" + stepName + "' of TimeStep method '" + chain + "'"
+                    + " isn't a public method of " + testClass.getName());
+        }
+        if (step.equals(chain)) {
+            throw new IllegalTestException("TimeStep method '" + chain + "' can't be a step of itself");
+        }
+        if (isStatic(step.getModifiers())) {
+            throw new IllegalTestException("Step method '" + step + "' can't be static");
+        }
+        if (isAsync(step)) {
+            throw new IllegalTestException("Step method '" + step + "' can't be asynchronous");
+        }
+
+        Class<?>[] parameterTypes = step.getParameterTypes();
+        if (parameterTypes.length > 1) {
+            throw new IllegalTestException("Step method '" + step + "' can't have more than one argument");
+        }
+        if (parameterTypes.length == 1 && (Probe.class.isAssignableFrom(parameterTypes[0])
+                || ProbeFamily.class.isAssignableFrom(parameterTypes[0]) || hasStartNanosAnnotation(step, 0))) {
+            throw new IllegalTestException("Step method '" + step + "' can only have a thread state argument");
+        }
+        return step;
+    }
+
     private static void ensureExecutionGroupIsIdentifier(Method method, String executionGroup) {
         if (executionGroup.equals("")) {
             return;
@@ -291,18 +411,17 @@ public class TimeStepModel {
     }
 
     /**
-     * Returns the probabilities of the {@link TimeStep} methods.
+     * Returns the cumulative thresholds of the {@link TimeStep} methods which are used by the generated timestep runner to
+     * select a method.
      *
-     * The value in the byte refers to the index of the method in the {@link #getActiveTimeStepMethods(String)}.
-     * If a method has 0.5 probability and index 15, then 50% of the values in the array will point to 15.
+     * See {@link Probability#ratiosToThresholds(int...)}.
      *
-     * @param group the name of the execution group to get the probability array for
-     * @return the array of probabilities for each {@link TimeStep} method or {@code null} if there is only a
-     * single {@link TimeStep} method.
+     * @param group the name of the execution group to get the thresholds for
+     * @return the thresholds or {@code null} if there is only a single {@link TimeStep} method.
      */
-    @SuppressFBWarnings("EI_EXPOSE_REP")
-    public byte[] getTimeStepProbabilityArray(String group) {
-        return executionGroups.get(group).timeStepProbabilityArray;
+    public long[] getTimeStepThresholds(String group) {
+        int[] timeStepRatios = executionGroups.get(group).timeStepRatios;
+        return timeStepRatios == null ? null : ratiosToThresholds(timeStepRatios);
     }
 
     private final class ExecutionGroup {
@@ -313,7 +432,8 @@ public class TimeStepModel {
         private Class threadStateClass;
         private Constructor threadStateConstructor;
         private Map<Method, Probability> probabilities;
-        private byte[] timeStepProbabilityArray;
+        private final Map<Method, Integer> latencySampleIntervals = new HashMap<Method, Integer>();
+        private int[] timeStepRatios;
 
         private ExecutionGroup(String name) {
             this.name = name;
@@ -323,7 +443,21 @@ public class TimeStepModel {
             threadStateClass = loadThreadStateClass();
             threadStateConstructor = loadThreadStateConstructor();
             probabilities = loadProbabilities();
-            timeStepProbabilityArray = loadTimeStepProbabilityArray(probabilities, getActiveTimeStepMethods(name));
+            timeStepRatios = loadTimeStepRatios(probabilities, getActiveTimeStepMethods(name));
+            for (Method method : getActiveTimeStepMethods(name)) {
+                latencySampleIntervals.put(method, loadLatencySampleInterval(method));
+            }
+        }
+
+        private int loadLatencySampleInterval(Method method) {
+            String propertyName = method.getName() + "LatencySampleInterval";
+            int latencySampleInterval = propertyBinding.loadAsInt(propertyName,
+                    method.getAnnotation(TimeStep.class).latencySampleInterval());
+            if (latencySampleInterval < 1) {
+                throw new IllegalTestException("TimeStep method '" + method + "' latencySampleInterval must be at least 1,"
+                        + " found: " + latencySampleInterval);
+            }
+            return latencySampleInterval;
         }
 
         private Class loadThreadStateClass() {
@@ -331,6 +465,9 @@ public class TimeStepModel {
             collectThreadStateClass(classes, beforeRunMethods);
             collectThreadStateClass(classes, afterRunMethods);
             collectThreadStateClass(classes, timeStepMethods);
+            for (Method method : timeStepMethods) {
+                collectThreadStateClass(classes, getSteps(method));
+            }
 
             if (classes.size() == 0) {
                 // no first argument is found
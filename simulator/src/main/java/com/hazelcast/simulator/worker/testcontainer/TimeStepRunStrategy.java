@@ -18,15 +18,33 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.test.TestContext;
 import com.hazelcast.simulator.utils.ThreadSpawner;
+import com.hazelcast.simulator.worker.metronome.AdjustableMetronome;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
+import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.ReplayMetronome;
+import com.hazelcast.simulator.worker.trace.OperationTraceReader;
+import com.hazelcast.simulator.worker.trace.OperationTraceWriter;
 import org.apache.log4j.Logger;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.locks.LockSupport;
 
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.formatCpuSet;
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.parseCpuSet;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.getTraceFile;
 import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.toPropertyName;
+import static java.lang.Math.max;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * A {@link RunStrategy} used for tests containing methods with {@link com.hazelcast.simulator.test.annotations.TimeStep}
@@ -38,6 +56,9 @@ class TimeStepRunStrategy extends RunStrategy {
     private static final int DEFAULT_THREAD_COUNT = 10;
     private static final int DEFAULT_LOG_FREQUENCY = 0;
     private static final int DEFAULT_LOG_RATE_MS = 0;
+    private static final int DEFAULT_BATCH_SIZE = 1;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 32;
+    private static final long SCHEDULE_CHECK_NANOS = MILLISECONDS.toNanos(100);
 
     private static final Logger LOGGER = Logger.getLogger(TimeStepRunStrategy.class);
 
@@ -50,6 +71,10 @@ class TimeStepRunStrategy extends RunStrategy {
     private final Map<String, Class> runnerClassMap = new HashMap<String, Class>();
     private final Map<String, Integer> threadCountMap = new HashMap<String, Integer>();
     private final Map<String, Long> runIterationMap = new HashMap<String, Long>();
+    private final Map<String, Integer> maxInFlightMap = new HashMap<String, Integer>();
+    private final Map<String, Set<Integer>> cpuSetMap = new HashMap<String, Set<Integer>>();
+    private final Map<String, ElasticThreadCount> elasticThreadCountMap = new HashMap<String, ElasticThreadCount>();
+    private final Map<String, ThreadCountSchedule> threadCountScheduleMap = new HashMap<String, ThreadCountSchedule>();
     private int totalThreadCount;
 
     TimeStepRunStrategy(TestContainer testContainer) {
@@ -59,37 +84,191 @@ class TimeStepRunStrategy extends RunStrategy {
         this.testInstance = testContainer.getTestInstance();
         this.timeStepModel = new TimeStepModel(testInstance.getClass(), binding);
 
+        LOGGER.info(format("Test %s uses seed %d on this worker", testContext.getTestId(), testContext.getSeed()));
+
+        if (binding.measureAllocations && !binding.isMeasureAllocations()) {
+            LOGGER.warn("measureAllocations is ignored, since this JVM can't measure the allocated bytes per thread");
+        }
+
         for (String executionGroup : timeStepModel.getExecutionGroups()) {
-            int threadCount = binding.loadAsInt(toPropertyName(executionGroup, "threadCount"), DEFAULT_THREAD_COUNT);
+            int threadCount = loadThreadCount(executionGroup);
             totalThreadCount += threadCount;
             threadCountMap.put(executionGroup, threadCount);
 
-            MetronomeConstructor metronomeConstructor = new MetronomeConstructor(executionGroup, binding, threadCount);
-            metronomeSettingsMap.put(executionGroup, metronomeConstructor);
+            MetronomeConstructor metronomeConstructor = loadMetronome(executionGroup, threadCount);
 
-            LOGGER.info(format("executionGroup [%s] using interval: %s class=%s",
-                    executionGroup, metronomeConstructor.getIntervalNanos(), metronomeConstructor.getMetronomeClass().getName()));
+            loadCpuSet(executionGroup);
 
             long logFrequency = binding.loadAsLong(toPropertyName(executionGroup, "logFrequency"), DEFAULT_LOG_FREQUENCY);
             long logRateMs = binding.loadAsLong(toPropertyName(executionGroup, "logRateMs"), DEFAULT_LOG_RATE_MS);
 
+            int batchSize = loadBatchSize(executionGroup);
+            loadMaxInFlight(executionGroup);
+
             long iterations = binding.loadAsLong(toPropertyName(executionGroup, "iterations"), 0);
             runIterationMap.put(executionGroup, iterations);
 
-            Class runnerClass = new TimeStepRunnerCodeGenerator().compile(
-                    testContainer.getTestCase().getId(),
-                    executionGroup,
-                    timeStepModel,
-                    metronomeConstructor.getMetronomeClass(),
-                    binding.getProbeClass(),
-                    logFrequency,
-                    logRateMs,
-                    iterations > 0);
+            loadProbeProperties(executionGroup);
+
+            Class runnerClass = new TimeStepRunnerCodeGenerator()
+                    .setMeasureServiceTime(binding.isMeasureServiceTime())
+                    .setRecordFailures(binding.recordFailures)
+                    .setCorrectCoordinatedOmission(binding.isCorrectCoordinatedOmission())
+                    .setAllocationSampleInterval(binding.isMeasureAllocations() ? binding.getAllocationSampleInterval() : 0)
+                    .setUseJavassist(binding.useJavassist)
+                    .setBatchSize(batchSize)
+                    .setElastic(elasticThreadCountMap.containsKey(executionGroup))
+                    .setRecordTrace(binding.recordTrace)
+                    .compile(
+                            testContainer.getTestCase().getId(),
+                            executionGroup,
+                            timeStepModel,
+                            getRunnerMetronomeClass(executionGroup, metronomeConstructor, batchSize),
+                            binding.getProbeClass(),
+                            logFrequency,
+                            logRateMs,
+                            iterations > 0);
 
             runnerClassMap.put(executionGroup, runnerClass);
         }
     }
 
+    /**
+     * The interval of an execution group is divided over its threads. For an execution group of which the thread count can
+     * change, only the active threads are counted and the metronome needs to support changing the thread count, otherwise the
+     * rate of the execution group would change with its thread count.
+     */
+    private MetronomeConstructor loadMetronome(String executionGroup, int threadCount) {
+        ElasticThreadCount elasticThreadCount = elasticThreadCountMap.get(executionGroup);
+        int activeThreadCount = elasticThreadCount == null ? threadCount : max(elasticThreadCount.get(), 1);
+        MetronomeConstructor metronomeConstructor = new MetronomeConstructor(executionGroup, binding, activeThreadCount);
+        Class<? extends Metronome> metronomeClass = metronomeConstructor.getMetronomeClass();
+        if (elasticThreadCount != null && metronomeClass != EmptyMetronome.class
+                && !AdjustableMetronome.class.isAssignableFrom(metronomeClass)) {
+            throw new IllegalTestException(format("executionGroup [%s] can't change its thread count with an interval or"
+                    + " ratePerSecond, since metronome [%s] isn't an AdjustableMetronome", executionGroup,
+                    metronomeClass.getName()));
+        }
+        metronomeSettingsMap.put(executionGroup, metronomeConstructor);
+
+        LOGGER.info(format("executionGroup [%s] using interval: %s class=%s",
+                executionGroup, metronomeConstructor.getIntervalNanos(), metronomeClass.getName()));
+        return metronomeConstructor;
+    }
+
+    private int loadBatchSize(String executionGroup) {
+        int batchSize = binding.loadAsInt(toPropertyName(executionGroup, "batchSize"), DEFAULT_BATCH_SIZE);
+        if (batchSize < 1) {
+            throw new IllegalTestException(format("executionGroup [%s] batchSize must be at least 1, but was %s",
+                    executionGroup, batchSize));
+        }
+        return batchSize;
+    }
+
+    private void loadMaxInFlight(String executionGroup) {
+        if (!timeStepModel.hasAsyncTimeStepMethods(executionGroup)) {
+            return;
+        }
+
+        int maxInFlight = binding.loadAsInt(toPropertyName(executionGroup, "maxInFlight"), DEFAULT_MAX_IN_FLIGHT);
+        if (maxInFlight < 1) {
+            throw new IllegalTestException(format("executionGroup [%s] maxInFlight must be at least 1, but was %s",
+                    executionGroup, maxInFlight));
+        }
+        maxInFlightMap.put(executionGroup, maxInFlight);
+    }
+
+    /**
+     * The probes are created when the run starts, so the probe specific properties are loaded here.
+     */
+    private void loadProbeProperties(String executionGroup) {
+        for (Method method : timeStepModel.getActiveTimeStepMethods(executionGroup)) {
+            if (TimeStepRunner.hasProbeFamilyParameter(method)) {
+                binding.getOrCreateProbeFamily(method.getName(), false);
+            } else {
+                binding.getHistogramConfig(method.getName());
+            }
+        }
+    }
+
+    /**
+     * A replayed operation trace determines the moments of the calls, so it can't be combined with a rate. The end of the
+     * trace is checked on every call, so it also can't be combined with batches.
+     */
+    private Class<? extends Metronome> getRunnerMetronomeClass(String executionGroup, MetronomeConstructor metronomeConstructor,
+                                                              int batchSize) {
+        if (binding.replayTrace == null) {
+            return metronomeConstructor.getMetronomeClass();
+        }
+
+        if (metronomeConstructor.getMetronomeClass() != EmptyMetronome.class) {
+            throw new IllegalTestException(format("executionGroup [%s] can't replay an operation trace with an interval"
+                    + " or ratePerSecond; use replaySpeed instead", executionGroup));
+        }
+        if (batchSize > 1) {
+            throw new IllegalTestException(format("executionGroup [%s] can't replay an operation trace with a batchSize",
+                    executionGroup));
+        }
+        return ReplayMetronome.class;
+    }
+
+    /**
+     * Loads the number of threads to start for an execution group. If the thread count of the execution group can change
+     * during the run, this is the maximum thread count and the runners above the active thread count are parked.
+     */
+    private int loadThreadCount(String executionGroup) {
+        String scheduleProperty = toPropertyName(executionGroup, "threadCountSchedule");
+        String scheduleString = binding.load(scheduleProperty);
+        int threadCount;
+        ThreadCountSchedule schedule = null;
+        if (scheduleString == null) {
+            threadCount = binding.loadAsInt(toPropertyName(executionGroup, "threadCount"), DEFAULT_THREAD_COUNT);
+        } else {
+            if (binding.load(toPropertyName(executionGroup, "threadCount")) != null) {
+                throw new IllegalTestException(format("executionGroup [%s] can't have both a threadCount and a"
+                        + " threadCountSchedule", executionGroup));
+            }
+            schedule = ThreadCountSchedule.parse(scheduleProperty, scheduleString);
+            threadCount = schedule.getInitialThreadCount();
+        }
+
+        int maxThreadCount = binding.loadAsInt(toPropertyName(executionGroup, "maxThreadCount"), -1);
+        if (schedule == null && maxThreadCount == -1) {
+            return threadCount;
+        }
+
+        maxThreadCount = max(maxThreadCount, schedule == null ? threadCount : schedule.getMaxThreadCount());
+        if (maxThreadCount < 1) {
+            throw new IllegalTestException(format("executionGroup [%s] maxThreadCount must be at least 1, but was %s",
+                    executionGroup, maxThreadCount));
+        }
+        elasticThreadCountMap.put(executionGroup,
+                new ElasticThreadCount(testContext, executionGroup, threadCount, maxThreadCount));
+        if (schedule != null) {
+            threadCountScheduleMap.put(executionGroup, schedule);
+        }
+        LOGGER.info(format("executionGroup [%s] starts with %d of maximum %d threads%s", executionGroup, threadCount,
+                maxThreadCount, schedule == null ? "" : ", schedule: " + scheduleString));
+        return maxThreadCount;
+    }
+
+    private void loadCpuSet(String executionGroup) {
+        String cpuSetString = binding.load(toPropertyName(executionGroup, "cpus"));
+        if (cpuSetString == null) {
+            return;
+        }
+
+        Set<Integer> cpuSet;
+        try {
+            cpuSet = parseCpuSet(cpuSetString);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalTestException(format("executionGroup [%s] has an invalid cpus property: %s",
+                    executionGroup, e.getMessage()), e);
+        }
+        cpuSetMap.put(executionGroup, cpuSet);
+        LOGGER.info(format("executionGroup [%s] threads are pinned to CPUs %s", executionGroup, formatCpuSet(cpuSet)));
+    }
+
     @Override
     public long iterations() {
         TimeStepRunner[] localRunners = runners;
@@ -103,44 +282,104 @@ class TimeStepRunStrategy extends RunStrategy {
     }
 
     @Override
-    public Callable getRunCallable() {
-        return new Callable() {
-            @Override
-            public Object call() throws Exception {
-                try {
-                    LOGGER.info(format("Spawning %d worker threads for running %s", totalThreadCount, testContext.getTestId()));
+    public Set<String> executionGroups() {
+        return timeStepModel.getExecutionGroups();
+    }
 
-                    if (totalThreadCount <= 0) {
-                        return null;
-                    }
-                    runners = createRunners();
-                    onRunStarted();
-                    ThreadSpawner spawner = spawnThreads(runners, false);
-                    spawner.awaitCompletion();
+    @Override
+    public long iterations(String executionGroup) {
+        TimeStepRunner[] localRunners = runners;
+        long iterations = 0;
+        if (localRunners != null) {
+            for (TimeStepRunner runner : localRunners) {
+                if (runner.executionGroup.equals(executionGroup)) {
+                    iterations += runner.iteration();
+                }
+            }
+        }
+        return iterations;
+    }
 
-                    return null;
-                } finally {
-                    onRunCompleted();
+    @Override
+    public long cpuTimeNanos(String executionGroup) {
+        TimeStepRunner[] localRunners = runners;
+        if (localRunners == null) {
+            return -1;
+        }
+
+        long cpuTimeNanos = 0;
+        for (TimeStepRunner runner : localRunners) {
+            if (runner.executionGroup.equals(executionGroup)) {
+                long runnerCpuTimeNanos = runner.cpuTimeNanos();
+                if (runnerCpuTimeNanos == -1) {
+                    return -1;
                 }
+                cpuTimeNanos += runnerCpuTimeNanos;
             }
-        };
+        }
+        return cpuTimeNanos;
+    }
+
+    @Override
+    public int threadCount(String executionGroup) {
+        ElasticThreadCount elasticThreadCount = elasticThreadCountMap.get(executionGroup);
+        if (elasticThreadCount != null) {
+            return elasticThreadCount.get();
+        }
+        Integer threadCount = threadCountMap.get(executionGroup);
+        return threadCount == null ? -1 : threadCount;
+    }
+
+    @Override
+    public void setThreadCount(String executionGroup, int threadCount) {
+        ElasticThreadCount elasticThreadCount = elasticThreadCountMap.get(executionGroup);
+        if (elasticThreadCount == null) {
+            throw new IllegalArgumentException(format("executionGroup [%s] of test %s has no threadCountSchedule or"
+                    + " maxThreadCount, so its thread count can't be changed", executionGroup, testContext.getTestId()));
+        }
+        int oldThreadCount = elasticThreadCount.set(threadCount);
+        // the interval is divided over the active threads, so the rate of the execution group stays the same
+        metronomeSettingsMap.get(executionGroup).setThreadCount(threadCount);
+        LOGGER.info(format("executionGroup [%s] thread count changed from %d to %d", executionGroup, oldThreadCount,
+                threadCount));
+    }
+
+    @Override
+    public long setIntervalNanos(String executionGroup, long intervalNanos) {
+        MetronomeConstructor metronomeConstructor = metronomeSettingsMap.get(executionGroup);
+        if (metronomeConstructor == null) {
+            throw new IllegalArgumentException(format("Test %s has no executionGroup [%s]", testContext.getTestId(),
+                    executionGroup));
+        }
+        long oldIntervalNanos = metronomeConstructor.setIntervalNanos(intervalNanos);
+        LOGGER.info(format("executionGroup [%s] interval changed from %d to %d ns", executionGroup, oldIntervalNanos,
+                intervalNanos));
+        return oldIntervalNanos;
     }
 
     @Override
-    public Callable getWarmupCallable() {
+    public Callable getRunCallable() {
         return new Callable() {
             @Override
             public Object call() throws Exception {
                 try {
-                    LOGGER.info(format("Spawning %d worker threads for warmup %s", totalThreadCount, testContext.getTestId()));
+                    LOGGER.info(format("Spawning %d worker threads for running %s", totalThreadCount, testContext.getTestId()));
 
                     if (totalThreadCount <= 0) {
                         return null;
                     }
                     runners = createRunners();
                     onRunStarted();
-                    ThreadSpawner spawner = spawnThreads(runners, true);
-                    spawner.awaitCompletion();
+                    ThreadSpawner spawner = spawnThreads(runners);
+                    Thread scheduleThread = startScheduleThread();
+                    try {
+                        spawner.awaitCompletion();
+                    } finally {
+                        if (scheduleThread != null) {
+                            scheduleThread.interrupt();
+                        }
+                    }
+
                     return null;
                 } finally {
                     onRunCompleted();
@@ -149,7 +388,7 @@ class TimeStepRunStrategy extends RunStrategy {
         };
     }
 
-    private ThreadSpawner spawnThreads(TimeStepRunner[] runners, boolean warmup) {
+    private ThreadSpawner spawnThreads(TimeStepRunner[] runners) {
         ThreadSpawner spawner = new ThreadSpawner(testContext.getTestId());
 
         for (TimeStepRunner runner : runners) {
@@ -158,18 +397,30 @@ class TimeStepRunStrategy extends RunStrategy {
             if (!executionGroup.equals("")) {
                 name += "-" + executionGroup;
             }
-            name += warmup ? "-warmup" : "-run";
-            name += "Thread";
-            spawner.spawn(name, runner);
+            name += "-runThread";
+            spawner.spawn(name, runner, cpuSetMap.get(executionGroup));
         }
 
         return spawner;
     }
 
+    private Thread startScheduleThread() {
+        if (threadCountScheduleMap.isEmpty()) {
+            return null;
+        }
+
+        Thread thread = new Thread(new ScheduleTask(), testContext.getTestId() + "-threadCountSchedule");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
     @SuppressWarnings("unchecked")
     private TimeStepRunner[] createRunners() throws Exception {
         TimeStepRunner[] returnRunners = new TimeStepRunner[totalThreadCount];
 
+        // the recorded and replayed calls are relative to the creation of the runners
+        long traceOriginNanos = System.nanoTime();
         int k = 0;
         for (String executionGroup : timeStepModel.getExecutionGroups()) {
             Class runnerClass = runnerClassMap.get(executionGroup);
@@ -182,8 +433,23 @@ class TimeStepRunStrategy extends RunStrategy {
                 TimeStepRunner runner = constructor.newInstance(testInstance, timeStepModel, executionGroup);
 
                 runner.testContext = binding.getTestContext();
+                runner.runnerIndex = thread;
+                runner.initSeed(testContext.getSeed());
+                runner.elasticThreadCount = elasticThreadCountMap.get(executionGroup);
                 runner.maxIterations = runIterationMap.get(executionGroup);
-                runner.metronome = metronomeConstructor.newInstance();
+                if (binding.replayTrace == null) {
+                    runner.metronome = metronomeConstructor.newInstance();
+                } else {
+                    runner.metronome = newReplayMetronome(executionGroup, thread, traceOriginNanos);
+                }
+                if (binding.recordTrace) {
+                    runner.traceWriter = newTraceWriter(executionGroup, thread, traceOriginNanos);
+                }
+                Integer maxInFlight = maxInFlightMap.get(executionGroup);
+                if (maxInFlight != null) {
+                    runner.asyncWindow = new AsyncTimeStepWindow(
+                            runner.testContext, maxInFlight, binding.recordFailures, binding.isMeasureServiceTime());
+                }
                 runner.bind(binding);
                 returnRunners[k] = runner;
                 k++;
@@ -192,4 +458,56 @@ class TimeStepRunStrategy extends RunStrategy {
 
         return returnRunners;
     }
+
+    /**
+     * The operation traces are written to the worker directory, so they are downloaded with the other artifacts of the run.
+     */
+    private OperationTraceWriter newTraceWriter(String executionGroup, int runnerIndex, long originNanos) {
+        String prefix = new File(getUserDir(), testContext.getTestId()).getPath();
+        return new OperationTraceWriter(getTraceFile(prefix, executionGroup, runnerIndex),
+                getActiveTimeStepMethodNames(executionGroup), originNanos);
+    }
+
+    private ReplayMetronome newReplayMetronome(String executionGroup, int runnerIndex, long originNanos) {
+        File traceFile = getTraceFile(binding.replayTrace, executionGroup, runnerIndex);
+        if (!traceFile.isFile()) {
+            throw new IllegalTestException(format("executionGroup [%s] has no operation trace %s for thread %d",
+                    executionGroup, traceFile.getAbsolutePath(), runnerIndex));
+        }
+        return new ReplayMetronome(new OperationTraceReader(traceFile), getActiveTimeStepMethodNames(executionGroup),
+                testContext, originNanos, binding.replaySpeed);
+    }
+
+    private List<String> getActiveTimeStepMethodNames(String executionGroup) {
+        List<String> methodNames = new ArrayList<String>();
+        for (Method method : timeStepModel.getActiveTimeStepMethods(executionGroup)) {
+            methodNames.add(method.getName());
+        }
+        return methodNames;
+    }
+
+    /**
+     * Applies the thread count schedules. A scheduled thread count is only applied when it changes, so a thread count set
+     * by the coordinator-remote is kept until the next step of the schedule.
+     */
+    private final class ScheduleTask implements Runnable {
+
+        @Override
+        public void run() {
+            Map<String, Integer> appliedThreadCounts = new HashMap<String, Integer>();
+            long startNanos = System.nanoTime();
+            while (!testContext.isStopped() && !Thread.currentThread().isInterrupted()) {
+                long elapsedNanos = System.nanoTime() - startNanos;
+                for (Map.Entry<String, ThreadCountSchedule> entry : threadCountScheduleMap.entrySet()) {
+                    String executionGroup = entry.getKey();
+                    int threadCount = entry.getValue().threadCountAt(elapsedNanos);
+                    Integer appliedThreadCount = appliedThreadCounts.put(executionGroup, threadCount);
+                    if (appliedThreadCount != null && appliedThreadCount != threadCount) {
+                        setThreadCount(executionGroup, threadCount);
+                    }
+                }
+                LockSupport.parkNanos(SCHEDULE_CHECK_NANOS);
+            }
+        }
+    }
 }
@@ -17,10 +17,16 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
+import com.hazelcast.simulator.probes.CoordinatedOmissionCorrector;
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.ProbeFamily;
+import com.hazelcast.simulator.probes.impl.AllocationMeter;
+import com.hazelcast.simulator.test.BaseThreadState;
 import com.hazelcast.simulator.test.StopException;
 import com.hazelcast.simulator.test.TestContext;
+import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.trace.OperationTraceWriter;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -29,53 +35,190 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.CommonUtils.rethrow;
+import static com.hazelcast.simulator.utils.CpuTimeUtils.currentThreadCpuTimeNanos;
+import static com.hazelcast.simulator.utils.CpuTimeUtils.threadCpuTimeNanos;
+import static com.hazelcast.simulator.utils.SplitMixRandom.deriveSeed;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public abstract class TimeStepRunner implements Runnable {
 
+    private static final long ASYNC_COMPLETION_TIMEOUT_NANOS = SECONDS.toNanos(60);
+
     protected TestContext testContext;
     protected Metronome metronome;
+    // is only set if the execution group has async timestep methods
+    protected AsyncTimeStepWindow asyncWindow;
+    // is only set if the thread count of the execution group can change during the run
+    protected ElasticThreadCount elasticThreadCount;
+    // the index of the runner within its execution group
+    protected int runnerIndex;
+    // the seed of the random which selects the timestep methods
+    protected long seed;
+    // is only set if the operation trace is recorded
+    protected OperationTraceWriter traceWriter;
 
     protected final ILogger logger = Logger.getLogger(getClass());
     protected final String executionGroup;
     protected final Object threadState;
     protected final Object testInstance;
+    // the completed iterations; if the execution group has async timestep methods, only the synchronous calls
     protected final AtomicLong iterations = new AtomicLong();
     protected final TimeStepModel timeStepModel;
-    protected final byte[] timeStepProbabilities;
     protected final Map<String, Probe> probeMap = new HashMap<String, Probe>();
+    protected final Map<String, ProbeFamily> probeFamilyMap = new HashMap<String, ProbeFamily>();
+    // the correctors are per runner, so the expected interval is derived from the latencies of this thread only
+    protected final Map<String, CoordinatedOmissionCorrector> correctorMap = new HashMap<String, CoordinatedOmissionCorrector>();
+    protected final Map<String, AllocationMeter> allocationMeterMap = new HashMap<String, AllocationMeter>();
     protected long maxIterations;
+    private boolean failureLogged;
+    private volatile long threadId = -1;
+    private volatile long completedCpuTimeNanos = -1;
 
     public TimeStepRunner(Object testInstance, TimeStepModel timeStepModel, String executionGroup) {
         this.testInstance = testInstance;
         this.timeStepModel = timeStepModel;
         this.executionGroup = executionGroup;
         this.threadState = initThreadState();
-        this.timeStepProbabilities = timeStepModel.getTimeStepProbabilityArray(executionGroup);
     }
 
     public String getExecutionGroup() {
         return executionGroup;
     }
 
+    /**
+     * Seeds the random which selects the timestep methods and the random of the thread state.
+     *
+     * The seeds are derived from the seed of the test, the execution group and the index of the runner, so every runner
+     * generates a different, but repeatable sequence. Should be called after the runner index is set.
+     *
+     * @param testSeed the seed of the test on this worker
+     */
+    void initSeed(long testSeed) {
+        seed = deriveSeed(testSeed, executionGroup + "-" + runnerIndex);
+        if (threadState instanceof BaseThreadState) {
+            ((BaseThreadState) threadState).setSeed(deriveSeed(seed, "threadState"));
+        }
+    }
+
     public void bind(PropertyBinding binding) {
         for (Method method : timeStepModel.getActiveTimeStepMethods(executionGroup)) {
-            Probe probe = binding.getOrCreateProbe(method.getName(), false);
+            if (binding.isMeasureAllocations()) {
+                allocationMeterMap.put(method.getName(), binding.getOrCreateAllocationMeter(method.getName()));
+            }
+
+            if (hasProbeFamilyParameter(method)) {
+                probeFamilyMap.put(method.getName(), binding.getOrCreateProbeFamily(method.getName(), false));
+                continue;
+            }
+
+            Probe probe = binding.getOrCreateProbe(method.getName(), false, true);
             if (probe != null) {
                 probeMap.put(method.getName(), probe);
             }
+
+            for (Method step : timeStepModel.getSteps(method)) {
+                Probe stepProbe = binding.getOrCreateStepProbe(method.getName(), step.getName());
+                if (stepProbe != null) {
+                    probeMap.put(method.getName() + "-" + step.getName(), stepProbe);
+                }
+            }
+
+            if (isCorrectCoordinatedOmission(binding, method)) {
+                Probe correctedProbe = binding.getOrCreateCorrectedProbe(method.getName());
+                correctorMap.put(method.getName(), new CoordinatedOmissionCorrector(
+                        correctedProbe, binding.getCoordinatedOmissionExpectedIntervalNanos()));
+            }
+        }
+    }
+
+    /**
+     * Only the latencies of closed-loop timestep methods which are recorded by the runner itself for every call are corrected.
+     * With a metronome the latency is already measured from the intended start. The latency of an async call is recorded by
+     * its callback and of a latency sampled method only one out of every {@code latencySampleInterval} calls is timed, so
+     * there is no expected interval between the recorded latencies.
+     */
+    private boolean isCorrectCoordinatedOmission(PropertyBinding binding, Method method) {
+        return binding.isCorrectCoordinatedOmission()
+                && (metronome == null || metronome instanceof EmptyMetronome)
+                && !hasParameterType(method, Probe.class)
+                && !TimeStepModel.isAsync(method)
+                && timeStepModel.getLatencySampleInterval(executionGroup, method) <= 1;
+    }
+
+    /**
+     * Is called by the generated timestep loop when a timestep method failed and failures are recorded.
+     *
+     * Only the first failure is logged, since the failures are counted by the probes.
+     *
+     * @param methodName the name of the timestep method which failed
+     * @param cause      the exception thrown by the timestep method
+     */
+    protected final void timeStepFailed(String methodName, Exception cause) {
+        if (failureLogged) {
+            return;
         }
+        failureLogged = true;
+        logger.warning(format("Timestep method '%s' failed; failures are recorded in its probe and not logged anymore",
+                methodName), cause);
     }
 
+    static boolean hasProbeFamilyParameter(Method method) {
+        return hasParameterType(method, ProbeFamily.class);
+    }
+
+    private static boolean hasParameterType(Method method, Class<?> type) {
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (type.equals(parameterType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of completed iterations. The async calls are counted by the {@link AsyncTimeStepWindow} when they
+     * complete, so the async calls which haven't completed yet are not counted and the number never decreases.
+     *
+     * @return the number of iterations
+     */
     public long iteration() {
-        return iterations.get();
+        long iteration = iterations.get();
+        AsyncTimeStepWindow asyncWindow = this.asyncWindow;
+        return asyncWindow == null ? iteration : iteration + asyncWindow.completed();
+    }
+
+    /**
+     * Returns the CPU time consumed by the thread of this runner.
+     *
+     * This method is thread-safe; the CPU time of a running thread is read by its thread id, so the runner thread itself
+     * isn't disturbed.
+     *
+     * @return the CPU time in nanoseconds or -1 if the runner hasn't started or the CPU time isn't available
+     */
+    public long cpuTimeNanos() {
+        long cpuTimeNanos = completedCpuTimeNanos;
+        if (cpuTimeNanos != -1) {
+            return cpuTimeNanos;
+        }
+
+        long threadId = this.threadId;
+        if (threadId == -1) {
+            return -1;
+        }
+
+        cpuTimeNanos = threadCpuTimeNanos(threadId);
+        // the thread could have completed in the meantime
+        return cpuTimeNanos == -1 ? completedCpuTimeNanos : cpuTimeNanos;
     }
 
     @Override
     public final void run() {
         String threadName = Thread.currentThread().getName();
         logger.info(threadName + " started");
+        threadId = Thread.currentThread().getId();
         try {
             beforeRun();
 
@@ -87,6 +230,8 @@ public abstract class TimeStepRunner implements Runnable {
                 logger.info(threadName + " stopped using StopException");
             }
 
+            awaitAsyncCompletion(threadName);
+
             afterRun();
 
             logger.info(threadName + " completed normally" + (explicitStop ? " with StopException" : ""));
@@ -94,6 +239,15 @@ public abstract class TimeStepRunner implements Runnable {
             logger.warning(threadName + " completed with exception " + e.getClass().getName()
                     + " message: " + e.getMessage());
             throw rethrow(e);
+        } finally {
+            closeQuietly(traceWriter);
+            completedCpuTimeNanos = currentThreadCpuTimeNanos();
+        }
+    }
+
+    private void awaitAsyncCompletion(String threadName) {
+        if (asyncWindow != null && !asyncWindow.awaitEmpty(ASYNC_COMPLETION_TIMEOUT_NANOS)) {
+            logger.warning(format("%s gave up waiting for %d async calls to complete", threadName, asyncWindow.inFlight()));
         }
     }
 
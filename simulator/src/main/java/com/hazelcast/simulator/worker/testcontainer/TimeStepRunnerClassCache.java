@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
+import static java.lang.String.format;
+import static java.security.AccessController.doPrivileged;
+import static org.apache.commons.codec.digest.DigestUtils.sha1Hex;
+
+/**
+ * Caches the compiled {@link TimeStepRunner} classes by the hash of their generated source code.
+ *
+ * The runner classes are cached in memory, so a worker compiles identical configurations only once. They are also stored on
+ * disk in a directory which is shared by the workers of a session on the same agent, so only the first worker needs to
+ * compile them. The hash covers the Simulator build and the Java version next to the source code, so a changed
+ * {@link TimeStepRunner} never picks up a stale class file.
+ */
+final class TimeStepRunnerClassCache {
+
+    private static final int HASH_LENGTH = 16;
+    private static final int BUFFER_SIZE = 4096;
+    private static final Logger LOGGER = Logger.getLogger(TimeStepRunnerClassCache.class);
+
+    private static final String BUILD_FINGERPRINT = loadBuildFingerprint();
+    private static final ConcurrentMap<String, Class> CLASSES = new ConcurrentHashMap<String, Class>();
+
+    private final File directory;
+
+    TimeStepRunnerClassCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Creates the hash to make the name of a runner class unique for its source code.
+     *
+     * @param javaCode the generated source code of the runner
+     * @return the hash
+     */
+    static String hash(String javaCode) {
+        return sha1Hex(BUILD_FINGERPRINT + '\n' + javaCode).substring(0, HASH_LENGTH);
+    }
+
+    /**
+     * Gets a cached runner class.
+     *
+     * @param className   the name of the runner class, which includes the hash of its source code
+     * @param classLoader the class loader of the test class
+     * @return the runner class or {@code null} if it isn't cached in memory nor on disk
+     */
+    Class get(String className, ClassLoader classLoader) {
+        Class clazz = CLASSES.get(className);
+        if (clazz != null && clazz.getClassLoader().getParent() == classLoader) {
+            return clazz;
+        }
+
+        byte[] bytes = load(className);
+        if (bytes == null) {
+            return null;
+        }
+        LOGGER.info(format("Loaded cached TimeStepRunner class %s from %s", className, directory.getAbsolutePath()));
+        return define(className, bytes, classLoader);
+    }
+
+    /**
+     * Stores a compiled runner class in the cache and defines it.
+     *
+     * @param className   the name of the runner class, which includes the hash of its source code
+     * @param bytes       the bytecode of the runner class
+     * @param classLoader the class loader of the test class
+     * @return the defined runner class
+     */
+    Class put(String className, byte[] bytes, ClassLoader classLoader) {
+        store(className, bytes);
+        return define(className, bytes, classLoader);
+    }
+
+    static void clear() {
+        CLASSES.clear();
+    }
+
+    private Class define(final String className, final byte[] bytes, final ClassLoader classLoader) {
+        Class clazz = (Class) doPrivileged(new PrivilegedAction() {
+            @Override
+            public Object run() {
+                return new RunnerClassLoader(classLoader, className, bytes).loadRunnerClass();
+            }
+        });
+        CLASSES.put(className, clazz);
+        return clazz;
+    }
+
+    private byte[] load(String className) {
+        File file = new File(directory, className + ".class");
+        if (!file.exists()) {
+            return null;
+        }
+
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            LOGGER.warn("Could not read cached TimeStepRunner class " + file.getAbsolutePath(), e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes the class file to a temporary file first, so a concurrently starting worker never reads a partial class file.
+     */
+    private void store(String className, byte[] bytes) {
+        File file = new File(directory, className + ".class");
+        File tmpFile = new File(directory, className + ".class." + System.nanoTime() + ".tmp");
+        OutputStream out = null;
+        try {
+            ensureExistingDirectory(directory);
+            out = new FileOutputStream(tmpFile);
+            out.write(bytes);
+            out.close();
+            out = null;
+            if (!tmpFile.renameTo(file)) {
+                LOGGER.warn("Could not store TimeStepRunner class " + file.getAbsolutePath());
+            }
+        } catch (Exception e) {
+            // the cache is an optimization, so a failure is not fatal
+            LOGGER.warn("Could not store TimeStepRunner class " + file.getAbsolutePath(), e);
+        } finally {
+            closeQuietly(out);
+            deleteQuiet(tmpFile);
+        }
+    }
+
+    private static String loadBuildFingerprint() {
+        String fingerprint = System.getProperty("java.specification.version");
+        URL url = TimeStepRunner.class.getResource(TimeStepRunner.class.getSimpleName() + ".class");
+        if (url == null) {
+            return fingerprint;
+        }
+
+        try {
+            URLConnection connection = url.openConnection();
+            return fingerprint + '|' + url + '|' + connection.getLastModified();
+        } catch (IOException e) {
+            // without a fingerprint the class files of another build could be picked up, so the session is made part of it
+            LOGGER.warn("Could not determine the build of TimeStepRunner", e);
+            return fingerprint + '|' + System.nanoTime();
+        }
+    }
+
+    /**
+     * Defines the runner class from its bytecode; every other class is loaded by the class loader of the test class.
+     */
+    private static final class RunnerClassLoader extends ClassLoader {
+
+        private final String className;
+        private final byte[] bytes;
+
+        private RunnerClassLoader(ClassLoader parent, String className, byte[] bytes) {
+            super(parent);
+            this.className = className;
+            this.bytes = bytes;
+        }
+
+        private Class loadRunnerClass() {
+            try {
+                return loadClass(className);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalTestException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!className.equals(name)) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -17,8 +17,13 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.ProbeFamily;
+import com.hazelcast.simulator.probes.impl.CountingProbe;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.worker.metronome.AdjustableMetronome;
 import com.hazelcast.simulator.worker.metronome.EmptyMetronome;
 import com.hazelcast.simulator.worker.metronome.Metronome;
+import com.hazelcast.simulator.worker.metronome.ReplayMetronome;
 import freemarker.ext.util.WrapperTemplateModel;
 import freemarker.template.Configuration;
 import freemarker.template.SimpleNumber;
@@ -27,36 +32,157 @@ import freemarker.template.TemplateExceptionHandler;
 import freemarker.template.TemplateMethodModelEx;
 import freemarker.template.TemplateModelException;
 
+import org.apache.log4j.Logger;
+
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
-import java.net.MalformedURLException;
 import java.net.URI;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static com.hazelcast.simulator.utils.FileUtils.ensureExistingDirectory;
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
 import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
-import static com.hazelcast.simulator.utils.FileUtils.writeText;
-import static java.security.AccessController.doPrivileged;
-import static java.util.Arrays.asList;
+import static java.lang.String.format;
 import static java.util.Collections.singletonList;
 
 class TimeStepRunnerCodeGenerator {
 
+    private static final String HASH_PLACEHOLDER = "__HASH__";
+    private static final Logger LOGGER = Logger.getLogger(TimeStepRunnerCodeGenerator.class);
+
     private final JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
-    private final File targetDirectory = new File(getUserDir(), "timestep-worker-classes");
+    private final JavassistRunnerCompiler javassistCompiler = new JavassistRunnerCompiler();
+    private final TimeStepRunnerClassCache classCache;
+    private boolean measureServiceTime;
+    private boolean recordFailures;
+    private boolean correctCoordinatedOmission;
+    private int allocationSampleInterval;
+    private boolean useJavassist;
+    private int batchSize = 1;
+    private boolean elastic;
+    private boolean recordTrace;
+
+    TimeStepRunnerCodeGenerator() {
+        this(getDefaultCacheDirectory());
+    }
+
+    TimeStepRunnerCodeGenerator(File cacheDirectory) {
+        this.classCache = new TimeStepRunnerClassCache(cacheDirectory);
+    }
+
+    /**
+     * Configures if the service time should be recorded next to the response time. This is only done if the runner
+     * measures latency and has a metronome, since otherwise the intended and actual start times are the same.
+     *
+     * @param measureServiceTime {@code true} if the service time should be recorded
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setMeasureServiceTime(boolean measureServiceTime) {
+        this.measureServiceTime = measureServiceTime;
+        return this;
+    }
+
+    /**
+     * Configures if exceptions thrown by the timestep methods should be recorded as failures instead of ending the loop.
+     *
+     * @param recordFailures {@code true} if failures should be recorded
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setRecordFailures(boolean recordFailures) {
+        this.recordFailures = recordFailures;
+        return this;
+    }
+
+    /**
+     * Configures if the latencies should also be recorded corrected for coordinated omission. This is only done if the
+     * runner measures latency and has no metronome, since otherwise the latency is measured from the intended start.
+     *
+     * @param correctCoordinatedOmission {@code true} if the corrected latencies should be recorded
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setCorrectCoordinatedOmission(boolean correctCoordinatedOmission) {
+        this.correctCoordinatedOmission = correctCoordinatedOmission;
+        return this;
+    }
+
+    /**
+     * Configures if the allocations of the timestep methods should be measured. Only one out of every
+     * {@code allocationSampleInterval} calls of a timestep thread is measured.
+     *
+     * @param allocationSampleInterval the number of calls per measured call or 0 if allocations should not be measured
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setAllocationSampleInterval(int allocationSampleInterval) {
+        this.allocationSampleInterval = allocationSampleInterval;
+        return this;
+    }
+
+    /**
+     * Configures if the runner should be compiled with javassist instead of javac. Javassist is always used if there is no
+     * Java compiler, e.g. when the worker runs on a JRE.
+     *
+     * @param useJavassist {@code true} if javassist should be used
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setUseJavassist(boolean useJavassist) {
+        this.useJavassist = useJavassist;
+        return this;
+    }
+
+    /**
+     * Configures the number of timestep calls after which the stop signal and the iteration cap are checked.
+     *
+     * @param batchSize the number of calls per batch
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Configures if the thread count of the execution group can change during the run. If so, every iteration checks if
+     * the runner is still active and parks it otherwise.
+     *
+     * @param elastic {@code true} if the thread count can change
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setElastic(boolean elastic) {
+        this.elastic = elastic;
+        return this;
+    }
+
+    /**
+     * Configures if every call should be recorded in the operation trace of the runner.
+     *
+     * @param recordTrace {@code true} if the calls should be recorded
+     * @return this
+     */
+    TimeStepRunnerCodeGenerator setRecordTrace(boolean recordTrace) {
+        this.recordTrace = recordTrace;
+        return this;
+    }
 
+    /**
+     * Generates and compiles the runner class for an execution group.
+     *
+     * The name of the runner class contains the hash of its source code, so identical configurations share the same runner
+     * class, e.g. the same test with different properties. A runner class is only compiled if it isn't cached yet.
+     */
     Class compile(
             String testCaseId,
             String executionGroup,
@@ -67,67 +193,84 @@ class TimeStepRunnerCodeGenerator {
             long logRateMs,
             boolean hasIterationCap) {
 
-        ensureExistingDirectory(targetDirectory);
+        if (!useJavassist && javaCompiler == null) {
+            LOGGER.info("No Java compiler found, so the TimeStepRunner is compiled with javassist");
+            useJavassist = true;
+        }
 
         String className = timeStepModel.getTestClass().getSimpleName();
         if (!"".equals(executionGroup)) {
             className += "_" + executionGroup + "_";
 
         }
-        className += "Runner";
-
-        if (!"".equals(testCaseId)) {
-            className += testCaseId;
+        className += "Runner_";
+
+        String javaCode = createJavaCode(className + HASH_PLACEHOLDER, executionGroup, metronomeClass, timeStepModel,
+                probeClass, logFrequency, logRateMs, hasIterationCap);
+        String hash = TimeStepRunnerClassCache.hash(javaCode);
+        className += hash;
+        javaCode = javaCode.replace(HASH_PLACEHOLDER, hash);
+
+        ClassLoader classLoader = timeStepModel.getTestClass().getClassLoader();
+        Class runnerClass = classCache.get(className, classLoader);
+        if (runnerClass != null) {
+            return runnerClass;
         }
-        JavaFileObject file = createJavaFileObject(
-                className, executionGroup, metronomeClass, timeStepModel, probeClass, logFrequency, logRateMs, hasIterationCap);
-        return compile(javaCompiler, file, className);
+
+        LOGGER.info(format("Compiling TimeStepRunner class %s for test %s with %s", className, testCaseId,
+                useJavassist ? "javassist" : "javac"));
+        byte[] bytes = useJavassist
+                ? javassistCompiler.compile(className, timeStepModel.getTestClass(), javaCode)
+                : compile(javaCompiler, new JavaSourceFromString(className, javaCode), className);
+        return classCache.put(className, bytes, classLoader);
     }
 
-    Class compile(JavaCompiler compiler, JavaFileObject file, final String className) {
+    /**
+     * Compiles the runner class in memory.
+     *
+     * @return the bytecode of the runner class
+     */
+    byte[] compile(JavaCompiler compiler, JavaFileObject file, String className) {
         if (compiler == null) {
             throw new IllegalStateException("Could not get Java compiler in TimeStepRunnerCodeGenerator."
                     + " You need to use a JDK to run Simulator! Version found: " + System.getProperty("java.version"));
         }
 
         DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
-        JavaCompiler.CompilationTask task = compiler.getTask(
-                null,
-                null,
-                diagnostics,
-                asList("-d", targetDirectory.getAbsolutePath()),
-                null,
-                singletonList(file));
-
-        boolean success = task.call();
-        if (!success) {
-            StringBuilder sb = new StringBuilder();
-            for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
-                sb.append("Error on line ")
-                        .append(diagnostic.getLineNumber())
-                        .append(" in ")
-                        .append(diagnostic)
-                        .append('\n');
+        InMemoryFileManager fileManager = new InMemoryFileManager(compiler.getStandardFileManager(diagnostics, null, null));
+        try {
+            JavaCompiler.CompilationTask task = compiler.getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    null,
+                    null,
+                    singletonList(file));
+
+            boolean success = task.call();
+            if (!success) {
+                StringBuilder sb = new StringBuilder();
+                for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+                    sb.append("Error on line ")
+                            .append(diagnostic.getLineNumber())
+                            .append(" in ")
+                            .append(diagnostic)
+                            .append('\n');
+                }
+                throw new IllegalTestException(sb.toString());
             }
-            throw new IllegalTestException(sb.toString());
+        } finally {
+            closeQuietly(fileManager);
         }
 
-        return (Class) doPrivileged(new PrivilegedAction() {
-            @Override
-            public Object run() {
-                try {
-                    URLClassLoader classLoader = new URLClassLoader(new URL[]{targetDirectory.toURI().toURL()});
-                    return (Class) classLoader.loadClass(className);
-                } catch (ClassNotFoundException e) {
-                    throw new IllegalTestException(e.getMessage(), e);
-                } catch (MalformedURLException e) {
-                    throw new IllegalTestException(e.getMessage(), e);
-                }
-            }
-        });
+        byte[] bytes = fileManager.getBytes(className);
+        if (bytes == null) {
+            throw new IllegalTestException("Compiling " + className + " didn't produce a class file");
+        }
+        return bytes;
     }
 
-    private JavaFileObject createJavaFileObject(
+    private String createJavaCode(
             String className,
             String executionGroup,
             Class<? extends Metronome> metronomeClass,
@@ -148,11 +291,36 @@ class TimeStepRunnerCodeGenerator {
             root.put("metronomeClass", getMetronomeClass(metronomeClass));
             root.put("timeStepMethods", timeStepModel.getActiveTimeStepMethods(executionGroup));
             root.put("probeClass", getClassName(probeClass));
+            if (probeClass == CountingProbe.class) {
+                root.put("countingProbe", "true");
+            } else if (probeClass != null && measureServiceTime && getMetronomeClass(metronomeClass) != null) {
+                root.put("measureServiceTime", "true");
+            } else if (probeClass != null && correctCoordinatedOmission && getMetronomeClass(metronomeClass) == null) {
+                root.put("correctCoordinatedOmission", "true");
+            }
+            if (recordFailures) {
+                root.put("recordFailures", "true");
+            }
+            if (allocationSampleInterval > 0) {
+                root.put("allocationSampleInterval", "" + allocationSampleInterval);
+            }
             root.put("isStartNanos", new IsStartNanos(timeStepModel));
             root.put("isAssignableFrom", new IsAssignableFromMethod());
             root.put("Probe", Probe.class);
+            root.put("ProbeFamily", ProbeFamily.class);
             root.put("threadStateClass", getClassName(timeStepModel.getThreadStateClass(executionGroup)));
-            root.put("hasProbe", new HasProbeMethod());
+            // the thresholds are emitted as constants, so selecting a timestep method doesn't need any memory lookup
+            root.put("timeStepThresholds", getThresholdLiterals(timeStepModel.getTimeStepThresholds(executionGroup)));
+            // a timestep method with a probe or probe family parameter records the latency itself
+            root.put("hasProbe", new HasParameterTypeMethod("hasProbe", Probe.class, ProbeFamily.class));
+            root.put("hasProbeFamily", new HasParameterTypeMethod("hasProbeFamily", ProbeFamily.class));
+            // an async timestep method returns a future which is completed by a callback of the runner
+            root.put("isAsync", new IsAsyncMethod());
+            // the steps of a chain are called directly by the runner, so every step can be timed without reflection
+            root.put("steps", new StepsMethod(timeStepModel));
+            if (timeStepModel.hasAsyncTimeStepMethods(executionGroup)) {
+                root.put("hasAsync", "true");
+            }
             root.put("className", className);
             if (logFrequency > 0) {
                 root.put("logFrequency", "" + logFrequency);
@@ -166,20 +334,102 @@ class TimeStepRunnerCodeGenerator {
                 root.put("hasIterationCap", "true");
             }
 
+            if (useJavassist) {
+                root.put("javassist", "true");
+            }
+
+            if (batchSize > 1) {
+                root.put("batchSize", "" + batchSize);
+            }
+
+            if (elastic) {
+                root.put("elastic", "true");
+                // a parked runner has missed executions of its metronome, which shouldn't be caught up when it continues
+                if (AdjustableMetronome.class.isAssignableFrom(metronomeClass)) {
+                    root.put("restartMetronome", "true");
+                }
+            }
+
+            // a replayed trace selects the timestep methods and key indices instead of the random of the runner
+            if (metronomeClass == ReplayMetronome.class) {
+                root.put("replay", "true");
+            } else if (recordTrace) {
+                root.put("recordTrace", "true");
+            }
+
+            Class threadStateClass = timeStepModel.getThreadStateClass(executionGroup);
+            if (threadStateClass != null && BaseThreadState.class.isAssignableFrom(threadStateClass)) {
+                root.put("baseThreadState", "true");
+            }
+
+            Map<String, String> latencySampleIntervals = getLatencySampleIntervals(
+                    executionGroup, timeStepModel, metronomeClass, probeClass);
+            if (!latencySampleIntervals.isEmpty()) {
+                root.put("latencySampleIntervals", latencySampleIntervals);
+            }
+
             Template temp = cfg.getTemplate("TimeStepRunner.ftl");
             StringWriter out = new StringWriter();
             temp.process(root, out);
 
-            String javaCode = out.toString();
+            return out.toString();
+        } catch (Exception e) {
+            throw new IllegalTestException(className + " ran into a code generation problem: " + e.getMessage(), e);
+        }
+    }
 
-            File javaFile = new File(targetDirectory, className + ".java");
+    /**
+     * The workers of a session on the same agent share their parent directory, so they share the cached runner classes.
+     */
+    private static File getDefaultCacheDirectory() {
+        File workerDirectory = getUserDir().getAbsoluteFile();
+        File sessionDirectory = workerDirectory.getParentFile();
+        return new File(sessionDirectory == null ? workerDirectory : sessionDirectory, "timestep-runner-classes");
+    }
 
-            writeText(javaCode, javaFile);
+    /**
+     * Only the latencies which are recorded by the runner itself can be sampled. With a metronome the start time is needed
+     * for every call anyway and the latency of an async call is recorded by its callback.
+     */
+    private static Map<String, String> getLatencySampleIntervals(String executionGroup, TimeStepModel timeStepModel,
+                                                                 Class<? extends Metronome> metronomeClass,
+                                                                 Class<? extends Probe> probeClass) {
+        Map<String, String> latencySampleIntervals = new HashMap<String, String>();
+        if (probeClass == null || probeClass == CountingProbe.class || getMetronomeClass(metronomeClass) != null) {
+            return latencySampleIntervals;
+        }
 
-            return new JavaSourceFromString(className, javaCode);
-        } catch (Exception e) {
-            throw new IllegalTestException(className + " ran into a code generation problem: " + e.getMessage(), e);
+        for (Method method : timeStepModel.getActiveTimeStepMethods(executionGroup)) {
+            int latencySampleInterval = timeStepModel.getLatencySampleInterval(executionGroup, method);
+            if (latencySampleInterval > 1 && !TimeStepModel.isAsync(method)
+                    && !hasParameterType(method, Probe.class, ProbeFamily.class)) {
+                latencySampleIntervals.put(method.getName(), "" + latencySampleInterval);
+            }
         }
+        return latencySampleIntervals;
+    }
+
+    private static boolean hasParameterType(Method method, Class... types) {
+        for (Class parameterType : method.getParameterTypes()) {
+            for (Class type : types) {
+                if (type.isAssignableFrom(parameterType)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<String> getThresholdLiterals(long[] thresholds) {
+        if (thresholds == null) {
+            return null;
+        }
+
+        List<String> literals = new ArrayList<String>(thresholds.length);
+        for (long threshold : thresholds) {
+            literals.add(threshold + "L");
+        }
+        return literals;
     }
 
     private static String getClassName(Class clazz) {
@@ -208,6 +458,45 @@ class TimeStepRunnerCodeGenerator {
         }
     }
 
+    /**
+     * Keeps the compiled class files in memory, so no files are written by the compiler.
+     */
+    private static final class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ClassFileObject> classFiles = new HashMap<String, ClassFileObject>();
+
+        private InMemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            ClassFileObject classFile = new ClassFileObject(className, kind);
+            classFiles.put(className, classFile);
+            return classFile;
+        }
+
+        private byte[] getBytes(String className) {
+            ClassFileObject classFile = classFiles.get(className);
+            return classFile == null ? null : classFile.bytes.toByteArray();
+        }
+    }
+
+    private static final class ClassFileObject extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private ClassFileObject(String className, Kind kind) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
     private static final class IsAssignableFromMethod implements TemplateMethodModelEx {
 
         @Override
@@ -266,12 +555,20 @@ class TimeStepRunnerCodeGenerator {
         }
     }
 
-    private static final class HasProbeMethod implements TemplateMethodModelEx {
+    private static final class HasParameterTypeMethod implements TemplateMethodModelEx {
+
+        private final String name;
+        private final Class[] parameterTypes;
+
+        HasParameterTypeMethod(String name, Class... parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+        }
 
         @Override
         public Object exec(List list) throws TemplateModelException {
             if (list.size() != 1) {
-                throw new TemplateModelException("Wrong number of arguments for method hasProbe()."
+                throw new TemplateModelException("Wrong number of arguments for method " + name + "()."
                         + " Method has one required parameter: [Method]. Found: " + list.size());
             }
 
@@ -281,14 +578,51 @@ class TimeStepRunnerCodeGenerator {
                         + " It should be Method. Found: " + arg1.getClass());
             }
 
-            Method method = (Method) arg1;
-            for (Class paramType : method.getParameterTypes()) {
-                if (Probe.class.isAssignableFrom(paramType)) {
-                    return true;
-                }
+            return hasParameterType((Method) arg1, parameterTypes);
+        }
+    }
+
+    private static final class StepsMethod implements TemplateMethodModelEx {
+
+        private final TimeStepModel timeStepModel;
+
+        StepsMethod(TimeStepModel timeStepModel) {
+            this.timeStepModel = timeStepModel;
+        }
+
+        @Override
+        public Object exec(List list) throws TemplateModelException {
+            if (list.size() != 1) {
+                throw new TemplateModelException("Wrong number of arguments for method steps()."
+                        + " Method has one required parameter: [Method]. Found: " + list.size());
+            }
+
+            Object arg1 = ((WrapperTemplateModel) list.get(0)).getWrappedObject();
+            if (!(arg1 instanceof Method)) {
+                throw new TemplateModelException("Wrong type of the first parameter."
+                        + " It should be Method. Found: " + arg1.getClass());
+            }
+
+            return timeStepModel.getSteps((Method) arg1);
+        }
+    }
+
+    private static final class IsAsyncMethod implements TemplateMethodModelEx {
+
+        @Override
+        public Object exec(List list) throws TemplateModelException {
+            if (list.size() != 1) {
+                throw new TemplateModelException("Wrong number of arguments for method isAsync()."
+                        + " Method has one required parameter: [Method]. Found: " + list.size());
+            }
+
+            Object arg1 = ((WrapperTemplateModel) list.get(0)).getWrappedObject();
+            if (!(arg1 instanceof Method)) {
+                throw new TemplateModelException("Wrong type of the first parameter."
+                        + " It should be Method. Found: " + arg1.getClass());
             }
 
-            return false;
+            return TimeStepModel.isAsync((Method) arg1);
         }
     }
 }
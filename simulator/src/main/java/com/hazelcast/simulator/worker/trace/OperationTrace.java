@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.trace;
+
+import java.io.File;
+
+/**
+ * The format of an operation trace, which contains the timestep calls of a single timestep thread.
+ *
+ * The trace starts with a header: the magic number, the version, the number of records and the names of the timestep
+ * methods of the execution group. The method index of a record refers to these names, so a trace can be replayed even if
+ * the order of the timestep methods has changed. The header is followed by the records of {@link #RECORD_SIZE} bytes:
+ * <ol>
+ * <li>the start time of the call in nanoseconds, relative to the start of the run</li>
+ * <li>the index of the timestep method (1 byte, the number of timestep methods is bound to 127)</li>
+ * <li>the key index of the call or -1 if the call didn't select a key index</li>
+ * </ol>
+ */
+public final class OperationTrace {
+
+    static final int MAGIC = 0x53545243;
+    static final int VERSION = 1;
+    static final long RECORD_COUNT_OFFSET = 8;
+    static final int RECORD_SIZE = 8 + 1 + 4;
+    // the records are mapped in regions which are a multiple of the record size, so a record never spans two regions
+    static final int REGION_SIZE = RECORD_SIZE * 256 * 1024;
+
+    private static final String FILE_EXTENSION = ".trace";
+
+    private OperationTrace() {
+    }
+
+    /**
+     * Returns the file of the operation trace of a timestep thread.
+     *
+     * @param prefix         the path prefix of the traces, e.g. the test id
+     * @param executionGroup the name of the execution group
+     * @param runnerIndex    the index of the timestep thread within its execution group
+     * @return the trace file
+     */
+    public static File getTraceFile(String prefix, String executionGroup, int runnerIndex) {
+        String groupPart = executionGroup.isEmpty() ? "" : "-" + executionGroup;
+        return new File(prefix + groupPart + "-" + runnerIndex + FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.trace;
+
+import com.hazelcast.simulator.utils.UncheckedIOException;
+import com.hazelcast.simulator.worker.testcontainer.IllegalTestException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.MAGIC;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.RECORD_SIZE;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.REGION_SIZE;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.VERSION;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * Reads the records of an {@link OperationTrace} one by one.
+ *
+ * The records are memory mapped when the reader is created and the file is closed right away; the mapping stays valid till
+ * the reader is garbage collected. The reader is not thread-safe.
+ */
+public final class OperationTraceReader {
+
+    private final List<String> methodNames = new ArrayList<String>();
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private final long recordCount;
+    private int regionIndex;
+    private long remaining;
+    private long offsetNanos;
+    private int methodIndex;
+    private int keyIndex;
+
+    public OperationTraceReader(File file) {
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            int magic = randomAccessFile.readInt();
+            int version = randomAccessFile.readInt();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IllegalTestException(format("%s is not an operation trace of version %d",
+                        file.getAbsolutePath(), VERSION));
+            }
+            this.recordCount = randomAccessFile.readLong();
+            int methodCount = randomAccessFile.readInt();
+            for (int i = 0; i < methodCount; i++) {
+                methodNames.add(randomAccessFile.readUTF());
+            }
+
+            FileChannel channel = randomAccessFile.getChannel();
+            long position = randomAccessFile.getFilePointer();
+            long end = position + recordCount * RECORD_SIZE;
+            if (end > channel.size()) {
+                throw new IllegalTestException(format("Operation trace %s is truncated; it should contain %d records",
+                        file.getAbsolutePath(), recordCount));
+            }
+            while (position < end) {
+                long size = min(REGION_SIZE, end - position);
+                regions.add(channel.map(READ_ONLY, position, size));
+                position += size;
+            }
+            this.remaining = recordCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read operation trace " + file.getAbsolutePath(), e);
+        } finally {
+            closeQuietly(randomAccessFile);
+        }
+    }
+
+    /**
+     * Returns the names of the timestep methods; the method index of a record refers to this list.
+     *
+     * @return the names of the timestep methods
+     */
+    public List<String> getMethodNames() {
+        return methodNames;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return {@code true} if a record was read, {@code false} if all records have been read
+     */
+    public boolean next() {
+        if (remaining == 0) {
+            return false;
+        }
+
+        MappedByteBuffer region = regions.get(regionIndex);
+        if (!region.hasRemaining()) {
+            regionIndex++;
+            region = regions.get(regionIndex);
+        }
+        offsetNanos = region.getLong();
+        methodIndex = region.get();
+        keyIndex = region.getInt();
+        remaining--;
+        return true;
+    }
+
+    /**
+     * Returns the start time of the current record, relative to the start of the recorded run.
+     *
+     * @return the start time in nanoseconds
+     */
+    public long offsetNanos() {
+        return offsetNanos;
+    }
+
+    public int methodIndex() {
+        return methodIndex;
+    }
+
+    public int keyIndex() {
+        return keyIndex;
+    }
+}
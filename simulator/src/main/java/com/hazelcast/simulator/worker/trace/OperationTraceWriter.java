@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2008-2016, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hazelcast.simulator.worker.trace;
+
+import com.hazelcast.simulator.utils.UncheckedIOException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import static com.hazelcast.simulator.utils.CommonUtils.closeQuietly;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.MAGIC;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.RECORD_COUNT_OFFSET;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.RECORD_SIZE;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.REGION_SIZE;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.VERSION;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+
+/**
+ * Records the timestep calls of a single timestep thread into an {@link OperationTrace}.
+ *
+ * The records are written into a memory mapped region of the file, so recording a call is a few plain memory writes and
+ * doesn't need a system call. The number of records in the header is updated whenever a new region is mapped and when the
+ * writer is closed, so the trace of a crashed worker can still be read up to the last full region.
+ *
+ * The writer is not thread-safe; it should only be used by the thread which owns it.
+ */
+public final class OperationTraceWriter implements Closeable {
+
+    private final File file;
+    private final long originNanos;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionOffset;
+    private long recordCount;
+
+    /**
+     * Creates a writer; an existing trace file is overwritten.
+     *
+     * @param file        the trace file
+     * @param methodNames the names of the timestep methods; the method index of a record refers to this list
+     * @param originNanos the start of the run; the start times are recorded relative to it
+     */
+    public OperationTraceWriter(File file, List<String> methodNames, long originNanos) {
+        this.file = file;
+        this.originNanos = originNanos;
+        try {
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            this.channel = randomAccessFile.getChannel();
+            randomAccessFile.setLength(0);
+            randomAccessFile.writeInt(MAGIC);
+            randomAccessFile.writeInt(VERSION);
+            randomAccessFile.writeLong(0);
+            randomAccessFile.writeInt(methodNames.size());
+            for (String methodName : methodNames) {
+                randomAccessFile.writeUTF(methodName);
+            }
+            this.regionOffset = randomAccessFile.getFilePointer();
+            this.region = channel.map(READ_WRITE, regionOffset, REGION_SIZE);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Could not create operation trace " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Records a timestep call.
+     *
+     * @param startNanos  the (intended) start time of the call
+     * @param methodIndex the index of the timestep method
+     * @param keyIndex    the key index of the call or -1 if the call didn't select a key index
+     */
+    public void record(long startNanos, int methodIndex, int keyIndex) {
+        if (region.remaining() < RECORD_SIZE) {
+            nextRegion();
+        }
+        region.putLong(startNanos - originNanos);
+        region.put((byte) methodIndex);
+        region.putInt(keyIndex);
+        recordCount++;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private void nextRegion() {
+        regionOffset += region.position();
+        try {
+            writeRecordCount();
+            region = channel.map(READ_WRITE, regionOffset, REGION_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not extend operation trace " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void writeRecordCount() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.SIZE / Byte.SIZE);
+        buffer.putLong(0, recordCount);
+        channel.write(buffer, RECORD_COUNT_OFFSET);
+    }
+
+    /**
+     * Writes the number of records and removes the unused part of the last region from the file.
+     */
+    @Override
+    public void close() {
+        if (channel == null || !channel.isOpen()) {
+            closeQuietly(randomAccessFile);
+            return;
+        }
+
+        try {
+            writeRecordCount();
+            if (region != null) {
+                channel.truncate(regionOffset + region.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not complete operation trace " + file.getAbsolutePath(), e);
+        } finally {
+            closeQuietly(randomAccessFile);
+        }
+    }
+}
@@ -1,9 +1,13 @@
+<#-- with javassist only the timeStepLoop method is generated; the class is created by JavassistRunnerCompiler -->
+<#if !javassist??>
 import com.hazelcast.simulator.test.*;
 import com.hazelcast.simulator.test.annotations.*;
 import com.hazelcast.simulator.worker.testcontainer.*;
 import com.hazelcast.simulator.worker.*;
 import com.hazelcast.simulator.worker.metronome.*;
+import com.hazelcast.simulator.worker.trace.*;
 import com.hazelcast.simulator.probes.*;
+import com.hazelcast.simulator.probes.impl.AllocationMeter;
 import com.hazelcast.simulator.utils.*;
 
 import java.util.*;
@@ -12,16 +16,15 @@ import java.util.concurrent.atomic.*;
 
 public class ${className} extends TimeStepRunner {
 
-<#if metronomeClass??>
-</#if>
     public ${className}(${testInstanceClass} testInstance, TimeStepModel model, String executionGroup) {
         super(testInstance, model, executionGroup);
     }
 
     @Override
+</#if>
     public void timeStepLoop() throws Exception {
-<#if timeStepMethods?size gt 1>
-        final Random random = new Random();
+<#if timeStepMethods?size gt 1 && !replay??>
+        final SplitMixRandom random = new SplitMixRandom(this.seed);
 </#if>
         final AtomicLong iterations = this.iterations;
         final TestContextImpl testContext = (TestContextImpl)this.testContext;
@@ -32,11 +35,52 @@ public class ${className} extends TimeStepRunner {
 <#if probeClass??>
     <#list timeStepMethods as method>
         final ${probeClass} ${method.name}Probe = (${probeClass})probeMap.get("${method.name}");
+        <#if countingProbe?? && !hasProbe(method)>
+        final ${probeClass}.Counter ${method.name}Counter = ${method.name}Probe.threadCounter();
+        </#if>
+        <#if correctCoordinatedOmission?? && !hasProbe(method)>
+        final CoordinatedOmissionCorrector ${method.name}Corrector = (CoordinatedOmissionCorrector)correctorMap.get("${method.name}");
+        </#if>
+        <#if !countingProbe??>
+            <#list steps(method) as step>
+        final ${probeClass} ${method.name}Step${step?index}Probe = (${probeClass})probeMap.get("${method.name}-${step.name}");
+            </#list>
+        </#if>
     </#list>
 </#if>
+<#list timeStepMethods as method>
+    <#if hasProbeFamily(method)>
+        final ProbeFamily ${method.name}ProbeFamily = (ProbeFamily)probeFamilyMap.get("${method.name}");
+    </#if>
+</#list>
+<#if allocationSampleInterval??>
+    <#list timeStepMethods as method>
+        final AllocationMeter.Sampler ${method.name}AllocationSampler
+                = ((AllocationMeter)allocationMeterMap.get("${method.name}")).threadSampler();
+    </#list>
+        int allocationCountdown = ${allocationSampleInterval};
+        long startAllocatedBytes = 0;
+</#if>
+<#if latencySampleIntervals??>
+    <#list timeStepMethods as method>
+        <#if latencySampleIntervals[method.name]??>
+        int ${method.name}LatencyCountdown = ${latencySampleIntervals[method.name]};
+        </#if>
+    </#list>
+</#if>
+<#if hasAsync??>
+        final AsyncTimeStepWindow asyncWindow = this.asyncWindow;
+</#if>
+<#if elastic??>
+        final ElasticThreadCount elasticThreadCount = this.elasticThreadCount;
+        final int runnerIndex = this.runnerIndex;
+</#if>
 <#if threadStateClass??>
         final ${threadStateClass} threadState = (${threadStateClass})this.threadState;
 </#if>
+<#if recordTrace??>
+        final OperationTraceWriter traceWriter = this.traceWriter;
+</#if>
 <#if logFrequency??>
         long logCounter = 0;
 </#if>
@@ -44,53 +88,93 @@ public class ${className} extends TimeStepRunner {
         final ThrottlingLogger throttlingLogger = new ThrottlingLogger(logger, ${logRateMs});
 </#if>
 
-<#if timeStepMethods?size gt 1>
-        final byte[] probs  = this.timeStepProbabilities;
-</#if>
-
 <#if hasIterationCap??>
         final long maxIterations = this.maxIterations;
 </#if>
 
         long iteration = 0;
+<#if hasAsync??>
+        // the async calls are counted by the window when they complete, so only the synchronous calls are counted here
+        long syncIteration = 0;
+</#if>
         while (!testContext.isStopped()) {
-<#if probeClass??>
-    <#if metronomeClass??>
-            long startNanos = metronome.waitForNext();
+<#if elastic??>
+            if (runnerIndex >= elasticThreadCount.get()) {
+                // the thread count of the execution group was lowered, so this runner waits till it is raised again
+                elasticThreadCount.awaitActive(runnerIndex);
+    <#if restartMetronome??>
+                metronome.restart();
+    </#if>
+                continue;
+            }
+</#if>
+<#if batchSize??>
+    <#if hasIterationCap??>
+            final long batchEnd = Math.min(iteration + ${batchSize}, maxIterations);
     <#else>
-            long startNanos = System.nanoTime();
+            final long batchEnd = iteration + ${batchSize};
     </#if>
-<#else>
-    <#if metronomeClass??>
-            metronome.waitForNext();
+            // the stop signal and the iteration cap are only checked once per batch
+            while (iteration < batchEnd) {
+</#if>
+<#if allocationSampleInterval??>
+            // the allocated bytes are read before the start time is taken, so reading them isn't part of the latency
+            final boolean sampleAllocations = --allocationCountdown == 0;
+            if (sampleAllocations) {
+                allocationCountdown = ${allocationSampleInterval};
+                startAllocatedBytes = AllocationMeter.currentThreadAllocatedBytes();
+            }
+</#if>
+<#if replay??>
+            if (!metronome.next()) {
+                // the operation trace of this runner has been replayed completely
+                break;
+            }
+</#if>
+<#if metronomeClass??>
+            long startNanos = metronome.waitForNext();
+    <#if measureServiceTime??>
+            long intendedStartNanos = metronome.intendedStartNanos();
+            long actualStartNanos = System.nanoTime();
+    </#if>
+<#elseif probeClass?? && !countingProbe?? && !latencySampleIntervals??>
+            long startNanos = System.nanoTime();
+</#if>
+<#if replay?? && baseThreadState??>
+            threadState.initKeyIndex(metronome.keyIndex());
+<#elseif recordTrace??>
+    <#if baseThreadState??>
+            threadState.initKeyIndex(-1);
     </#if>
+            final long traceStartNanos = <#if metronomeClass??>metronome.intendedStartNanos()<#else>System.nanoTime()</#if>;
 </#if>
 
 <#if timeStepMethods?size==1>
     <#assign method=timeStepMethods?first>
-    <#if hasProbe(method)|| !probeClass??>
-            <@timestepMethodCall m=method/>;
+            <@timeStep m=method/>
+            <@traceCall index=0/>
+            <@countSync m=method/>
+<#else>
+    <#if replay??>
+            final int methodIndex = metronome.methodIndex();
     <#else>
-            <@timestepMethodCall m=method/>;
-            ${method.name}Probe.recordValue(System.nanoTime() - startNanos);
+            final long probability = random.nextLong53();
     </#if>
-<#else>
-
-            switch(probs[random.nextInt(probs.length)]){
     <#list timeStepMethods as method>
-                case ${method?counter-1}:
-        <#if hasProbe(method) || !probeClass??>
-                    <@timestepMethodCall m=method/>;
+        <#if method?is_first>
+            if (${isSelected(method?index)}) {
+        <#elseif method?has_next>
+            } else if (${isSelected(method?index)}) {
         <#else>
-                    <@timestepMethodCall m=method/>;
-                    ${method.name}Probe.recordValue(System.nanoTime() - startNanos);
+            } else {
         </#if>
-                    break;
+                <@timeStep m=method/>
+                <@traceCall index=method?index/>
+                <@countSync m=method/>
     </#list>
             }
 </#if>
             iteration++;
-            iterations.lazySet(iteration);
 <#if logFrequency??>
             logCounter++;
             if(logCounter == ${logFrequency}){
@@ -103,6 +187,10 @@ public class ${className} extends TimeStepRunner {
                 throttlingLogger.logInSlot(Level.INFO, "At "+iteration);
             }
 </#if>
+<#if batchSize??>
+            }
+</#if>
+            iterations.lazySet(<#if hasAsync??>syncIteration<#else>iteration</#if>);
 <#if hasIterationCap??>
             if(iteration==maxIterations){
                 break;
@@ -110,6 +198,151 @@ public class ${className} extends TimeStepRunner {
 </#if>
         }
     }
+<#function isSelected index>
+    <#if replay??>
+        <#return "methodIndex == " + index>
+    </#if>
+    <#return "probability < " + timeStepThresholds[index]>
+</#function>
+<#macro traceCall index>
+    <#if recordTrace??>
+            traceWriter.record(traceStartNanos, ${index}, <#if baseThreadState??>threadState.getKeyIndex()<#else>-1</#if>);
+    </#if>
+</#macro>
+<#macro countSync m>
+    <#if hasAsync?? && !isAsync(m)>
+            syncIteration++;
+    </#if>
+</#macro>
+<#macro timeStep m>
+            <@timeStepCall m=m/>
+    <#if allocationSampleInterval??>
+            if (sampleAllocations) {
+                ${m.name}AllocationSampler.stop(startAllocatedBytes);
+            }
+    </#if>
+</#macro>
+<#macro timeStepCall m>
+    <#if isLatencySampled(m)>
+            if (--${m.name}LatencyCountdown == 0) {
+                ${m.name}LatencyCountdown = ${latencySampleIntervals[m.name]};
+                long startNanos = System.nanoTime();
+                <@timeStepTry m=m timed=true/>
+            } else {
+                <@timeStepTry m=m timed=false/>
+            }
+    <#else>
+        <#if latencySampleIntervals??>
+            long startNanos = System.nanoTime();
+        </#if>
+            <@timeStepTry m=m timed=true/>
+    </#if>
+</#macro>
+<#macro timeStepTry m timed>
+    <#if recordFailures??>
+            try {
+                <@invokeAndRecord m=m timed=timed/>
+            } catch (StopException e) {
+                throw e;
+            } catch (Exception e) {
+                <@recordFailure m=m timed=timed/>
+                timeStepFailed("${m.name}", e);
+            }
+    <#else>
+            <@invokeAndRecord m=m timed=timed/>
+    </#if>
+</#macro>
+<#macro invokeAndRecord m timed>
+    <#if isAsync(m)>
+            <@asyncCall m=m/>
+    <#elseif hasProbe(m) || !probeClass?? || !timed>
+            <@timestepCall m=m timed=false/>
+    <#elseif countingProbe??>
+            <@timestepCall m=m timed=false/>
+            ${m.name}Counter.inc();
+    <#else>
+            <@timestepCall m=m timed=true/>
+            <@recordLatency m=m/>
+    </#if>
+</#macro>
+<#-- the steps of a chain are called instead of the timestep method; only a timed call records the latency of every step -->
+<#macro timestepCall m timed>
+    <#if steps(m)?size == 0>
+            <@timestepMethodCall m=m/>;
+    <#elseif timed>
+            long ${m.name}Step0Nanos = System.nanoTime();
+        <#list steps(m) as step>
+            testInstance.${step.name}(<#if step.parameterTypes?size gt 0>threadState</#if>);
+            long ${m.name}Step${step?counter}Nanos = System.nanoTime();
+            <@recordStepLatency m=m index=step?index/>
+        </#list>
+    <#else>
+        <#list steps(m) as step>
+            testInstance.${step.name}(<#if step.parameterTypes?size gt 0>threadState</#if>);
+        </#list>
+    </#if>
+</#macro>
+<#macro recordStepLatency m index>
+    <#if isLatencySampled(m)>
+            ${m.name}Step${index}Probe.recordValueWithCount(${m.name}Step${index + 1}Nanos - ${m.name}Step${index}Nanos, ${latencySampleIntervals[m.name]});
+    <#else>
+            ${m.name}Step${index}Probe.recordValue(${m.name}Step${index + 1}Nanos - ${m.name}Step${index}Nanos);
+    </#if>
+</#macro>
+<#macro recordFailure m timed>
+    <#if !probeClass?? || hasProbeFamily(m)>
+    <#elseif countingProbe?? || !timed>
+            ${m.name}Probe.recordFailedValue(0);
+    <#elseif measureServiceTime??>
+            ${m.name}Probe.failed(intendedStartNanos);
+    <#else>
+            ${m.name}Probe.recordFailedValue(System.nanoTime() - startNanos);
+    </#if>
+</#macro>
+<#macro recordLatency m>
+    <#if measureServiceTime??>
+        ${m.name}Probe.done(intendedStartNanos, actualStartNanos);<#t>
+    <#elseif isLatencySampled(m)>
+        ${m.name}Probe.recordValueWithCount(System.nanoTime() - startNanos, ${latencySampleIntervals[m.name]});<#t>
+    <#elseif correctCoordinatedOmission??>
+            long ${m.name}LatencyNanos = System.nanoTime() - startNanos;
+            ${m.name}Probe.recordValue(${m.name}LatencyNanos);
+            ${m.name}Corrector.recordValue(${m.name}LatencyNanos);
+    <#else>
+        ${m.name}Probe.recordValue(System.nanoTime() - startNanos);<#t>
+    </#if>
+</#macro>
+<#-- the latency of an async call is recorded by its callback when the returned future completes -->
+<#macro asyncCall m>
+            final AsyncTimeStepCallback ${m.name}Callback = asyncWindow.acquire(${asyncProbe(m)}, ${asyncStartNanos(m)});
+            com.hazelcast.core.ICompletableFuture ${m.name}Future = null;
+            try {
+                ${m.name}Future = <@timestepMethodCall m=m/>;
+            } catch (Exception e) {
+                ${m.name}Callback.register(null);
+                throw e;
+            }
+            ${m.name}Callback.register(${m.name}Future);
+</#macro>
+<#function asyncProbe m>
+    <#if hasProbe(m) || !probeClass??>
+        <#return "null">
+    </#if>
+    <#return m.name + "Probe">
+</#function>
+<#function asyncStartNanos m>
+    <#if asyncProbe(m) == "null">
+        <#return "0L">
+    <#elseif measureServiceTime??>
+        <#return "intendedStartNanos">
+    <#elseif metronomeClass?? || !countingProbe??>
+        <#return "startNanos">
+    </#if>
+    <#return "0L">
+</#function>
+<#function isLatencySampled m>
+    <#return latencySampleIntervals?? && latencySampleIntervals[m.name]??>
+</#function>
 <#macro timestepMethodCall m>
     <@compress single_line=true>
        testInstance.${m.getName()}(
@@ -120,6 +353,8 @@ public class ${className} extends TimeStepRunner {
                 <#if metronomeClass??>startNanos<#else>System.nanoTime()</#if>
             <#elseif isAssignableFrom(param, Probe)>
                 <#if probeClass??>${m.name}Probe<#else>com.hazelcast.simulator.probes.impl.EmptyProbe.INSTANCE</#if>
+            <#elseif isAssignableFrom(param, ProbeFamily)>
+                ${m.name}ProbeFamily
             <#else>
                 threadState
             </#if>
@@ -127,4 +362,6 @@ public class ${className} extends TimeStepRunner {
     )
     </@compress>
 </#macro>
-}
\ No newline at end of file
+<#if !javassist??>
+}
+</#if>
@@ -127,6 +127,14 @@ public class TestSuiteTest {
         new TestSuite(txt);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void loadTestSuite_invalidSla() throws Exception {
+        String txt = "class=AtomicLong" + NEW_LINE
+                + "sla.p999=fast";
+
+        new TestSuite(txt);
+    }
+
     @Test
     public void getTestCase_null() throws Exception {
         TestSuite testSuite = new TestSuite("class=Foo");
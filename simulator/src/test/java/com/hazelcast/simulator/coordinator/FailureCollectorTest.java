@@ -17,6 +17,7 @@ import org.mockito.ArgumentCaptor;
 import java.io.File;
 import java.util.HashMap;
 
+import static com.hazelcast.simulator.common.FailureType.SLA_VIOLATION;
 import static com.hazelcast.simulator.common.FailureType.WORKER_ABNORMAL_EXIT;
 import static com.hazelcast.simulator.common.FailureType.WORKER_EXCEPTION;
 import static com.hazelcast.simulator.common.FailureType.WORKER_NORMAL_EXIT;
@@ -24,6 +25,7 @@ import static com.hazelcast.simulator.common.FailureType.WORKER_OOME;
 import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
@@ -165,6 +167,17 @@ public class FailureCollectorTest {
         assertEquals(0, failureCollector.getFailureCount());
     }
 
+    @Test
+    public void notify_withSlaViolation() {
+        FailureOperation failure = new FailureOperation("p999 exceeded", SLA_VIOLATION, null, null, null, null, "testId", null);
+
+        failureCollector.notify(failure);
+
+        assertEquals(1, failureCollector.getFailureCount());
+        assertTrue(failureCollector.hasCriticalFailure("testId"));
+        assertNotNull(componentRegistry.getWorker(workerAddress));
+    }
+
     @Test
     public void testHasCriticalFailure() {
         failureCollector.notify(exceptionFailure);
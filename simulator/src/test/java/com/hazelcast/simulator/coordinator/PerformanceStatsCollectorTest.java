@@ -106,6 +106,18 @@ public class PerformanceStatsCollectorTest {
         assertEquals(2800, performanceStats.getIntervalLatencyMaxNanos());
     }
 
+    @Test
+    public void testGetIntervalCount() {
+        assertEquals(0, performanceStatsCollector.getIntervalCount(TEST_CASE_ID_1));
+
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1000, 200, 500, 1900.0d, 1800, 2500));
+        update(a1w1, TEST_CASE_ID_1, new PerformanceStats(1500, 150, 550, 1600.0d, 1700, 2400));
+        update(a2w1, TEST_CASE_ID_1, new PerformanceStats(800, 100, 300, 2200.0d, 2400, 2800));
+
+        assertEquals(3, performanceStatsCollector.getIntervalCount(TEST_CASE_ID_1));
+        assertEquals(0, performanceStatsCollector.getIntervalCount(TEST_CASE_ID_2));
+    }
+
     @Test
     public void testGet_testCaseNotFound() {
         PerformanceStats performanceStats = performanceStatsCollector.get("notFound", true);
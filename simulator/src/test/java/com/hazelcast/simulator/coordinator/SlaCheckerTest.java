@@ -0,0 +1,135 @@
+package com.hazelcast.simulator.coordinator;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.worker.performance.PerformanceStats;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SlaCheckerTest {
+
+    private long intervalCount;
+
+    @Test
+    public void testNoSla() {
+        SlaChecker slaChecker = new SlaChecker(new TestCase("test"));
+
+        assertFalse(slaChecker.hasSla());
+        assertNull(check(slaChecker, stats(1000, MILLISECONDS.toNanos(100))));
+    }
+
+    @Test
+    public void testP999_violationHasToPersist() {
+        TestCase testCase = new TestCase("test")
+                .setProperty("sla.p999", "5ms")
+                .setProperty("sla.violationIntervals", 2);
+        SlaChecker slaChecker = new SlaChecker(testCase);
+
+        assertTrue(slaChecker.hasSla());
+        assertNull(check(slaChecker, stats(1000, MILLISECONDS.toNanos(10))));
+        // a good interval resets the violation
+        assertNull(check(slaChecker, stats(1000, MILLISECONDS.toNanos(1))));
+        assertNull(check(slaChecker, stats(1000, MILLISECONDS.toNanos(10))));
+
+        String violation = check(slaChecker, stats(1000, MILLISECONDS.toNanos(10)));
+        assertNotNull(violation);
+        assertTrue(violation.contains("99.9th percentile"));
+
+        // a persisting violation is only reported once
+        assertNull(check(slaChecker, stats(1000, MILLISECONDS.toNanos(10))));
+    }
+
+    @Test
+    public void testMinThroughput() {
+        TestCase testCase = new TestCase("test")
+                .setProperty("sla.minThroughput", 200000)
+                .setProperty("sla.violationIntervals", 1);
+        SlaChecker slaChecker = new SlaChecker(testCase);
+
+        assertNull(check(slaChecker, stats(300000, MILLISECONDS.toNanos(1))));
+        assertNotNull(check(slaChecker, stats(100000, MILLISECONDS.toNanos(1))));
+    }
+
+    @Test
+    public void testMaxLatency() {
+        TestCase testCase = new TestCase("test")
+                .setProperty("sla.maxLatency", "50ms")
+                .setProperty("sla.violationIntervals", 1);
+        SlaChecker slaChecker = new SlaChecker(testCase);
+
+        assertNull(check(slaChecker, new PerformanceStats(1000, 1000, 1000, 10, 10, MILLISECONDS.toNanos(20))));
+        assertNotNull(check(slaChecker, new PerformanceStats(1000, 1000, 1000, 10, 10, MILLISECONDS.toNanos(60))));
+    }
+
+    @Test
+    public void testMaxErrorRate() {
+        TestCase testCase = new TestCase("test")
+                .setProperty("sla.maxErrorRate", 0.01)
+                .setProperty("sla.violationIntervals", 1);
+        SlaChecker slaChecker = new SlaChecker(testCase);
+
+        PerformanceStats stats = stats(1000, MILLISECONDS.toNanos(1));
+        stats.setFailures(50, 0.05, MILLISECONDS.toNanos(1));
+
+        assertNotNull(check(slaChecker, stats));
+    }
+
+    @Test
+    public void testEmptyStatsAreIgnored() {
+        TestCase testCase = new TestCase("test")
+                .setProperty("sla.minThroughput", 200000)
+                .setProperty("sla.violationIntervals", 1);
+        SlaChecker slaChecker = new SlaChecker(testCase);
+
+        assertNull(check(slaChecker, new PerformanceStats()));
+    }
+
+    @Test
+    public void testSameIntervalIsCountedOnce() {
+        TestCase testCase = new TestCase("test")
+                .setProperty("sla.p999", "5ms")
+                .setProperty("sla.violationIntervals", 2);
+        SlaChecker slaChecker = new SlaChecker(testCase);
+
+        PerformanceStats stats = stats(1000, MILLISECONDS.toNanos(10));
+        assertNull(slaChecker.check(stats, 1));
+        // the coordinator polls more often than the workers report, so the same interval is seen again
+        assertNull(slaChecker.check(stats, 1));
+        assertNull(slaChecker.check(stats, 1));
+
+        assertNotNull(slaChecker.check(stats, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownProperty() {
+        new SlaChecker(new TestCase("test").setProperty("sla.p99", "5ms"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThroughput() {
+        new SlaChecker(new TestCase("test").setProperty("sla.minThroughput", "fast"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidViolationIntervals() {
+        new SlaChecker(new TestCase("test").setProperty("sla.violationIntervals", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDuration() {
+        new SlaChecker(new TestCase("test").setProperty("sla.p999", "5"));
+    }
+
+    private String check(SlaChecker slaChecker, PerformanceStats stats) {
+        return slaChecker.check(stats, ++intervalCount);
+    }
+
+    private static PerformanceStats stats(double intervalThroughput, long latency999PercentileNanos) {
+        return new PerformanceStats(1000, intervalThroughput, intervalThroughput, 10, latency999PercentileNanos,
+                latency999PercentileNanos);
+    }
+}
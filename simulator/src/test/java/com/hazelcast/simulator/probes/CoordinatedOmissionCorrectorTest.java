@@ -0,0 +1,60 @@
+package com.hazelcast.simulator.probes;
+
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class CoordinatedOmissionCorrectorTest {
+
+    private final HdrProbe correctedProbe = new HdrProbe(false);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_negativeExpectedInterval() {
+        new CoordinatedOmissionCorrector(correctedProbe, -1);
+    }
+
+    @Test
+    public void testRecordValue_configuredExpectedInterval() {
+        CoordinatedOmissionCorrector corrector = new CoordinatedOmissionCorrector(correctedProbe, MILLISECONDS.toNanos(1));
+
+        corrector.recordValue(MICROSECONDS.toNanos(500));
+        corrector.recordValue(MILLISECONDS.toNanos(10));
+
+        // the stall of 10 ms hides 9 requests with a latency of 9 ms down to 1 ms
+        Histogram histogram = correctedProbe.getIntervalHistogram(null);
+        assertEquals(11, histogram.getTotalCount());
+        assertEquals(MILLISECONDS.toNanos(1), corrector.getExpectedIntervalNanos());
+    }
+
+    @Test
+    public void testRecordValue_noCorrectionWithinExpectedInterval() {
+        CoordinatedOmissionCorrector corrector = new CoordinatedOmissionCorrector(correctedProbe, MILLISECONDS.toNanos(1));
+
+        corrector.recordValue(MICROSECONDS.toNanos(500));
+        corrector.recordValue(MICROSECONDS.toNanos(1500));
+
+        assertEquals(2, correctedProbe.getIntervalHistogram(null).getTotalCount());
+    }
+
+    @Test
+    public void testRecordValue_derivedExpectedInterval() {
+        CoordinatedOmissionCorrector corrector = new CoordinatedOmissionCorrector(correctedProbe, 0);
+        assertEquals(0, corrector.getExpectedIntervalNanos());
+
+        for (int i = 0; i < 100; i++) {
+            corrector.recordValue(MILLISECONDS.toNanos(1));
+        }
+        assertEquals(MILLISECONDS.toNanos(1), corrector.getExpectedIntervalNanos());
+
+        corrector.recordValue(MILLISECONDS.toNanos(100));
+
+        // 99 requests have been omitted during the stall
+        assertEquals(100 + 1 + 99, correctedProbe.getIntervalHistogram(null).getTotalCount());
+        // a single stall only has a limited effect on the expected interval
+        assertEquals(MILLISECONDS.toNanos(1) + MILLISECONDS.toNanos(99) / 16, corrector.getExpectedIntervalNanos());
+    }
+}
@@ -0,0 +1,73 @@
+package com.hazelcast.simulator.probes;
+
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ProbeFamilyTest {
+
+    private final Map<String, Probe> probes = new HashMap<String, Probe>();
+
+    private final ProbeFamily probeFamily = new ProbeFamily("get", 2, new ProbeFamily.ProbeFactory() {
+        @Override
+        public Probe newProbe(String probeName) {
+            Probe probe = new HdrProbe(false);
+            probes.put(probeName, probe);
+            return probe;
+        }
+    });
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidMaxTagValues() {
+        new ProbeFamily("get", 0, null);
+    }
+
+    @Test
+    public void testWithTag() {
+        Probe local = probeFamily.withTag("local");
+        Probe remote = probeFamily.withTag("remote");
+
+        assertNotSame(local, remote);
+        assertSame(local, probeFamily.withTag("local"));
+        assertSame(local, probes.get("get-local"));
+        assertSame(remote, probes.get("get-remote"));
+        assertEquals(2, probeFamily.size());
+    }
+
+    @Test
+    public void testRegister() {
+        int index = probeFamily.register("local");
+
+        assertEquals(0, index);
+        assertEquals(index, probeFamily.register("local"));
+        assertSame(probes.get("get-local"), probeFamily.get(index));
+    }
+
+    @Test
+    public void testRegister_whenFull_thenOther() {
+        probeFamily.register("member1");
+        probeFamily.register("member2");
+
+        int index = probeFamily.register("member3");
+
+        assertEquals(probeFamily.getMaxTagValues(), index);
+        assertEquals(index, probeFamily.register("member4"));
+        assertSame(probes.get("get-" + ProbeFamily.OTHER_TAG_VALUE), probeFamily.get(index));
+        assertEquals(2, probeFamily.size());
+    }
+
+    @Test
+    public void testWithTag_sanitizesProbeName() {
+        Probe probe = probeFamily.withTag("[10.0.0.1]:5701");
+
+        assertSame(probe, probes.get("get-_10.0.0.1__5701"));
+        assertTrue(probes.containsKey("get-_10.0.0.1__5701"));
+    }
+}
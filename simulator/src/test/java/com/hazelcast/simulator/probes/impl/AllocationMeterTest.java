@@ -0,0 +1,76 @@
+package com.hazelcast.simulator.probes.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class AllocationMeterTest {
+
+    private static volatile Object sink;
+
+    private final AllocationMeter allocationMeter = new AllocationMeter();
+
+    @Before
+    public void before() {
+        assumeTrue(AllocationMeter.isSupported());
+    }
+
+    @Test
+    public void testNoSamples() {
+        assertEquals(0, allocationMeter.getAllocatedBytes());
+        assertEquals(0, allocationMeter.getSampleCount());
+    }
+
+    @Test
+    public void testNoAllocation() {
+        AllocationMeter.Sampler sampler = allocationMeter.threadSampler();
+        for (int i = 0; i < 100; i++) {
+            long allocatedBytes = sampler.start();
+            sampler.stop(allocatedBytes);
+        }
+
+        assertEquals(100, allocationMeter.getSampleCount());
+        // the bytes allocated by the measurement itself are not included
+        assertEquals(0, allocationMeter.getAllocatedBytes());
+    }
+
+    @Test
+    public void testAllocation() {
+        AllocationMeter.Sampler sampler = allocationMeter.threadSampler();
+        for (int i = 0; i < 100; i++) {
+            long allocatedBytes = sampler.start();
+            sink = new byte[1000];
+            sampler.stop(allocatedBytes);
+        }
+
+        long bytesPerOperation = allocationMeter.getAllocatedBytes() / allocationMeter.getSampleCount();
+        assertTrue("bytesPerOperation was " + bytesPerOperation, bytesPerOperation >= 1000);
+        assertTrue("bytesPerOperation was " + bytesPerOperation, bytesPerOperation < 1100);
+    }
+
+    @Test
+    public void testMultipleThreads() throws Exception {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                AllocationMeter.Sampler sampler = allocationMeter.threadSampler();
+                long allocatedBytes = sampler.start();
+                sink = new byte[1000];
+                sampler.stop(allocatedBytes);
+            }
+        };
+        thread.start();
+        thread.join();
+
+        AllocationMeter.Sampler sampler = allocationMeter.threadSampler();
+        long allocatedBytes = sampler.start();
+        sink = new byte[1000];
+        sampler.stop(allocatedBytes);
+
+        assertEquals(2, allocationMeter.getSampleCount());
+        assertTrue(allocationMeter.getAllocatedBytes() >= 2000);
+    }
+}
@@ -0,0 +1,92 @@
+package com.hazelcast.simulator.probes.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CountingProbeTest {
+
+    private CountingProbe probe = new CountingProbe(false);
+
+    @Test
+    public void testConstructor_throughputProbe() {
+        assertTrue(new CountingProbe(true).isPartOfTotalThroughput());
+    }
+
+    @Test
+    public void testConstructor_noThroughputProbe() {
+        assertFalse(new CountingProbe(false).isPartOfTotalThroughput());
+    }
+
+    @Test
+    public void testDoneAndRecordValue() {
+        probe.done(System.nanoTime());
+        probe.recordValue(10);
+
+        assertEquals(2, probe.getCount());
+    }
+
+    @Test
+    public void testFailures() {
+        probe.done(System.nanoTime());
+        probe.failed(System.nanoTime());
+        probe.recordFailedValue(10);
+
+        assertEquals(1, probe.getCount());
+        assertEquals(2, probe.getFailureCount());
+
+        probe.reset();
+
+        assertEquals(0, probe.getFailureCount());
+    }
+
+    @Test
+    public void testThreadCounter() {
+        CountingProbe.Counter counter = probe.threadCounter();
+        assertSame(counter, probe.threadCounter());
+
+        counter.inc();
+        counter.inc();
+
+        assertEquals(2, counter.get());
+        assertEquals(2, probe.getCount());
+    }
+
+    @Test
+    public void testReset() {
+        probe.recordValue(1);
+        probe.recordValue(1);
+
+        probe.reset();
+        assertEquals(0, probe.getCount());
+
+        probe.recordValue(1);
+        assertEquals(1, probe.getCount());
+    }
+
+    @Test
+    public void testGetCount_multipleThreads() throws Exception {
+        int threadCount = 4;
+        final int valuesPerThread = 1000;
+        final CountDownLatch completed = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int k = 0; k < valuesPerThread; k++) {
+                        probe.recordValue(k);
+                    }
+                    completed.countDown();
+                }
+            }.start();
+        }
+        completed.await();
+
+        assertEquals(threadCount * valuesPerThread, probe.getCount());
+    }
+}
@@ -11,6 +11,7 @@ import static com.hazelcast.simulator.probes.impl.HdrProbe.HIGHEST_TRACKABLE_VAL
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -58,6 +59,42 @@ public class HdrProbeTest {
         probe.done(-23);
     }
 
+    @Test
+    public void testDone_withIntendedAndActualStart() {
+        HdrProbe serviceTimeProbe = new HdrProbe(false);
+        HdrProbe probe = new HdrProbe(false, serviceTimeProbe);
+
+        long actualStartNanos = System.nanoTime();
+        long intendedStartNanos = actualStartNanos - MILLISECONDS.toNanos(500);
+        probe.done(intendedStartNanos, actualStartNanos);
+
+        Histogram responseTime = probe.getRecorder().getIntervalHistogram();
+        Histogram serviceTime = serviceTimeProbe.getRecorder().getIntervalHistogram();
+        assertEquals(1, responseTime.getTotalCount());
+        assertEquals(1, serviceTime.getTotalCount());
+        assertTrue(responseTime.getMaxValue() >= MILLISECONDS.toNanos(500));
+        assertTrue(serviceTime.getMaxValue() < responseTime.getMaxValue());
+        assertSame(serviceTimeProbe, probe.getServiceTimeProbe());
+    }
+
+    @Test
+    public void testFailed() {
+        probe.recordValue(MILLISECONDS.toNanos(10));
+        probe.failed(System.nanoTime() - MILLISECONDS.toNanos(1));
+        probe.recordFailedValue(MILLISECONDS.toNanos(2));
+
+        assertEquals(1, probe.getRecorder().getIntervalHistogram().getTotalCount());
+
+        Histogram failureHistogram = probe.getFailureIntervalHistogram(null);
+        assertEquals(2, failureHistogram.getTotalCount());
+        assertTrue(failureHistogram.getMinValue() >= MILLISECONDS.toNanos(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailed_withZero() {
+        probe.failed(0);
+    }
+
     @Test
     public void testRecordValues() {
         long value1 = MILLISECONDS.toNanos(200);
@@ -108,6 +145,20 @@ public class HdrProbeTest {
         return false;
     }
 
+    @Test
+    public void testGetIntervalHistogram_withRecycling() {
+        probe.recordValue(1);
+        Histogram first = probe.getIntervalHistogram(null);
+        assertEquals(1, first.getTotalCount());
+
+        probe.recordValue(2);
+        probe.recordValue(3);
+        Histogram second = probe.getIntervalHistogram(first);
+
+        assertSame(first, second);
+        assertEquals(2, second.getTotalCount());
+    }
+
     @Test
     public void testGet() {
         probe.recordValue(1);
@@ -0,0 +1,90 @@
+package com.hazelcast.simulator.probes.impl;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramConfigTest {
+
+    @Test
+    public void testNanosecondResolution() {
+        HistogramConfig histogramConfig = new HistogramConfig(1, SECONDS.toNanos(1), 3, false);
+        HdrProbe probe = new HdrProbe(false, null, histogramConfig);
+
+        probe.recordValue(150);
+        probe.recordValue(250);
+
+        Histogram histogram = probe.getRecorder().getIntervalHistogram();
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(150, histogram.getMinValue());
+        assertEquals(250, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testClamp() {
+        HistogramConfig histogramConfig = new HistogramConfig(1, SECONDS.toNanos(1), 3, false);
+
+        assertEquals(SECONDS.toNanos(1), histogramConfig.clamp(SECONDS.toNanos(5)));
+        assertEquals(100, histogramConfig.clamp(100));
+    }
+
+    @Test
+    public void testAutoResize() {
+        HistogramConfig histogramConfig = new HistogramConfig(1, HOURS.toNanos(1), 3, true);
+
+        Recorder recorder = histogramConfig.newRecorder();
+        recorder.recordValue(MILLISECONDS.toNanos(1));
+        Histogram histogram = recorder.getIntervalHistogram();
+
+        assertEquals(1, histogram.getTotalCount());
+        Histogram fullSizeHistogram = HistogramConfig.DEFAULT.newHistogram();
+        assertTrue(histogram.getEstimatedFootprintInBytes() < fullSizeHistogram.getEstimatedFootprintInBytes());
+    }
+
+    @Test
+    public void testAutoResize_stripedProbe() {
+        HistogramConfig histogramConfig = new HistogramConfig(1, HOURS.toNanos(1), 2, true);
+        StripedHdrProbe probe = new StripedHdrProbe(false, null, histogramConfig);
+
+        probe.recordValue(100);
+        probe.recordValue(SECONDS.toNanos(100));
+
+        Histogram histogram = probe.getIntervalHistogram();
+        assertEquals(2, histogram.getTotalCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAutoResize_withLowestDiscernibleValue() {
+        new HistogramConfig(1000, HOURS.toNanos(1), 3, true);
+    }
+
+    @Test
+    public void testWithAutoResize() {
+        HistogramConfig histogramConfig = HistogramConfig.DEFAULT.withAutoResize();
+
+        assertTrue(histogramConfig.isAutoResize());
+        assertEquals(1, histogramConfig.getLowestDiscernibleValue());
+        assertEquals(HistogramConfig.DEFAULT.getHighestTrackableValue(), histogramConfig.getHighestTrackableValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLowestDiscernibleValueTooSmall() {
+        new HistogramConfig(0, SECONDS.toNanos(1), 3, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHighestTrackableValueTooSmall() {
+        new HistogramConfig(1000, 1500, 3, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManySignificantDigits() {
+        new HistogramConfig(1, SECONDS.toNanos(1), 6, false);
+    }
+}
@@ -0,0 +1,105 @@
+package com.hazelcast.simulator.probes.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class OutlierRecorderTest {
+
+    private final OutlierRecorder outlierRecorder = new OutlierRecorder(MILLISECONDS.toNanos(10), 4);
+    private final RecordingHandler handler = new RecordingHandler();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidThreshold() {
+        new OutlierRecorder(0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidBufferSize() {
+        new OutlierRecorder(1, 0);
+    }
+
+    @Test
+    public void testDrain() {
+        outlierRecorder.record("get", MILLISECONDS.toNanos(20));
+        outlierRecorder.record("put", MILLISECONDS.toNanos(30));
+
+        assertEquals(0, outlierRecorder.drain(handler));
+        assertEquals(2, handler.probeNames.size());
+        assertEquals("get", handler.probeNames.get(0));
+        assertEquals("put", handler.probeNames.get(1));
+        assertEquals(MILLISECONDS.toNanos(30), (long) handler.latencies.get(1));
+        assertEquals(Thread.currentThread().getName(), handler.threadNames.get(0));
+
+        // the drained outliers are not returned again
+        handler.probeNames.clear();
+        outlierRecorder.drain(handler);
+        assertEquals(0, handler.probeNames.size());
+    }
+
+    @Test
+    public void testDrain_oldestOutliersAreDropped() {
+        for (int i = 0; i < 6; i++) {
+            outlierRecorder.record("get" + i, MILLISECONDS.toNanos(20));
+        }
+
+        assertEquals(2, outlierRecorder.drain(handler));
+        assertEquals(4, handler.probeNames.size());
+        assertEquals("get2", handler.probeNames.get(0));
+        assertEquals("get5", handler.probeNames.get(3));
+    }
+
+    @Test
+    public void testDrain_discard() {
+        outlierRecorder.record("get", MILLISECONDS.toNanos(20));
+
+        outlierRecorder.drain(null);
+        outlierRecorder.drain(handler);
+
+        assertEquals(0, handler.probeNames.size());
+    }
+
+    @Test
+    public void testHdrProbe() {
+        HdrProbe probe = new HdrProbe(false);
+        probe.setOutlierRecorder("get", outlierRecorder);
+
+        probe.recordValue(MILLISECONDS.toNanos(1));
+        probe.recordValue(MILLISECONDS.toNanos(50));
+
+        outlierRecorder.drain(handler);
+        assertEquals(1, handler.probeNames.size());
+        assertEquals(MILLISECONDS.toNanos(50), (long) handler.latencies.get(0));
+    }
+
+    @Test
+    public void testStripedHdrProbe() {
+        StripedHdrProbe probe = new StripedHdrProbe(false);
+        probe.setOutlierRecorder("get", outlierRecorder);
+
+        probe.recordValue(MILLISECONDS.toNanos(1));
+        probe.recordValue(MILLISECONDS.toNanos(10));
+
+        outlierRecorder.drain(handler);
+        assertEquals(1, handler.probeNames.size());
+        assertEquals("get", handler.probeNames.get(0));
+    }
+
+    private static class RecordingHandler implements OutlierRecorder.Handler {
+
+        private final List<String> threadNames = new ArrayList<String>();
+        private final List<String> probeNames = new ArrayList<String>();
+        private final List<Long> latencies = new ArrayList<Long>();
+
+        @Override
+        public void onOutlier(long timestampMillis, String threadName, String probeName, long latencyNanos) {
+            threadNames.add(threadName);
+            probeNames.add(probeName);
+            latencies.add(latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.hazelcast.simulator.probes.impl;
+
+import com.hazelcast.simulator.probes.Probe;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static com.hazelcast.simulator.probes.impl.HdrProbe.HIGHEST_TRACKABLE_VALUE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StripedHdrProbeTest {
+
+    private StripedHdrProbe probe = new StripedHdrProbe(false);
+
+    @Test
+    public void testConstructor_throughputProbe() {
+        Probe tmpProbe = new StripedHdrProbe(true);
+        assertTrue(tmpProbe.isPartOfTotalThroughput());
+    }
+
+    @Test
+    public void testConstructor_noThroughputProbe() {
+        Probe tmpProbe = new StripedHdrProbe(false);
+        assertFalse(tmpProbe.isPartOfTotalThroughput());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDone_withExternalStarted_withZero() {
+        probe.done(0);
+    }
+
+    @Test
+    public void testDone_withIntendedAndActualStart() {
+        StripedHdrProbe serviceTimeProbe = new StripedHdrProbe(false);
+        StripedHdrProbe probe = new StripedHdrProbe(false, serviceTimeProbe);
+
+        long actualStartNanos = System.nanoTime();
+        long intendedStartNanos = actualStartNanos - MILLISECONDS.toNanos(500);
+        probe.done(intendedStartNanos, actualStartNanos);
+
+        Histogram responseTime = probe.getIntervalHistogram();
+        Histogram serviceTime = serviceTimeProbe.getIntervalHistogram();
+        assertEquals(1, responseTime.getTotalCount());
+        assertEquals(1, serviceTime.getTotalCount());
+        assertTrue(responseTime.getMaxValue() >= MILLISECONDS.toNanos(500));
+        assertTrue(serviceTime.getMaxValue() < responseTime.getMaxValue());
+    }
+
+    @Test
+    public void testDone_withIntendedAndActualStart_withoutServiceTimeProbe() {
+        long actualStartNanos = System.nanoTime();
+        probe.done(actualStartNanos, actualStartNanos);
+
+        assertEquals(1, probe.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testFailed() throws Exception {
+        probe.recordValue(MILLISECONDS.toNanos(10));
+        probe.recordFailedValue(MILLISECONDS.toNanos(2));
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                probe.recordFailedValue(MILLISECONDS.toNanos(3));
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertEquals(1, probe.getIntervalHistogram().getTotalCount());
+        assertEquals(2, probe.getFailureIntervalHistogram(null).getTotalCount());
+    }
+
+    @Test
+    public void testRecordValue() {
+        probe.recordValue(MILLISECONDS.toNanos(200));
+        probe.recordValue(MILLISECONDS.toNanos(500));
+
+        Histogram histogram = probe.getIntervalHistogram();
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(1, probe.stripeCount());
+    }
+
+    @Test
+    public void testRecord_whenTooLarge() {
+        probe.recordValue(HIGHEST_TRACKABLE_VALUE * 2);
+
+        Histogram histogram = probe.getIntervalHistogram();
+        assertEquals(1, histogram.getTotalCount());
+        assertTrue(histogram.getMaxValue() >= HIGHEST_TRACKABLE_VALUE);
+    }
+
+    @Test
+    public void testGetIntervalHistogram_mergesStripes() throws Exception {
+        int threadCount = 4;
+        final int valuesPerThread = 1000;
+        final CountDownLatch completed = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int k = 1; k <= valuesPerThread; k++) {
+                        probe.recordValue(k);
+                    }
+                    completed.countDown();
+                }
+            }.start();
+        }
+        completed.await();
+
+        assertEquals(threadCount, probe.stripeCount());
+        assertEquals(threadCount * valuesPerThread, probe.getIntervalHistogram().getTotalCount());
+        assertEquals(0, probe.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testGetIntervalHistogram_dropsStripeOfEndedThread() throws Exception {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                probe.recordValue(1);
+                probe.recordFailedValue(2);
+            }
+        };
+        thread.start();
+        thread.join();
+        probe.recordValue(3);
+        assertEquals(2, probe.stripeCount());
+
+        assertEquals(2, probe.getIntervalHistogram().getTotalCount());
+        // the stripe is kept until its failures have been merged as well
+        assertEquals(2, probe.stripeCount());
+        assertEquals(1, probe.getFailureIntervalHistogram(null).getTotalCount());
+        assertEquals(1, probe.stripeCount());
+
+        probe.recordValue(4);
+        assertEquals(1, probe.getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testGetIntervalHistogram_withRecycling() {
+        probe.recordValue(1);
+        Histogram first = probe.getIntervalHistogram(null);
+        assertEquals(1, first.getTotalCount());
+
+        probe.recordValue(2);
+        probe.recordValue(3);
+        Histogram second = probe.getIntervalHistogram(first);
+
+        assertSame(first, second);
+        assertEquals(2, second.getTotalCount());
+    }
+
+    @Test
+    public void testReset() {
+        probe.recordValue(1);
+        probe.recordValue(2);
+
+        probe.reset();
+
+        assertEquals(0, probe.getIntervalHistogram().getTotalCount());
+    }
+}
@@ -0,0 +1,62 @@
+package com.hazelcast.simulator.test;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BaseThreadStateTest {
+
+    private final BaseThreadState threadState = new BaseThreadState();
+
+    @Test
+    public void testRandomKeyIndex_multipleKeysWithoutTrace() {
+        int keyIndex1 = threadState.randomKeyIndex(10);
+        int keyIndex2 = threadState.randomKeyIndex(10);
+
+        assertTrue(keyIndex1 >= 0 && keyIndex1 < 10);
+        assertTrue(keyIndex2 >= 0 && keyIndex2 < 10);
+    }
+
+    @Test
+    public void testRandomKeyIndex_whenRecorded() {
+        threadState.initKeyIndex(-1);
+        int keyIndex = threadState.randomKeyIndex(10);
+
+        assertEquals(keyIndex, threadState.getKeyIndex());
+
+        threadState.initKeyIndex(-1);
+        assertEquals(-1, threadState.getKeyIndex());
+    }
+
+    @Test
+    public void testRandomKeyIndex_whenReplayed() {
+        threadState.initKeyIndex(7);
+
+        assertEquals(7, threadState.randomKeyIndex(10));
+        assertEquals(7, threadState.getKeyIndex());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRandomKeyIndex_whenReplayedKeyIndexDoesNotFit() {
+        threadState.initKeyIndex(10);
+
+        threadState.randomKeyIndex(10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRandomKeyIndex_whenRecorded_secondKey() {
+        threadState.initKeyIndex(-1);
+        threadState.randomKeyIndex(10);
+
+        threadState.randomKeyIndex(10);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRandomKeyIndex_whenReplayed_secondKey() {
+        threadState.initKeyIndex(3);
+        threadState.randomKeyIndex(10);
+
+        threadState.randomKeyIndex(10);
+    }
+}
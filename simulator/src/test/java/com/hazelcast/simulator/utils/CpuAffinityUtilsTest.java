@@ -0,0 +1,55 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.currentThreadNativeId;
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.formatCpuSet;
+import static com.hazelcast.simulator.utils.CpuAffinityUtils.parseCpuSet;
+import static com.hazelcast.simulator.utils.ReflectionUtils.invokePrivateConstructor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class CpuAffinityUtilsTest {
+
+    @Test
+    public void testConstructor() throws Exception {
+        invokePrivateConstructor(CpuAffinityUtils.class);
+    }
+
+    @Test
+    public void testParseCpuSet_range() {
+        assertEquals(new TreeSet<Integer>(Arrays.asList(4, 5, 6, 7)), parseCpuSet("4-7"));
+    }
+
+    @Test
+    public void testParseCpuSet_mixed() {
+        assertEquals(new TreeSet<Integer>(Arrays.asList(0, 2, 4, 5, 6)), parseCpuSet("6, 0,2,4-5"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuSet_invalidRange() {
+        parseCpuSet("7-4");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseCpuSet_notNumeric() {
+        parseCpuSet("a-b");
+    }
+
+    @Test
+    public void testFormatCpuSet() {
+        assertEquals("0,2,4,5", formatCpuSet(parseCpuSet("0,2,4-5")));
+    }
+
+    @Test
+    public void testCurrentThreadNativeId() {
+        int nativeThreadId = currentThreadNativeId();
+        assumeTrue(nativeThreadId != -1);
+
+        assertTrue(nativeThreadId > 0);
+    }
+}
@@ -0,0 +1,58 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import static com.hazelcast.simulator.utils.CpuTimeUtils.currentThreadCpuTimeNanos;
+import static com.hazelcast.simulator.utils.CpuTimeUtils.processCpuTimeNanos;
+import static com.hazelcast.simulator.utils.CpuTimeUtils.threadCpuTimeNanos;
+import static com.hazelcast.simulator.utils.ReflectionUtils.invokePrivateConstructor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class CpuTimeUtilsTest {
+
+    @Test
+    public void testConstructor() throws Exception {
+        invokePrivateConstructor(CpuTimeUtils.class);
+    }
+
+    @Test
+    public void testCurrentThreadCpuTime() {
+        long start = currentThreadCpuTimeNanos();
+        assumeTrue(start != -1);
+
+        burnCpu();
+
+        assertTrue(currentThreadCpuTimeNanos() > start);
+    }
+
+    @Test
+    public void testThreadCpuTime() {
+        assumeTrue(currentThreadCpuTimeNanos() != -1);
+
+        assertTrue(threadCpuTimeNanos(Thread.currentThread().getId()) > 0);
+    }
+
+    @Test
+    public void testThreadCpuTime_notExistingThread() {
+        assertEquals(-1, threadCpuTimeNanos(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testProcessCpuTime() {
+        long processCpuTime = processCpuTimeNanos();
+        assumeTrue(processCpuTime != -1);
+
+        assertTrue(processCpuTime >= currentThreadCpuTimeNanos());
+    }
+
+    private static void burnCpu() {
+        long end = System.nanoTime() + 10000000;
+        long value = 0;
+        while (System.nanoTime() < end) {
+            value++;
+        }
+        assertTrue(value > 0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.hazelcast.simulator.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SplitMixRandomTest {
+
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void testSameSeed_sameSequence() {
+        SplitMixRandom random1 = new SplitMixRandom(42);
+        SplitMixRandom random2 = new SplitMixRandom(42);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(random1.nextLong(), random2.nextLong());
+        }
+    }
+
+    @Test
+    public void testSetSeed_restartsSequence() {
+        SplitMixRandom random = new SplitMixRandom(42);
+        long first = random.nextLong();
+
+        random.setSeed(42);
+
+        assertEquals(first, random.nextLong());
+    }
+
+    @Test
+    public void testDifferentSeeds() {
+        assertNotEquals(new SplitMixRandom(1).nextLong(), new SplitMixRandom(2).nextLong());
+    }
+
+    @Test
+    public void testDeriveSeed_isRepeatable() {
+        assertEquals(SplitMixRandom.deriveSeed(42, "producer-0"), SplitMixRandom.deriveSeed(42, "producer-0"));
+    }
+
+    @Test
+    public void testDeriveSeed_differentNames() {
+        assertNotEquals(SplitMixRandom.deriveSeed(42, "producer-0"), SplitMixRandom.deriveSeed(42, "producer-1"));
+        assertNotEquals(SplitMixRandom.deriveSeed(42, "producer-0"), SplitMixRandom.deriveSeed(43, "producer-0"));
+    }
+
+    @Test
+    public void testNextInt_withBound() {
+        SplitMixRandom random = new SplitMixRandom();
+        int[] counts = new int[10];
+        for (int i = 0; i < ITERATIONS; i++) {
+            counts[random.nextInt(counts.length)]++;
+        }
+
+        for (int count : counts) {
+            assertEquals(ITERATIONS / counts.length, count, ITERATIONS / counts.length / 10);
+        }
+    }
+
+    @Test
+    public void testNextDouble() {
+        SplitMixRandom random = new SplitMixRandom();
+        double sum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+            sum += value;
+        }
+
+        assertEquals(0.5, sum / ITERATIONS, 0.01);
+    }
+
+    @Test
+    public void testNextLong53() {
+        SplitMixRandom random = new SplitMixRandom();
+        int belowHalf = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long value = random.nextLong53();
+            assertTrue(value >= 0 && value < 1L << 53);
+            if (value < 1L << 52) {
+                belowHalf++;
+            }
+        }
+
+        assertEquals(ITERATIONS / 2, belowHalf, ITERATIONS / 100);
+    }
+
+    @Test
+    public void testNextBoolean() {
+        SplitMixRandom random = new SplitMixRandom();
+        int trueCount = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (random.nextBoolean()) {
+                trueCount++;
+            }
+        }
+
+        assertEquals(ITERATIONS / 2, trueCount, ITERATIONS / 100);
+    }
+}
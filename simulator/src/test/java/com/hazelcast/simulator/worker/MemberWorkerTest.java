@@ -22,6 +22,8 @@ import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.utils.HazelcastUtils.initClientHzConfig;
 import static com.hazelcast.simulator.utils.HazelcastUtils.initMemberHzConfig;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class MemberWorkerTest {
 
@@ -97,7 +99,7 @@ public class MemberWorkerTest {
         worker = new MemberWorker(MEMBER, PUBLIC_ADDRESS, AGENT_INDEX, WORKER_INDEX, WORKER_PORT, "", false, 10);
         worker.start();
         assertMemberWorker();
-
+        assertTrue(isHiccupMeterRunning());
     }
 
     @Test
@@ -105,6 +107,8 @@ public class MemberWorkerTest {
         worker = new MemberWorker(MEMBER, PUBLIC_ADDRESS, AGENT_INDEX, WORKER_INDEX, WORKER_PORT, "", false, 0);
         worker.start();
         assertMemberWorker();
+        // without a performance monitor nothing reads the hiccups
+        assertFalse(isHiccupMeterRunning());
     }
 
     @Test
@@ -123,6 +127,15 @@ public class MemberWorkerTest {
         assertMemberWorker();
     }
 
+    private static boolean isHiccupMeterRunning() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("HiccupMeter".equals(thread.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void assertMemberWorker() {
         assertEquals(PUBLIC_ADDRESS, worker.getPublicIpAddress());
 
@@ -2,11 +2,17 @@ package com.hazelcast.simulator.worker.metronome;
 
 import org.junit.Test;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import static com.hazelcast.simulator.TestSupport.spawn;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 public abstract class AbstractMetronomeTest {
 
@@ -38,6 +44,63 @@ public abstract class AbstractMetronomeTest {
         testMetronome(intervalMs);
     }
 
+    @Test
+    public void testIntendedStartNanos() {
+        metronome = createMetronome(10, MILLISECONDS);
+
+        metronome.waitForNext();
+        long firstIntendedStartNanos = metronome.intendedStartNanos();
+        metronome.waitForNext();
+        long secondIntendedStartNanos = metronome.intendedStartNanos();
+
+        assertTrue(firstIntendedStartNanos > 0);
+        assertTrue(secondIntendedStartNanos > firstIntendedStartNanos);
+        assertTrue(secondIntendedStartNanos <= System.nanoTime());
+    }
+
+    @Test
+    public void testSetIntervalNanos_slower() {
+        metronome = createMetronome(1, MILLISECONDS);
+        assumeTrue(metronome instanceof AdjustableMetronome);
+
+        metronome.waitForNext();
+        metronome.waitForNext();
+        ((AdjustableMetronome) metronome).setIntervalNanos(MILLISECONDS.toNanos(50));
+
+        long startMillis = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            metronome.waitForNext();
+        }
+        long durationMillis = System.currentTimeMillis() - startMillis;
+
+        // a few requests may have been scheduled with the old interval
+        assertTrue("Expected at least 250 ms, but was " + durationMillis, durationMillis >= 250);
+    }
+
+    @Test
+    public void testSetIntervalNanos_pickedUpWhileWaiting() throws Exception {
+        metronome = createMetronome(1, MILLISECONDS);
+        assumeTrue(metronome instanceof AdjustableMetronome);
+
+        metronome.waitForNext();
+        ((AdjustableMetronome) metronome).setIntervalNanos(SECONDS.toNanos(100));
+
+        Future future = spawn(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                metronome.waitForNext();
+                metronome.waitForNext();
+                return null;
+            }
+        });
+
+        sleepMillis(100);
+        ((AdjustableMetronome) metronome).setIntervalNanos(MILLISECONDS.toNanos(1));
+
+        // without picking up the new interval, the second call would wait for 100 seconds
+        future.get(10, SECONDS);
+    }
+
     private void testMetronome(int intervalMs) {
         // we don't want to measure the first invocation, since it has a random delay
         metronome.waitForNext();
@@ -0,0 +1,38 @@
+package com.hazelcast.simulator.worker.metronome;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArrivalQueueTest {
+
+    private final ArrivalQueue queue = new ArrivalQueue(3);
+
+    @Test
+    public void testPoll_whenEmpty() {
+        assertEquals(ArrivalQueue.EMPTY, queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testOffer_whenFull() {
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void testPoll_isFifo_andWrapsAround() {
+        for (long arrival = 0; arrival < 10; arrival++) {
+            assertTrue(queue.offer(arrival));
+            assertTrue(queue.offer(arrival + 100));
+            assertEquals(arrival, queue.poll());
+            assertEquals(arrival + 100, queue.poll());
+        }
+        assertEquals(ArrivalQueue.EMPTY, queue.poll());
+    }
+}
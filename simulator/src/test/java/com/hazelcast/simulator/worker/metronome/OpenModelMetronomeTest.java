@@ -0,0 +1,79 @@
+package com.hazelcast.simulator.worker.metronome;
+
+import com.hazelcast.simulator.probes.impl.EmptyProbe;
+import com.hazelcast.simulator.test.StopException;
+import com.hazelcast.simulator.worker.metronome.OpenModelMetronome.ArrivalScheduler;
+import com.hazelcast.simulator.worker.testcontainer.TestContextImpl;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpenModelMetronomeTest extends AbstractMetronomeTest {
+
+    private final List<TestContextImpl> testContexts = new LinkedList<TestContextImpl>();
+
+    @After
+    public void tearDown() {
+        for (TestContextImpl testContext : testContexts) {
+            testContext.stop();
+        }
+    }
+
+    @Override
+    public Metronome createMetronome(long interval, TimeUnit unit) {
+        ArrivalScheduler scheduler = newScheduler(unit.toNanos(interval), false, 100);
+        return new OpenModelMetronome(new OpenModelMetronome(scheduler));
+    }
+
+    @Test
+    public void testArrivalsAreDropped_whenBacklogIsFull() {
+        OpenModelMetronome metronome = new OpenModelMetronome(newScheduler(MILLISECONDS.toNanos(1), false, 10));
+
+        metronome.waitForNext();
+        sleepMillis(200);
+
+        assertEquals(10, metronome.backlog());
+        assertTrue("expected dropped arrivals", metronome.droppedCount() > 0);
+    }
+
+    @Test
+    public void testArrivalsDontDependOnThreads_withPoisson() {
+        long intervalNanos = MILLISECONDS.toNanos(1);
+        OpenModelMetronome metronome = new OpenModelMetronome(newScheduler(intervalNanos, true, 1000));
+
+        long firstNanos = metronome.waitForNext();
+        // a blocked thread doesn't stop the arrivals, so it picks them up later with their original arrival time
+        sleepMillis(100);
+        long lastNanos = firstNanos;
+        for (int i = 0; i < 10; i++) {
+            long nanos = metronome.waitForNext();
+            assertTrue(nanos >= lastNanos);
+            lastNanos = nanos;
+        }
+        assertTrue(System.nanoTime() - lastNanos > MILLISECONDS.toNanos(50));
+    }
+
+    @Test(expected = StopException.class)
+    public void testStop() {
+        OpenModelMetronome metronome = new OpenModelMetronome(
+                newScheduler(TimeUnit.SECONDS.toNanos(10), false, 10));
+        metronome.waitForNext();
+        testContexts.get(0).stop();
+
+        metronome.waitForNext();
+    }
+
+    private ArrivalScheduler newScheduler(long intervalNanos, boolean poisson, int maxBacklog) {
+        TestContextImpl testContext = new TestContextImpl(null, "OpenModelMetronomeTest", "localhost", null);
+        testContexts.add(testContext);
+        return new ArrivalScheduler(intervalNanos, true, poisson, maxBacklog, testContext, EmptyProbe.INSTANCE);
+    }
+}
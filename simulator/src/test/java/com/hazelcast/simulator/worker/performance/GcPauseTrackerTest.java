@@ -0,0 +1,34 @@
+package com.hazelcast.simulator.worker.performance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GcPauseTrackerTest {
+
+    private final GcPauseTracker gcPauseTracker = new GcPauseTracker();
+
+    @Test
+    public void testOverlaps() {
+        gcPauseTracker.add(1000, 1200);
+
+        assertTrue(gcPauseTracker.overlaps(900, 1100));
+        assertTrue(gcPauseTracker.overlaps(1100, 1300));
+        assertTrue(gcPauseTracker.overlaps(900, 1300));
+        assertFalse(gcPauseTracker.overlaps(500, 900));
+        assertFalse(gcPauseTracker.overlaps(1300, 1500));
+    }
+
+    @Test
+    public void testOverlaps_noGc() {
+        assertFalse(gcPauseTracker.overlaps(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testStartAndStop() {
+        gcPauseTracker.start();
+        System.gc();
+        gcPauseTracker.stop();
+    }
+}
@@ -0,0 +1,65 @@
+package com.hazelcast.simulator.worker.performance;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
+import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HiccupMeterTest {
+
+    private HiccupMeter hiccupMeter;
+
+    @Before
+    public void before() {
+        setupFakeUserDir();
+
+        hiccupMeter = new HiccupMeter(getUserDir(), MILLISECONDS.toNanos(1));
+    }
+
+    @After
+    public void after() {
+        hiccupMeter.shutdown();
+
+        teardownFakeUserDir();
+    }
+
+    @Test
+    public void testUpdate() {
+        hiccupMeter.start();
+        sleepMillis(200);
+
+        long nowMillis = System.currentTimeMillis();
+        hiccupMeter.update(nowMillis - 200, nowMillis);
+
+        assertTrue(hiccupMeter.intervalHiccupMaxNanos() >= 0);
+        assertTrue(hiccupMeter.intervalHiccup999PercentileNanos() <= hiccupMeter.intervalHiccupMaxNanos());
+
+        File file = new File(getUserDir(), "hiccup.hdr");
+        assertTrue(file.exists());
+        assertTrue(fileAsText(file).contains("[Hiccup histograms]"));
+    }
+
+    @Test
+    public void testUpdate_noHiccupsRecorded() {
+        long nowMillis = System.currentTimeMillis();
+        hiccupMeter.update(nowMillis - 1000, nowMillis);
+
+        assertEquals(-1, hiccupMeter.intervalHiccup999PercentileNanos());
+        assertEquals(-1, hiccupMeter.intervalHiccupMaxNanos());
+    }
+
+    @Test
+    public void testShutdown_notStarted() {
+        hiccupMeter.shutdown();
+    }
+}
@@ -18,6 +18,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -27,7 +28,10 @@ import static com.hazelcast.simulator.protocol.core.SimulatorAddress.COORDINATOR
 import static com.hazelcast.simulator.utils.CommonUtils.joinThread;
 import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
 import static com.hazelcast.simulator.utils.EmptyStatement.ignore;
+import static com.hazelcast.simulator.utils.FileUtils.fileAsText;
+import static com.hazelcast.simulator.utils.FileUtils.getUserDir;
 import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
@@ -123,6 +127,65 @@ public class PerformanceMonitorTest {
         performanceMonitor.shutdown();
     }
 
+    @Test
+    public void test_whenTestCompleted_thenOutliersAfterLastIntervalAreWritten() {
+        // the update interval is longer than the test, so the test doesn't complete a single interval
+        performanceMonitor = new PerformanceMonitor(serverConnector, tests.values(), 60);
+        performanceMonitor.start();
+
+        TestContext testContext = addTest(new DummyTest(), newOutlierTestCase(), 0);
+        final TestContainer testContainer = tests.get(TEST_NAME);
+
+        Thread runTestThread = new RunTestThread();
+        runTestThread.start();
+        sleepMillis(1000);
+        testContext.stop();
+        joinThread(runTestThread);
+
+        // every call of the DummyTest is an outlier; the outliers of the first calls can be discarded as warmup
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                int outlierCount = outlierCount();
+                assertTrue("outlierCount: " + outlierCount, outlierCount > 0);
+                assertTrue("outlierCount: " + outlierCount, outlierCount >= testContainer.iteration() - 1);
+            }
+        });
+    }
+
+    @Test
+    public void test_whenShutdown_thenOutliersOfRunningTestAreWritten() {
+        performanceMonitor = new PerformanceMonitor(serverConnector, tests.values(), 60);
+        performanceMonitor.start();
+
+        TestContext testContext = addTest(new DummyTest(), newOutlierTestCase(), 0);
+        Thread runTestThread = new RunTestThread();
+        runTestThread.start();
+        sleepMillis(1000);
+
+        performanceMonitor.shutdown();
+
+        assertTrue("outlierCount: " + outlierCount(), outlierCount() > 0);
+
+        testContext.stop();
+        joinThread(runTestThread);
+    }
+
+    private static TestCase newOutlierTestCase() {
+        return new TestCase(TEST_NAME)
+                .setProperty("threadCount", 1)
+                .setProperty("outlierThreshold", "50ms");
+    }
+
+    private static int outlierCount() {
+        File file = new File(getUserDir(), "outliers-" + TEST_NAME + ".csv");
+        if (!file.exists()) {
+            return 0;
+        }
+        // the first line is the header
+        return fileAsText(file).split("\n").length - 1;
+    }
+
     private TestContext addTest(Object test) {
         return addTest(test, 0);
     }
@@ -130,6 +193,10 @@ public class PerformanceMonitorTest {
     private DelayTestContext addTest(Object test, int delayMillis) {
         TestCase testCase = new TestCase(TEST_NAME);
         testCase.setProperty("threadCount", 1);
+        return addTest(test, testCase, delayMillis);
+    }
+
+    private DelayTestContext addTest(Object test, TestCase testCase, int delayMillis) {
         DelayTestContext testContext = new DelayTestContext(delayMillis);
         TestContainer testContainer = new TestContainer(testContext, test, testCase);
 
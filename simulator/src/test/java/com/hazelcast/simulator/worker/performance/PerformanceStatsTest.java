@@ -3,6 +3,7 @@ package com.hazelcast.simulator.worker.performance;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -27,6 +28,116 @@ public class PerformanceStatsTest {
         assertEquals(200, addState.getIntervalLatencyMaxNanos());
     }
 
+    @Test
+    public void testAdd_withServiceTime() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        addState.setIntervalServiceTime(75.0d, 50, 100);
+
+        PerformanceStats other = new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100);
+        other.setIntervalServiceTime(85.0d, 40, 90);
+        addState.add(other);
+
+        assertTrue(addState.hasServiceTime());
+        assertEquals(85.0d, addState.getIntervalServiceTimeAvgNanos(), 0.00001);
+        assertEquals(50, addState.getIntervalServiceTime999PercentileNanos());
+        assertEquals(100, addState.getIntervalServiceTimeMaxNanos());
+    }
+
+    @Test
+    public void testAdd_withServiceTime_toEmptyState() {
+        PerformanceStats addState = new PerformanceStats();
+
+        PerformanceStats other = new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500);
+        other.setIntervalServiceTime(85.0d, 40, 90);
+        addState.add(other);
+
+        assertTrue(addState.hasServiceTime());
+        assertEquals(85.0d, addState.getIntervalServiceTimeAvgNanos(), 0.00001);
+        assertEquals(40, addState.getIntervalServiceTime999PercentileNanos());
+        assertEquals(90, addState.getIntervalServiceTimeMaxNanos());
+    }
+
+    @Test
+    public void testHasServiceTime_notSet() {
+        assertFalse(new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500).hasServiceTime());
+    }
+
+    @Test
+    public void testAdd_withCorrectedLatency() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        addState.setIntervalCorrectedLatency(500, 900);
+
+        PerformanceStats other = new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100);
+        other.setIntervalCorrectedLatency(600, 800);
+        addState.add(other);
+
+        assertTrue(addState.hasCorrectedLatency());
+        assertEquals(600, addState.getIntervalCorrectedLatency999PercentileNanos());
+        assertEquals(900, addState.getIntervalCorrectedLatencyMaxNanos());
+    }
+
+    @Test
+    public void testHasCorrectedLatency_notSet() {
+        assertFalse(new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500).hasCorrectedLatency());
+    }
+
+    @Test
+    public void testAdd_withCpuTime() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        addState.setCpuTime(10, 40);
+
+        PerformanceStats other = new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100);
+        other.setCpuTime(20, 30);
+        addState.add(other);
+
+        assertTrue(addState.hasCpuTime());
+        assertEquals(20, addState.getIntervalCpuMicrosPerOperation(), 0.00001);
+        assertEquals(40, addState.getIntervalProcessCpuMicrosPerOperation(), 0.00001);
+        assertEquals(50000, addState.getIntervalOperationsPerCpuSecond(), 0.00001);
+        assertEquals(25000, addState.getIntervalOperationsPerProcessCpuSecond(), 0.00001);
+    }
+
+    @Test
+    public void testHasCpuTime_notSet() {
+        PerformanceStats performanceStats = new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500);
+
+        assertFalse(performanceStats.hasCpuTime());
+        assertEquals(-1, performanceStats.getIntervalOperationsPerCpuSecond(), 0.00001);
+    }
+
+    @Test
+    public void testAdd_withHiccup() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        addState.setIntervalHiccup(300, 1000);
+
+        PerformanceStats other = new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100);
+        other.setIntervalHiccup(400, 700);
+        addState.add(other);
+
+        assertTrue(addState.hasHiccup());
+        assertEquals(400, addState.getIntervalHiccup999PercentileNanos());
+        assertEquals(1000, addState.getIntervalHiccupMaxNanos());
+    }
+
+    @Test
+    public void testHasHiccup_notSet() {
+        assertFalse(new PerformanceStats(100, 5.0, 10.0, 450.0d, 400, 500).hasHiccup());
+    }
+
+    @Test
+    public void testAdd_withFailures() {
+        PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 175.0d, 150, 200);
+        addState.setFailures(10, 0.1, 300);
+
+        PerformanceStats other = new PerformanceStats(150, 6.0, 12.0, 90.0d, 80, 100);
+        other.setFailures(5, 0.2, 250);
+        addState.add(other);
+
+        assertEquals(15, addState.getFailureCount());
+        assertEquals(0.2, addState.getIntervalErrorRate(), 0.00001);
+        assertEquals(300, addState.getIntervalFailureLatency999PercentileNanos());
+    }
+
     @Test
     public void testAdd_emptyState() {
         PerformanceStats addState = new PerformanceStats(100, 5.0, 10.0, 550.0d, 300, 800);
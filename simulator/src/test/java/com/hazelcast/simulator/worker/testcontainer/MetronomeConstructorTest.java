@@ -93,4 +93,61 @@ public class MetronomeConstructorTest {
         Metronome m = metronomeConstructor.newInstance();
         assertEquals(EmptyMetronome.class, m.getClass());
     }
+
+    @Test
+    public void testSetIntervalNanos() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo").setProperty("interval", "20ns"));
+        MetronomeConstructor metronomeConstructor = new MetronomeConstructor("", propertyBinding, 10);
+        SleepingMetronome metronome = (SleepingMetronome) metronomeConstructor.newInstance();
+
+        assertEquals(20, metronomeConstructor.setIntervalNanos(50));
+
+        assertEquals(50, metronomeConstructor.getIntervalNanos());
+        // the running metronomes share the interval with the master metronome
+        assertEquals(500, metronome.getIntervalNanos());
+        assertEquals(500, ((SleepingMetronome) metronomeConstructor.newInstance()).getIntervalNanos());
+    }
+
+    @Test
+    public void testSetThreadCount() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo").setProperty("interval", "20ns"));
+        MetronomeConstructor metronomeConstructor = new MetronomeConstructor("", propertyBinding, 2);
+        SleepingMetronome metronome = (SleepingMetronome) metronomeConstructor.newInstance();
+
+        metronomeConstructor.setThreadCount(4);
+        assertEquals(80, metronome.getIntervalNanos());
+
+        metronomeConstructor.setIntervalNanos(10);
+        assertEquals(40, metronome.getIntervalNanos());
+
+        metronomeConstructor.setThreadCount(0);
+        assertEquals(10, metronome.getIntervalNanos());
+        assertEquals(10, metronomeConstructor.getIntervalNanos());
+    }
+
+    @Test
+    public void testSetThreadCount_whenZeroInterval() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo"));
+        MetronomeConstructor metronomeConstructor = new MetronomeConstructor("", propertyBinding, 5);
+
+        metronomeConstructor.setThreadCount(2);
+
+        assertEquals(EmptyMetronome.class, metronomeConstructor.newInstance().getClass());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetIntervalNanos_whenZeroInterval() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo"));
+        MetronomeConstructor metronomeConstructor = new MetronomeConstructor("", propertyBinding, 5);
+
+        metronomeConstructor.setIntervalNanos(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetIntervalNanos_notPositive() {
+        PropertyBinding propertyBinding = new PropertyBinding(new TestCase("foo").setProperty("interval", "20ns"));
+        MetronomeConstructor metronomeConstructor = new MetronomeConstructor("", propertyBinding, 1);
+
+        metronomeConstructor.setIntervalNanos(0);
+    }
 }
@@ -2,13 +2,12 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import org.junit.Test;
 
-import java.util.Arrays;
-
+import static com.hazelcast.simulator.worker.testcontainer.Probability.THRESHOLD_RANGE;
 import static com.hazelcast.simulator.worker.testcontainer.Probability.methodProbabilitiesToMethodRatios;
-import static com.hazelcast.simulator.worker.testcontainer.Probability.ratiosToMethodProbabilityArray;
-import static java.lang.String.format;
+import static com.hazelcast.simulator.worker.testcontainer.Probability.ratiosToThresholds;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.assertTrue;
 
 public class ProbabilityTest {
 
@@ -100,31 +99,39 @@ public class ProbabilityTest {
 
 
     @Test
-    public void toMethodProbabilityArray() {
-        assertMethodProbabilityArray(1, 99);
-        assertMethodProbabilityArray(10, 90);
-        assertMethodProbabilityArray(1, 900, 100, 9, 99);
+    public void toThresholds_matchRatios() {
+        assertThresholds(1, 99);
+        assertThresholds(10, 90);
+        assertThresholds(1, 900, 100, 9, 99);
+        assertThresholds(1, 999999);
     }
 
-    public void assertMethodProbabilityArray(int... ratios) {
-        byte[] probabilityArray = ratiosToMethodProbabilityArray(ratios);
+    private void assertThresholds(int... ratios) {
+        long[] thresholds = ratiosToThresholds(ratios);
+        assertEquals(ratios.length - 1, thresholds.length);
 
-        int[] remainingMethodRatios = Arrays.copyOf(ratios, ratios.length);
+        int total = 0;
+        for (int ratio : ratios) {
+            total += ratio;
+        }
 
-        for (int k = 0; k < probabilityArray.length; k++) {
-            int methodIndex = probabilityArray[k];
-            if (methodIndex >= remainingMethodRatios.length) {
-                fail("Unknown method " + methodIndex);
-            }
+        // the range of random values selecting a method has to match the share of the method
+        long previousThreshold = 0;
+        for (int methodIndex = 0; methodIndex < ratios.length; methodIndex++) {
+            long threshold = methodIndex < thresholds.length ? thresholds[methodIndex] : THRESHOLD_RANGE;
+            assertTrue(threshold >= previousThreshold);
 
-            remainingMethodRatios[methodIndex]--;
+            double share = (double) (threshold - previousThreshold) / THRESHOLD_RANGE;
+            assertEquals((double) ratios[methodIndex] / total, share, 1e-12);
+            previousThreshold = threshold;
         }
+    }
 
-        // make sure that everything is 0
-        for (int methodIndex = 0; methodIndex < remainingMethodRatios.length; methodIndex++) {
-            if (remainingMethodRatios[methodIndex] != 0) {
-                fail(format("remaining ratio [%s] for method [%s]", remainingMethodRatios[methodIndex], methodIndex));
-            }
-        }
+    @Test
+    public void toThresholds() {
+        assertArrayEquals(new long[]{THRESHOLD_RANGE / 100}, ratiosToThresholds(1, 99));
+        assertArrayEquals(new long[]{THRESHOLD_RANGE / 2}, ratiosToThresholds(1, 1));
+        assertArrayEquals(new long[]{THRESHOLD_RANGE / 4, THRESHOLD_RANGE / 4, THRESHOLD_RANGE / 2},
+                ratiosToThresholds(1, 0, 1, 2));
     }
-}
\ No newline at end of file
+}
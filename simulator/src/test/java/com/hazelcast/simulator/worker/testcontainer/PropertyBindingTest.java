@@ -1,9 +1,18 @@
 package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.AllocationMeter;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.probes.impl.HistogramConfig;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
 import org.junit.Test;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class PropertyBindingTest {
     @Test
@@ -74,4 +83,129 @@ public class PropertyBindingTest {
 
         assertEquals(false, binding.loadAsBoolean("booleanValue", true));
     }
+
+    @Test
+    public void loadAsNanos_existing() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("durationValue", "5us");
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        assertEquals(MICROSECONDS.toNanos(5), binding.loadAsNanos("durationValue", 10));
+    }
+
+    @Test
+    public void getHistogramConfig_default() {
+        TestCase testCase = new TestCase("foo");
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        HistogramConfig histogramConfig = binding.getHistogramConfig("get");
+
+        assertEquals(HistogramConfig.DEFAULT.getLowestDiscernibleValue(), histogramConfig.getLowestDiscernibleValue());
+        assertEquals(HistogramConfig.DEFAULT.getHighestTrackableValue(), histogramConfig.getHighestTrackableValue());
+        assertEquals(HistogramConfig.DEFAULT.getNumberOfSignificantValueDigits(),
+                histogramConfig.getNumberOfSignificantValueDigits());
+        assertFalse(histogramConfig.isAutoResize());
+    }
+
+    @Test
+    public void getHistogramConfig_perProbeOverride() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("latencyLowestDiscernibleValue", "1ns")
+                .setProperty("latencyHighestTrackableValue", "10s")
+                .setProperty("getLatencySignificantDigits", 2)
+                .setProperty("getLatencyAutoResize", true);
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        HistogramConfig putConfig = binding.getHistogramConfig("put");
+        assertEquals(1, putConfig.getLowestDiscernibleValue());
+        assertEquals(SECONDS.toNanos(10), putConfig.getHighestTrackableValue());
+        assertEquals(3, putConfig.getNumberOfSignificantValueDigits());
+        assertFalse(putConfig.isAutoResize());
+
+        HistogramConfig getConfig = binding.getHistogramConfig("get");
+        assertEquals(SECONDS.toNanos(10), getConfig.getHighestTrackableValue());
+        assertEquals(2, getConfig.getNumberOfSignificantValueDigits());
+        assertTrue(getConfig.isAutoResize());
+
+        binding.ensureNoUnusedProperties();
+    }
+
+    @Test
+    public void getHistogramConfig_autoResize_ignoresDefaultLowestDiscernibleValue() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("getLatencyAutoResize", true);
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        HistogramConfig histogramConfig = binding.getHistogramConfig("get");
+
+        assertTrue(histogramConfig.isAutoResize());
+        assertEquals(1, histogramConfig.getLowestDiscernibleValue());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void getHistogramConfig_autoResize_withLowestDiscernibleValue() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("getLatencyAutoResize", true)
+                .setProperty("getLatencyLowestDiscernibleValue", "1us");
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        binding.getHistogramConfig("get");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void getHistogramConfig_invalidSignificantDigits() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("latencySignificantDigits", 6);
+
+        new PropertyBinding(testCase);
+    }
+
+    @Test
+    public void getOrCreateProbe_usesHistogramConfig() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("getLatencyLowestDiscernibleValue", "1ns");
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        StripedHdrProbe probe = (StripedHdrProbe) binding.getOrCreateProbe("get", false);
+
+        assertEquals(1, probe.getHistogramConfig().getLowestDiscernibleValue());
+    }
+
+    @Test
+    public void getOrCreateProbe_withoutStripedProbes() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("stripedProbes", false);
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        assertEquals(HdrProbe.class, binding.getProbeClass());
+        assertEquals(HdrProbe.class, binding.getOrCreateProbe("get", false).getClass());
+    }
+
+    @Test
+    public void ensureNoUnusedProperties_ignoresSlaProperties() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("sla.p999", "5ms")
+                .setProperty("sla.minThroughput", 1000);
+        PropertyBinding binding = new PropertyBinding(testCase);
+
+        binding.ensureNoUnusedProperties();
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void allocationSampleInterval_invalid() {
+        TestCase testCase = new TestCase("foo")
+                .setProperty("allocationSampleInterval", 0);
+
+        new PropertyBinding(testCase);
+    }
+
+    @Test
+    public void getOrCreateAllocationMeter() {
+        PropertyBinding binding = new PropertyBinding(new TestCase("foo"));
+
+        AllocationMeter allocationMeter = binding.getOrCreateAllocationMeter("get");
+
+        assertSame(allocationMeter, binding.getOrCreateAllocationMeter("get"));
+        assertSame(allocationMeter, binding.getAllocationMeterMap().get("get"));
+    }
 }
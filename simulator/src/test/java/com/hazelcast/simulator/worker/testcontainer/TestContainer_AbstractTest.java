@@ -2,6 +2,7 @@ package com.hazelcast.simulator.worker.testcontainer;
 
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
 import com.hazelcast.simulator.protocol.connector.WorkerConnector;
 import com.hazelcast.simulator.test.TestContext;
 import com.hazelcast.simulator.test.annotations.Run;
@@ -14,6 +15,8 @@ import java.io.File;
 
 import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
 import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
 import static org.mockito.Mockito.mock;
 
 public abstract class TestContainer_AbstractTest {
@@ -45,6 +48,32 @@ public abstract class TestContainer_AbstractTest {
         return new TestContainer(testContext, test, testCase);
     }
 
+    /**
+     * Creates a container with a test context for the id of the test case and invokes the setup phase.
+     */
+    <T> TestContainer setupTestContainer(T test, TestCase testCase) throws Exception {
+        TestContextImpl context = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        TestContainer container = new TestContainer(context, test, testCase);
+        container.invoke(SETUP);
+        return container;
+    }
+
+    /**
+     * Creates a container like {@link #setupTestContainer(Object, TestCase)}, invokes all phases and checks that no
+     * exceptions were reported.
+     */
+    <T> TestContainer runTestContainer(T test, TestCase testCase) throws Exception {
+        TestContainer container = setupTestContainer(test, testCase);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertNoExceptions();
+        return container;
+    }
+
     public static class BaseTest {
 
         boolean runCalled;
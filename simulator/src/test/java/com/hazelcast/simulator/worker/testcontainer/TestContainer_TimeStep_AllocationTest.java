@@ -0,0 +1,74 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.AllocationMeter;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests that the bytes allocated per call are measured per timestep method.
+ */
+public class TestContainer_TimeStep_AllocationTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        assumeTrue(AllocationMeter.isSupported());
+
+        TestCase testCase = new TestCase("allocationTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 10000)
+                .setProperty("measureAllocations", true)
+                .setProperty("allocationSampleInterval", 10)
+                .setProperty("class", AllocatingTest.class);
+
+        TestContainer container = runTestContainer(new AllocatingTest(), testCase);
+        Map<String, AllocationMeter> allocationMeterMap = container.getPropertyBinding().getAllocationMeterMap();
+
+        AllocationMeter allocatingMeter = allocationMeterMap.get("allocating");
+        AllocationMeter nonAllocatingMeter = allocationMeterMap.get("nonAllocating");
+        assertTrue(allocatingMeter.getSampleCount() > 0);
+        assertTrue(nonAllocatingMeter.getSampleCount() > 0);
+        // one out of every 10 calls of the thread is sampled
+        long sampleCount = allocatingMeter.getSampleCount() + nonAllocatingMeter.getSampleCount();
+        assertTrue("sampleCount was " + sampleCount, sampleCount >= 999 && sampleCount <= 1000);
+
+        long bytesPerOperation = allocatingMeter.getAllocatedBytes() / allocatingMeter.getSampleCount();
+        assertTrue("bytesPerOperation was " + bytesPerOperation, bytesPerOperation >= 1000);
+        assertTrue("bytesPerOperation was " + bytesPerOperation, bytesPerOperation < 1100);
+        assertEquals(0, nonAllocatingMeter.getAllocatedBytes());
+    }
+
+    @Test
+    public void test_disabled() throws Exception {
+        TestCase testCase = new TestCase("allocationTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 10000)
+                .setProperty("class", AllocatingTest.class);
+
+        TestContainer container = runTestContainer(new AllocatingTest(), testCase);
+        Map<String, AllocationMeter> allocationMeterMap = container.getPropertyBinding().getAllocationMeterMap();
+
+        assertTrue(allocationMeterMap.isEmpty());
+    }
+
+    public static class AllocatingTest extends AbstractTest {
+
+        private volatile Object sink;
+
+        @TimeStep(prob = 0.5)
+        public void allocating() {
+            sink = new byte[1000];
+        }
+
+        @TimeStep(prob = -1)
+        public void nonAllocating() {
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.Teardown;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static com.hazelcast.simulator.TestSupport.spawn;
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.SERVICE_TIME_PROBE_SUFFIX;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that async timestep calls are bounded by the in flight window and are counted and recorded when they complete.
+ */
+public class TestContainer_TimeStep_AsyncTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void testAsync() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("asyncTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 1000)
+                .setProperty("maxInFlight", 4)
+                .setProperty("stripedProbes", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertEquals(1000, testInstance.calls.get());
+        assertEquals(0, testInstance.inFlight.get());
+        assertTrue("maxInFlight exceeded: " + testInstance.maxInFlight.get(), testInstance.maxInFlight.get() <= 4);
+        assertEquals(1000, container.iteration());
+
+        HdrProbe probe = assertInstanceOf(HdrProbe.class, container.getProbeMap().get("timeStep"));
+        assertEquals(1000, probe.getRecorder().getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testAsync_withServiceTime() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("asyncTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("ratePerSecond", 10000)
+                .setProperty("measureServiceTime", true)
+                .setProperty("stripedProbes", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        HdrProbe probe = assertInstanceOf(HdrProbe.class, container.getProbeMap().get("timeStep"));
+        HdrProbe serviceTimeProbe = assertInstanceOf(HdrProbe.class,
+                container.getProbeMap().get("timeStep" + SERVICE_TIME_PROBE_SUFFIX));
+        assertEquals(100, probe.getRecorder().getIntervalHistogram().getTotalCount());
+        assertEquals(100, serviceTimeProbe.getRecorder().getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testAsync_withMultipleThreads() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("asyncTest")
+                .setProperty("threadCount", 3)
+                .setProperty("iterations", 500)
+                .setProperty("maxInFlight", 2)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertEquals(1500, testInstance.calls.get());
+        assertTrue("maxInFlight exceeded: " + testInstance.maxInFlight.get(), testInstance.maxInFlight.get() <= 6);
+        assertEquals(1500, container.iteration());
+    }
+
+    @Test
+    public void testAsync_withSyncMethodAndBatchSize() throws Exception {
+        MixedTest testInstance = new MixedTest();
+        TestCase testCase = new TestCase("mixedTest")
+                .setProperty("threadCount", 2)
+                .setProperty("iterations", 1000)
+                .setProperty("batchSize", 10)
+                .setProperty("asyncProb", 0.5)
+                .setProperty("syncProb", 0.5)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertEquals(2000, testInstance.calls.get() + testInstance.syncCalls.get());
+        assertEquals(2000, container.iteration());
+    }
+
+    @Test
+    public void testAsync_iterationNeverDecreases() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("asyncTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 20000)
+                .setProperty("batchSize", 100)
+                .setProperty("maxInFlight", 8)
+                .setProperty("class", testInstance.getClass());
+
+        final TestContainer container = setupTestContainer(testInstance, testCase);
+        Future future = spawn(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                container.invoke(RUN);
+                return null;
+            }
+        });
+
+        long lastIteration = 0;
+        while (!future.isDone()) {
+            long iteration = container.iteration();
+            assertTrue(format("iteration decreased from %d to %d", lastIteration, iteration), iteration >= lastIteration);
+            lastIteration = iteration;
+        }
+        future.get();
+
+        assertEquals(20000, container.iteration());
+        container.invoke(TestPhase.LOCAL_TEARDOWN);
+        assertNoExceptions();
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testMaxInFlight_invalid() throws Exception {
+        AsyncTest testInstance = new AsyncTest();
+        TestCase testCase = new TestCase("asyncTest")
+                .setProperty("maxInFlight", 0)
+                .setProperty("class", testInstance.getClass());
+
+        runTestContainer(testInstance, testCase);
+    }
+
+    public static class AsyncTest extends AbstractTest {
+        private final ExecutorService executor = newFixedThreadPool(2);
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @TimeStep
+        public ICompletableFuture timeStep() {
+            calls.incrementAndGet();
+            int current = inFlight.incrementAndGet();
+            for (; ; ) {
+                int max = maxInFlight.get();
+                if (current <= max || maxInFlight.compareAndSet(max, current)) {
+                    break;
+                }
+            }
+            return new CompletingFuture(executor, inFlight);
+        }
+
+        @Teardown
+        public void teardown() throws Exception {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    public static class MixedTest extends AbstractTest {
+        private final ExecutorService executor = newFixedThreadPool(2);
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong syncCalls = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        @TimeStep
+        public ICompletableFuture async() {
+            calls.incrementAndGet();
+            inFlight.incrementAndGet();
+            return new CompletingFuture(executor, inFlight);
+        }
+
+        @TimeStep
+        public void sync() {
+            syncCalls.incrementAndGet();
+        }
+
+        @Teardown
+        public void teardown() throws Exception {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Completes on another thread as soon as a callback is registered.
+     */
+    private static final class CompletingFuture implements ICompletableFuture<Object> {
+
+        private final Executor executor;
+        private final AtomicInteger inFlight;
+
+        private CompletingFuture(Executor executor, AtomicInteger inFlight) {
+            this.executor = executor;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void andThen(ExecutionCallback<Object> callback) {
+            andThen(callback, executor);
+        }
+
+        @Override
+        public void andThen(final ExecutionCallback<Object> callback, Executor executor) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    inFlight.decrementAndGet();
+                    callback.onResponse(null);
+                }
+            });
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public Object get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that batched timestep calls respect the iteration cap and that sampled latencies are recorded for every call.
+ */
+public class TestContainer_TimeStep_BatchTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void testBatchSize_iterationCapIsExact() throws Exception {
+        BatchTest testInstance = new BatchTest();
+        TestCase testCase = new TestCase("batchTest")
+                .setProperty("threadCount", 2)
+                .setProperty("iterations", 1000)
+                .setProperty("batchSize", 7)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertEquals(2000, testInstance.count.get());
+        assertEquals(2000, container.iteration());
+    }
+
+    @Test
+    public void testLatencySampleInterval_fromAnnotation() throws Exception {
+        SampledTest testInstance = new SampledTest();
+        TestCase testCase = new TestCase("sampledTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 1000)
+                .setProperty("stripedProbes", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertEquals(1000, testInstance.count.get());
+        // only 100 calls are timed, but every timed call counts for 10 calls
+        assertEquals(1000, recordedCount(container, "sampled"));
+    }
+
+    @Test
+    public void testLatencySampleInterval_fromProperty_withBatchSize() throws Exception {
+        SampledTest testInstance = new SampledTest();
+        TestCase testCase = new TestCase("sampledTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 1000)
+                .setProperty("batchSize", 30)
+                .setProperty("sampledLatencySampleInterval", 5)
+                .setProperty("stripedProbes", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertEquals(1000, testInstance.count.get());
+        assertEquals(1000, recordedCount(container, "sampled"));
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testBatchSize_invalid() throws Exception {
+        BatchTest testInstance = new BatchTest();
+        TestCase testCase = new TestCase("batchTest")
+                .setProperty("batchSize", 0)
+                .setProperty("class", testInstance.getClass());
+
+        runTestContainer(testInstance, testCase);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testLatencySampleInterval_invalid() throws Exception {
+        SampledTest testInstance = new SampledTest();
+        TestCase testCase = new TestCase("sampledTest")
+                .setProperty("sampledLatencySampleInterval", 0)
+                .setProperty("class", testInstance.getClass());
+
+        runTestContainer(testInstance, testCase);
+    }
+
+    private static long recordedCount(TestContainer container, String probeName) {
+        HdrProbe probe = assertInstanceOf(HdrProbe.class, container.getProbeMap().get(probeName));
+        Histogram histogram = probe.getRecorder().getIntervalHistogram();
+        return histogram.getTotalCount();
+    }
+
+    public static class BatchTest extends AbstractTest {
+        private final AtomicLong count = new AtomicLong();
+
+        @TimeStep
+        public void timeStep() {
+            count.incrementAndGet();
+        }
+    }
+
+    public static class SampledTest extends AbstractTest {
+        private final AtomicLong count = new AtomicLong();
+
+        @TimeStep(latencySampleInterval = 10)
+        public void sampled() {
+            count.incrementAndGet();
+        }
+    }
+}
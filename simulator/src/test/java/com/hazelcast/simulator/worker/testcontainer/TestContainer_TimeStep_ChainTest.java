@@ -0,0 +1,133 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests that a timestep chain calls its steps in order and records the latency of the chain and of every step.
+ */
+public class TestContainer_TimeStep_ChainTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        ChainTest testInstance = new ChainTest();
+        TestContainer container = runTestContainer(testInstance, new TestCase("chainTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("class", testInstance.getClass()));
+
+        assertEquals(0, testInstance.chainCalls.get());
+        assertEquals(100, testInstance.threadState.calls.size());
+        for (List<String> calls : testInstance.threadState.calls) {
+            assertEquals(asList("lock", "get", "put", "unlock"), calls);
+        }
+
+        assertEquals(100, getProbe(container, "update").getIntervalHistogram().getTotalCount());
+        for (String step : asList("lock", "get", "put", "unlock")) {
+            assertEquals(100, getProbe(container, "update-" + step).getIntervalHistogram().getTotalCount());
+        }
+    }
+
+    @Test
+    public void test_failingStep() throws Exception {
+        FailingChainTest testInstance = new FailingChainTest();
+        TestContainer container = runTestContainer(testInstance, new TestCase("failingChainTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("recordFailures", true)
+                .setProperty("class", testInstance.getClass()));
+
+        assertEquals(100, testInstance.firstCalls.get());
+        assertEquals(50, testInstance.lastCalls.get());
+
+        StripedHdrProbe chainProbe = getProbe(container, "update");
+        assertEquals(50, chainProbe.getIntervalHistogram().getTotalCount());
+        assertEquals(50, chainProbe.getFailureIntervalHistogram(null).getTotalCount());
+        assertEquals(50, getProbe(container, "update-first").getIntervalHistogram().getTotalCount());
+        assertEquals(50, getProbe(container, "update-last").getIntervalHistogram().getTotalCount());
+    }
+
+    @Test
+    public void test_countingProbe() throws Exception {
+        ChainTest testInstance = new ChainTest();
+        TestContainer container = runTestContainer(testInstance, new TestCase("chainTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("measureLatency", false)
+                .setProperty("class", testInstance.getClass()));
+
+        assertEquals(100, testInstance.threadState.calls.size());
+        assertFalse(container.getProbeMap().containsKey("update-get"));
+    }
+
+    private static StripedHdrProbe getProbe(TestContainer container, String probeName) {
+        return assertInstanceOf(StripedHdrProbe.class, container.getProbeMap().get(probeName));
+    }
+
+    public static class ChainTest extends AbstractTest {
+        private final AtomicLong chainCalls = new AtomicLong();
+        private volatile ThreadState threadState;
+
+        @TimeStep(steps = {"lock", "get", "put", "unlock"})
+        public void update(ThreadState state) {
+            chainCalls.incrementAndGet();
+        }
+
+        public void lock(ThreadState state) {
+            threadState = state;
+            state.calls.add(new ArrayList<String>());
+            state.record("lock");
+        }
+
+        public void get(ThreadState state) {
+            state.record("get");
+        }
+
+        public void put(ThreadState state) {
+            state.record("put");
+        }
+
+        public void unlock(ThreadState state) {
+            state.record("unlock");
+        }
+
+        public static class ThreadState {
+            private final List<List<String>> calls = new ArrayList<List<String>>();
+
+            private void record(String step) {
+                calls.get(calls.size() - 1).add(step);
+            }
+        }
+    }
+
+    public static class FailingChainTest extends AbstractTest {
+        private final AtomicLong firstCalls = new AtomicLong();
+        private final AtomicLong lastCalls = new AtomicLong();
+
+        @TimeStep(steps = {"first", "last"})
+        public void update() {
+        }
+
+        public void first() {
+            if (firstCalls.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("expected");
+            }
+        }
+
+        public void last() {
+            lastCalls.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.worker.testcontainer.TestContainer_TimeStep_AsyncTest.MixedTest;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.CORRECTED_PROBE_SUFFIX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the latencies of a closed-loop test are recorded corrected for coordinated omission next to the raw latencies.
+ */
+public class TestContainer_TimeStep_CoordinatedOmissionTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        StallingTest testInstance = new StallingTest();
+        TestCase testCase = new TestCase("coordinatedOmissionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("correctCoordinatedOmission", true)
+                .setProperty("coordinatedOmissionExpectedInterval", "1ms")
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+        assertEquals(100, testInstance.count.get());
+
+        StripedHdrProbe probe = assertInstanceOf(StripedHdrProbe.class, container.getProbeMap().get("timeStep"));
+        StripedHdrProbe correctedProbe = assertInstanceOf(StripedHdrProbe.class,
+                container.getProbeMap().get("timeStep" + CORRECTED_PROBE_SUFFIX));
+
+        Histogram histogram = probe.getIntervalHistogram();
+        Histogram correctedHistogram = correctedProbe.getIntervalHistogram();
+        assertEquals(100, histogram.getTotalCount());
+        // the stall of 50 ms is corrected by recording the requests which would have been issued during the stall
+        assertTrue(correctedHistogram.getTotalCount() > histogram.getTotalCount());
+        assertEquals(histogram.getMaxValue(), correctedHistogram.getMaxValue());
+    }
+
+    @Test
+    public void test_disabled() throws Exception {
+        StallingTest testInstance = new StallingTest();
+        TestCase testCase = new TestCase("coordinatedOmissionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+        assertEquals(100, testInstance.count.get());
+
+        assertFalse(container.getProbeMap().containsKey("timeStep" + CORRECTED_PROBE_SUFFIX));
+    }
+
+    @Test
+    public void test_notForAsyncMethods() throws Exception {
+        MixedTest testInstance = new MixedTest();
+        TestCase testCase = new TestCase("coordinatedOmissionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("correctCoordinatedOmission", true)
+                .setProperty("asyncProb", 0.5)
+                .setProperty("syncProb", 0.5)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertTrue(container.getProbeMap().containsKey("sync" + CORRECTED_PROBE_SUFFIX));
+        assertFalse(container.getProbeMap().containsKey("async" + CORRECTED_PROBE_SUFFIX));
+    }
+
+    @Test
+    public void test_notForLatencySampledMethods() throws Exception {
+        SampledTest testInstance = new SampledTest();
+        TestCase testCase = new TestCase("coordinatedOmissionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("correctCoordinatedOmission", true)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        assertTrue(container.getProbeMap().containsKey("unsampled" + CORRECTED_PROBE_SUFFIX));
+        assertFalse(container.getProbeMap().containsKey("sampled" + CORRECTED_PROBE_SUFFIX));
+    }
+
+    public static class StallingTest extends AbstractTest {
+        private final AtomicLong count = new AtomicLong();
+
+        @TimeStep
+        public void timeStep() {
+            if (count.incrementAndGet() == 50) {
+                sleepMillis(50);
+            }
+        }
+    }
+
+    public static class SampledTest extends AbstractTest {
+
+        @TimeStep(prob = 0.5, latencySampleInterval = 10)
+        public void sampled() {
+        }
+
+        @TimeStep(prob = -1)
+        public void unsampled() {
+        }
+    }
+}
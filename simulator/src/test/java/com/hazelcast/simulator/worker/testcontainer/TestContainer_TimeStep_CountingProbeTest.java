@@ -0,0 +1,66 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.probes.impl.CountingProbe;
+import com.hazelcast.simulator.protocol.connector.WorkerConnector;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that the operations per timestep method are counted when latency is not measured.
+ */
+public class TestContainer_TimeStep_CountingProbeTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        CountingTest testInstance = new CountingTest();
+        TestCase testCase = new TestCase("countingTest")
+                .setProperty("threadCount", 2)
+                .setProperty("iterations", 1000)
+                .setProperty("measureLatency", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        final TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertNoExceptions();
+
+        CountingProbe putProbe = assertInstanceOf(CountingProbe.class, container.getProbeMap().get("put"));
+        CountingProbe getProbe = assertInstanceOf(CountingProbe.class, container.getProbeMap().get("get"));
+        assertEquals(testInstance.putCount.get(), putProbe.getCount());
+        assertEquals(testInstance.getCount.get(), getProbe.getCount());
+        assertEquals(2000, putProbe.getCount() + getProbe.getCount());
+    }
+
+    public static class CountingTest extends AbstractTest {
+        private final AtomicLong putCount = new AtomicLong();
+        private final AtomicLong getCount = new AtomicLong();
+
+        @TimeStep(prob = 0.2)
+        public void put() {
+            putCount.incrementAndGet();
+        }
+
+        @TimeStep(prob = -1)
+        public void get() {
+            getCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.protocol.connector.WorkerConnector;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.CpuTimeUtils.currentThreadCpuTimeNanos;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that the iterations and CPU time of the timestep threads are tracked per execution group.
+ */
+public class TestContainer_TimeStep_CpuTimeTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        assumeTrue(currentThreadCpuTimeNanos() != -1);
+
+        TestCase testCase = new TestCase("cpuTimeTest")
+                .setProperty("group1ThreadCount", 1)
+                .setProperty("group1Iterations", 100)
+                .setProperty("group2ThreadCount", 2)
+                .setProperty("group2Iterations", 200)
+                .setProperty("class", CpuTimeTest.class);
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        TestContainer container = new TestContainer(testContext, new CpuTimeTest(), testCase);
+
+        assertEquals(-1, container.cpuTimeNanos("group1"));
+
+        container.invoke(SETUP);
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+        assertNoExceptions();
+
+        assertEquals(new HashSet<String>(asList("group1", "group2")), container.executionGroups());
+        assertEquals(100, container.iteration("group1"));
+        assertEquals(400, container.iteration("group2"));
+        // the CPU time of the completed threads is kept
+        assertTrue(container.cpuTimeNanos("group1") > 0);
+        assertTrue(container.cpuTimeNanos("group2") > container.cpuTimeNanos("group1"));
+    }
+
+    public static class CpuTimeTest {
+
+        private volatile long sink;
+
+        @TimeStep(executionGroup = "group1")
+        public void group1TimeStep() {
+            burnCpu();
+        }
+
+        @TimeStep(executionGroup = "group2")
+        public void group2TimeStep() {
+            burnCpu();
+        }
+
+        private void burnCpu() {
+            long end = System.nanoTime() + 100000;
+            while (System.nanoTime() < end) {
+                sink++;
+            }
+        }
+    }
+}
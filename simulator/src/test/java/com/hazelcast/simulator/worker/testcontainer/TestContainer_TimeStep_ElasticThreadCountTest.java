@@ -0,0 +1,229 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import com.hazelcast.simulator.utils.AssertTask;
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.spawn;
+import static com.hazelcast.simulator.common.TestPhase.RUN;
+import static com.hazelcast.simulator.utils.CommonUtils.sleepMillis;
+import static com.hazelcast.simulator.utils.TestUtils.assertCompletesEventually;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static com.hazelcast.simulator.utils.TestUtils.assertTrueEventually;
+import static java.lang.String.format;
+import static java.util.Collections.newSetFromMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the thread count of an execution group can be changed while the test is running.
+ */
+public class TestContainer_TimeStep_ElasticThreadCountTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void testSetThreadCount() throws Exception {
+        final ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCount", 1)
+                .setProperty("maxThreadCount", 4)
+                .setProperty("class", testInstance.getClass());
+
+        final TestContainer container = setupTestContainer(testInstance, testCase);
+        Future future = spawnRun(container);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertTrue(testInstance.count.get() > 1000);
+            }
+        });
+        assertEquals(1, testInstance.threads.size());
+        assertEquals(1, container.threadCount(""));
+
+        container.setThreadCount("", 4);
+        assertEquals(4, container.threadCount(""));
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(4, testInstance.threads.size());
+            }
+        });
+
+        // the parked threads don't call the timestep method anymore
+        container.setThreadCount("", 2);
+        sleepMillis(200);
+        testInstance.threads.clear();
+        sleepMillis(200);
+        assertEquals(2, testInstance.threads.size());
+
+        container.getTestContext().stop();
+        assertCompletesEventually(future);
+        assertNoExceptions();
+    }
+
+    @Test
+    public void testSetThreadCount_keepsRatePerSecond() throws Exception {
+        ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCount", 1)
+                .setProperty("maxThreadCount", 4)
+                .setProperty("ratePerSecond", 200)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = setupTestContainer(testInstance, testCase);
+        Future future = spawnRun(container);
+
+        sleepMillis(500);
+        long countWithOneThread = countPerSecond(testInstance);
+
+        container.setThreadCount("", 4);
+        sleepMillis(500);
+        long countWithFourThreads = countPerSecond(testInstance);
+
+        // the rate is configured for the execution group, so it doesn't depend on the number of active threads
+        assertBetween(150, 250, countWithOneThread);
+        assertBetween(150, 250, countWithFourThreads);
+
+        container.getTestContext().stop();
+        assertCompletesEventually(future);
+        assertNoExceptions();
+    }
+
+    @Test
+    public void testSetThreadCount_resumedRunnerDoesNotCatchUp() throws Exception {
+        ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCount", 2)
+                .setProperty("maxThreadCount", 2)
+                .setProperty("ratePerSecond", 100)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = setupTestContainer(testInstance, testCase);
+        Future future = spawnRun(container);
+
+        sleepMillis(500);
+        container.setThreadCount("", 1);
+        sleepMillis(1000);
+
+        StripedHdrProbe probe = (StripedHdrProbe) container.getProbeMap().get("timeStep");
+        // resets the interval histogram
+        probe.getIntervalHistogram();
+        long startCount = testInstance.count.get();
+        container.setThreadCount("", 2);
+        sleepMillis(500);
+        long count = testInstance.count.get() - startCount;
+        Histogram histogram = probe.getIntervalHistogram();
+
+        // a resumed runner which catches up the second it was parked would execute about 50 additional calls, each with
+        // the time since its missed start as latency
+        assertBetween(30, 70, count);
+        assertTrue("Expected a max latency below 200 ms, but was " + NANOSECONDS.toMillis(histogram.getMaxValue()) + " ms",
+                histogram.getMaxValue() < MILLISECONDS.toNanos(200));
+
+        container.getTestContext().stop();
+        assertCompletesEventually(future);
+        assertNoExceptions();
+    }
+
+    @Test
+    public void testThreadCountSchedule() throws Exception {
+        final ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCountSchedule", "1..3 step 1 every 200ms")
+                .setProperty("class", testInstance.getClass());
+
+        final TestContainer container = setupTestContainer(testInstance, testCase);
+        assertEquals(1, container.threadCount(""));
+        Future future = spawnRun(container);
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                assertEquals(3, container.threadCount(""));
+                assertEquals(3, testInstance.threads.size());
+            }
+        });
+
+        container.getTestContext().stop();
+        assertCompletesEventually(future);
+        assertNoExceptions();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetThreadCount_notElastic() throws Exception {
+        ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCount", 2)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = setupTestContainer(testInstance, testCase);
+
+        container.setThreadCount("", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetThreadCount_aboveMaxThreadCount() throws Exception {
+        ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCount", 1)
+                .setProperty("maxThreadCount", 2)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = setupTestContainer(testInstance, testCase);
+
+        container.setThreadCount("", 3);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testThreadCountAndThreadCountSchedule() throws Exception {
+        ElasticTest testInstance = new ElasticTest();
+        TestCase testCase = new TestCase("elasticTest")
+                .setProperty("threadCount", 1)
+                .setProperty("threadCountSchedule", "1..4 step 1 every 1s")
+                .setProperty("class", testInstance.getClass());
+
+        setupTestContainer(testInstance, testCase);
+    }
+
+    private static long countPerSecond(ElasticTest testInstance) {
+        long startCount = testInstance.count.get();
+        sleepMillis(1000);
+        return testInstance.count.get() - startCount;
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(format("Expected between %d and %d, but was %d", min, max, actual), actual >= min && actual <= max);
+    }
+
+    private static Future spawnRun(final TestContainer container) {
+        return spawn(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                container.invoke(RUN);
+                return null;
+            }
+        });
+    }
+
+    public static class ElasticTest {
+        private final AtomicLong count = new AtomicLong();
+        private final Set<Thread> threads = newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+        @TimeStep
+        public void timeStep() {
+            threads.add(Thread.currentThread());
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.probes.impl.CountingProbe;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.BaseThreadState;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a runner compiled with javassist behaves like a runner compiled with javac.
+ */
+public class TestContainer_TimeStep_JavassistTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test_withLatency() throws Exception {
+        JavassistTest testInstance = new JavassistTest();
+        TestCase testCase = new TestCase("javassistTest")
+                .setProperty("threadCount", 2)
+                .setProperty("iterations", 1000)
+                .setProperty("useJavassist", true)
+                .setProperty("recordFailures", true)
+                .setProperty("class", testInstance.getClass());
+
+        runTestContainer(testInstance, testCase);
+
+        assertEquals(2000, testInstance.putCount.get() + testInstance.getCount.get());
+        assertTrue(testInstance.putCount.get() > 0);
+        assertTrue(testInstance.getCount.get() > testInstance.putCount.get());
+    }
+
+    @Test
+    public void test_withCountingProbe() throws Exception {
+        JavassistTest testInstance = new JavassistTest();
+        TestCase testCase = new TestCase("javassistTest")
+                .setProperty("threadCount", 2)
+                .setProperty("iterations", 1000)
+                .setProperty("useJavassist", true)
+                .setProperty("measureLatency", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContainer container = runTestContainer(testInstance, testCase);
+
+        CountingProbe putProbe = assertInstanceOf(CountingProbe.class, container.getProbeMap().get("put"));
+        CountingProbe getProbe = assertInstanceOf(CountingProbe.class, container.getProbeMap().get("get"));
+        assertEquals(testInstance.putCount.get(), putProbe.getCount());
+        assertEquals(testInstance.getCount.get(), getProbe.getCount());
+    }
+
+    public static class JavassistTest extends AbstractTest {
+        private final AtomicLong putCount = new AtomicLong();
+        private final AtomicLong getCount = new AtomicLong();
+
+        @TimeStep(prob = 0.2)
+        public void put(BaseThreadState state) {
+            state.randomInt();
+            putCount.incrementAndGet();
+        }
+
+        @TimeStep(prob = -1)
+        public void get(BaseThreadState state) {
+            state.randomLong();
+            getCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.ProbeFamily;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
+import com.hazelcast.simulator.protocol.connector.WorkerConnector;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.StartNanos;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that a timestep method can record into a {@link ProbeFamily}.
+ */
+public class TestContainer_TimeStep_ProbeFamilyTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        ProbeFamilyTest testInstance = new ProbeFamilyTest();
+        TestCase testCase = new TestCase("probeFamilyTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("getMaxTagValues", 2)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        final TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertNoExceptions();
+
+        StripedHdrProbe evenProbe = assertInstanceOf(StripedHdrProbe.class, container.getProbeMap().get("get-even"));
+        StripedHdrProbe oddProbe = assertInstanceOf(StripedHdrProbe.class, container.getProbeMap().get("get-odd"));
+        assertEquals(50, evenProbe.getIntervalHistogram().getTotalCount());
+        assertEquals(50, oddProbe.getIntervalHistogram().getTotalCount());
+        assertFalse(container.getProbeMap().containsKey("get"));
+    }
+
+    public static class ProbeFamilyTest extends AbstractTest {
+        private final AtomicLong count = new AtomicLong();
+
+        @TimeStep
+        public void get(ProbeFamily probeFamily, @StartNanos long startNanos) {
+            Probe probe = probeFamily.withTag(count.incrementAndGet() % 2 == 0 ? "even" : "odd");
+            probe.done(startNanos);
+        }
+    }
+}
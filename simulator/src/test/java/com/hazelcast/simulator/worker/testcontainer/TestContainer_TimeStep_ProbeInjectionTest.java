@@ -3,8 +3,10 @@ package com.hazelcast.simulator.worker.testcontainer;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.simulator.common.TestCase;
 import com.hazelcast.simulator.probes.Probe;
+import com.hazelcast.simulator.probes.impl.CountingProbe;
 import com.hazelcast.simulator.probes.impl.EmptyProbe;
 import com.hazelcast.simulator.probes.impl.HdrProbe;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
 import com.hazelcast.simulator.protocol.connector.WorkerConnector;
 import com.hazelcast.simulator.test.StopException;
 import com.hazelcast.simulator.test.annotations.StartNanos;
@@ -19,6 +21,9 @@ import static com.hazelcast.simulator.TestSupport.spawn;
 import static com.hazelcast.simulator.common.TestPhase.RUN;
 import static com.hazelcast.simulator.common.TestPhase.SETUP;
 import static com.hazelcast.simulator.utils.TestUtils.assertCompletesEventually;
+import static com.hazelcast.simulator.worker.testcontainer.PropertyBinding.SERVICE_TIME_PROBE_SUFFIX;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -47,10 +52,64 @@ public class TestContainer_TimeStep_ProbeInjectionTest extends TestContainer_Abs
             }
         });
 
+        assertCompletesEventually(f);
+        assertInstanceOf(StripedHdrProbe.class, testInstance.probe);
+    }
+
+    @Test
+    public void testMeasureLatency_withoutStripedProbes() throws Exception {
+        TestClass testInstance = new TestClass();
+        TestCase testCase = new TestCase("exceptionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("measureLatency", true)
+                .setProperty("stripedProbes", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        final TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        Future f = spawn(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                container.invoke(RUN);
+                return null;
+            }
+        });
+
         assertCompletesEventually(f);
         assertInstanceOf(HdrProbe.class, testInstance.probe);
     }
 
+    @Test
+    public void testMeasureServiceTime() throws Exception {
+        TestClass testInstance = new TestClass();
+        TestCase testCase = new TestCase("exceptionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("interval", "1ms")
+                .setProperty("measureServiceTime", true)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        final TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        Future f = spawn(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                container.invoke(RUN);
+                return null;
+            }
+        });
+
+        assertCompletesEventually(f);
+        StripedHdrProbe probe = assertInstanceOf(StripedHdrProbe.class, testInstance.probe);
+        assertNotNull(probe.getServiceTimeProbe());
+        assertSame(container.getProbeMap().get("test" + SERVICE_TIME_PROBE_SUFFIX), probe.getServiceTimeProbe());
+    }
+
     @Test
     public void testNoMeasureLatency() throws Exception {
         TestClass testInstance = new TestClass();
@@ -72,6 +131,32 @@ public class TestContainer_TimeStep_ProbeInjectionTest extends TestContainer_Abs
             }
         });
 
+        assertCompletesEventually(f);
+        assertInstanceOf(CountingProbe.class, testInstance.probe);
+    }
+
+    @Test
+    public void testNoMeasureLatency_withoutCountOperations() throws Exception {
+        TestClass testInstance = new TestClass();
+        TestCase testCase = new TestCase("exceptionTest")
+                .setProperty("threadCount", 1)
+                .setProperty("measureLatency", false)
+                .setProperty("countOperations", false)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        final TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        Future f = spawn(new Callable() {
+            @Override
+            public Object call() throws Exception {
+                container.invoke(RUN);
+                return null;
+            }
+        });
+
         assertCompletesEventually(f);
         assertInstanceOf(EmptyProbe.class, testInstance.probe);
     }
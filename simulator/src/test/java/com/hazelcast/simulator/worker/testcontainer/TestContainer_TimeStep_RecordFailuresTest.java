@@ -0,0 +1,61 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.simulator.common.TestCase;
+import com.hazelcast.simulator.common.TestPhase;
+import com.hazelcast.simulator.probes.impl.StripedHdrProbe;
+import com.hazelcast.simulator.protocol.connector.WorkerConnector;
+import com.hazelcast.simulator.test.AbstractTest;
+import com.hazelcast.simulator.test.annotations.TimeStep;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.simulator.TestSupport.assertInstanceOf;
+import static com.hazelcast.simulator.common.TestPhase.SETUP;
+import static com.hazelcast.simulator.utils.TestUtils.assertNoExceptions;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests that failing timestep methods are recorded in their probe when failures are recorded.
+ */
+public class TestContainer_TimeStep_RecordFailuresTest extends TestContainer_AbstractTest {
+
+    @Test
+    public void test() throws Exception {
+        FailingTest testInstance = new FailingTest();
+        TestCase testCase = new TestCase("recordFailuresTest")
+                .setProperty("threadCount", 1)
+                .setProperty("iterations", 100)
+                .setProperty("recordFailures", true)
+                .setProperty("class", testInstance.getClass());
+
+        TestContextImpl testContext = new TestContextImpl(
+                mock(HazelcastInstance.class), testCase.getId(), "localhost", mock(WorkerConnector.class));
+        final TestContainer container = new TestContainer(testContext, testInstance, testCase);
+        container.invoke(SETUP);
+
+        for (TestPhase phase : TestPhase.values()) {
+            container.invoke(phase);
+        }
+
+        assertNoExceptions();
+        assertEquals(100, testInstance.count.get());
+
+        StripedHdrProbe probe = assertInstanceOf(StripedHdrProbe.class, container.getProbeMap().get("timeStep"));
+        assertEquals(50, probe.getIntervalHistogram().getTotalCount());
+        assertEquals(50, probe.getFailureIntervalHistogram(null).getTotalCount());
+    }
+
+    public static class FailingTest extends AbstractTest {
+        private final AtomicLong count = new AtomicLong();
+
+        @TimeStep
+        public void timeStep() {
+            if (count.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("expected");
+            }
+        }
+    }
+}
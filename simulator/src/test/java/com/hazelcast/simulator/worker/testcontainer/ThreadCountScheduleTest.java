@@ -0,0 +1,59 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+
+public class ThreadCountScheduleTest {
+
+    @Test
+    public void testParse() {
+        ThreadCountSchedule schedule = ThreadCountSchedule.parse("threadCountSchedule", "4..64 step 4 every 60s");
+
+        assertEquals(4, schedule.getInitialThreadCount());
+        assertEquals(64, schedule.getMaxThreadCount());
+        assertEquals(SECONDS.toNanos(60), schedule.getPeriodNanos());
+    }
+
+    @Test
+    public void testThreadCountAt_increasing() {
+        ThreadCountSchedule schedule = ThreadCountSchedule.parse("threadCountSchedule", "4..10 step 4 every 1s");
+
+        assertEquals(4, schedule.threadCountAt(0));
+        assertEquals(4, schedule.threadCountAt(SECONDS.toNanos(1) - 1));
+        assertEquals(8, schedule.threadCountAt(SECONDS.toNanos(1)));
+        assertEquals(10, schedule.threadCountAt(SECONDS.toNanos(2)));
+        assertEquals(10, schedule.threadCountAt(SECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void testThreadCountAt_decreasing() {
+        ThreadCountSchedule schedule = ThreadCountSchedule.parse("threadCountSchedule", "16..1 step 5 every 1s");
+
+        assertEquals(16, schedule.getInitialThreadCount());
+        assertEquals(16, schedule.getMaxThreadCount());
+        assertEquals(11, schedule.threadCountAt(SECONDS.toNanos(1)));
+        assertEquals(1, schedule.threadCountAt(SECONDS.toNanos(4)));
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testParse_noSchedule() {
+        ThreadCountSchedule.parse("threadCountSchedule", "10");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testParse_zeroThreads() {
+        ThreadCountSchedule.parse("threadCountSchedule", "0..4 step 1 every 1s");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testParse_zeroStep() {
+        ThreadCountSchedule.parse("threadCountSchedule", "1..4 step 0 every 1s");
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testParse_missingTimeUnit() {
+        ThreadCountSchedule.parse("threadCountSchedule", "1..4 step 1 every 10");
+    }
+}
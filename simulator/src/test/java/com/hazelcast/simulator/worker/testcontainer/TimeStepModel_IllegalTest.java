@@ -222,6 +222,65 @@ public class TimeStepModel_IllegalTest {
                 + "}\n");
     }
 
+    // ====================== steps ===========================
+
+    @Test
+    public void test_steps_missingStep() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\", \"put\"}) public void chain(){}\n"
+                + "public void get(){}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void test_steps_duplicateStep() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\", \"get\"}) public void chain(){}\n"
+                + "public void get(){}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void test_steps_overloadedStep() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\"}) public void chain(){}\n"
+                + "public void get(){}\n"
+                + "public void get(Object state){}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void test_steps_stepWithTooManyArguments() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\"}) public void chain(){}\n"
+                + "public void get(Object state, Object other){}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void test_steps_stepWithProbe() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\"}) public void chain(){}\n"
+                + "public void get(com.hazelcast.simulator.probes.Probe probe){}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void test_steps_chainWithProbe() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\"}) public void chain(com.hazelcast.simulator.probes.Probe probe){}\n"
+                + "public void get(){}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void test_steps_differentThreadState() {
+        assertBroken("class CLAZZ{\n"
+                + "@TimeStep(steps={\"get\"}) public void chain(ArrayList state){}\n"
+                + "public void get(LinkedList state){}\n"
+                + "}\n");
+    }
+
     // ===========================================
 
     @Test
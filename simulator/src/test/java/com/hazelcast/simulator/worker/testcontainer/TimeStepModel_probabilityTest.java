@@ -8,6 +8,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
+import static com.hazelcast.simulator.worker.testcontainer.Probability.THRESHOLD_RANGE;
+import static java.lang.Math.round;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -22,7 +25,7 @@ public class TimeStepModel_probabilityTest {
                 + "}\n", probs);
 
         assertProbability(model, "timeStep1", 1.0);
-        assertNull(model.getTimeStepProbabilityArray(""));
+        assertNull(model.getTimeStepThresholds(""));
     }
 
     private void assertProbability(TimeStepModel model, String method, double value) {
@@ -90,7 +93,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 1.0);
         assertProbability(model, "timeStep2", 0.0);
-        assertNull(model.getTimeStepProbabilityArray(""));
+        assertNull(model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -110,8 +113,8 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "b", "b1", 0.20);
         assertProbability(model, "b", "b2", 0.80);
 
-        assertNotNull(model.getTimeStepProbabilityArray("a"));
-        assertNotNull(model.getTimeStepProbabilityArray("b"));
+        assertNotNull(model.getTimeStepThresholds("a"));
+        assertNotNull(model.getTimeStepThresholds("b"));
     }
 
     @Test
@@ -134,8 +137,8 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "b", "b1", 0.03);
         assertProbability(model, "b", "b2", 0.97);
 
-        assertNotNull(model.getTimeStepProbabilityArray("a"));
-        assertNotNull(model.getTimeStepProbabilityArray("b"));
+        assertNotNull(model.getTimeStepThresholds("a"));
+        assertNotNull(model.getTimeStepThresholds("b"));
     }
 
     @Test
@@ -152,7 +155,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.001);
         assertProbability(model, "b", 0.999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -167,7 +170,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.0001);
         assertProbability(model, "b", 0.9999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -182,7 +185,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.00001);
         assertProbability(model, "b", 0.99999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -197,7 +200,7 @@ public class TimeStepModel_probabilityTest {
         assertProbability(model, "a", 0.000001);
         assertProbability(model, "b", 0.999999);
 
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertArrayEquals(new long[]{round(0.000001 * THRESHOLD_RANGE)}, model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -211,7 +214,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 1.0);
         assertProbability(model, "timeStep2", 0.0);
-        assertNull(model.getTimeStepProbabilityArray(""));
+        assertNull(model.getTimeStepThresholds(""));
     }
 
 
@@ -227,7 +230,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 0.5);
         assertProbability(model, "timeStep2", 0.5);
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -241,7 +244,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 0.2);
         assertProbability(model, "timeStep2", 0.8);
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertArrayEquals(new long[]{round(0.2 * THRESHOLD_RANGE)}, model.getTimeStepThresholds(""));
     }
 
     @Test
@@ -257,7 +260,7 @@ public class TimeStepModel_probabilityTest {
 
         assertProbability(model, "timeStep1", 0.3);
         assertProbability(model, "timeStep2", 0.7);
-        assertNotNull(model.getTimeStepProbabilityArray(""));
+        assertNotNull(model.getTimeStepThresholds(""));
     }
 
     private TimeStepModel loadModel(String code, Map<String, Double> probs) {
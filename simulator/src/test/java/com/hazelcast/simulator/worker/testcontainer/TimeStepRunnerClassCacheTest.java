@@ -0,0 +1,94 @@
+package com.hazelcast.simulator.worker.testcontainer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+
+import static com.hazelcast.simulator.TestEnvironmentUtils.setupFakeUserDir;
+import static com.hazelcast.simulator.TestEnvironmentUtils.teardownFakeUserDir;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimeStepRunnerClassCacheTest {
+
+    private final ClassLoader classLoader = getClass().getClassLoader();
+
+    private File directory;
+    private TimeStepRunnerClassCache cache;
+
+    @Before
+    public void before() {
+        directory = new File(setupFakeUserDir(), "cache");
+        cache = new TimeStepRunnerClassCache(directory);
+        TimeStepRunnerClassCache.clear();
+    }
+
+    @After
+    public void after() {
+        TimeStepRunnerClassCache.clear();
+        teardownFakeUserDir();
+    }
+
+    @Test
+    public void testHash() {
+        assertEquals(TimeStepRunnerClassCache.hash("foo"), TimeStepRunnerClassCache.hash("foo"));
+        assertNotEquals(TimeStepRunnerClassCache.hash("foo"), TimeStepRunnerClassCache.hash("bar"));
+    }
+
+    @Test
+    public void testGet_whenNotCached() {
+        assertNull(cache.get("CachedRunner", classLoader));
+    }
+
+    @Test
+    public void testPut_thenCachedInMemory() {
+        Class clazz = cache.put("CachedRunner", compile("CachedRunner"), classLoader);
+
+        assertEquals("CachedRunner", clazz.getName());
+        assertSame(classLoader, clazz.getClassLoader().getParent());
+        assertSame(clazz, cache.get("CachedRunner", classLoader));
+    }
+
+    @Test
+    public void testPut_thenCachedOnDisk() {
+        Class clazz = cache.put("CachedRunner", compile("CachedRunner"), classLoader);
+        TimeStepRunnerClassCache.clear();
+
+        Class cachedClass = new TimeStepRunnerClassCache(directory).get("CachedRunner", classLoader);
+
+        assertTrue(new File(directory, "CachedRunner.class").exists());
+        assertNotNull(cachedClass);
+        assertNotSame(clazz, cachedClass);
+        assertEquals("CachedRunner", cachedClass.getName());
+    }
+
+    private byte[] compile(String className) {
+        return new TimeStepRunnerCodeGenerator(directory)
+                .compile(ToolProvider.getSystemJavaCompiler(), new Source(className), className);
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String className;
+
+        private Source(String className) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.className = className;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return "public class " + className + " {}";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.hazelcast.simulator.worker.trace;
+
+import com.hazelcast.simulator.test.IllegalTestException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static com.hazelcast.simulator.utils.FileUtils.deleteQuiet;
+import static com.hazelcast.simulator.utils.FileUtils.writeText;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.RECORD_SIZE;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.REGION_SIZE;
+import static com.hazelcast.simulator.worker.trace.OperationTrace.getTraceFile;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OperationTraceTest {
+
+    private static final long ORIGIN_NANOS = 1000;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("operationTrace", ".trace");
+    }
+
+    @After
+    public void tearDown() {
+        deleteQuiet(file);
+    }
+
+    @Test
+    public void testGetTraceFile() {
+        assertEquals(new File("/tmp/maptest-3.trace"), getTraceFile("/tmp/maptest", "", 3));
+        assertEquals(new File("/tmp/maptest-readers-3.trace"), getTraceFile("/tmp/maptest", "readers", 3));
+    }
+
+    @Test
+    public void testEmpty() {
+        OperationTraceWriter writer = new OperationTraceWriter(file, asList("get", "put"), ORIGIN_NANOS);
+        writer.close();
+
+        OperationTraceReader reader = new OperationTraceReader(file);
+        assertEquals(asList("get", "put"), reader.getMethodNames());
+        assertEquals(0, reader.getRecordCount());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        OperationTraceWriter writer = new OperationTraceWriter(file, asList("get", "put"), ORIGIN_NANOS);
+        writer.record(ORIGIN_NANOS + 10, 0, 5);
+        writer.record(ORIGIN_NANOS + 20, 1, -1);
+        writer.close();
+
+        OperationTraceReader reader = new OperationTraceReader(file);
+        assertEquals(2, reader.getRecordCount());
+
+        assertTrue(reader.next());
+        assertEquals(10, reader.offsetNanos());
+        assertEquals(0, reader.methodIndex());
+        assertEquals(5, reader.keyIndex());
+
+        assertTrue(reader.next());
+        assertEquals(20, reader.offsetNanos());
+        assertEquals(1, reader.methodIndex());
+        assertEquals(-1, reader.keyIndex());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void testRoundTrip_multipleRegions() {
+        int recordCount = REGION_SIZE / RECORD_SIZE * 2 + 10;
+        OperationTraceWriter writer = new OperationTraceWriter(file, asList("get", "put", "remove"), ORIGIN_NANOS);
+        for (int i = 0; i < recordCount; i++) {
+            writer.record(ORIGIN_NANOS + i, i % 3, i);
+        }
+        writer.close();
+
+        OperationTraceReader reader = new OperationTraceReader(file);
+        assertEquals(recordCount, reader.getRecordCount());
+        for (int i = 0; i < recordCount; i++) {
+            assertTrue(reader.next());
+            assertEquals(i, reader.offsetNanos());
+            assertEquals(i % 3, reader.methodIndex());
+            assertEquals(i, reader.keyIndex());
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testRead_whenNoTrace() {
+        writeText("this is not an operation trace", file);
+
+        new OperationTraceReader(file);
+    }
+
+    @Test(expected = IllegalTestException.class)
+    public void testRead_whenTruncated() throws IOException {
+        OperationTraceWriter writer = new OperationTraceWriter(file, asList("get"), ORIGIN_NANOS);
+        writer.record(ORIGIN_NANOS, 0, 0);
+        writer.record(ORIGIN_NANOS, 0, 0);
+        writer.close();
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(randomAccessFile.length() - 1);
+        } finally {
+            randomAccessFile.close();
+        }
+
+        new OperationTraceReader(file);
+    }
+}
@@ -56,14 +56,15 @@ public final class KeyUtils {
         return owner.equals(instance.getLocalEndpoint());
     }
 
-    private static KeyGenerator<Integer> newIntKeyGenerator(HazelcastInstance hz, KeyLocality keyLocality, int keyCount) {
+    private static KeyGenerator<Integer> newIntKeyGenerator(HazelcastInstance hz, KeyLocality keyLocality, int keyCount,
+                                                            Random random) {
         switch (keyLocality) {
             case LOCAL:
-                return new BalancedIntKeyGenerator(hz, keyLocality, keyCount);
+                return new BalancedIntKeyGenerator(hz, keyLocality, keyCount, random);
             case REMOTE:
-                return new BalancedIntKeyGenerator(hz, keyLocality, keyCount);
+                return new BalancedIntKeyGenerator(hz, keyLocality, keyCount, random);
             case RANDOM:
-                return new BalancedIntKeyGenerator(hz, keyLocality, keyCount);
+                return new BalancedIntKeyGenerator(hz, keyLocality, keyCount, random);
             case SINGLE_PARTITION:
                 return new SinglePartitionIntKeyGenerator();
             default:
@@ -72,14 +73,14 @@ public final class KeyUtils {
     }
 
     private static KeyGenerator<String> newStringKeyGenerator(
-            HazelcastInstance hz, KeyLocality keyLocality, int keyCount, int keyLength, String prefix) {
+            HazelcastInstance hz, KeyLocality keyLocality, int keyCount, int keyLength, String prefix, Random random) {
         switch (keyLocality) {
             case LOCAL:
-                return new BalancedStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix);
+                return new BalancedStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix, random);
             case REMOTE:
-                return new BalancedStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix);
+                return new BalancedStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix, random);
             case RANDOM:
-                return new BalancedStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix);
+                return new BalancedStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix, random);
             case SINGLE_PARTITION:
                 return new SinglePartitionStringKeyGenerator(keyLength, prefix);
             default:
@@ -98,7 +99,23 @@ public final class KeyUtils {
      * @return the created array of keys
      */
     public static int[] generateIntKeys(int keyCount, KeyLocality keyLocality, HazelcastInstance hz) {
-        KeyGenerator<Integer> keyGenerator = newIntKeyGenerator(hz, keyLocality, keyCount);
+        return generateIntKeys(keyCount, keyLocality, hz, new Random());
+    }
+
+    /**
+     * Generates an array of int keys with a configurable keyLocality using the given random, so a seeded random generates
+     * the same keys on every run with the same cluster layout.
+     *
+     * If the instance is a client, keyLocality is ignored.
+     *
+     * @param keyCount    the number of keys in the array
+     * @param keyLocality if the key is local/remote/random
+     * @param hz          the HazelcastInstance that is used for keyLocality
+     * @param random      the random used to generate the keys, e.g. seeded with {@code testContext.getSeed()}
+     * @return the created array of keys
+     */
+    public static int[] generateIntKeys(int keyCount, KeyLocality keyLocality, HazelcastInstance hz, Random random) {
+        KeyGenerator<Integer> keyGenerator = newIntKeyGenerator(hz, keyLocality, keyCount, random);
 
         int[] keys = new int[keyCount];
         for (int i = 0; i < keys.length; i++) {
@@ -118,7 +135,23 @@ public final class KeyUtils {
      * @return the created array of keys
      */
     public static Integer[] generateIntegerKeys(int keyCount, KeyLocality keyLocality, HazelcastInstance hz) {
-        KeyGenerator<Integer> keyGenerator = newIntKeyGenerator(hz, keyLocality, keyCount);
+        return generateIntegerKeys(keyCount, keyLocality, hz, new Random());
+    }
+
+    /**
+     * Generates an array of int keys with a configurable keyLocality using the given random.
+     *
+     * If the instance is a client, keyLocality is ignored.
+     *
+     * @param keyCount    the number of keys in the array
+     * @param keyLocality if the key is local/remote/random
+     * @param hz          the HazelcastInstance that is used for keyLocality
+     * @param random      the random used to generate the keys
+     * @return the created array of keys
+     * @see #generateIntKeys(int, KeyLocality, HazelcastInstance, Random)
+     */
+    public static Integer[] generateIntegerKeys(int keyCount, KeyLocality keyLocality, HazelcastInstance hz, Random random) {
+        KeyGenerator<Integer> keyGenerator = newIntKeyGenerator(hz, keyLocality, keyCount, random);
 
         Integer[] keys = new Integer[keyCount];
         for (int i = 0; i < keys.length; i++) {
@@ -136,7 +169,8 @@ public final class KeyUtils {
      * @return the created key
      */
     public static String generateStringKey(int keyLength, KeyLocality keyLocality, HazelcastInstance hz) {
-        KeyGenerator<String> keyGenerator = newStringKeyGenerator(hz, keyLocality, Integer.MAX_VALUE, keyLength, "");
+        KeyGenerator<String> keyGenerator = newStringKeyGenerator(
+                hz, keyLocality, Integer.MAX_VALUE, keyLength, "", new Random());
         return keyGenerator.next();
     }
 
@@ -185,10 +219,27 @@ public final class KeyUtils {
      */
     public static String[] generateStringKeys(String prefix, int keyCount, int keyLength, KeyLocality keyLocality,
                                               HazelcastInstance hz) {
+        return generateStringKeys(prefix, keyCount, keyLength, keyLocality, hz, new Random());
+    }
 
-
+    /**
+     * Generates an array of string keys with a configurable keyLocality using the given random.
+     *
+     * If the hz is a client, keyLocality is ignored.
+     *
+     * @param prefix      prefix for the generated keys
+     * @param keyCount    the number of keys in the array
+     * @param keyLength   the length of each string key
+     * @param keyLocality if the key is local/remote/random
+     * @param hz          the HazelcastInstance that is used for keyLocality
+     * @param random      the random used to generate the keys
+     * @return the created array of keys
+     * @see #generateIntKeys(int, KeyLocality, HazelcastInstance, Random)
+     */
+    public static String[] generateStringKeys(String prefix, int keyCount, int keyLength, KeyLocality keyLocality,
+                                              HazelcastInstance hz, Random random) {
         String[] keys = new String[keyCount];
-        KeyGenerator<String> keyGenerator = newStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix);
+        KeyGenerator<String> keyGenerator = newStringKeyGenerator(hz, keyLocality, keyCount, keyLength, prefix, random);
         for (int i = 0; i < keys.length; i++) {
             keys[i] = keyGenerator.next();
         }
@@ -202,7 +253,7 @@ public final class KeyUtils {
 
     abstract static class BalancedKeyGenerator<K> implements KeyGenerator<K> {
 
-        protected final Random random = new Random();
+        protected final Random random;
         protected final HazelcastInstance hz;
         protected final int keyCount;
 
@@ -212,7 +263,8 @@ public final class KeyUtils {
         private final KeyLocality keyLocality;
 
         @SuppressWarnings("unchecked")
-        BalancedKeyGenerator(HazelcastInstance hz, KeyLocality keyLocality, int keyCount) {
+        BalancedKeyGenerator(HazelcastInstance hz, KeyLocality keyLocality, int keyCount, Random random) {
+            this.random = random;
             this.hz = hz;
             this.keyLocality = keyLocality;
             this.keyCount = keyCount;
@@ -337,8 +389,8 @@ public final class KeyUtils {
 
     private static final class BalancedIntKeyGenerator extends BalancedKeyGenerator<Integer> {
 
-        private BalancedIntKeyGenerator(HazelcastInstance hz, KeyLocality keyLocality, int keyCount) {
-            super(hz, keyLocality, keyCount);
+        private BalancedIntKeyGenerator(HazelcastInstance hz, KeyLocality keyLocality, int keyCount, Random random) {
+            super(hz, keyLocality, keyCount, random);
         }
 
         @Override
@@ -353,8 +405,8 @@ public final class KeyUtils {
         private final String prefix;
 
         private BalancedStringKeyGenerator(
-                HazelcastInstance hz, KeyLocality keyLocality, int keyCount, int keyLength, String prefix) {
-            super(hz, keyLocality, keyCount);
+                HazelcastInstance hz, KeyLocality keyLocality, int keyCount, int keyLength, String prefix, Random random) {
+            super(hz, keyLocality, keyCount, random);
             this.keyLength = keyLength;
             this.prefix = prefix;
         }
@@ -362,9 +414,9 @@ public final class KeyUtils {
         @Override
         protected String generateKey() {
             if (prefix.length() == 0) {
-                return generateString(keyLength);
+                return generateString(random, keyLength);
             } else {
-                return prefix + generateString(keyLength - prefix.length());
+                return prefix + generateString(random, keyLength - prefix.length());
             }
         }
     }